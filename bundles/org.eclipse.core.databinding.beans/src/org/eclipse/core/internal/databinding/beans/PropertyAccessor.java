@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads and writes a property through method handles, which are created once
+ * from the accessor methods of its {@link PropertyDescriptor}. Unlike
+ * {@link BeanPropertyHelper#readProperty(Object, PropertyDescriptor)} and
+ * {@link BeanPropertyHelper#writeProperty(Object, PropertyDescriptor, Object)},
+ * a call does not use reflection nor allocate an argument array.
+ * <p>
+ * The calls which would fail before reaching the accessor method, because the
+ * property has no such method, the source is not an instance of its class or
+ * the value cannot be converted to its parameter type, are delegated to
+ * <code>BeanPropertyHelper</code>, so that they are reported the same way.
+ * </p>
+ * <p>
+ * The method handles are cached by the declaring class and the method, so
+ * that the properties created for the same accessor methods share them.
+ * </p>
+ */
+public final class PropertyAccessor {
+	private static final MethodType READER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private static final MethodType WRITER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/**
+	 * The method handles of the accessor methods, by their declaring class.
+	 * Being stored with the class, they do not keep its class loader alive.
+	 */
+	private static final ClassValue<Map<Method, MethodHandle>> HANDLES = new ClassValue<Map<Method, MethodHandle>>() {
+		@Override
+		protected Map<Method, MethodHandle> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private final PropertyDescriptor propertyDescriptor;
+
+	private final MethodHandle reader;
+
+	private final Class<?> readerClass;
+
+	private final MethodHandle writer;
+
+	private final Class<?> writerClass;
+
+	private final Class<?> writerValueClass;
+
+	private final boolean writerValueRequired;
+
+	/**
+	 * @param propertyDescriptor
+	 *            the descriptor of the property
+	 */
+	public PropertyAccessor(PropertyDescriptor propertyDescriptor) {
+		this.propertyDescriptor = propertyDescriptor;
+		Method readMethod = propertyDescriptor.getReadMethod();
+		reader = unreflect(readMethod, READER_TYPE);
+		readerClass = reader == null ? null : readMethod.getDeclaringClass();
+		Method writeMethod = propertyDescriptor.getWriteMethod();
+		writer = unreflect(writeMethod, WRITER_TYPE);
+		if (writer == null) {
+			writerClass = null;
+			writerValueClass = null;
+			writerValueRequired = false;
+		} else {
+			Class<?> parameterType = writeMethod.getParameterTypes()[0];
+			writerClass = writeMethod.getDeclaringClass();
+			writerValueClass = MethodType.methodType(parameterType).wrap().returnType();
+			writerValueRequired = parameterType.isPrimitive();
+		}
+	}
+
+	private static MethodHandle unreflect(Method method, MethodType type) {
+		if (method == null) {
+			return null;
+		}
+		Map<Method, MethodHandle> handles = HANDLES.get(method.getDeclaringClass());
+		MethodHandle handle = handles.get(method);
+		if (handle == null) {
+			// not cached when it fails, since the property then uses reflection
+			handle = createHandle(method, type);
+			if (handle != null) {
+				handles.putIfAbsent(method, handle);
+			}
+		}
+		return handle;
+	}
+
+	private static MethodHandle createHandle(Method method, MethodType type) {
+		try {
+			if (!method.isAccessible()) {
+				method.setAccessible(true);
+			}
+			return MethodHandles.lookup().unreflect(method).asType(type);
+		} catch (IllegalAccessException | RuntimeException e) {
+			// use reflection, which reports the failure on each call
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the value of the property for the given source.
+	 *
+	 * @param source
+	 *            the source bean
+	 * @return the value of the property
+	 * @see BeanPropertyHelper#readProperty(Object, PropertyDescriptor)
+	 */
+	public Object read(Object source) {
+		if (reader == null || !readerClass.isInstance(source)) {
+			return BeanPropertyHelper.readProperty(source, propertyDescriptor);
+		}
+		try {
+			return reader.invokeExact(source);
+		} catch (Throwable e) {
+			// thrown by the read method
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Sets the value of the property for the given source.
+	 *
+	 * @param source
+	 *            the source bean
+	 * @param value
+	 *            the new value of the property
+	 * @see BeanPropertyHelper#writeProperty(Object, PropertyDescriptor,
+	 *      Object)
+	 */
+	public void write(Object source, Object value) {
+		if (writer == null || !writerClass.isInstance(source)
+				|| (value == null ? writerValueRequired : !writerValueClass.isInstance(value))) {
+			BeanPropertyHelper.writeProperty(source, propertyDescriptor, value);
+			return;
+		}
+		try {
+			writer.invokeExact(source, value);
+		} catch (Throwable e) {
+			// thrown by the write method
+			throw new RuntimeException(e);
+		}
+	}
+}
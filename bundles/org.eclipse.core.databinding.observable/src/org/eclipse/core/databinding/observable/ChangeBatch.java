@@ -0,0 +1,395 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.core.databinding.observable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.databinding.observable.list.ListChangeEvent;
+import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+import org.eclipse.core.databinding.observable.map.MapChangeEvent;
+import org.eclipse.core.databinding.observable.map.MapDiff;
+import org.eclipse.core.databinding.observable.set.SetChangeEvent;
+import org.eclipse.core.databinding.observable.value.ValueChangeEvent;
+
+/**
+ * Collects the change events fired by the observables of a realm during
+ * {@link Observables#batch(Realm, Runnable)}, and fires them when the batch
+ * ends.
+ * <p>
+ * The value, list, set and map change events of an observable are merged by
+ * type into a single event whose diff describes all the changes of the batch.
+ * The other events are fired immediately: the generic {@link ChangeEvent}s,
+ * so that the observables computed from the changed ones, such as
+ * <code>ComputedValue</code>, are invalidated and return up to date values
+ * within the batch, as well as the stale events and the vetoable value
+ * changing events.
+ * </p>
+ * <p>
+ * The merged events are fired to the listeners which were registered when the
+ * changes occurred: when a listener is added or removed during the batch, the
+ * later events of the type are merged separately. The merged diffs without
+ * any net change are not fired. The new value of the merged value change
+ * events is only requested at the end of the batch, so that a computed value
+ * is not recomputed for each change of its dependencies.
+ * </p>
+ */
+/* package */final class ChangeBatch {
+
+	/**
+	 * The observables which fired events in the batch, in the order of their
+	 * first event.
+	 */
+	private final List<ChangeManager> managers = new ArrayList<>();
+
+	private final Map<ChangeManager, List<PendingEvent>> pendingEvents = new IdentityHashMap<>();
+
+	/**
+	 * Runs the given runnable in a batch of the given realm, or in the
+	 * current batch if the realm has one.
+	 *
+	 * @param realm
+	 *            the realm, which must be current
+	 * @param runnable
+	 *            the runnable
+	 */
+	static void run(Realm realm, Runnable runnable) {
+		if (realm.batch != null) {
+			runnable.run();
+			return;
+		}
+		ChangeBatch batch = new ChangeBatch();
+		realm.batch = batch;
+		try {
+			runnable.run();
+		} finally {
+			// the listeners may change the observables again, their events
+			// are fired immediately
+			realm.batch = null;
+			batch.fire();
+		}
+	}
+
+	/**
+	 * Adds the given event of the given observable to the batch.
+	 *
+	 * @param manager
+	 *            the observable which fires the event
+	 * @param event
+	 *            the event
+	 * @return <code>true</code> if the event is fired at the end of the batch,
+	 *         <code>false</code> if it must be fired immediately
+	 */
+	boolean add(ChangeManager manager, ObservableEvent event) {
+		Object listenerType = event.getListenerType();
+		Object[] listeners = manager.getListeners(listenerType);
+		PendingEvent pending = null;
+		List<PendingEvent> events = pendingEvents.get(manager);
+		if (events != null) {
+			// the latest events of the type, if they have the same listeners
+			for (int i = events.size() - 1; i >= 0; i--) {
+				PendingEvent candidate = events.get(i);
+				if (candidate.listenerType == listenerType) {
+					if (sameListeners(candidate.listeners, listeners)) {
+						pending = candidate;
+					}
+					break;
+				}
+			}
+		}
+		if (pending == null) {
+			pending = createPendingEvent(event, listeners);
+			if (pending == null) {
+				return false;
+			}
+			if (events == null) {
+				events = new ArrayList<>(2);
+				pendingEvents.put(manager, events);
+				managers.add(manager);
+			}
+			events.add(pending);
+		}
+		pending.add(event);
+		return true;
+	}
+
+	private static PendingEvent createPendingEvent(ObservableEvent event, Object[] listeners) {
+		if (event instanceof ValueChangeEvent) {
+			return new PendingValueChange(event, listeners);
+		} else if (event instanceof ListChangeEvent) {
+			return new PendingListChange(event, listeners);
+		} else if (event instanceof SetChangeEvent) {
+			return new PendingSetChange(event, listeners);
+		} else if (event instanceof MapChangeEvent) {
+			return new PendingMapChange(event, listeners);
+		}
+		return null;
+	}
+
+	private void fire() {
+		for (ChangeManager manager : managers) {
+			for (PendingEvent pending : pendingEvents.get(manager)) {
+				ObservableEvent merged = pending.createEvent();
+				if (merged != null) {
+					manager.dispatchEvent(merged, pending.listeners);
+				}
+			}
+		}
+	}
+
+	private static boolean sameListeners(Object[] listeners, Object[] otherListeners) {
+		if (listeners.length != otherListeners.length) {
+			return false;
+		}
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] != otherListeners[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns whether the given listeners contain the given listener.
+	 *
+	 * @param listeners
+	 *            the listeners
+	 * @param listener
+	 *            the listener
+	 * @return <code>true</code> if the listener is one of the listeners,
+	 *         compared by identity
+	 */
+	static boolean containsListener(Object[] listeners, Object listener) {
+		for (Object candidate : listeners) {
+			if (candidate == listener) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The merged events of a type.
+	 */
+	private static abstract class PendingEvent {
+		final Object listenerType;
+
+		/**
+		 * The listeners registered when the events occurred.
+		 */
+		final Object[] listeners;
+
+		PendingEvent(ObservableEvent event, Object[] listeners) {
+			this.listenerType = event.getListenerType();
+			this.listeners = listeners;
+		}
+
+		/**
+		 * Merges the given event, fired after the previous ones.
+		 */
+		abstract void add(ObservableEvent event);
+
+		/**
+		 * Returns the event to fire at the end of the batch, or
+		 * <code>null</code> if the events have no net change.
+		 */
+		abstract ObservableEvent createEvent();
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static final class PendingValueChange extends PendingEvent {
+		private ValueChangeEvent first;
+
+		private ValueChangeEvent last;
+
+		PendingValueChange(ObservableEvent event, Object[] listeners) {
+			super(event, listeners);
+		}
+
+		@Override
+		void add(ObservableEvent event) {
+			ValueChangeEvent valueEvent = (ValueChangeEvent) event;
+			if (first == null) {
+				first = valueEvent;
+			}
+			last = valueEvent;
+		}
+
+		@Override
+		ObservableEvent createEvent() {
+			Object oldValue = first.diff.getOldValue();
+			// the diffs of computed values compute the new value lazily
+			Object newValue = last.diff.getNewValue();
+			if (Diffs.equals(oldValue, newValue)) {
+				return null;
+			}
+			return new ValueChangeEvent(first.getObservableValue(), Diffs.createValueDiff(oldValue, newValue));
+		}
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static final class PendingListChange extends PendingEvent {
+		private ListChangeEvent first;
+
+		private final List<ListDiffEntry> differences = new ArrayList<>();
+
+		PendingListChange(ObservableEvent event, Object[] listeners) {
+			super(event, listeners);
+		}
+
+		@Override
+		void add(ObservableEvent event) {
+			ListChangeEvent listEvent = (ListChangeEvent) event;
+			if (first == null) {
+				first = listEvent;
+			}
+			differences.addAll(Arrays.asList(listEvent.diff.getDifferences()));
+		}
+
+		@Override
+		ObservableEvent createEvent() {
+			if (differences.isEmpty()) {
+				return null;
+			}
+			return new ListChangeEvent(first.getObservableList(), Diffs.createListDiff((List) differences));
+		}
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static final class PendingSetChange extends PendingEvent {
+		private SetChangeEvent first;
+
+		private final Set<Object> additions = new LinkedHashSet<>();
+
+		private final Set<Object> removals = new LinkedHashSet<>();
+
+		PendingSetChange(ObservableEvent event, Object[] listeners) {
+			super(event, listeners);
+		}
+
+		@Override
+		void add(ObservableEvent event) {
+			SetChangeEvent setEvent = (SetChangeEvent) event;
+			if (first == null) {
+				first = setEvent;
+			}
+			// an element removed after being added in the batch, or added
+			// after being removed, is not changed
+			for (Object element : setEvent.diff.getAdditions()) {
+				if (!removals.remove(element)) {
+					additions.add(element);
+				}
+			}
+			for (Object element : setEvent.diff.getRemovals()) {
+				if (!additions.remove(element)) {
+					removals.add(element);
+				}
+			}
+		}
+
+		@Override
+		ObservableEvent createEvent() {
+			if (additions.isEmpty() && removals.isEmpty()) {
+				return null;
+			}
+			return new SetChangeEvent(first.getObservableSet(), Diffs.createSetDiff(additions, removals));
+		}
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static final class PendingMapChange extends PendingEvent {
+		/**
+		 * Marks a key which is not in the map.
+		 */
+		private static final Object ABSENT = new Object();
+
+		private MapChangeEvent first;
+
+		/**
+		 * The values of the changed keys before the batch.
+		 */
+		private final Map<Object, Object> oldValues = new LinkedHashMap<>();
+
+		/**
+		 * The current values of the changed keys.
+		 */
+		private final Map<Object, Object> newValues = new HashMap<>();
+
+		PendingMapChange(ObservableEvent event, Object[] listeners) {
+			super(event, listeners);
+		}
+
+		@Override
+		void add(ObservableEvent event) {
+			MapChangeEvent mapEvent = (MapChangeEvent) event;
+			if (first == null) {
+				first = mapEvent;
+			}
+			MapDiff diff = mapEvent.diff;
+			for (Object key : diff.getAddedKeys()) {
+				put(key, ABSENT, diff.getNewValue(key));
+			}
+			for (Object key : diff.getRemovedKeys()) {
+				put(key, diff.getOldValue(key), ABSENT);
+			}
+			for (Object key : diff.getChangedKeys()) {
+				put(key, diff.getOldValue(key), diff.getNewValue(key));
+			}
+		}
+
+		private void put(Object key, Object oldValue, Object newValue) {
+			if (!oldValues.containsKey(key)) {
+				oldValues.put(key, oldValue);
+			}
+			newValues.put(key, newValue);
+		}
+
+		@Override
+		ObservableEvent createEvent() {
+			Set<Object> addedKeys = new LinkedHashSet<>();
+			Set<Object> removedKeys = new LinkedHashSet<>();
+			Set<Object> changedKeys = new LinkedHashSet<>();
+			Map<Object, Object> diffOldValues = new HashMap<>();
+			Map<Object, Object> diffNewValues = new HashMap<>();
+			for (Map.Entry<Object, Object> entry : oldValues.entrySet()) {
+				Object key = entry.getKey();
+				Object oldValue = entry.getValue();
+				Object newValue = newValues.get(key);
+				if (oldValue == ABSENT) {
+					if (newValue != ABSENT) {
+						addedKeys.add(key);
+						diffNewValues.put(key, newValue);
+					}
+				} else if (newValue == ABSENT) {
+					removedKeys.add(key);
+					diffOldValues.put(key, oldValue);
+				} else if (!Diffs.equals(oldValue, newValue)) {
+					changedKeys.add(key);
+					diffOldValues.put(key, oldValue);
+					diffNewValues.put(key, newValue);
+				}
+			}
+			if (addedKeys.isEmpty() && removedKeys.isEmpty() && changedKeys.isEmpty()) {
+				return null;
+			}
+			return new MapChangeEvent(first.getObservableMap(),
+					Diffs.createMapDiff(addedKeys, removedKeys, changedKeys, diffOldValues, diffNewValues));
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2016 IBM Corporation and others.
+ * Copyright (c) 2006, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -110,8 +110,26 @@ import org.eclipse.core.runtime.ListenerList;
 	}
 
 	protected void fireEvent(ObservableEvent event) {
-		Object listenerType = event.getListenerType();
-		int listenerTypeIndex = findListenerTypeIndex(listenerType);
+		int listenerTypeIndex = findListenerTypeIndex(event.getListenerType());
+		if (listenerTypeIndex == -1 || listenerLists[listenerTypeIndex].isEmpty()) {
+			return;
+		}
+		ChangeBatch batch = realm.batch;
+		if (batch != null && realm.isCurrent() && batch.add(this, event)) {
+			// fired at the end of the batch
+			return;
+		}
+		dispatchEvent(event);
+	}
+
+	/**
+	 * Dispatches the given event to the current listeners of its type.
+	 *
+	 * @param event
+	 *            the event
+	 */
+	/* package */void dispatchEvent(ObservableEvent event) {
+		int listenerTypeIndex = findListenerTypeIndex(event.getListenerType());
 		if (listenerTypeIndex != -1) {
 			for (IObservablesListener listener : listenerLists[listenerTypeIndex]) {
 				event.dispatch(listener);
@@ -119,6 +137,40 @@ import org.eclipse.core.runtime.ListenerList;
 		}
 	}
 
+	/**
+	 * Dispatches the given event to those of the given listeners which are
+	 * still registered for its type.
+	 *
+	 * @param event
+	 *            the event
+	 * @param listeners
+	 *            the listeners registered when the event occurred
+	 */
+	/* package */void dispatchEvent(ObservableEvent event, Object[] listeners) {
+		Object[] current = getListeners(event.getListenerType());
+		for (Object listener : listeners) {
+			if (ChangeBatch.containsListener(current, listener)) {
+				event.dispatch((IObservablesListener) listener);
+			}
+		}
+	}
+
+	/**
+	 * Returns the listeners of the given type.
+	 *
+	 * @param listenerType
+	 *            the listener type
+	 * @return the listeners, which are not affected by the listeners added or
+	 *         removed later
+	 */
+	/* package */Object[] getListeners(Object listenerType) {
+		int listenerTypeIndex = findListenerTypeIndex(listenerType);
+		if (listenerTypeIndex == -1) {
+			return new Object[0];
+		}
+		return listenerLists[listenerTypeIndex].getListeners();
+	}
+
 	/**
 	 *
 	 */
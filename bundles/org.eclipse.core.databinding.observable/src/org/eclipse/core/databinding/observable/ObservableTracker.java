@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,10 +12,9 @@
  *******************************************************************************/
 package org.eclipse.core.databinding.observable;
 
-import java.util.Set;
+import java.util.Arrays;
 
 import org.eclipse.core.databinding.util.Policy;
-import org.eclipse.core.internal.databinding.identity.IdentitySet;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -61,20 +60,213 @@ import org.eclipse.core.runtime.Status;
 public class ObservableTracker {
 
 	/**
-	 * Threadlocal storage pointing to the current Set of IObservables, or null
-	 * if none. Note that this is actually the top of a stack. Whenever a method
-	 * changes the current value, it remembers the old value as a local variable
-	 * and restores the old value when the method exits.
+	 * The tracking state of a thread. The frames of the nested calls of
+	 * {@link ObservableTracker#runAndMonitor(Runnable, IChangeListener, IStaleListener)}
+	 * and {@link ObservableTracker#runAndCollect(Runnable)} form two stacks,
+	 * and the frames which are not in use are kept in a pool so that the
+	 * evaluations do not allocate.
 	 */
-	private static ThreadLocal<IChangeListener> currentChangeListener = new ThreadLocal<>();
+	private static final class TrackerContext {
+		Frame getterCalledFrame;
 
-	private static ThreadLocal<IStaleListener> currentStaleListener = new ThreadLocal<>();
+		Frame observableCreatedFrame;
 
-	private static ThreadLocal<Set<IObservable>> currentGetterCalledSet = new ThreadLocal<>();
+		int ignoreCount;
 
-	private static ThreadLocal<Set<IObservable>> currentObservableCreatedSet = new ThreadLocal<>();
+		private Frame pool;
 
-	private static ThreadLocal<Integer> currentIgnoreCount = new ThreadLocal<>();
+		Frame obtainFrame() {
+			Frame frame = pool;
+			if (frame == null) {
+				return new Frame();
+			}
+			pool = frame.next;
+			frame.next = null;
+			return frame;
+		}
+
+		void releaseFrame(Frame frame) {
+			frame.clear();
+			frame.next = pool;
+			pool = frame;
+		}
+	}
+
+	/**
+	 * The observables read or created within a call of
+	 * {@link ObservableTracker#runAndMonitor(Runnable, IChangeListener, IStaleListener, IObservable[])}
+	 * or {@link ObservableTracker#runAndCollect(Runnable)}, in an array in the
+	 * order of their first access, and in an identity hash table.
+	 */
+	private static final class Frame {
+		private static final int INITIAL_CAPACITY = 16;
+
+		/**
+		 * The largest arrays kept when the frame is released.
+		 */
+		private static final int MAX_POOLED_CAPACITY = 1024;
+
+		/**
+		 * The enclosing frame, or the next frame of the pool.
+		 */
+		Frame next;
+
+		IChangeListener changeListener;
+
+		IStaleListener staleListener;
+
+		/**
+		 * The dependencies of the previous evaluation, which already have the
+		 * listeners, or <code>null</code>.
+		 */
+		IObservable[] previous;
+
+		IObservable[] observables = new IObservable[INITIAL_CAPACITY];
+
+		int size;
+
+		/**
+		 * The open addressing hash table of the observables and of the
+		 * previous dependencies.
+		 */
+		private IObservable[] table = new IObservable[INITIAL_CAPACITY];
+
+		/**
+		 * Whether the previous dependency at the same index of the table was
+		 * not accessed yet.
+		 */
+		private boolean[] pending = new boolean[INITIAL_CAPACITY];
+
+		private int tableSize;
+
+		void setPrevious(IObservable[] previous) {
+			this.previous = previous;
+			if (previous != null) {
+				for (IObservable observable : previous) {
+					int index = indexOf(observable);
+					if (table[index] == null) {
+						insert(index, observable, true);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Records an access of the given observable.
+		 *
+		 * @return <code>true</code> if the observable was not accessed yet nor
+		 *         a previous dependency, so that the listeners must be added
+		 */
+		boolean add(IObservable observable) {
+			int index = indexOf(observable);
+			if (table[index] == null) {
+				insert(index, observable, false);
+				append(observable);
+				return true;
+			}
+			if (pending[index]) {
+				pending[index] = false;
+				append(observable);
+			}
+			return false;
+		}
+
+		/**
+		 * Returns whether the given previous dependency was not accessed.
+		 */
+		boolean isPending(IObservable observable) {
+			return pending[indexOf(observable)];
+		}
+
+		/**
+		 * Returns the accessed observables, the previous dependencies if they
+		 * are the same.
+		 */
+		IObservable[] toArray() {
+			if (previous != null && previous.length == size) {
+				int i = 0;
+				while (i < size && previous[i] == observables[i]) {
+					i++;
+				}
+				if (i == size) {
+					return previous;
+				}
+			}
+			return Arrays.copyOf(observables, size);
+		}
+
+		private int indexOf(IObservable observable) {
+			int mask = table.length - 1;
+			int index = System.identityHashCode(observable) & mask;
+			IObservable current;
+			while ((current = table[index]) != null && current != observable) {
+				index = (index + 1) & mask;
+			}
+			return index;
+		}
+
+		private void insert(int index, IObservable observable, boolean isPending) {
+			table[index] = observable;
+			pending[index] = isPending;
+			if (++tableSize * 2 > table.length) {
+				IObservable[] oldTable = table;
+				boolean[] oldPending = pending;
+				table = new IObservable[oldTable.length * 2];
+				pending = new boolean[oldTable.length * 2];
+				for (int i = 0; i < oldTable.length; i++) {
+					if (oldTable[i] != null) {
+						int newIndex = indexOf(oldTable[i]);
+						table[newIndex] = oldTable[i];
+						pending[newIndex] = oldPending[i];
+					}
+				}
+			}
+		}
+
+		private void append(IObservable observable) {
+			if (size == observables.length) {
+				observables = Arrays.copyOf(observables, size * 2);
+			}
+			observables[size++] = observable;
+		}
+
+		void clear() {
+			changeListener = null;
+			staleListener = null;
+			previous = null;
+			if (observables.length > MAX_POOLED_CAPACITY) {
+				observables = new IObservable[INITIAL_CAPACITY];
+			} else {
+				Arrays.fill(observables, 0, size, null);
+			}
+			size = 0;
+			if (table.length > MAX_POOLED_CAPACITY) {
+				table = new IObservable[INITIAL_CAPACITY];
+				pending = new boolean[INITIAL_CAPACITY];
+			} else if (tableSize > 0) {
+				Arrays.fill(table, null);
+				Arrays.fill(pending, false);
+			}
+			tableSize = 0;
+		}
+	}
+
+	/**
+	 * Threadlocal storage pointing to the tracking state of the thread, or null
+	 * if none. Its frames are actually the tops of stacks. Whenever a method
+	 * changes the current frame, it remembers the old frame as a local variable
+	 * and restores the old frame when the method exits.
+	 */
+	private static ThreadLocal<TrackerContext> currentContext = new ThreadLocal<>();
+
+	private static TrackerContext getContext() {
+		TrackerContext context = currentContext.get();
+		if (context == null) {
+			context = new TrackerContext();
+			currentContext.set(context);
+		}
+		return context;
+	}
 
 	/**
 	 * Invokes the given runnable, and returns the set of IObservables that were
@@ -93,31 +285,81 @@ public class ObservableTracker {
 	 */
 	public static IObservable[] runAndMonitor(Runnable runnable,
 			IChangeListener changeListener, IStaleListener staleListener) {
-		// Remember the previous value in the listener stack
-		Set<IObservable> lastObservableSet = currentGetterCalledSet.get();
-		IChangeListener lastChangeListener = currentChangeListener.get();
-		IStaleListener lastStaleListener = currentStaleListener.get();
-		Integer lastIgnore = currentIgnoreCount.get();
-
-		Set<IObservable> observableSet = new IdentitySet<>();
-		// Push the new listeners to the top of the stack
-		currentGetterCalledSet.set(observableSet);
-		currentChangeListener.set(changeListener);
-		currentStaleListener.set(staleListener);
-		currentIgnoreCount.set(null);
+		return runAndMonitor(runnable, changeListener, staleListener, null);
+	}
+
+	/**
+	 * Invokes the given runnable, and returns the set of IObservables that were
+	 * read by the runnable, like
+	 * {@link #runAndMonitor(Runnable, IChangeListener, IStaleListener)}. The
+	 * given listeners are only added to the observables which are not in the
+	 * given previous dependencies, which must already have them, and they are
+	 * removed from the previous dependencies which the runnable did not read.
+	 * If the runnable throws an exception, the listeners of the previous
+	 * dependencies are not removed.
+	 * <p>
+	 * This lets an object which re-evaluates a computation when one of its
+	 * dependencies changes keep its listeners on the dependencies which are
+	 * still used, rather than removing them all before the evaluation and
+	 * adding them again.
+	 * </p>
+	 *
+	 * @param runnable
+	 *            runnable to execute
+	 * @param changeListener
+	 *            listener to register with all accessed observables, or
+	 *            <code>null</code> if no change listener is to be registered
+	 * @param staleListener
+	 *            listener to register with all accessed observables, or
+	 *            <code>null</code> if no stale listener is to be registered
+	 * @param previousDependencies
+	 *            the result of the previous evaluation, or <code>null</code>
+	 * @return an array of unique observable objects, the previous dependencies
+	 *         if they are the same observables in the same order
+	 * @since 1.7
+	 */
+	public static IObservable[] runAndMonitor(Runnable runnable, IChangeListener changeListener,
+			IStaleListener staleListener, IObservable[] previousDependencies) {
+		TrackerContext context = getContext();
+		// Remember the previous frame in the stack
+		Frame lastFrame = context.getterCalledFrame;
+		int lastIgnore = context.ignoreCount;
+
+		Frame frame = context.obtainFrame();
+		frame.changeListener = changeListener;
+		frame.staleListener = staleListener;
+		frame.setPrevious(previousDependencies);
+		// Push the new frame to the top of the stack
+		context.getterCalledFrame = frame;
+		context.ignoreCount = 0;
+		boolean completed = false;
 		try {
 			runnable.run();
+			completed = true;
 		} finally {
-			// Pop the new listener off the top of the stack (by restoring the
-			// previous listener)
-			currentGetterCalledSet.set(lastObservableSet);
-			currentChangeListener.set(lastChangeListener);
-			currentStaleListener.set(lastStaleListener);
-			checkUnmatchedIgnore(runnable);
-			currentIgnoreCount.set(lastIgnore);
+			// Pop the new frame off the top of the stack (by restoring the
+			// previous frame)
+			context.getterCalledFrame = lastFrame;
+			checkUnmatchedIgnore(context, runnable);
+			context.ignoreCount = lastIgnore;
+			if (!completed) {
+				context.releaseFrame(frame);
+			}
 		}
 
-		return observableSet.toArray(new IObservable[observableSet.size()]);
+		IObservable[] result = frame.toArray();
+		if (previousDependencies != null && result != previousDependencies) {
+			for (IObservable observable : previousDependencies) {
+				if (frame.isPending(observable)) {
+					if (changeListener != null)
+						observable.removeChangeListener(changeListener);
+					if (staleListener != null)
+						observable.removeStaleListener(staleListener);
+				}
+			}
+		}
+		context.releaseFrame(frame);
+		return result;
 	}
 
 	/**
@@ -137,34 +379,35 @@ public class ObservableTracker {
 	 * @since 1.2
 	 */
 	public static IObservable[] runAndCollect(Runnable runnable) {
-		Set<IObservable> lastObservableCreatedSet = currentObservableCreatedSet.get();
-		Integer lastIgnore = currentIgnoreCount.get();
+		TrackerContext context = getContext();
+		Frame lastFrame = context.observableCreatedFrame;
+		int lastIgnore = context.ignoreCount;
 
-		Set<IObservable> observableSet = new IdentitySet<>();
-		// Push the new listeners to the top of the stack
-		currentObservableCreatedSet.set(observableSet);
-		currentIgnoreCount.set(null);
+		Frame frame = context.obtainFrame();
+		// Push the new frame to the top of the stack
+		context.observableCreatedFrame = frame;
+		context.ignoreCount = 0;
 		try {
 			runnable.run();
+			return frame.toArray();
 		} finally {
-			// Pop the new listener off the top of the stack (by restoring the
-			// previous listener)
-			currentObservableCreatedSet.set(lastObservableCreatedSet);
-			checkUnmatchedIgnore(runnable);
-			currentIgnoreCount.set(lastIgnore);
+			// Pop the new frame off the top of the stack (by restoring the
+			// previous frame)
+			context.observableCreatedFrame = lastFrame;
+			checkUnmatchedIgnore(context, runnable);
+			context.ignoreCount = lastIgnore;
+			context.releaseFrame(frame);
 		}
-
-		return observableSet.toArray(new IObservable[observableSet.size()]);
 	}
 
-	private static void checkUnmatchedIgnore(Runnable runnable) {
-		if (isIgnore()) {
+	private static void checkUnmatchedIgnore(TrackerContext context, Runnable runnable) {
+		if (context.ignoreCount > 0) {
 			Policy.getLog()
 					.log(new Status(
 							IStatus.ERROR,
 							Policy.JFACE_DATABINDING,
 							"There were " //$NON-NLS-1$
-									+ currentIgnoreCount.get()
+									+ context.ignoreCount
 									+ " unmatched setIgnore(true) invocations in runnable " //$NON-NLS-1$
 									+ runnable));
 		}
@@ -191,15 +434,14 @@ public class ObservableTracker {
 	 * @since 1.3
 	 */
 	public static void setIgnore(boolean ignore) {
-		Integer lastCount = currentIgnoreCount.get();
+		TrackerContext context = getContext();
 
-		int newCount = (lastCount == null ? 0 : lastCount.intValue())
-				+ (ignore ? 1 : -1);
+		int newCount = context.ignoreCount + (ignore ? 1 : -1);
 
 		if (newCount < 0)
 			throw new IllegalStateException("Ignore count is already zero"); //$NON-NLS-1$
 
-		currentIgnoreCount.set(newCount == 0 ? null : Integer.valueOf(newCount));
+		context.ignoreCount = newCount;
 	}
 
 	/**
@@ -228,10 +470,6 @@ public class ObservableTracker {
 				+ Integer.toHexString(System.identityHashCode(observable));
 	}
 
-	private static boolean isIgnore() {
-		return currentIgnoreCount.get() != null;
-	}
-
 	/**
 	 * Notifies the ObservableTracker that an observable was read from. The
 	 * JavaDoc for methods that invoke this method should include the following
@@ -251,16 +489,17 @@ public class ObservableTracker {
 			Assert.isTrue(false, "Getter called outside realm of observable " //$NON-NLS-1$
 					+ toString(observable));
 
-		if (isIgnore())
+		TrackerContext context = currentContext.get();
+		if (context == null || context.ignoreCount > 0)
 			return;
 
-		Set<IObservable> getterCalledSet = currentGetterCalledSet.get();
-		if (getterCalledSet != null && getterCalledSet.add(observable)) {
+		Frame frame = context.getterCalledFrame;
+		if (frame != null && frame.add(observable)) {
 			// If anyone is listening for observable usage...
-			IChangeListener changeListener = currentChangeListener.get();
+			IChangeListener changeListener = frame.changeListener;
 			if (changeListener != null)
 				observable.addChangeListener(changeListener);
-			IStaleListener staleListener = currentStaleListener.get();
+			IStaleListener staleListener = frame.staleListener;
 			if (staleListener != null)
 				observable.addStaleListener(staleListener);
 		}
@@ -274,11 +513,12 @@ public class ObservableTracker {
 	 * @since 1.2
 	 */
 	public static void observableCreated(IObservable observable) {
-		if (isIgnore())
+		TrackerContext context = currentContext.get();
+		if (context == null || context.ignoreCount > 0)
 			return;
-		Set<IObservable> observableCreatedSet = currentObservableCreatedSet.get();
-		if (observableCreatedSet != null) {
-			observableCreatedSet.add(observable);
+		Frame frame = context.observableCreatedFrame;
+		if (frame != null) {
+			frame.add(observable);
 		}
 	}
 }
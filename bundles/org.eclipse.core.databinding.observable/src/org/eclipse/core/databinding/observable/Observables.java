@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2017 Cerner Corporation and others.
+ * Copyright (c) 2006, 2018 Cerner Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,8 +16,10 @@
 
 package org.eclipse.core.databinding.observable;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import org.eclipse.core.databinding.observable.list.DecoratingObservableList;
 import org.eclipse.core.databinding.observable.list.IListChangeListener;
@@ -39,7 +41,9 @@ import org.eclipse.core.internal.databinding.observable.ConstantObservableValue;
 import org.eclipse.core.internal.databinding.observable.DelayedObservableValue;
 import org.eclipse.core.internal.databinding.observable.EmptyObservableList;
 import org.eclipse.core.internal.databinding.observable.EmptyObservableSet;
+import org.eclipse.core.internal.databinding.observable.FilteredObservableList;
 import org.eclipse.core.internal.databinding.observable.MapEntryObservableValue;
+import org.eclipse.core.internal.databinding.observable.SortedObservableList;
 import org.eclipse.core.internal.databinding.observable.StalenessObservableValue;
 import org.eclipse.core.internal.databinding.observable.UnmodifiableObservableList;
 import org.eclipse.core.internal.databinding.observable.UnmodifiableObservableMap;
@@ -209,6 +213,70 @@ public class Observables {
 		return new UnmodifiableObservableList<E>(list);
 	}
 
+	/**
+	 * Returns an unmodifiable observable list containing the elements of the
+	 * given observable list sorted by the given comparator. Elements which
+	 * compare as equal are in the order of the given list when it is sorted,
+	 * which happens when the sorted list is first used and when most of the
+	 * given list changes at once. Otherwise an added element is placed after
+	 * the elements which compare as equal to it, so the order of these
+	 * elements may differ from the order of the given list.
+	 * <p>
+	 * The sorted list is updated from the diffs of the given list, with a
+	 * binary search for each added or removed element, and its diffs only
+	 * contain these elements. The order of an element must not change while it
+	 * is in the given list. The sorted list only listens to the given list
+	 * while it has listeners or holds a sorted copy, which it drops at the next
+	 * change of the given list when it has no listeners; an unused sorted list
+	 * therefore need not be disposed. It is disposed with the given list while
+	 * it listens to it.
+	 * </p>
+	 *
+	 * @param <E>
+	 *            the element type
+	 * @param list
+	 *            the list to sort
+	 * @param comparator
+	 *            the comparator of the elements
+	 * @return an unmodifiable observable list of the sorted elements of the
+	 *         given list
+	 * @since 1.7
+	 */
+	public static <E> IObservableList<E> sortedList(IObservableList<E> list, Comparator<? super E> comparator) {
+		Assert.isNotNull(list, "List cannot be null"); //$NON-NLS-1$
+		Assert.isNotNull(comparator, "Comparator cannot be null"); //$NON-NLS-1$
+		return new SortedObservableList<>(list, comparator);
+	}
+
+	/**
+	 * Returns an unmodifiable observable list containing the elements of the
+	 * given observable list which match the given predicate, in the same order.
+	 * <p>
+	 * The filtered list is updated from the diffs of the given list: the
+	 * predicate is only evaluated for the added elements, and the diffs of the
+	 * filtered list only contain the matching elements. Whether an element
+	 * matches must not change while it is in the given list. Like the sorted
+	 * list of {@link #sortedList(IObservableList, Comparator)}, the filtered
+	 * list only listens to the given list while it is used, and is disposed
+	 * with the given list while it listens to it.
+	 * </p>
+	 *
+	 * @param <E>
+	 *            the element type
+	 * @param list
+	 *            the list to filter
+	 * @param predicate
+	 *            the predicate matching the elements of the filtered list
+	 * @return an unmodifiable observable list of the elements of the given
+	 *         list which match the predicate
+	 * @since 1.7
+	 */
+	public static <E> IObservableList<E> filteredList(IObservableList<E> list, Predicate<? super E> predicate) {
+		Assert.isNotNull(list, "List cannot be null"); //$NON-NLS-1$
+		Assert.isNotNull(predicate, "Predicate cannot be null"); //$NON-NLS-1$
+		return new FilteredObservableList<>(list, predicate);
+	}
+
 	/**
 	 * Returns an unmodifiable observable set backed by the given observable
 	 * set.
@@ -775,4 +843,53 @@ public class Observables {
 		destination.setValue(source.getValue());
 		source.addValueChangeListener(event -> destination.setValue(event.diff.getNewValue()));
 	}
+
+	/**
+	 * Runs the given runnable as a batch of changes of the observables of the
+	 * default realm. This method must be called from within the default realm.
+	 *
+	 * @param runnable
+	 *            the runnable changing the observables
+	 * @see #batch(Realm, Runnable)
+	 * @since 1.7
+	 */
+	public static void batch(Runnable runnable) {
+		batch(Realm.getDefault(), runnable);
+	}
+
+	/**
+	 * Runs the given runnable as a batch of changes of the observables of the
+	 * given realm. This method must be called from within the realm.
+	 * <p>
+	 * While the runnable runs, the value, list, set and map change events of
+	 * the observables of the realm are not fired. When it returns or throws an
+	 * exception, each observable which changed fires a single event of each of
+	 * these types whose diff combines all its changes: the differences of the
+	 * lists are concatenated, the additions and removals of the sets and the
+	 * changes of the maps are merged, and the old value of a value is the one
+	 * before the batch. The listeners of these events, such as viewers, are
+	 * therefore updated once rather than for each change.
+	 * </p>
+	 * <p>
+	 * The generic {@link ChangeEvent}s are fired immediately, so that the
+	 * observables which compute their state from the changed ones, such as
+	 * <code>ComputedValue</code> and <code>ComputedList</code>, are
+	 * invalidated and return up to date values within the batch. A computed
+	 * value is only recomputed when it is read, or at the end of the batch for
+	 * its value change event. The other events, such as stale or value
+	 * changing events, are fired immediately as well. A batch started within a
+	 * batch of the same realm is part of the outer one.
+	 * </p>
+	 *
+	 * @param realm
+	 *            the realm of the observables
+	 * @param runnable
+	 *            the runnable changing the observables
+	 * @since 1.7
+	 */
+	public static void batch(Realm realm, Runnable runnable) {
+		Assert.isNotNull(realm, "Realm cannot be null"); //$NON-NLS-1$
+		Assert.isTrue(realm.isCurrent(), "This operation must be run within the realm"); //$NON-NLS-1$
+		ChangeBatch.run(realm, runnable);
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2015 IBM Corporation and others.
+ * Copyright (c) 2006, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -121,6 +121,13 @@ public abstract class Realm {
 
 	Queue workQueue = new Queue();
 
+	/**
+	 * The batch which collects the change events of the observables of this
+	 * realm, or <code>null</code> outside of
+	 * {@link Observables#batch(Realm, Runnable)}.
+	 */
+	ChangeBatch batch;
+
 	/**
 	 * Runs the given runnable. If an exception occurs within the runnable, it
 	 * is logged and not re-thrown. If the runnable implements
@@ -1,5 +1,5 @@
 /************************************************************************************************************
- * Copyright (c) 2007, 2017 Matthew Hall and others.
+ * Copyright (c) 2007, 2018 Matthew Hall and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -199,9 +199,11 @@ public abstract class ComputedList<E> extends AbstractObservableList<E> {
 			// This line will do the following:
 			// - Run the calculate method
 			// - While doing so, add any observable that is touched to the
-			// dependencies list
+			// dependencies list, and listen to it unless it was a dependency
+			// already
+			// - Stop listening to the old dependencies which were not touched
 			IObservable[] newDependencies = ObservableTracker.runAndMonitor(
-					privateInterface, privateInterface, null);
+					privateInterface, privateInterface, privateInterface, dependencies);
 
 			// If any dependencies are stale, a stale event will be fired here
 			// even if we were already stale before recomputing. This is in case
@@ -214,12 +216,6 @@ public abstract class ComputedList<E> extends AbstractObservableList<E> {
 				}
 			}
 
-			if (!stale) {
-				for (IObservable newDependency : newDependencies) {
-					newDependency.addStaleListener(privateInterface);
-				}
-			}
-
 			dependencies = newDependencies;
 
 			dirty = false;
@@ -248,7 +244,10 @@ public abstract class ComputedList<E> extends AbstractObservableList<E> {
 
 			makeStale();
 
-			stopListening();
+			// without listeners, nothing needs to know about the next change
+			if (!hasListeners()) {
+				stopListening();
+			}
 
 			// copy the old list
 			final List<E> oldList = new ArrayList<E>(cachedList);
@@ -323,8 +322,8 @@ public abstract class ComputedList<E> extends AbstractObservableList<E> {
 		// been executed. It is their job to figure out what to do with those
 		// notifications.
 		getRealm().exec(() -> {
-			if (dependencies == null) {
-				// We are not currently listening.
+			if (dirty) {
+				// We are not currently up to date.
 				// But someone is listening for changes. Call getValue()
 				// to make sure we start listening to the observables we
 				// depend on.
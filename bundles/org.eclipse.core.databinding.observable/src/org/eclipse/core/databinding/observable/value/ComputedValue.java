@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2017 IBM Corporation and others.
+ * Copyright (c) 2005, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -194,17 +194,17 @@ public abstract class ComputedValue<T> extends AbstractObservableValue<T> {
 			// This line will do the following:
 			// - Run the calculate method
 			// - While doing so, add any observable that is touched to the
-			// dependencies list
+			// dependencies list, and listen to it unless it was a dependency
+			// already
+			// - Stop listening to the old dependencies which were not touched
 			IObservable[] newDependencies = ObservableTracker.runAndMonitor(
-					privateInterface, privateInterface, null);
+					privateInterface, privateInterface, privateInterface, dependencies);
 
 			stale = false;
 			for (IObservable observable : newDependencies) {
-				// Add a change listener to the new dependency.
 				if (observable.isStale()) {
 					stale = true;
-				} else {
-					observable.addStaleListener(privateInterface);
+					break;
 				}
 			}
 
@@ -230,7 +230,11 @@ public abstract class ComputedValue<T> extends AbstractObservableValue<T> {
 		if (!dirty) {
 			dirty = true;
 
-			stopListening();
+			// Keep listening to the dependencies only for the listeners, the
+			// next computation tracks them again.
+			if (!hasListeners()) {
+				stopListening();
+			}
 
 			// copy the old value
 			final T oldValue = cachedValue;
@@ -305,8 +309,8 @@ public abstract class ComputedValue<T> extends AbstractObservableValue<T> {
 	 */
 	private void computeValueForListeners() {
 		getRealm().exec(() -> {
-			if (dependencies == null) {
-				// We are not currently listening.
+			if (dirty) {
+				// We are not currently up to date.
 				if (hasListeners()) {
 					// But someone is listening for changes. Call getValue()
 					// to make sure we start listening to the observables we
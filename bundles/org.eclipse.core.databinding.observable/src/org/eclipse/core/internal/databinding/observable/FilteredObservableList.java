@@ -0,0 +1,414 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.core.internal.databinding.observable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.IDisposeListener;
+import org.eclipse.core.databinding.observable.IObserving;
+import org.eclipse.core.databinding.observable.IStaleListener;
+import org.eclipse.core.databinding.observable.ObservableTracker;
+import org.eclipse.core.databinding.observable.list.AbstractObservableList;
+import org.eclipse.core.databinding.observable.list.IListChangeListener;
+import org.eclipse.core.databinding.observable.list.IObservableList;
+import org.eclipse.core.databinding.observable.list.ListDiff;
+import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+
+/**
+ * An unmodifiable observable list containing the elements of a source list
+ * which match a predicate, in the same order.
+ * <p>
+ * The list is maintained from the diffs of the source list: the predicate is
+ * only evaluated for the added elements, and the position of a changed element
+ * in this list is found from the inclusion of the elements of the source list,
+ * which is kept in blocks of about sqrt(n) elements counting their included
+ * elements. Finding the position of a change of a source list of n elements
+ * therefore takes O(sqrt(n)) steps, but the matching elements are kept in an
+ * array list, which moves the elements after an added or removed one. The diff
+ * fired by this list only contains the changes of the matching elements. When
+ * most of the source list changes, the list is filtered again instead.
+ * </p>
+ * <p>
+ * Whether an element matches the predicate must not change while it is in the
+ * source list; the source list must replace an element whose match changes.
+ * </p>
+ * <p>
+ * Like {@link SortedObservableList}, the list only listens to the source list
+ * while it has listeners, or from an access to its elements until the next
+ * change of the source list, after which it filters the source list again on
+ * the next access.
+ * </p>
+ *
+ * @param <E>
+ *            the type of the elements in the list
+ */
+public class FilteredObservableList<E> extends AbstractObservableList<E> implements IObserving, RandomAccess {
+
+	private IObservableList<E> source;
+
+	private Predicate<? super E> predicate;
+
+	/**
+	 * The matching elements, or <code>null</code> if the list does not listen
+	 * to the source list.
+	 */
+	private ArrayList<E> elements;
+
+	private Inclusions inclusions;
+
+	private IListChangeListener<E> sourceListener = event -> handleSourceChange(event.diff);
+
+	private IStaleListener staleListener = event -> fireStale();
+
+	private IDisposeListener disposeListener = event -> dispose();
+
+	/**
+	 * @param source
+	 *            the list to filter
+	 * @param predicate
+	 *            the predicate matching the elements of this list
+	 */
+	public FilteredObservableList(IObservableList<E> source, Predicate<? super E> predicate) {
+		super(source.getRealm());
+		this.source = source;
+		this.predicate = predicate;
+	}
+
+	private ArrayList<E> getElements() {
+		if (elements == null) {
+			ObservableTracker.setIgnore(true);
+			try {
+				filter();
+			} finally {
+				ObservableTracker.setIgnore(false);
+			}
+			source.addListChangeListener(sourceListener);
+			source.addStaleListener(staleListener);
+			source.addDisposeListener(disposeListener);
+		}
+		return elements;
+	}
+
+	private void stopListening() {
+		if (elements != null) {
+			source.removeListChangeListener(sourceListener);
+			source.removeStaleListener(staleListener);
+			source.removeDisposeListener(disposeListener);
+			elements = null;
+			inclusions = null;
+		}
+	}
+
+	@Override
+	protected void firstListenerAdded() {
+		getElements();
+	}
+
+	@Override
+	protected void lastListenerRemoved() {
+		if (source != null) {
+			stopListening();
+		}
+	}
+
+	private void filter() {
+		elements = new ArrayList<>();
+		boolean[] included = new boolean[source.size()];
+		int size = 0;
+		for (E element : source) {
+			included[size] = predicate.test(element);
+			if (included[size++]) {
+				elements.add(element);
+			}
+		}
+		inclusions = new Inclusions(included, size);
+	}
+
+	private void handleSourceChange(ListDiff<? extends E> diff) {
+		if (!hasListeners()) {
+			stopListening();
+			return;
+		}
+		ListDiffEntry<? extends E>[] entries = diff.getDifferences();
+		if (Util.isBulkChange(entries.length, inclusions.size())) {
+			ArrayList<E> oldElements = elements;
+			filter();
+			fireListChange(Diffs.computeListDiff(oldElements, elements));
+			return;
+		}
+
+		List<ListDiffEntry<E>> filteredEntries = new ArrayList<>();
+		for (ListDiffEntry<? extends E> entry : entries) {
+			E element = entry.getElement();
+			if (entry.isAddition()) {
+				boolean included = predicate.test(element);
+				int index = inclusions.insert(entry.getPosition(), included);
+				if (included) {
+					elements.add(index, element);
+					int last = filteredEntries.size() - 1;
+					if (last >= 0 && !filteredEntries.get(last).isAddition()
+							&& filteredEntries.get(last).getElement() == element
+							&& filteredEntries.get(last).getPosition() == index) {
+						// the element is moved in the source list but not in
+						// this list
+						filteredEntries.remove(last);
+					} else {
+						filteredEntries.add(Diffs.createListDiffEntry(index, true, element));
+					}
+				}
+			} else {
+				int index = inclusions.remove(entry.getPosition());
+				if (index != -1) {
+					E removed = elements.remove(index);
+					filteredEntries.add(Diffs.createListDiffEntry(index, false, removed));
+				}
+			}
+		}
+		if (!filteredEntries.isEmpty()) {
+			fireListChange(Diffs.createListDiff(filteredEntries));
+		}
+	}
+
+	@Override
+	protected int doGetSize() {
+		return getElements().size();
+	}
+
+	@Override
+	public E get(int index) {
+		ObservableTracker.getterCalled(this);
+		return getElements().get(index);
+	}
+
+	@Override
+	public Object getElementType() {
+		return source == null ? null : source.getElementType();
+	}
+
+	@Override
+	public boolean isStale() {
+		ObservableTracker.getterCalled(this);
+		return source != null && source.isStale();
+	}
+
+	@Override
+	public Object getObserved() {
+		return source;
+	}
+
+	@Override
+	public synchronized void dispose() {
+		if (source != null) {
+			stopListening();
+			source = null;
+		}
+		predicate = null;
+		sourceListener = null;
+		staleListener = null;
+		disposeListener = null;
+		super.dispose();
+	}
+
+	/**
+	 * Whether the elements of the source list are included in this list. The
+	 * flags are kept in blocks which count their included elements, so that
+	 * the position in this list of an element of the source list is found by
+	 * adding the counts of the blocks before it and counting the included
+	 * elements before it in its block.
+	 * <p>
+	 * The blocks hold about sqrt(n) flags for n elements, so that both steps
+	 * take O(sqrt(n)) time. The blocks are built again for the new size when
+	 * the size has changed by a factor of four, which takes O(n) time after
+	 * at least O(n) changes.
+	 * </p>
+	 */
+	private static final class Inclusions {
+		private static final int MIN_BLOCK_SIZE = 64;
+
+		private static final class Block {
+			final boolean[] included;
+
+			int size;
+
+			int count;
+
+			Block(int capacity) {
+				included = new boolean[capacity];
+			}
+
+			int countBefore(int offset) {
+				int result = 0;
+				for (int i = 0; i < offset; i++) {
+					if (included[i]) {
+						result++;
+					}
+				}
+				return result;
+			}
+		}
+
+		private final List<Block> blocks = new ArrayList<>();
+
+		private int size;
+
+		/**
+		 * The capacity of the blocks.
+		 */
+		private int blockSize;
+
+		/**
+		 * The sizes beyond which the blocks are built again.
+		 */
+		private int minSize;
+
+		private int maxSize;
+
+		/**
+		 * @param included
+		 *            whether the elements of the source list are included, in
+		 *            an array which may be longer than the source list
+		 * @param size
+		 *            the size of the source list
+		 */
+		Inclusions(boolean[] included, int size) {
+			build(included, size);
+		}
+
+		/**
+		 * Builds full blocks of the given flags in one pass.
+		 */
+		private void build(boolean[] included, int size) {
+			this.size = size;
+			blockSize = Math.max(MIN_BLOCK_SIZE, (int) Math.sqrt(size));
+			minSize = size / 4;
+			maxSize = (int) Math.min(Math.max(4L * size, (long) MIN_BLOCK_SIZE * MIN_BLOCK_SIZE),
+					Integer.MAX_VALUE);
+			blocks.clear();
+			for (int start = 0; start < size; start += blockSize) {
+				Block block = new Block(blockSize);
+				block.size = Math.min(blockSize, size - start);
+				System.arraycopy(included, start, block.included, 0, block.size);
+				block.count = block.countBefore(block.size);
+				blocks.add(block);
+			}
+		}
+
+		private void rebuildIfResized() {
+			if (size < minSize || size > maxSize) {
+				boolean[] included = new boolean[size];
+				int start = 0;
+				for (Block block : blocks) {
+					System.arraycopy(block.included, 0, included, start, block.size);
+					start += block.size;
+				}
+				build(included, size);
+			}
+		}
+
+		int size() {
+			return size;
+		}
+
+		/**
+		 * Inserts an element at the given position of the source list.
+		 *
+		 * @return the position in this list of the element, or of the next
+		 *         included element if it is not included
+		 */
+		int insert(int position, boolean included) {
+			int index = 0;
+			int offset = position;
+			int blockIndex = 0;
+			Block block = null;
+			for (; blockIndex < blocks.size(); blockIndex++) {
+				Block candidate = blocks.get(blockIndex);
+				if (offset <= candidate.size) {
+					block = candidate;
+					break;
+				}
+				offset -= candidate.size;
+				index += candidate.count;
+			}
+			if (block == null) {
+				block = new Block(blockSize);
+				blocks.add(block);
+			} else if (block.size == blockSize) {
+				// split the block in two halves
+				Block next = new Block(blockSize);
+				int half = blockSize / 2;
+				System.arraycopy(block.included, half, next.included, 0, blockSize - half);
+				next.size = blockSize - half;
+				next.count = next.countBefore(next.size);
+				block.size = half;
+				block.count -= next.count;
+				blocks.add(blockIndex + 1, next);
+				if (offset > half) {
+					index += block.count;
+					offset -= half;
+					block = next;
+				}
+			}
+			index += block.countBefore(offset);
+			System.arraycopy(block.included, offset, block.included, offset + 1, block.size - offset);
+			block.included[offset] = included;
+			block.size++;
+			if (included) {
+				block.count++;
+			}
+			size++;
+			rebuildIfResized();
+			return index;
+		}
+
+		/**
+		 * Removes the element at the given position of the source list.
+		 *
+		 * @return the position in this list of the element, or -1 if it was
+		 *         not included
+		 */
+		int remove(int position) {
+			int index = 0;
+			int offset = position;
+			int blockIndex = 0;
+			Block block = blocks.get(blockIndex);
+			while (offset >= block.size) {
+				offset -= block.size;
+				index += block.count;
+				block = blocks.get(++blockIndex);
+			}
+			boolean included = block.included[offset];
+			index += block.countBefore(offset);
+			System.arraycopy(block.included, offset + 1, block.included, offset, block.size - offset - 1);
+			block.size--;
+			size--;
+			if (included) {
+				block.count--;
+			}
+			if (block.size == 0) {
+				blocks.remove(blockIndex);
+			} else if (blockIndex + 1 < blocks.size()
+					&& block.size + blocks.get(blockIndex + 1).size <= blockSize / 2) {
+				// merge the small blocks
+				Block next = blocks.remove(blockIndex + 1);
+				System.arraycopy(next.included, 0, block.included, block.size, next.size);
+				block.size += next.size;
+				block.count += next.count;
+			}
+			rebuildIfResized();
+			return included ? index : -1;
+		}
+	}
+}
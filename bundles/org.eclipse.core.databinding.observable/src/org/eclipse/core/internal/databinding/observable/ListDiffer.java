@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.observable;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+
+/**
+ * Computes the differences between two lists in O((N + M) log N) time.
+ * <p>
+ * After the common prefix and suffix are skipped, each element of the new
+ * list is matched with an equal element of the old list through a hash map,
+ * the k-th occurrence of a value in the new list with its k-th occurrence in
+ * the old list. The longest increasing subsequence of the old indices of the
+ * matched elements, in the order of the new list, gives the elements which
+ * keep their place. The other matched elements are moved, as a removal
+ * immediately followed by an addition of the element so that
+ * {@link org.eclipse.core.databinding.observable.list.ListDiffVisitor#handleMove(int, int, Object)
+ * handleMove} is called for them, and the unmatched elements are removed or
+ * added.
+ * </p>
+ * <p>
+ * The entries are computed in the order of the new list. The positions in the
+ * list being changed are counted by a binary indexed tree over the slots of
+ * all elements which are in the list at some point, in an order which is
+ * consistent with every intermediate state of the list: between two kept
+ * elements, the added elements come before the old elements.
+ * </p>
+ */
+public final class ListDiffer<E> {
+
+	private final Object[] oldElements;
+
+	private final Object[] newElements;
+
+	private final boolean identity;
+
+	private final List<ListDiffEntry<E>> result;
+
+	/**
+	 * The length of the common prefix, the offset of the other positions.
+	 */
+	private int offset;
+
+	/**
+	 * The binary indexed tree counting the slots in the list.
+	 */
+	private int[] tree;
+
+	private ListDiffer(List<? extends E> oldList, List<? extends E> newList, boolean identity,
+			List<ListDiffEntry<E>> result) {
+		this.oldElements = oldList.toArray();
+		this.newElements = newList.toArray();
+		this.identity = identity;
+		this.result = result;
+	}
+
+	/**
+	 * Adds the entries which change the old list into the new list to the
+	 * given list.
+	 *
+	 * @param oldList
+	 *            the old list state
+	 * @param newList
+	 *            the new list state
+	 * @param identity
+	 *            <code>true</code> to compare the elements by identity,
+	 *            <code>false</code> to compare them with
+	 *            {@link Object#equals(Object)} and {@link Object#hashCode()}
+	 * @param result
+	 *            the list to which to add the entries
+	 */
+	public static <E> void computeDifferences(List<? extends E> oldList, List<? extends E> newList,
+			boolean identity, List<ListDiffEntry<E>> result) {
+		new ListDiffer<E>(oldList, newList, identity, result).compute();
+	}
+
+	private boolean same(Object left, Object right) {
+		return identity ? left == right : Util.equals(left, right);
+	}
+
+	private void compute() {
+		int oldSize = oldElements.length;
+		int newSize = newElements.length;
+		int commonSize = Math.min(oldSize, newSize);
+		int prefix = 0;
+		while (prefix < commonSize && same(oldElements[prefix], newElements[prefix])) {
+			prefix++;
+		}
+		int suffix = 0;
+		while (suffix < commonSize - prefix
+				&& same(oldElements[oldSize - 1 - suffix], newElements[newSize - 1 - suffix])) {
+			suffix++;
+		}
+		offset = prefix;
+		int n = oldSize - prefix - suffix;
+		int m = newSize - prefix - suffix;
+		if (n == 0 && m == 0) {
+			return;
+		}
+
+		// match the new elements with old ones, the old indices of the
+		// occurrences of a value are chained in order
+		Map<Object, Integer> heads = identity ? new IdentityHashMap<>() : new HashMap<>();
+		int[] nextOccurrence = new int[n];
+		for (int i = n - 1; i >= 0; i--) {
+			Integer head = heads.put(oldElements[prefix + i], Integer.valueOf(i));
+			nextOccurrence[i] = head == null ? -1 : head.intValue();
+		}
+		int[] oldIndexOf = new int[m];
+		boolean[] matched = new boolean[n];
+		for (int j = 0; j < m; j++) {
+			Object element = newElements[prefix + j];
+			Integer head = heads.get(element);
+			int oldIndex = head == null ? -1 : head.intValue();
+			oldIndexOf[j] = oldIndex;
+			if (oldIndex >= 0) {
+				matched[oldIndex] = true;
+				heads.put(element, Integer.valueOf(nextOccurrence[oldIndex]));
+			}
+		}
+
+		// the longest increasing subsequence of the matched old indices
+		int[] tails = new int[m];
+		int[] previous = new int[m];
+		int length = 0;
+		for (int j = 0; j < m; j++) {
+			int oldIndex = oldIndexOf[j];
+			if (oldIndex < 0) {
+				continue;
+			}
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (oldIndexOf[tails[middle]] < oldIndex) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			previous[j] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = j;
+			if (low == length) {
+				length++;
+			}
+		}
+		int[] keptNew = new int[length + 1];
+		int[] keptOld = new int[length + 1];
+		for (int k = length - 1, j = length > 0 ? tails[length - 1] : -1; k >= 0; k--, j = previous[j]) {
+			keptNew[k] = j;
+			keptOld[k] = oldIndexOf[j];
+		}
+		// a sentinel ends the last gap
+		keptNew[length] = m;
+		keptOld[length] = n;
+
+		// assign the slots: in each gap before a kept element, the new
+		// elements, then the old elements, then the kept element
+		int[] newSlots = new int[m];
+		int[] oldSlots = new int[n];
+		int slot = 0;
+		for (int k = 0, newStart = 0, oldStart = 0; k <= length; k++) {
+			for (int j = newStart; j < keptNew[k]; j++) {
+				newSlots[j] = slot++;
+			}
+			for (int i = oldStart; i < keptOld[k]; i++) {
+				oldSlots[i] = slot++;
+			}
+			if (k < length) {
+				oldSlots[keptOld[k]] = slot++;
+			}
+			newStart = keptNew[k] + 1;
+			oldStart = keptOld[k] + 1;
+		}
+		tree = new int[slot + 1];
+		for (int i = 0; i < n; i++) {
+			tree[oldSlots[i] + 1] = 1;
+		}
+		for (int i = 1; i <= slot; i++) {
+			int parent = i + (i & -i);
+			if (parent <= slot) {
+				tree[parent] += tree[i];
+			}
+		}
+
+		boolean[] removed = new boolean[n];
+		for (int k = 0, newStart = 0, oldStart = 0; k <= length; k++) {
+			int cursor = oldStart;
+			int oldEnd = keptOld[k];
+			for (int j = newStart; j < keptNew[k]; j++) {
+				int oldIndex = oldIndexOf[j];
+				if (oldIndex >= 0) {
+					// remove the unmatched old elements at the insertion
+					// point, then move the element
+					while (cursor < oldEnd && (removed[cursor] || !matched[cursor])) {
+						if (!removed[cursor]) {
+							remove(oldSlots[cursor], oldElements[prefix + cursor]);
+							removed[cursor] = true;
+						}
+						cursor++;
+					}
+					remove(oldSlots[oldIndex], oldElements[prefix + oldIndex]);
+					removed[oldIndex] = true;
+				}
+				add(newSlots[j], newElements[prefix + j]);
+			}
+			// remove the remaining unmatched old elements of the gap; the
+			// elements moved to a later gap stay until then
+			if (k < length) {
+				for (int i = cursor; i < oldEnd; i++) {
+					if (!removed[i] && !matched[i]) {
+						remove(oldSlots[i], oldElements[prefix + i]);
+						removed[i] = true;
+					}
+				}
+			} else {
+				for (int i = oldEnd - 1; i >= cursor; i--) {
+					if (!removed[i]) {
+						remove(oldSlots[i], oldElements[prefix + i]);
+					}
+				}
+			}
+			newStart = keptNew[k] + 1;
+			oldStart = keptOld[k] + 1;
+		}
+	}
+
+	/**
+	 * Returns the position of the given slot: the number of occupied slots
+	 * before it.
+	 */
+	private int positionOf(int slot) {
+		int position = offset;
+		for (int i = slot; i > 0; i -= i & -i) {
+			position += tree[i];
+		}
+		return position;
+	}
+
+	private void update(int slot, int delta) {
+		for (int i = slot + 1; i < tree.length; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void add(int slot, Object element) {
+		result.add(Diffs.createListDiffEntry(positionOf(slot), true, (E) element));
+		update(slot, 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void remove(int slot, Object element) {
+		update(slot, -1);
+		result.add(Diffs.createListDiffEntry(positionOf(slot), false, (E) element));
+	}
+}
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.core.internal.databinding.observable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.IDisposeListener;
+import org.eclipse.core.databinding.observable.IObserving;
+import org.eclipse.core.databinding.observable.IStaleListener;
+import org.eclipse.core.databinding.observable.ObservableTracker;
+import org.eclipse.core.databinding.observable.list.AbstractObservableList;
+import org.eclipse.core.databinding.observable.list.IListChangeListener;
+import org.eclipse.core.databinding.observable.list.IObservableList;
+import org.eclipse.core.databinding.observable.list.ListDiff;
+import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+
+/**
+ * An unmodifiable observable list containing the elements of a source list
+ * sorted by a comparator.
+ * <p>
+ * The list is maintained from the diffs of the source list: an added element
+ * is inserted at the position found by a binary search, after the elements
+ * which compare as equal, and a removed element is found by a binary search.
+ * An update therefore compares O(k log n) elements for k changes, and the
+ * diff fired by this list only contains these changes. When most of the
+ * source list changes, the list is sorted again instead, which orders the
+ * elements that compare as equal by their position in the source list.
+ * </p>
+ * <p>
+ * The elements must not change their order while they are in the source list;
+ * the source list must replace an element whose order changes.
+ * </p>
+ * <p>
+ * The list listens to the source list from its first listener, or from the
+ * first access to its elements. Without listeners, it stops listening at the
+ * next change of the source list and sorts it again on the next access, so
+ * that an unused sorted list is not kept reachable by the source list.
+ * </p>
+ *
+ * @param <E>
+ *            the type of the elements in the list
+ */
+public class SortedObservableList<E> extends AbstractObservableList<E> implements IObserving, RandomAccess {
+
+	private IObservableList<E> source;
+
+	private Comparator<? super E> comparator;
+
+	/**
+	 * The sorted elements, or <code>null</code> if the list does not listen to
+	 * the source list.
+	 */
+	private ArrayList<E> elements;
+
+	private IListChangeListener<E> sourceListener = event -> handleSourceChange(event.diff);
+
+	private IStaleListener staleListener = event -> fireStale();
+
+	private IDisposeListener disposeListener = event -> dispose();
+
+	/**
+	 * @param source
+	 *            the list to sort
+	 * @param comparator
+	 *            the comparator of the elements
+	 */
+	public SortedObservableList(IObservableList<E> source, Comparator<? super E> comparator) {
+		super(source.getRealm());
+		this.source = source;
+		this.comparator = comparator;
+	}
+
+	private ArrayList<E> getElements() {
+		if (elements == null) {
+			ObservableTracker.setIgnore(true);
+			try {
+				elements = sort(source);
+			} finally {
+				ObservableTracker.setIgnore(false);
+			}
+			source.addListChangeListener(sourceListener);
+			source.addStaleListener(staleListener);
+			source.addDisposeListener(disposeListener);
+		}
+		return elements;
+	}
+
+	private void stopListening() {
+		if (elements != null) {
+			source.removeListChangeListener(sourceListener);
+			source.removeStaleListener(staleListener);
+			source.removeDisposeListener(disposeListener);
+			elements = null;
+		}
+	}
+
+	@Override
+	protected void firstListenerAdded() {
+		getElements();
+	}
+
+	@Override
+	protected void lastListenerRemoved() {
+		if (source != null) {
+			stopListening();
+		}
+	}
+
+	private ArrayList<E> sort(List<? extends E> list) {
+		ArrayList<E> result = new ArrayList<>(list);
+		result.sort(comparator);
+		return result;
+	}
+
+	private void handleSourceChange(ListDiff<? extends E> diff) {
+		if (!hasListeners()) {
+			stopListening();
+			return;
+		}
+		ListDiffEntry<? extends E>[] entries = diff.getDifferences();
+		if (Util.isBulkChange(entries.length, elements.size())) {
+			ArrayList<E> oldElements = elements;
+			elements = sort(source);
+			fireListChange(Diffs.computeListDiff(oldElements, elements));
+			return;
+		}
+
+		List<ListDiffEntry<E>> sortedEntries = new ArrayList<>(entries.length);
+		for (ListDiffEntry<? extends E> entry : entries) {
+			E element = entry.getElement();
+			if (entry.isAddition()) {
+				int last = sortedEntries.size() - 1;
+				if (last >= 0 && !sortedEntries.get(last).isAddition()
+						&& sortedEntries.get(last).getElement() == element) {
+					// the element is moved in the source list, it keeps its place
+					elements.add(sortedEntries.remove(last).getPosition(), element);
+					continue;
+				}
+				int index = upperBound(element);
+				elements.add(index, element);
+				sortedEntries.add(Diffs.createListDiffEntry(index, true, element));
+			} else {
+				int index = indexOf(element, entry.getPosition());
+				E removed = elements.remove(index);
+				sortedEntries.add(Diffs.createListDiffEntry(index, false, removed));
+			}
+		}
+		if (!sortedEntries.isEmpty()) {
+			fireListChange(Diffs.createListDiff(sortedEntries));
+		}
+	}
+
+	/**
+	 * Returns the index after the last element which does not compare as
+	 * greater than the given one.
+	 */
+	private int upperBound(E element) {
+		int low = 0;
+		int high = elements.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (comparator.compare(elements.get(middle), element) <= 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the index of an element equal to the given one, which was
+	 * removed at the given position of the source list.
+	 */
+	private int indexOf(E element, int sourcePosition) {
+		int low = 0;
+		int high = elements.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (comparator.compare(elements.get(middle), element) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		for (int i = low; i < elements.size() && comparator.compare(elements.get(i), element) == 0; i++) {
+			if (Util.equals(elements.get(i), element)) {
+				return i;
+			}
+		}
+		// the order of the element changed while it was in the list
+		int index = elements.indexOf(element);
+		if (index == -1) {
+			throw new IllegalStateException("Element removed at position " + sourcePosition //$NON-NLS-1$
+					+ " of the source list is not in the sorted list: " + element); //$NON-NLS-1$
+		}
+		return index;
+	}
+
+	@Override
+	protected int doGetSize() {
+		return getElements().size();
+	}
+
+	@Override
+	public E get(int index) {
+		ObservableTracker.getterCalled(this);
+		return getElements().get(index);
+	}
+
+	@Override
+	public Object getElementType() {
+		return source == null ? null : source.getElementType();
+	}
+
+	@Override
+	public boolean isStale() {
+		ObservableTracker.getterCalled(this);
+		return source != null && source.isStale();
+	}
+
+	@Override
+	public Object getObserved() {
+		return source;
+	}
+
+	@Override
+	public synchronized void dispose() {
+		if (source != null) {
+			stopListening();
+			source = null;
+		}
+		comparator = null;
+		sourceListener = null;
+		staleListener = null;
+		disposeListener = null;
+		super.dispose();
+	}
+}
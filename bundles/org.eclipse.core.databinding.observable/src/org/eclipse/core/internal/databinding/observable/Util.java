@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2015 IBM Corporation and others.
+ * Copyright (c) 2006, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -32,4 +32,20 @@ public class Util {
 		return left == null ? right == null : ((right != null) && left
 				.equals(right));
 	}
+
+	/**
+	 * Returns whether a list of the given size, which is updated from the
+	 * diffs of another list, should rather be computed again for a diff with
+	 * the given number of entries. Each entry shifts the elements after its
+	 * position.
+	 *
+	 * @param changes
+	 *            the number of entries of the diff
+	 * @param size
+	 *            the size of the list
+	 * @return <code>true</code> to compute the list again
+	 */
+	public static boolean isBulkChange(int changes, int size) {
+		return changes > 16 && changes > size >>> 8;
+	}
 }
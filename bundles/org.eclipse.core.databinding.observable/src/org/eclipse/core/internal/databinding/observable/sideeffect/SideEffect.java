@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 Google, Inc. and others.
+ * Copyright (c) 2015, 2018 Google, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -85,6 +85,11 @@ public final class SideEffect implements ISideEffect {
 	 * realm.asyncExec
 	 */
 	private boolean asyncScheduled;
+	/**
+	 * True while {@link #runnable} is executing, the changes of the
+	 * dependencies are ignored
+	 */
+	private boolean updating;
 	private int pauseDepth;
 	private Runnable runnable;
 	/**
@@ -181,30 +186,34 @@ public final class SideEffect implements ISideEffect {
 	private void update() {
 		if (dirty && pauseDepth <= 0) {
 			dirty = false;
-			// Hold a reference to the old dependencies to prevent them from
+			// Keep listening to the old dependencies, which prevents them from
 			// being garbage collected until we've computed the new set. In the
 			// event that a dependency is lazily created, this prevents it from
 			// being destroyed and immediately recreated.
 
-			// Stop listening for dependency changes.
-			stopListening();
-
 			// This line will do the following:
 			// - Run the calculate method
 			// - While doing so, add any observable that is touched to the
-			// dependencies list
-			IObservable[] newDependencies = ObservableTracker.runAndMonitor(runnable, null, null);
+			// dependencies list, and listen to it unless it was a dependency
+			// already
+			// - Stop listening to the old dependencies which were not touched
+			IObservable[] newDependencies;
+			updating = true;
+			try {
+				newDependencies = ObservableTracker.runAndMonitor(runnable, privateInterface, null, dependencies);
+			} finally {
+				updating = false;
+			}
 
-			// If the side-effect disposed itself, exit without attaching any
-			// listeners.
+			// If the side-effect disposed itself, stop listening to the
+			// dependencies.
 			if (isDisposed()) {
+				for (IObservable next : newDependencies) {
+					next.removeChangeListener(privateInterface);
+				}
 				return;
 			}
 
-			for (IObservable next : newDependencies) {
-				next.addChangeListener(privateInterface);
-			}
-
 			dependencies = newDependencies;
 		}
 	}
@@ -334,7 +343,9 @@ public final class SideEffect implements ISideEffect {
 	private class PrivateInterface implements IChangeListener, Runnable {
 		@Override
 		public void handleChange(ChangeEvent event) {
-			markDirtyInternal();
+			if (!updating) {
+				markDirtyInternal();
+			}
 		}
 
 		@Override
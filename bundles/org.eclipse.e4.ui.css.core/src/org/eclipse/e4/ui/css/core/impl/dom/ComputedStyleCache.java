@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.eclipse.e4.ui.css.core.dom.CSSStylableElement;
+import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import org.w3c.css.sac.AttributeCondition;
+import org.w3c.css.sac.CombinatorCondition;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionalSelector;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSStyleDeclaration;
+
+/**
+ * Cache of computed {@link CSSStyleDeclaration}s keyed by a structural
+ * signature of an element and its ancestor chain.
+ * <p>
+ * The signature contains, for the element and each of its ancestors, exactly
+ * the state the selectors of the rule list can test: the element name, id and
+ * CSS class, the values of the attributes referenced by attribute conditions
+ * and the state of the referenced pseudo classes. Elements with the same
+ * signature therefore match the same rules, e.g. the many
+ * <code>ToolItem</code>s of a trim bar.
+ * </p>
+ * <p>
+ * When the rule list contains selectors whose match depends on other state
+ * (e.g. sibling selectors), the cache is disabled.
+ * </p>
+ */
+class ComputedStyleCache {
+
+	/**
+	 * Stored for elements for which no rule matches.
+	 */
+	private static final Object NO_STYLE = new Object();
+
+	private static final char SEPARATOR = '\u0000';
+
+	private static final int MAX_ENTRIES = 4096;
+
+	private final Set<String> attributeNames = new TreeSet<>();
+	private final Set<String> pseudoClasses = new TreeSet<>();
+	private boolean enabled = true;
+
+	private final Map<String, Object> styles = new LinkedHashMap<String, Object>(256, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/**
+	 * Creates a cache for the computed styles of the given rules.
+	 *
+	 * @param ruleList
+	 *            the CSS rules
+	 */
+	ComputedStyleCache(List<CSSRule> ruleList) {
+		for (CSSRule rule : ruleList) {
+			if (rule.getType() != CSSRule.STYLE_RULE || !(rule instanceof ExtendedCSSRule)) {
+				continue;
+			}
+			SelectorList selectorList = ((ExtendedCSSRule) rule).getSelectorList();
+			int l = selectorList.getLength();
+			for (int j = 0; j < l && enabled; j++) {
+				collectSignatureState(selectorList.item(j));
+			}
+		}
+	}
+
+	private void collectSignatureState(Selector selector) {
+		switch (selector.getSelectorType()) {
+		case Selector.SAC_ELEMENT_NODE_SELECTOR:
+		case Selector.SAC_PSEUDO_ELEMENT_SELECTOR:
+			break;
+		case Selector.SAC_CONDITIONAL_SELECTOR:
+			collectSignatureState(((ConditionalSelector) selector).getSimpleSelector());
+			collectSignatureState(((ConditionalSelector) selector).getCondition());
+			break;
+		case Selector.SAC_DESCENDANT_SELECTOR:
+		case Selector.SAC_CHILD_SELECTOR:
+			collectSignatureState(((DescendantSelector) selector).getAncestorSelector());
+			collectSignatureState(((DescendantSelector) selector).getSimpleSelector());
+			break;
+		default:
+			// e.g. sibling selectors depend on the siblings of an element
+			enabled = false;
+		}
+	}
+
+	private void collectSignatureState(Condition condition) {
+		switch (condition.getConditionType()) {
+		case Condition.SAC_ID_CONDITION:
+		case Condition.SAC_CLASS_CONDITION:
+			break;
+		case Condition.SAC_PSEUDO_CLASS_CONDITION:
+			pseudoClasses.add(((AttributeCondition) condition).getValue());
+			break;
+		case Condition.SAC_ATTRIBUTE_CONDITION:
+		case Condition.SAC_ONE_OF_ATTRIBUTE_CONDITION:
+		case Condition.SAC_BEGIN_HYPHEN_ATTRIBUTE_CONDITION:
+			attributeNames.add(((AttributeCondition) condition).getLocalName());
+			break;
+		case Condition.SAC_LANG_CONDITION:
+			attributeNames.add("lang"); //$NON-NLS-1$
+			break;
+		case Condition.SAC_AND_CONDITION:
+			collectSignatureState(((CombinatorCondition) condition).getFirstCondition());
+			collectSignatureState(((CombinatorCondition) condition).getSecondCondition());
+			break;
+		default:
+			enabled = false;
+		}
+	}
+
+	/**
+	 * Returns the signature of the element and its ancestors, or
+	 * <code>null</code> if the computed style of the element cannot be cached.
+	 */
+	String getSignature(Element element, String pseudoElt) {
+		if (!enabled) {
+			return null;
+		}
+		StringBuilder signature = new StringBuilder(128);
+		signature.append(pseudoElt);
+		for (Node node = element; node != null; node = node.getParentNode()) {
+			if (node.getNodeType() != Node.ELEMENT_NODE) {
+				continue;
+			}
+			if (!(node instanceof CSSStylableElement)) {
+				return null;
+			}
+			appendSignature(signature, (CSSStylableElement) node);
+		}
+		return signature.toString();
+	}
+
+	private void appendSignature(StringBuilder signature, CSSStylableElement element) {
+		signature.append(SEPARATOR).append(element.getNamespaceURI());
+		signature.append(SEPARATOR).append(element.getPrefix() == null ? element.getNodeName() : element.getLocalName());
+		signature.append(SEPARATOR).append(element.getCSSId());
+		signature.append(SEPARATOR).append(element.getCSSClass());
+		for (String attributeName : attributeNames) {
+			signature.append(SEPARATOR);
+			if (element.hasAttribute(attributeName)) {
+				signature.append(element.getAttribute(attributeName));
+			}
+		}
+		if (!pseudoClasses.isEmpty()) {
+			signature.append(SEPARATOR);
+			for (String pseudoClass : pseudoClasses) {
+				if (element.isPseudoInstanceOf(pseudoClass)) {
+					signature.append(element.isStaticPseudoInstance(pseudoClass) ? 'S' : 'P');
+				} else {
+					signature.append('-');
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a style is cached for the signature.
+	 */
+	boolean contains(String signature) {
+		return styles.containsKey(signature);
+	}
+
+	/**
+	 * Returns the cached style for the signature, which may be
+	 * <code>null</code> if no rule matches elements with this signature.
+	 */
+	CSSStyleDeclaration get(String signature) {
+		Object style = styles.get(signature);
+		return style == NO_STYLE ? null : (CSSStyleDeclaration) style;
+	}
+
+	void put(String signature, CSSStyleDeclaration style) {
+		styles.put(signature, style == null ? NO_STYLE : style);
+	}
+}
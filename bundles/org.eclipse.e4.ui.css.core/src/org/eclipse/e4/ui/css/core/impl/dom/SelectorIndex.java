@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.e4.ui.css.core.dom.CSSStylableElement;
+import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSClassConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.ExtendedSelector;
+import org.w3c.css.sac.AttributeCondition;
+import org.w3c.css.sac.CombinatorCondition;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionalSelector;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.ElementSelector;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.css.sac.SiblingSelector;
+import org.w3c.dom.Element;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSStyleRule;
+
+/**
+ * Index of the selectors of a list of CSS rules, bucketed by the rightmost
+ * simple selector of each selector: its id, one of its CSS classes, its element
+ * name or, when none of these is available, the universal bucket.
+ * <p>
+ * A selector can only match an element whose id, class or name is the key of
+ * its bucket, so {@link #getCandidates(Element)} returns a superset of the
+ * selectors that can match an element. The candidates are returned in the
+ * order in which they appear in the rule list, which keeps the cascade order
+ * used by {@link ViewCSSImpl} unchanged.
+ * </p>
+ */
+class SelectorIndex {
+
+	/**
+	 * A selector of a style rule, with its position in the rule list.
+	 */
+	static class Entry {
+		final ExtendedSelector selector;
+		final CSSStyleDeclaration style;
+		final int order;
+
+		Entry(ExtendedSelector selector, CSSStyleDeclaration style, int order) {
+			this.selector = selector;
+			this.style = style;
+			this.order = order;
+		}
+	}
+
+	private final Map<String, List<Entry>> idBuckets = new HashMap<>();
+	private final Map<String, List<Entry>> classBuckets = new HashMap<>();
+	private final Map<String, List<Entry>> elementBuckets = new HashMap<>();
+	private final List<Entry> universalBucket = new ArrayList<>();
+
+	/**
+	 * Creates the index for the given rules.
+	 *
+	 * @param ruleList
+	 *            the CSS rules, in cascade order
+	 */
+	SelectorIndex(List<CSSRule> ruleList) {
+		int order = 0;
+		for (CSSRule rule : ruleList) {
+			if (rule.getType() != CSSRule.STYLE_RULE || !(rule instanceof ExtendedCSSRule)) {
+				continue;
+			}
+			CSSStyleDeclaration style = ((CSSStyleRule) rule).getStyle();
+			SelectorList selectorList = ((ExtendedCSSRule) rule).getSelectorList();
+			int l = selectorList.getLength();
+			for (int j = 0; j < l; j++) {
+				Selector selector = selectorList.item(j);
+				if (selector instanceof ExtendedSelector) {
+					addEntry(new Entry((ExtendedSelector) selector, style, order++));
+				}
+			}
+		}
+	}
+
+	private void addEntry(Entry entry) {
+		Selector selector = getRightmostSelector(entry.selector);
+		if (selector instanceof ConditionalSelector) {
+			Condition condition = ((ConditionalSelector) selector).getCondition();
+			String id = findConditionValue(condition, Condition.SAC_ID_CONDITION);
+			if (id != null) {
+				addToBucket(idBuckets, id, entry);
+				return;
+			}
+			String cssClass = findConditionValue(condition, Condition.SAC_CLASS_CONDITION);
+			if (cssClass != null) {
+				addToBucket(classBuckets, cssClass, entry);
+				return;
+			}
+			selector = ((ConditionalSelector) selector).getSimpleSelector();
+		}
+		if (selector.getSelectorType() == Selector.SAC_ELEMENT_NODE_SELECTOR) {
+			String name = ((ElementSelector) selector).getLocalName();
+			if (name != null) {
+				addToBucket(elementBuckets, name, entry);
+				return;
+			}
+		}
+		universalBucket.add(entry);
+	}
+
+	private static void addToBucket(Map<String, List<Entry>> buckets, String key, Entry entry) {
+		buckets.computeIfAbsent(key, k -> new ArrayList<>(2)).add(entry);
+	}
+
+	/**
+	 * Returns the simple (possibly conditional) selector which has to match the
+	 * element itself, i.e. the rightmost part of descendant, child and sibling
+	 * selectors.
+	 */
+	private static Selector getRightmostSelector(Selector selector) {
+		Selector current = selector;
+		while (true) {
+			if (current instanceof DescendantSelector) {
+				current = ((DescendantSelector) current).getSimpleSelector();
+			} else if (current instanceof SiblingSelector) {
+				current = ((SiblingSelector) current).getSiblingSelector();
+			} else {
+				return current;
+			}
+		}
+	}
+
+	/**
+	 * Searches the given condition and the conditions it is AND-combined with
+	 * for a condition of the given type and returns its value.
+	 */
+	private static String findConditionValue(Condition condition, short conditionType) {
+		if (getConditionType(condition) == conditionType) {
+			return ((AttributeCondition) condition).getValue();
+		}
+		if (condition.getConditionType() == Condition.SAC_AND_CONDITION) {
+			CombinatorCondition combinator = (CombinatorCondition) condition;
+			String value = findConditionValue(combinator.getFirstCondition(), conditionType);
+			if (value == null) {
+				value = findConditionValue(combinator.getSecondCondition(), conditionType);
+			}
+			return value;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the type of the condition. {@link CSSClassConditionImpl} reports
+	 * itself as an attribute condition, but matches as a class condition.
+	 */
+	private static short getConditionType(Condition condition) {
+		if (condition instanceof CSSClassConditionImpl) {
+			return Condition.SAC_CLASS_CONDITION;
+		}
+		return condition.getConditionType();
+	}
+
+	/**
+	 * Returns the entries whose selector may match the given element, in rule
+	 * list order. The selectors still have to be matched against the element.
+	 */
+	List<Entry> getCandidates(Element element) {
+		List<List<Entry>> buckets = new ArrayList<>(4);
+		addBucket(buckets, universalBucket);
+
+		String name = element.getPrefix() == null ? element.getNodeName() : element.getLocalName();
+		if (name != null) {
+			addBucket(buckets, elementBuckets.get(name));
+		}
+
+		String id;
+		String cssClass;
+		if (element instanceof CSSStylableElement) {
+			CSSStylableElement stylableElement = (CSSStylableElement) element;
+			id = stylableElement.getCSSId();
+			cssClass = stylableElement.getCSSClass();
+		} else {
+			id = element.getAttribute("id"); //$NON-NLS-1$
+			cssClass = element.getAttribute("class"); //$NON-NLS-1$
+		}
+		if (id != null && !idBuckets.isEmpty()) {
+			addBucket(buckets, idBuckets.get(id));
+		}
+		if (cssClass != null && !classBuckets.isEmpty()) {
+			addClassBuckets(buckets, cssClass);
+		}
+
+		if (buckets.isEmpty()) {
+			return Collections.emptyList();
+		}
+		if (buckets.size() == 1) {
+			return buckets.get(0);
+		}
+		List<Entry> candidates = new ArrayList<>();
+		for (List<Entry> bucket : buckets) {
+			candidates.addAll(bucket);
+		}
+		candidates.sort((e1, e2) -> Integer.compare(e1.order, e2.order));
+		return candidates;
+	}
+
+	/**
+	 * Adds the buckets of the space separated class names. A class which
+	 * occurs several times is only added once.
+	 */
+	private void addClassBuckets(List<List<Entry>> buckets, String cssClass) {
+		int length = cssClass.length();
+		int start = 0;
+		while (start < length) {
+			while (start < length && Character.isSpaceChar(cssClass.charAt(start))) {
+				start++;
+			}
+			int end = start;
+			while (end < length && !Character.isSpaceChar(cssClass.charAt(end))) {
+				end++;
+			}
+			if (end > start) {
+				List<Entry> bucket = classBuckets.get(cssClass.substring(start, end));
+				if (bucket != null && !containsBucket(buckets, bucket)) {
+					buckets.add(bucket);
+				}
+			}
+			start = end;
+		}
+	}
+
+	private static boolean containsBucket(List<List<Entry>> buckets, List<Entry> bucket) {
+		for (List<Entry> b : buckets) {
+			if (b == bucket) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void addBucket(List<List<Entry>> buckets, List<Entry> bucket) {
+		if (bucket != null && !bucket.isEmpty()) {
+			buckets.add(bucket);
+		}
+	}
+}
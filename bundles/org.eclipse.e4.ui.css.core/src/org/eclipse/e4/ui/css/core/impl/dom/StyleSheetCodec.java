@@ -0,0 +1,649 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.e4.ui.css.core.dom.CSSProperty;
+import org.eclipse.e4.ui.css.core.dom.CSSPropertyList;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSClassConditionImpl;
+import org.w3c.css.sac.AttributeCondition;
+import org.w3c.css.sac.CombinatorCondition;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionFactory;
+import org.w3c.css.sac.ConditionalSelector;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.ElementSelector;
+import org.w3c.css.sac.LangCondition;
+import org.w3c.css.sac.LexicalUnit;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorFactory;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.css.sac.SiblingSelector;
+import org.w3c.css.sac.SimpleSelector;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleSheet;
+import org.w3c.dom.css.CSSValue;
+
+/**
+ * Writes the style rules of parsed style sheets in a compact binary form, and
+ * reads them back without parsing CSS.
+ * <p>
+ * The selectors are written as the trees of SAC selectors and conditions
+ * created by the parser, and are read back with the selector and condition
+ * factories of the engine, so that they match elements as the parsed ones do.
+ * The property values are written as the lexical units they were created
+ * from. Style sheets with other rules than style rules, or with selectors,
+ * conditions or values which cannot be written, are rejected with an
+ * {@link IOException}; they have to be parsed each time.
+ * </p>
+ */
+public final class StyleSheetCodec {
+
+	/**
+	 * The version of the format, written first and checked when reading.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	private static final byte SELECTOR_CONDITIONAL = 1;
+	private static final byte SELECTOR_ELEMENT = 2;
+	private static final byte SELECTOR_PSEUDO_ELEMENT = 3;
+	private static final byte SELECTOR_DESCENDANT = 4;
+	private static final byte SELECTOR_CHILD = 5;
+	private static final byte SELECTOR_DIRECT_ADJACENT = 6;
+
+	private static final byte CONDITION_AND = 1;
+	private static final byte CONDITION_ATTRIBUTE = 2;
+	private static final byte CONDITION_ONE_OF_ATTRIBUTE = 3;
+	private static final byte CONDITION_BEGIN_HYPHEN_ATTRIBUTE = 4;
+	private static final byte CONDITION_ID = 5;
+	private static final byte CONDITION_CLASS = 6;
+	private static final byte CONDITION_PSEUDO_CLASS = 7;
+	private static final byte CONDITION_LANG = 8;
+
+	private StyleSheetCodec() {
+	}
+
+	/**
+	 * Writes the rules of the style sheet.
+	 *
+	 * @param styleSheet
+	 *            the style sheet, as created by the parser
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the style sheet cannot be written in this form, or if
+	 *             writing fails
+	 */
+	public static void write(CSSStyleSheet styleSheet, DataOutput out) throws IOException {
+		CSSRuleList rules = styleSheet.getCssRules();
+		out.writeInt(FORMAT_VERSION);
+		out.writeInt(rules.getLength());
+		for (int i = 0; i < rules.getLength(); i++) {
+			CSSRule rule = rules.item(i);
+			if (!(rule instanceof CSSStyleRuleImpl)) {
+				throw new IOException("Unsupported rule: " + rule.getCssText()); //$NON-NLS-1$
+			}
+			CSSStyleRuleImpl styleRule = (CSSStyleRuleImpl) rule;
+			SelectorList selectors = styleRule.getSelectorList();
+			out.writeInt(selectors.getLength());
+			for (int j = 0; j < selectors.getLength(); j++) {
+				writeSelector(selectors.item(j), out);
+			}
+			if (!(styleRule.getStyle() instanceof CSSStyleDeclarationImpl)) {
+				throw new IOException("Unsupported style: " + rule.getCssText()); //$NON-NLS-1$
+			}
+			CSSPropertyList properties = ((CSSStyleDeclarationImpl) styleRule.getStyle()).getCSSPropertyList();
+			out.writeInt(properties.getLength());
+			for (int j = 0; j < properties.getLength(); j++) {
+				CSSProperty property = properties.item(j);
+				out.writeUTF(property.getName());
+				out.writeBoolean(property.isImportant());
+				writeValue(property.getValue(), out);
+			}
+		}
+	}
+
+	/**
+	 * Reads the rules of a style sheet written by
+	 * {@link #write(CSSStyleSheet, DataOutput)}.
+	 *
+	 * @param in
+	 *            the input
+	 * @param selectorFactory
+	 *            the factory creating the selectors
+	 * @param conditionFactory
+	 *            the factory creating the conditions of the selectors
+	 * @return the style sheet
+	 * @throws IOException
+	 *             if the input is not a style sheet written in this form, or
+	 *             if reading fails
+	 */
+	public static CSSStyleSheet read(DataInput in, SelectorFactory selectorFactory,
+			ConditionFactory conditionFactory) throws IOException {
+		if (in.readInt() != FORMAT_VERSION) {
+			throw new IOException("Unsupported format"); //$NON-NLS-1$
+		}
+		CSSStyleSheetImpl styleSheet = new CSSStyleSheetImpl();
+		CSSRuleListImpl rules = new CSSRuleListImpl();
+		int ruleCount = in.readInt();
+		for (int i = 0; i < ruleCount; i++) {
+			int selectorCount = in.readInt();
+			Selector[] selectors = new Selector[selectorCount];
+			for (int j = 0; j < selectorCount; j++) {
+				selectors[j] = readSelector(in, selectorFactory, conditionFactory);
+			}
+			CSSStyleRuleImpl rule = new CSSStyleRuleImpl(styleSheet, null, new SelectorListImpl(selectors));
+			CSSStyleDeclarationImpl style = new CSSStyleDeclarationImpl(rule);
+			int propertyCount = in.readInt();
+			for (int j = 0; j < propertyCount; j++) {
+				String name = in.readUTF();
+				boolean important = in.readBoolean();
+				style.addProperty(new CSSPropertyImpl(name, CSSValueFactory.newValue(readUnits(in)), important));
+			}
+			rule.setStyle(style);
+			rules.add(rule);
+		}
+		styleSheet.setRuleList(rules);
+		return styleSheet;
+	}
+
+	private static void writeSelector(Selector selector, DataOutput out) throws IOException {
+		switch (selector.getSelectorType()) {
+		case Selector.SAC_CONDITIONAL_SELECTOR:
+			out.writeByte(SELECTOR_CONDITIONAL);
+			writeSelector(((ConditionalSelector) selector).getSimpleSelector(), out);
+			writeCondition(((ConditionalSelector) selector).getCondition(), out);
+			break;
+		case Selector.SAC_ELEMENT_NODE_SELECTOR:
+		case Selector.SAC_PSEUDO_ELEMENT_SELECTOR:
+			out.writeByte(selector.getSelectorType() == Selector.SAC_ELEMENT_NODE_SELECTOR ? SELECTOR_ELEMENT
+					: SELECTOR_PSEUDO_ELEMENT);
+			writeString(((ElementSelector) selector).getNamespaceURI(), out);
+			writeString(((ElementSelector) selector).getLocalName(), out);
+			break;
+		case Selector.SAC_DESCENDANT_SELECTOR:
+		case Selector.SAC_CHILD_SELECTOR:
+			out.writeByte(selector.getSelectorType() == Selector.SAC_DESCENDANT_SELECTOR ? SELECTOR_DESCENDANT
+					: SELECTOR_CHILD);
+			writeSelector(((DescendantSelector) selector).getAncestorSelector(), out);
+			writeSelector(((DescendantSelector) selector).getSimpleSelector(), out);
+			break;
+		case Selector.SAC_DIRECT_ADJACENT_SELECTOR:
+			out.writeByte(SELECTOR_DIRECT_ADJACENT);
+			out.writeShort(((SiblingSelector) selector).getNodeType());
+			writeSelector(((SiblingSelector) selector).getSelector(), out);
+			writeSelector(((SiblingSelector) selector).getSiblingSelector(), out);
+			break;
+		default:
+			throw new IOException("Unsupported selector: " + selector); //$NON-NLS-1$
+		}
+	}
+
+	private static Selector readSelector(DataInput in, SelectorFactory selectorFactory,
+			ConditionFactory conditionFactory) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+		case SELECTOR_CONDITIONAL:
+			SimpleSelector simpleSelector = readSimpleSelector(in, selectorFactory, conditionFactory);
+			return selectorFactory.createConditionalSelector(simpleSelector, readCondition(in, conditionFactory));
+		case SELECTOR_ELEMENT:
+			String namespaceURI = readString(in);
+			return selectorFactory.createElementSelector(namespaceURI, readString(in));
+		case SELECTOR_PSEUDO_ELEMENT:
+			namespaceURI = readString(in);
+			return selectorFactory.createPseudoElementSelector(namespaceURI, readString(in));
+		case SELECTOR_DESCENDANT:
+		case SELECTOR_CHILD:
+			Selector ancestor = readSelector(in, selectorFactory, conditionFactory);
+			simpleSelector = readSimpleSelector(in, selectorFactory, conditionFactory);
+			return type == SELECTOR_DESCENDANT ? selectorFactory.createDescendantSelector(ancestor, simpleSelector)
+					: selectorFactory.createChildSelector(ancestor, simpleSelector);
+		case SELECTOR_DIRECT_ADJACENT:
+			short nodeType = in.readShort();
+			Selector sibling = readSelector(in, selectorFactory, conditionFactory);
+			return selectorFactory.createDirectAdjacentSelector(nodeType, sibling,
+					readSimpleSelector(in, selectorFactory, conditionFactory));
+		default:
+			throw new IOException("Unsupported selector type: " + type); //$NON-NLS-1$
+		}
+	}
+
+	private static SimpleSelector readSimpleSelector(DataInput in, SelectorFactory selectorFactory,
+			ConditionFactory conditionFactory) throws IOException {
+		Selector selector = readSelector(in, selectorFactory, conditionFactory);
+		if (!(selector instanceof SimpleSelector)) {
+			throw new IOException("Not a simple selector: " + selector); //$NON-NLS-1$
+		}
+		return (SimpleSelector) selector;
+	}
+
+	private static void writeCondition(Condition condition, DataOutput out) throws IOException {
+		switch (condition.getConditionType()) {
+		case Condition.SAC_AND_CONDITION:
+			out.writeByte(CONDITION_AND);
+			writeCondition(((CombinatorCondition) condition).getFirstCondition(), out);
+			writeCondition(((CombinatorCondition) condition).getSecondCondition(), out);
+			break;
+		case Condition.SAC_ATTRIBUTE_CONDITION:
+		case Condition.SAC_ONE_OF_ATTRIBUTE_CONDITION:
+		case Condition.SAC_BEGIN_HYPHEN_ATTRIBUTE_CONDITION:
+			AttributeCondition attributeCondition = (AttributeCondition) condition;
+			if (condition instanceof CSSClassConditionImpl) {
+				// class conditions report the type of attribute conditions
+				out.writeByte(CONDITION_CLASS);
+				writeString(attributeCondition.getNamespaceURI(), out);
+				writeString(attributeCondition.getValue(), out);
+				break;
+			}
+			if (condition.getConditionType() == Condition.SAC_ATTRIBUTE_CONDITION) {
+				out.writeByte(CONDITION_ATTRIBUTE);
+			} else if (condition.getConditionType() == Condition.SAC_ONE_OF_ATTRIBUTE_CONDITION) {
+				out.writeByte(CONDITION_ONE_OF_ATTRIBUTE);
+			} else {
+				out.writeByte(CONDITION_BEGIN_HYPHEN_ATTRIBUTE);
+			}
+			writeString(attributeCondition.getLocalName(), out);
+			writeString(attributeCondition.getNamespaceURI(), out);
+			out.writeBoolean(attributeCondition.getSpecified());
+			writeString(attributeCondition.getValue(), out);
+			break;
+		case Condition.SAC_ID_CONDITION:
+			out.writeByte(CONDITION_ID);
+			writeString(((AttributeCondition) condition).getValue(), out);
+			break;
+		case Condition.SAC_CLASS_CONDITION:
+			out.writeByte(CONDITION_CLASS);
+			writeString(((AttributeCondition) condition).getNamespaceURI(), out);
+			writeString(((AttributeCondition) condition).getValue(), out);
+			break;
+		case Condition.SAC_PSEUDO_CLASS_CONDITION:
+			out.writeByte(CONDITION_PSEUDO_CLASS);
+			writeString(((AttributeCondition) condition).getNamespaceURI(), out);
+			writeString(((AttributeCondition) condition).getValue(), out);
+			break;
+		case Condition.SAC_LANG_CONDITION:
+			out.writeByte(CONDITION_LANG);
+			writeString(((LangCondition) condition).getLang(), out);
+			break;
+		default:
+			throw new IOException("Unsupported condition: " + condition); //$NON-NLS-1$
+		}
+	}
+
+	private static Condition readCondition(DataInput in, ConditionFactory conditionFactory) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+		case CONDITION_AND:
+			Condition first = readCondition(in, conditionFactory);
+			return conditionFactory.createAndCondition(first, readCondition(in, conditionFactory));
+		case CONDITION_ATTRIBUTE:
+		case CONDITION_ONE_OF_ATTRIBUTE:
+		case CONDITION_BEGIN_HYPHEN_ATTRIBUTE:
+			String localName = readString(in);
+			String namespaceURI = readString(in);
+			boolean specified = in.readBoolean();
+			String value = readString(in);
+			if (type == CONDITION_ATTRIBUTE) {
+				return conditionFactory.createAttributeCondition(localName, namespaceURI, specified, value);
+			} else if (type == CONDITION_ONE_OF_ATTRIBUTE) {
+				return conditionFactory.createOneOfAttributeCondition(localName, namespaceURI, specified, value);
+			}
+			return conditionFactory.createBeginHyphenAttributeCondition(localName, namespaceURI, specified, value);
+		case CONDITION_ID:
+			return conditionFactory.createIdCondition(readString(in));
+		case CONDITION_CLASS:
+			namespaceURI = readString(in);
+			return conditionFactory.createClassCondition(namespaceURI, readString(in));
+		case CONDITION_PSEUDO_CLASS:
+			namespaceURI = readString(in);
+			return conditionFactory.createPseudoClassCondition(namespaceURI, readString(in));
+		case CONDITION_LANG:
+			return conditionFactory.createLangCondition(readString(in));
+		default:
+			throw new IOException("Unsupported condition type: " + type); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Writes the lexical units of a value created by {@link CSSValueFactory}.
+	 */
+	private static void writeValue(CSSValue value, DataOutput out) throws IOException {
+		List<CSSValue> items = new ArrayList<>();
+		if (value instanceof CSSValueListImpl) {
+			items.addAll(((CSSValueListImpl) value).values);
+		} else {
+			items.add(value);
+		}
+		out.writeInt(items.size());
+		for (CSSValue item : items) {
+			if (item instanceof Measure) {
+				writeUnit(((Measure) item).value, out);
+			} else if (item instanceof RGBColorImpl) {
+				// the color was created from an rgb() function with the
+				// parameters red, comma, green, comma and blue
+				RGBColorImpl color = (RGBColorImpl) item;
+				out.writeShort(LexicalUnit.SAC_RGBCOLOR);
+				out.writeInt(5);
+				writeUnit(((Measure) color.getRed()).value, out);
+				out.writeShort(LexicalUnit.SAC_OPERATOR_COMMA);
+				writeUnit(((Measure) color.getGreen()).value, out);
+				out.writeShort(LexicalUnit.SAC_OPERATOR_COMMA);
+				writeUnit(((Measure) color.getBlue()).value, out);
+			} else {
+				throw new IOException("Unsupported value: " + item.getCssText()); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Writes a lexical unit, with its parameters but without the units which
+	 * follow it.
+	 */
+	private static void writeUnit(LexicalUnit unit, DataOutput out) throws IOException {
+		short type = unit.getLexicalUnitType();
+		out.writeShort(type);
+		switch (type) {
+		case LexicalUnit.SAC_INTEGER:
+			out.writeInt(unit.getIntegerValue());
+			break;
+		case LexicalUnit.SAC_REAL:
+			out.writeFloat(unit.getFloatValue());
+			break;
+		case LexicalUnit.SAC_EM:
+		case LexicalUnit.SAC_EX:
+		case LexicalUnit.SAC_PIXEL:
+		case LexicalUnit.SAC_INCH:
+		case LexicalUnit.SAC_CENTIMETER:
+		case LexicalUnit.SAC_MILLIMETER:
+		case LexicalUnit.SAC_POINT:
+		case LexicalUnit.SAC_PICA:
+		case LexicalUnit.SAC_PERCENTAGE:
+		case LexicalUnit.SAC_DEGREE:
+		case LexicalUnit.SAC_GRADIAN:
+		case LexicalUnit.SAC_RADIAN:
+		case LexicalUnit.SAC_MILLISECOND:
+		case LexicalUnit.SAC_SECOND:
+		case LexicalUnit.SAC_HERTZ:
+		case LexicalUnit.SAC_KILOHERTZ:
+		case LexicalUnit.SAC_DIMENSION:
+			out.writeFloat(unit.getFloatValue());
+			writeString(unit.getDimensionUnitText(), out);
+			break;
+		case LexicalUnit.SAC_URI:
+		case LexicalUnit.SAC_IDENT:
+		case LexicalUnit.SAC_STRING_VALUE:
+		case LexicalUnit.SAC_ATTR:
+			writeString(unit.getStringValue(), out);
+			break;
+		case LexicalUnit.SAC_FUNCTION:
+			writeString(unit.getFunctionName(), out);
+			writeParameters(unit, out);
+			break;
+		case LexicalUnit.SAC_RGBCOLOR:
+		case LexicalUnit.SAC_RECT_FUNCTION:
+		case LexicalUnit.SAC_COUNTER_FUNCTION:
+		case LexicalUnit.SAC_COUNTERS_FUNCTION:
+			writeParameters(unit, out);
+			break;
+		case LexicalUnit.SAC_OPERATOR_COMMA:
+		case LexicalUnit.SAC_OPERATOR_PLUS:
+		case LexicalUnit.SAC_OPERATOR_MINUS:
+		case LexicalUnit.SAC_OPERATOR_MULTIPLY:
+		case LexicalUnit.SAC_OPERATOR_SLASH:
+		case LexicalUnit.SAC_OPERATOR_MOD:
+		case LexicalUnit.SAC_OPERATOR_EXP:
+		case LexicalUnit.SAC_OPERATOR_LT:
+		case LexicalUnit.SAC_OPERATOR_GT:
+		case LexicalUnit.SAC_OPERATOR_LE:
+		case LexicalUnit.SAC_OPERATOR_GE:
+		case LexicalUnit.SAC_OPERATOR_TILDE:
+		case LexicalUnit.SAC_INHERIT:
+			break;
+		default:
+			throw new IOException("Unsupported lexical unit type: " + type); //$NON-NLS-1$
+		}
+	}
+
+	private static void writeParameters(LexicalUnit unit, DataOutput out) throws IOException {
+		List<LexicalUnit> parameters = new ArrayList<>();
+		for (LexicalUnit parameter = unit.getParameters(); parameter != null; parameter = parameter
+				.getNextLexicalUnit()) {
+			parameters.add(parameter);
+		}
+		out.writeInt(parameters.size());
+		for (LexicalUnit parameter : parameters) {
+			writeUnit(parameter, out);
+		}
+	}
+
+	/**
+	 * Reads a chain of lexical units.
+	 *
+	 * @return the first unit of the chain, or <code>null</code> if it is empty
+	 */
+	private static LexicalUnit readUnits(DataInput in) throws IOException {
+		int count = in.readInt();
+		LexicalUnitImpl first = null;
+		LexicalUnitImpl previous = null;
+		for (int i = 0; i < count; i++) {
+			LexicalUnitImpl unit = readUnit(in);
+			if (previous == null) {
+				first = unit;
+			} else {
+				previous.next = unit;
+				unit.previous = previous;
+			}
+			previous = unit;
+		}
+		return first;
+	}
+
+	private static LexicalUnitImpl readUnit(DataInput in) throws IOException {
+		LexicalUnitImpl unit = new LexicalUnitImpl(in.readShort());
+		switch (unit.type) {
+		case LexicalUnit.SAC_INTEGER:
+			unit.integerValue = in.readInt();
+			break;
+		case LexicalUnit.SAC_REAL:
+			unit.hasFloatValue = true;
+			unit.floatValue = in.readFloat();
+			break;
+		case LexicalUnit.SAC_EM:
+		case LexicalUnit.SAC_EX:
+		case LexicalUnit.SAC_PIXEL:
+		case LexicalUnit.SAC_INCH:
+		case LexicalUnit.SAC_CENTIMETER:
+		case LexicalUnit.SAC_MILLIMETER:
+		case LexicalUnit.SAC_POINT:
+		case LexicalUnit.SAC_PICA:
+		case LexicalUnit.SAC_PERCENTAGE:
+		case LexicalUnit.SAC_DEGREE:
+		case LexicalUnit.SAC_GRADIAN:
+		case LexicalUnit.SAC_RADIAN:
+		case LexicalUnit.SAC_MILLISECOND:
+		case LexicalUnit.SAC_SECOND:
+		case LexicalUnit.SAC_HERTZ:
+		case LexicalUnit.SAC_KILOHERTZ:
+		case LexicalUnit.SAC_DIMENSION:
+			unit.hasFloatValue = true;
+			unit.floatValue = in.readFloat();
+			unit.dimensionUnitText = readString(in);
+			break;
+		case LexicalUnit.SAC_URI:
+		case LexicalUnit.SAC_IDENT:
+		case LexicalUnit.SAC_STRING_VALUE:
+		case LexicalUnit.SAC_ATTR:
+			unit.stringValue = readString(in);
+			break;
+		case LexicalUnit.SAC_FUNCTION:
+			unit.functionName = readString(in);
+			unit.parameters = readUnits(in);
+			break;
+		case LexicalUnit.SAC_RGBCOLOR:
+			unit.functionName = "rgb"; //$NON-NLS-1$
+			unit.parameters = readUnits(in);
+			break;
+		case LexicalUnit.SAC_RECT_FUNCTION:
+			unit.functionName = "rect"; //$NON-NLS-1$
+			unit.parameters = readUnits(in);
+			break;
+		case LexicalUnit.SAC_COUNTER_FUNCTION:
+			unit.functionName = "counter"; //$NON-NLS-1$
+			unit.parameters = readUnits(in);
+			break;
+		case LexicalUnit.SAC_COUNTERS_FUNCTION:
+			unit.functionName = "counters"; //$NON-NLS-1$
+			unit.parameters = readUnits(in);
+			break;
+		case LexicalUnit.SAC_OPERATOR_COMMA:
+		case LexicalUnit.SAC_OPERATOR_PLUS:
+		case LexicalUnit.SAC_OPERATOR_MINUS:
+		case LexicalUnit.SAC_OPERATOR_MULTIPLY:
+		case LexicalUnit.SAC_OPERATOR_SLASH:
+		case LexicalUnit.SAC_OPERATOR_MOD:
+		case LexicalUnit.SAC_OPERATOR_EXP:
+		case LexicalUnit.SAC_OPERATOR_LT:
+		case LexicalUnit.SAC_OPERATOR_GT:
+		case LexicalUnit.SAC_OPERATOR_LE:
+		case LexicalUnit.SAC_OPERATOR_GE:
+		case LexicalUnit.SAC_OPERATOR_TILDE:
+		case LexicalUnit.SAC_INHERIT:
+			break;
+		default:
+			throw new IOException("Unsupported lexical unit type: " + unit.type); //$NON-NLS-1$
+		}
+		return unit;
+	}
+
+	private static void writeString(String string, DataOutput out) throws IOException {
+		out.writeBoolean(string != null);
+		if (string != null) {
+			out.writeUTF(string);
+		}
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static class SelectorListImpl implements SelectorList {
+		private final Selector[] selectors;
+
+		SelectorListImpl(Selector[] selectors) {
+			this.selectors = selectors;
+		}
+
+		@Override
+		public int getLength() {
+			return selectors.length;
+		}
+
+		@Override
+		public Selector item(int index) {
+			return index >= 0 && index < selectors.length ? selectors[index] : null;
+		}
+	}
+
+	/**
+	 * A lexical unit read back. Like the units of the parser, it throws an
+	 * {@link IllegalStateException} when a value its type does not have is
+	 * requested.
+	 */
+	private static class LexicalUnitImpl implements LexicalUnit {
+		final short type;
+		LexicalUnitImpl next;
+		LexicalUnitImpl previous;
+		int integerValue;
+		boolean hasFloatValue;
+		float floatValue;
+		String dimensionUnitText;
+		String stringValue;
+		String functionName;
+		LexicalUnit parameters;
+
+		LexicalUnitImpl(short type) {
+			this.type = type;
+		}
+
+		@Override
+		public short getLexicalUnitType() {
+			return type;
+		}
+
+		@Override
+		public LexicalUnit getNextLexicalUnit() {
+			return next;
+		}
+
+		@Override
+		public LexicalUnit getPreviousLexicalUnit() {
+			return previous;
+		}
+
+		@Override
+		public int getIntegerValue() {
+			if (type != SAC_INTEGER) {
+				throw new IllegalStateException();
+			}
+			return integerValue;
+		}
+
+		@Override
+		public float getFloatValue() {
+			if (!hasFloatValue) {
+				throw new IllegalStateException();
+			}
+			return floatValue;
+		}
+
+		@Override
+		public String getDimensionUnitText() {
+			if (dimensionUnitText == null) {
+				throw new IllegalStateException();
+			}
+			return dimensionUnitText;
+		}
+
+		@Override
+		public String getFunctionName() {
+			if (functionName == null) {
+				throw new IllegalStateException();
+			}
+			return functionName;
+		}
+
+		@Override
+		public LexicalUnit getParameters() {
+			if (functionName == null) {
+				throw new IllegalStateException();
+			}
+			return parameters;
+		}
+
+		@Override
+		public String getStringValue() {
+			if (stringValue == null) {
+				throw new IllegalStateException();
+			}
+			return stringValue;
+		}
+
+		@Override
+		public LexicalUnit getSubValues() {
+			throw new IllegalStateException();
+		}
+	}
+}
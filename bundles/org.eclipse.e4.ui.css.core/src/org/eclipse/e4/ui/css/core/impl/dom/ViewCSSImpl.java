@@ -43,6 +43,12 @@ public class ViewCSSImpl implements ViewCSS, ExtendedDocumentCSS.StyleSheetChang
 	private boolean ruleCachingEnabled;
 	/** Cached state of combined CSS rules for the current stylesheets */
 	private List<CSSRule> currentCombinedRules;
+	/** Index of the selectors of {@link #currentCombinedRules} */
+	private SelectorIndex currentSelectorIndex;
+	/** Computed styles for {@link #currentCombinedRules} */
+	private ComputedStyleCache currentStyleCache;
+	private long styleCacheHits;
+	private long styleCacheMisses;
 
 	/**
 	 * Creates a new ViewCSS.
@@ -69,10 +75,72 @@ public class ViewCSSImpl implements ViewCSS, ExtendedDocumentCSS.StyleSheetChang
 	 */
 	@Override
 	public CSSStyleDeclaration getComputedStyle(Element elt, String pseudoElt) {
-		CSSStyleDeclaration styleDeclaration = getComputedStyle(getCombinedRules(), elt, pseudoElt);
+		if (!this.ruleCachingEnabled) {
+			return getComputedStyle(getCombinedRules(), elt, pseudoElt);
+		}
+		ComputedStyleCache styleCache = getStyleCache();
+		String signature = styleCache.getSignature(elt, pseudoElt);
+		if (signature == null) {
+			return getComputedStyle(getSelectorIndex(), elt, pseudoElt);
+		}
+		if (styleCache.contains(signature)) {
+			styleCacheHits++;
+			return styleCache.get(signature);
+		}
+		styleCacheMisses++;
+		CSSStyleDeclaration styleDeclaration = getComputedStyle(getSelectorIndex(), elt, pseudoElt);
+		styleCache.put(signature, styleDeclaration);
 		return styleDeclaration;
 	}
 
+	/**
+	 * Determines the relevant style declaration for an DOM element with the
+	 * selector index, without the computed style cache, so that the matching
+	 * of the selectors can be measured.
+	 *
+	 * @param elt
+	 *            the element
+	 * @param pseudoElt
+	 *            the pseudo element, or <code>null</code>
+	 * @return the style declaration, or <code>null</code> if no rule matches
+	 */
+	public CSSStyleDeclaration getUncachedComputedStyle(Element elt, String pseudoElt) {
+		if (!this.ruleCachingEnabled) {
+			return getComputedStyle(getCombinedRules(), elt, pseudoElt);
+		}
+		return getComputedStyle(getSelectorIndex(), elt, pseudoElt);
+	}
+
+	/**
+	 * Returns the number of calls to
+	 * {@link #getComputedStyle(Element, String)} which were answered from the
+	 * computed style cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	public long getStyleCacheHits() {
+		return styleCacheHits;
+	}
+
+	/**
+	 * Returns the number of calls to
+	 * {@link #getComputedStyle(Element, String)} which had to compute the
+	 * style of a cacheable element.
+	 *
+	 * @return the number of cache misses
+	 */
+	public long getStyleCacheMisses() {
+		return styleCacheMisses;
+	}
+
+	/**
+	 * Resets the counters of the computed style cache.
+	 */
+	public void resetStyleCacheCounters() {
+		styleCacheHits = 0;
+		styleCacheMisses = 0;
+	}
+
 	/**
 	 * Retrieves the combined list of CSS rules for all current stylesheets. This
 	 * method returns a cached state when the stylesheets are the same as on its
@@ -108,6 +176,70 @@ public class ViewCSSImpl implements ViewCSS, ExtendedDocumentCSS.StyleSheetChang
 		return cssRules;
 	}
 
+	/**
+	 * Retrieves the selector index for the combined rules of all current
+	 * stylesheets. The index is built once and dropped together with the
+	 * combined rules when the stylesheets change.
+	 *
+	 * @return selector index for all style sheets
+	 */
+	private SelectorIndex getSelectorIndex() {
+		List<CSSRule> cssRules = getCombinedRules();
+		if (this.currentSelectorIndex == null) {
+			this.currentSelectorIndex = new SelectorIndex(cssRules);
+		}
+		return this.currentSelectorIndex;
+	}
+
+	/**
+	 * Retrieves the computed style cache for the combined rules of all current
+	 * stylesheets. The cache is dropped together with the combined rules when
+	 * the stylesheets change.
+	 *
+	 * @return computed style cache for all style sheets
+	 */
+	private ComputedStyleCache getStyleCache() {
+		List<CSSRule> cssRules = getCombinedRules();
+		if (this.currentStyleCache == null) {
+			this.currentStyleCache = new ComputedStyleCache(cssRules);
+		}
+		return this.currentStyleCache;
+	}
+
+	/**
+	 * Computes the style of the element by matching only the selectors that
+	 * the index returns as candidates for it.
+	 */
+	private CSSStyleDeclaration getComputedStyle(SelectorIndex selectorIndex, Element elt, String pseudoElt) {
+		List<StyleWrapper> styleDeclarations = null;
+		StyleWrapper firstStyleDeclaration = null;
+		int position = 0;
+		for (SelectorIndex.Entry entry : selectorIndex.getCandidates(elt)) {
+			ExtendedSelector extendedSelector = entry.selector;
+			if (extendedSelector.match(elt, pseudoElt)) {
+				StyleWrapper wrapper = new StyleWrapper(entry.style, extendedSelector.getSpecificity(), position++);
+				if (firstStyleDeclaration == null) {
+					firstStyleDeclaration = wrapper;
+				} else {
+					// There is several Style Declarations which
+					// match the current element
+					if (styleDeclarations == null) {
+						styleDeclarations = new ArrayList<>();
+						styleDeclarations.add(firstStyleDeclaration);
+					}
+					styleDeclarations.add(wrapper);
+				}
+			}
+		}
+		if (styleDeclarations != null) {
+			return new CSSComputedStyleImpl(styleDeclarations);
+		}
+		if (firstStyleDeclaration != null) {
+			return firstStyleDeclaration.style;
+		}
+		return null;
+	}
+
 	public CSSStyleDeclaration getComputedStyle(List<CSSRule> ruleList, Element elt, String pseudoElt) {
 		List<StyleWrapper> styleDeclarations = null;
 		StyleWrapper firstStyleDeclaration = null;
@@ -170,10 +302,14 @@ public class ViewCSSImpl implements ViewCSS, ExtendedDocumentCSS.StyleSheetChang
 	@Override
 	public void styleSheetAdded(StyleSheet styleSheet) {
 		currentCombinedRules = null;
+		currentSelectorIndex = null;
+		currentStyleCache = null;
 	}
 
 	@Override
 	public void styleSheetRemoved(StyleSheet styleSheet) {
 		currentCombinedRules = null;
+		currentSelectorIndex = null;
+		currentStyleCache = null;
 	}
 }
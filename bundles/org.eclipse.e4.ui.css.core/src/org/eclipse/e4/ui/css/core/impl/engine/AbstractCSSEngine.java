@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2015 Angelo Zerr and others.
+ * Copyright (c) 2008, 2018 Angelo Zerr and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,8 @@
  *******************************************************************************/
 package org.eclipse.e4.ui.css.core.impl.engine;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -53,6 +55,7 @@ import org.eclipse.e4.ui.css.core.exceptions.UnsupportedPropertyException;
 import org.eclipse.e4.ui.css.core.impl.dom.CSSRuleListImpl;
 import org.eclipse.e4.ui.css.core.impl.dom.CSSStyleSheetImpl;
 import org.eclipse.e4.ui.css.core.impl.dom.DocumentCSSImpl;
+import org.eclipse.e4.ui.css.core.impl.dom.StyleSheetCodec;
 import org.eclipse.e4.ui.css.core.impl.dom.ViewCSSImpl;
 import org.eclipse.e4.ui.css.core.impl.sac.ExtendedSelector;
 import org.eclipse.e4.ui.css.core.resources.IResourcesRegistry;
@@ -63,10 +66,12 @@ import org.eclipse.e4.ui.css.core.utils.StringUtils;
 import org.w3c.css.sac.AttributeCondition;
 import org.w3c.css.sac.CombinatorCondition;
 import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionFactory;
 import org.w3c.css.sac.ConditionalSelector;
 import org.w3c.css.sac.DescendantSelector;
 import org.w3c.css.sac.InputSource;
 import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorFactory;
 import org.w3c.css.sac.SelectorList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -146,10 +151,14 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 
 	private Map<Object, ICSSValueConverter> valueConverters = null;
 
-	private int parseImport;
-
 	private ResourceRegistryKeyFactory keyFactory;
 
+	/**
+	 * Dependencies of the selectors of the current style sheets, computed
+	 * lazily and dropped when the style sheets change.
+	 */
+	private SelectorDependencies selectorDependencies;
+
 	public AbstractCSSEngine() {
 		this(new DocumentCSSImpl());
 	}
@@ -158,6 +167,17 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 		this.documentCSS = documentCSS;
 		this.viewCSS = new ViewCSSImpl(documentCSS);
 		keyFactory = new ResourceRegistryKeyFactory();
+		documentCSS.addStyleSheetChangeListener(new ExtendedDocumentCSS.StyleSheetChangeListener() {
+			@Override
+			public void styleSheetAdded(StyleSheet styleSheet) {
+				selectorDependencies = null;
+			}
+
+			@Override
+			public void styleSheetRemoved(StyleSheet styleSheet) {
+				selectorDependencies = null;
+			}
+		});
 	}
 
 	/*--------------- Parse style sheet -----------------*/
@@ -178,6 +198,51 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 
 	@Override
 	public StyleSheet parseStyleSheet(InputSource source) throws IOException {
+		CSSStyleSheet styleSheet = createStyleSheet(source);
+		documentCSS.addStyleSheet(styleSheet);
+		return styleSheet;
+	}
+
+	/**
+	 * Parse the style sheet of the source and inline the rules of its leading
+	 * <code>@import</code> rules, without adding it to the {@link DocumentCSS}
+	 * of this engine.
+	 * <p>
+	 * This method does not change the state of the engine, so style sheets
+	 * can be parsed ahead of time (e.g. in a background job) and added later
+	 * with {@link ExtendedDocumentCSS#addStyleSheet(StyleSheet)}.
+	 * </p>
+	 *
+	 * @param source
+	 *            the style sheet source
+	 * @return the parsed style sheet
+	 * @throws IOException
+	 *             if the style sheet or one of its imports cannot be read
+	 */
+	public CSSStyleSheet createStyleSheet(InputSource source) throws IOException {
+		return createStyleSheet(source, getResourcesLocatorManager(), null);
+	}
+
+	/**
+	 * Parse the style sheet of the source like
+	 * {@link #createStyleSheet(InputSource)}, but resolve the imports which
+	 * are not found relative to the style sheet with the given resource
+	 * locators rather than those of this engine.
+	 *
+	 * @param source
+	 *            the style sheet source
+	 * @param resourcesLocatorManager
+	 *            the resource locators used to resolve the imports
+	 * @param imports
+	 *            the collection to which the URLs of the imported style
+	 *            sheets, including the nested imports, are added, or
+	 *            <code>null</code>
+	 * @return the parsed style sheet
+	 * @throws IOException
+	 *             if the style sheet or one of its imports cannot be read
+	 */
+	public CSSStyleSheet createStyleSheet(InputSource source, IResourcesLocatorManager resourcesLocatorManager,
+			Collection<URL> imports) throws IOException {
 		// Check that CharacterStream or ByteStream is not null
 		checkInputSource(source);
 		CSSParser parser = makeCSSParser();
@@ -206,25 +271,23 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 				File testFile = new File(url.getFile());
 				if (!isArchive&&!testFile.exists()) {
 					// look in platform default
-					String path = getResourcesLocatorManager().resolve((importRule).getHref());
+					String path = resourcesLocatorManager.resolve((importRule).getHref());
 					testFile = new File(new URL(path).getFile());
 					if (testFile.exists()) {
 						url = new URL(path);
 					}
 				}
 			}
+			if (imports != null) {
+				imports.add(url);
+			}
 			InputStream stream = null;
 			try {
 				stream = url.openStream();
 				InputSource tempStream = new InputSource();
 				tempStream.setURI(url.toString());
 				tempStream.setByteStream(stream);
-				parseImport++;
-				try {
-					styleSheet = (CSSStyleSheet) this.parseStyleSheet(tempStream);
-				} finally {
-					parseImport--;
-				}
+				styleSheet = createStyleSheet(tempStream, resourcesLocatorManager, imports);
 				CSSRuleList tempRules = styleSheet.getCssRules();
 				for (int j = 0; j < tempRules.getLength(); j++) {
 					masterList.add(tempRules.item(j));
@@ -244,12 +307,49 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 		// final stylesheet
 		CSSStyleSheetImpl s = new CSSStyleSheetImpl();
 		s.setRuleList(masterList);
-		if (parseImport == 0) {
-			documentCSS.addStyleSheet(s);
-		}
 		return s;
 	}
 
+	/**
+	 * Write the rules of a style sheet created by
+	 * {@link #createStyleSheet(InputSource)} in a compact binary form, which
+	 * {@link #readStyleSheet(DataInput)} reads back without parsing CSS.
+	 *
+	 * @param styleSheet
+	 *            the style sheet
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the style sheet contains rules, selectors or values which
+	 *             cannot be written, or if writing fails
+	 */
+	public void writeStyleSheet(CSSStyleSheet styleSheet, DataOutput out) throws IOException {
+		StyleSheetCodec.write(styleSheet, out);
+	}
+
+	/**
+	 * Read a style sheet written by
+	 * {@link #writeStyleSheet(CSSStyleSheet, DataOutput)}. Its selectors are
+	 * created with the selector and condition factories of the parser of this
+	 * engine, as if the style sheet had been parsed by this engine.
+	 *
+	 * @param in
+	 *            the input
+	 * @return the style sheet
+	 * @throws IOException
+	 *             if the input is not a style sheet written by this engine, or
+	 *             if reading fails
+	 */
+	public CSSStyleSheet readStyleSheet(DataInput in) throws IOException {
+		CSSParser parser = makeCSSParser();
+		SelectorFactory selectorFactory = parser.getSelectorFactory();
+		ConditionFactory conditionFactory = parser.getConditionFactory();
+		if (selectorFactory == null || conditionFactory == null) {
+			throw new IOException("The parser has no selector or condition factory"); //$NON-NLS-1$
+		}
+		return StyleSheetCodec.read(in, selectorFactory, conditionFactory);
+	}
+
 	/**
 	 * Return true if <code>source</code> is valid and false otherwise.
 	 *
@@ -438,6 +538,84 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 
 	}
 
+	/**
+	 * Re-applies styles after the attribute <code>attributeName</code> (e.g.
+	 * the CSS class or id) of the element changed from <code>oldValue</code>
+	 * to <code>newValue</code>.
+	 * <p>
+	 * Unlike {@link #applyStyles(Object, boolean)}, only the elements whose
+	 * matched rules or inherited values can change are restyled: the element
+	 * if a selector depends on the changed value for the element itself, its
+	 * children if a selector depends on it for an ancestor, or for the element
+	 * itself and a style sheet uses <code>inherit</code>, and its following
+	 * siblings if a selector depends on it for a preceding sibling. Nothing is
+	 * restyled if no selector depends on the changed value.
+	 * </p>
+	 *
+	 * @param element
+	 *            the element or widget whose attribute changed
+	 * @param attributeName
+	 *            the name of the attribute, <code>class</code> or
+	 *            <code>id</code> for the CSS class and id, or
+	 *            <code>null</code> if any attribute may have changed
+	 * @param oldValue
+	 *            the previous value, may be <code>null</code>
+	 * @param newValue
+	 *            the new value, may be <code>null</code>
+	 */
+	public void applyStylesAfterAttributeChange(Object element, String attributeName, String oldValue,
+			String newValue) {
+		if (attributeName == null) {
+			applyStyles(element, true);
+			return;
+		}
+		SelectorDependencies dependencies = getSelectorDependencies();
+		boolean applyStylesToChildNodes = dependencies.affectsDescendants(attributeName, oldValue, newValue);
+		if (applyStylesToChildNodes || dependencies.affectsElement(attributeName, oldValue, newValue)) {
+			applyStyles(element, applyStylesToChildNodes);
+		}
+		if (dependencies.affectsFollowingSiblings(attributeName, oldValue, newValue)) {
+			boolean applyStylesToSiblingChildNodes = dependencies.affectsFollowingSiblingDescendants(attributeName,
+					oldValue, newValue);
+			Element elt = getElement(element);
+			Node parentNode = elt == null ? null : elt.getParentNode();
+			NodeList nodes = parentNode == null ? null : parentNode.getChildNodes();
+			if (nodes != null) {
+				boolean following = false;
+				for (int k = 0; k < nodes.getLength(); k++) {
+					Node node = nodes.item(k);
+					if (following) {
+						applyStyles(node, applyStylesToSiblingChildNodes);
+					} else {
+						following = isSameElement(node, elt);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the nodes are the same element, possibly adapted twice
+	 * from the same widget.
+	 */
+	private static boolean isSameElement(Node node, Element elt) {
+		if (node == elt) {
+			return true;
+		}
+		if (!(node instanceof CSSStylableElement) || !(elt instanceof CSSStylableElement)) {
+			return false;
+		}
+		Object widget = ((CSSStylableElement) elt).getNativeWidget();
+		return widget != null && widget == ((CSSStylableElement) node).getNativeWidget();
+	}
+
+	private SelectorDependencies getSelectorDependencies() {
+		if (selectorDependencies == null) {
+			selectorDependencies = new SelectorDependencies(documentCSS.getStyleSheets());
+		}
+		return selectorDependencies;
+	}
+
 	/**
 	 * Allow the CSS engine to skip particular elements if they are not visible.
 	 * Elements need to be restyled when they become visible.
@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.engine;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSClassConditionImpl;
+import org.w3c.css.sac.AttributeCondition;
+import org.w3c.css.sac.CombinatorCondition;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionalSelector;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.css.sac.SiblingSelector;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSStyleRule;
+import org.w3c.dom.css.CSSStyleSheet;
+import org.w3c.dom.css.CSSValue;
+import org.w3c.dom.stylesheets.StyleSheetList;
+
+/**
+ * Records which CSS classes, ids and attributes the selectors of the style
+ * sheets depend on, and whether they depend on them on the styled element
+ * itself, on its ancestors or on its preceding siblings.
+ * <p>
+ * This allows to restyle only the elements whose matched rules can change
+ * when an attribute of an element changes: a class which is not referenced by
+ * any selector does not require any restyling, a class which is only
+ * referenced by the rightmost simple selectors does not require to restyle
+ * the children of the element, unless they inherit values from it, and the
+ * following siblings of the element only have to be restyled for the classes
+ * referenced by the left side of a sibling selector.
+ * </p>
+ */
+class SelectorDependencies {
+
+	/**
+	 * The element of a simple selector relative to the styled element.
+	 */
+	private enum Role {
+		/** The styled element. */
+		SELF,
+		/** An ancestor of the styled element. */
+		ANCESTOR,
+		/** A preceding sibling of the styled element. */
+		SIBLING,
+		/** A preceding sibling of an ancestor of the styled element. */
+		ANCESTOR_SIBLING
+	}
+
+	private static final String CLASS_ATTRIBUTE = "class"; //$NON-NLS-1$
+	private static final String ID_ATTRIBUTE = "id"; //$NON-NLS-1$
+	private static final String INHERIT = "inherit"; //$NON-NLS-1$
+
+	private final Set<String> classes = new HashSet<>();
+	private final Set<String> ids = new HashSet<>();
+	private final Set<String> attributes = new HashSet<>();
+
+	private final Set<String> ancestorClasses = new HashSet<>();
+	private final Set<String> ancestorIds = new HashSet<>();
+	private final Set<String> ancestorAttributes = new HashSet<>();
+
+	private final Set<String> siblingClasses = new HashSet<>();
+	private final Set<String> siblingIds = new HashSet<>();
+	private final Set<String> siblingAttributes = new HashSet<>();
+
+	private final Set<String> ancestorSiblingClasses = new HashSet<>();
+	private final Set<String> ancestorSiblingIds = new HashSet<>();
+	private final Set<String> ancestorSiblingAttributes = new HashSet<>();
+
+	/**
+	 * Set if a selector uses a construct whose dependencies are not known, in
+	 * which case every change restyles the whole subtree.
+	 */
+	private boolean unknownDependencies;
+
+	/**
+	 * Set if a declaration uses the <code>inherit</code> value, in which case
+	 * the children of an element may have to be restyled when its own rules
+	 * change.
+	 */
+	private boolean inheritedValues;
+
+	SelectorDependencies(StyleSheetList styleSheetList) {
+		int l = styleSheetList.getLength();
+		for (int i = 0; i < l; i++) {
+			CSSRuleList rules = ((CSSStyleSheet) styleSheetList.item(i)).getCssRules();
+			int rulesSize = rules.getLength();
+			for (int j = 0; j < rulesSize; j++) {
+				CSSRule rule = rules.item(j);
+				if (rule.getType() == CSSRule.STYLE_RULE && rule instanceof ExtendedCSSRule) {
+					SelectorList selectorList = ((ExtendedCSSRule) rule).getSelectorList();
+					for (int k = 0; k < selectorList.getLength(); k++) {
+						collect(selectorList.item(k), Role.SELF);
+					}
+					if (!inheritedValues) {
+						inheritedValues = usesInherit(((CSSStyleRule) rule).getStyle());
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean usesInherit(CSSStyleDeclaration style) {
+		int length = style.getLength();
+		for (int i = 0; i < length; i++) {
+			CSSValue value = style.getPropertyCSSValue(style.item(i));
+			if (value != null && INHERIT.equals(value.getCssText())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void collect(Selector selector, Role role) {
+		switch (selector.getSelectorType()) {
+		case Selector.SAC_ELEMENT_NODE_SELECTOR:
+		case Selector.SAC_PSEUDO_ELEMENT_SELECTOR:
+			break;
+		case Selector.SAC_CONDITIONAL_SELECTOR:
+			collect(((ConditionalSelector) selector).getSimpleSelector(), role);
+			collect(((ConditionalSelector) selector).getCondition(), role);
+			break;
+		case Selector.SAC_DESCENDANT_SELECTOR:
+		case Selector.SAC_CHILD_SELECTOR:
+			// the ancestors of a sibling are ancestors of the element too
+			collect(((DescendantSelector) selector).getAncestorSelector(), Role.ANCESTOR);
+			collect(((DescendantSelector) selector).getSimpleSelector(), role);
+			break;
+		case Selector.SAC_DIRECT_ADJACENT_SELECTOR:
+			collect(((SiblingSelector) selector).getSelector(),
+					role == Role.SELF || role == Role.SIBLING ? Role.SIBLING : Role.ANCESTOR_SIBLING);
+			collect(((SiblingSelector) selector).getSiblingSelector(), role);
+			break;
+		default:
+			unknownDependencies = true;
+		}
+	}
+
+	private void collect(Condition condition, Role role) {
+		// CSSClassConditionImpl reports itself as an attribute condition
+		short conditionType = condition instanceof CSSClassConditionImpl ? Condition.SAC_CLASS_CONDITION
+				: condition.getConditionType();
+		switch (conditionType) {
+		case Condition.SAC_CLASS_CONDITION:
+			add(role, classes, ancestorClasses, siblingClasses, ancestorSiblingClasses,
+					((AttributeCondition) condition).getValue());
+			break;
+		case Condition.SAC_ID_CONDITION:
+			add(role, ids, ancestorIds, siblingIds, ancestorSiblingIds, ((AttributeCondition) condition).getValue());
+			break;
+		case Condition.SAC_ATTRIBUTE_CONDITION:
+		case Condition.SAC_ONE_OF_ATTRIBUTE_CONDITION:
+		case Condition.SAC_BEGIN_HYPHEN_ATTRIBUTE_CONDITION:
+			add(role, attributes, ancestorAttributes, siblingAttributes, ancestorSiblingAttributes,
+					((AttributeCondition) condition).getLocalName());
+			break;
+		case Condition.SAC_LANG_CONDITION:
+			add(role, attributes, ancestorAttributes, siblingAttributes, ancestorSiblingAttributes, "lang"); //$NON-NLS-1$
+			break;
+		case Condition.SAC_PSEUDO_CLASS_CONDITION:
+			// pseudo classes reflect the widget state, not its attributes
+			break;
+		case Condition.SAC_AND_CONDITION:
+			collect(((CombinatorCondition) condition).getFirstCondition(), role);
+			collect(((CombinatorCondition) condition).getSecondCondition(), role);
+			break;
+		default:
+			unknownDependencies = true;
+		}
+	}
+
+	private static void add(Role role, Set<String> self, Set<String> ancestors, Set<String> siblings,
+			Set<String> ancestorSiblings, String value) {
+		switch (role) {
+		case SELF:
+			self.add(value);
+			break;
+		case ANCESTOR:
+			ancestors.add(value);
+			break;
+		case SIBLING:
+			siblings.add(value);
+			break;
+		default:
+			ancestorSiblings.add(value);
+		}
+	}
+
+	/**
+	 * Returns whether the rules matched by an element itself can change when
+	 * the given attribute of the element changes from <code>oldValue</code> to
+	 * <code>newValue</code>.
+	 */
+	boolean affectsElement(String attributeName, String oldValue, String newValue) {
+		return affects(attributeName, oldValue, newValue, classes, ids, attributes);
+	}
+
+	/**
+	 * Returns whether the styles of the descendants of an element can change
+	 * when the given attribute of the element changes from
+	 * <code>oldValue</code> to <code>newValue</code>: either their matched
+	 * rules, or the values they inherit from the element.
+	 */
+	boolean affectsDescendants(String attributeName, String oldValue, String newValue) {
+		return affects(attributeName, oldValue, newValue, ancestorClasses, ancestorIds, ancestorAttributes)
+				|| (inheritedValues && affectsElement(attributeName, oldValue, newValue));
+	}
+
+	/**
+	 * Returns whether the rules matched by the following siblings of an
+	 * element can change when the given attribute of the element changes from
+	 * <code>oldValue</code> to <code>newValue</code>.
+	 */
+	boolean affectsFollowingSiblings(String attributeName, String oldValue, String newValue) {
+		return affects(attributeName, oldValue, newValue, siblingClasses, siblingIds, siblingAttributes)
+				|| affectsFollowingSiblingDescendants(attributeName, oldValue, newValue);
+	}
+
+	/**
+	 * Returns whether the styles of the descendants of the following siblings
+	 * of an element can change when the given attribute of the element changes
+	 * from <code>oldValue</code> to <code>newValue</code>.
+	 */
+	boolean affectsFollowingSiblingDescendants(String attributeName, String oldValue, String newValue) {
+		return affects(attributeName, oldValue, newValue, ancestorSiblingClasses, ancestorSiblingIds,
+				ancestorSiblingAttributes)
+				|| (inheritedValues
+						&& affects(attributeName, oldValue, newValue, siblingClasses, siblingIds, siblingAttributes));
+	}
+
+	private boolean affects(String attributeName, String oldValue, String newValue, Set<String> classSet,
+			Set<String> idSet, Set<String> attributeSet) {
+		if (unknownDependencies || attributeSet.contains(attributeName)) {
+			return true;
+		}
+		if (CLASS_ATTRIBUTE.equals(attributeName)) {
+			Set<String> oldClasses = splitClasses(oldValue);
+			Set<String> newClasses = splitClasses(newValue);
+			for (String cssClass : oldClasses) {
+				if (!newClasses.contains(cssClass) && classSet.contains(cssClass)) {
+					return true;
+				}
+			}
+			for (String cssClass : newClasses) {
+				if (!oldClasses.contains(cssClass) && classSet.contains(cssClass)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if (ID_ATTRIBUTE.equals(attributeName)) {
+			return (oldValue != null && idSet.contains(oldValue)) || (newValue != null && idSet.contains(newValue));
+		}
+		return false;
+	}
+
+	private static Set<String> splitClasses(String cssClass) {
+		Set<String> result = new HashSet<>();
+		if (cssClass == null) {
+			return result;
+		}
+		int length = cssClass.length();
+		int start = 0;
+		while (start < length) {
+			while (start < length && Character.isSpaceChar(cssClass.charAt(start))) {
+				start++;
+			}
+			int end = start;
+			while (end < length && !Character.isSpaceChar(cssClass.charAt(end))) {
+				end++;
+			}
+			if (end > start) {
+				result.add(cssClass.substring(start, end));
+			}
+			start = end;
+		}
+		return result;
+	}
+}
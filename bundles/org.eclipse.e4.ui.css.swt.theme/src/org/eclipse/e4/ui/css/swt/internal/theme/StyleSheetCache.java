@@ -0,0 +1,377 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.swt.internal.theme;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.e4.ui.css.core.impl.engine.AbstractCSSEngine;
+import org.eclipse.e4.ui.css.core.util.impl.resources.ResourcesLocatorManager;
+import org.eclipse.e4.ui.css.core.util.resources.IResourceLocator;
+import org.eclipse.osgi.service.datalocation.Location;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.w3c.css.sac.InputSource;
+import org.w3c.dom.css.CSSStyleSheet;
+
+/**
+ * Cache of the parsed style sheets of the themes, keyed by the CSS engine
+ * which parsed them and their URI.
+ * <p>
+ * An entry is reused as long as the stamps of the style sheet and of the style
+ * sheets it imports are unchanged: the modification time of the file for
+ * <code>file:</code> URLs and of the archive for <code>jar:</code> URLs, and
+ * the version and modification time of the bundle for bundle entry URLs.
+ * Style sheets for which one of these stamps cannot be computed are parsed
+ * each time.
+ * </p>
+ * <p>
+ * The parsed style sheets are also written to the workspace metadata, in the
+ * binary form of {@link AbstractCSSEngine#writeStyleSheet}, with their
+ * sources and stamps. The first time a style sheet is requested in a session,
+ * it is read back from there if its stamps are unchanged, so that a warm
+ * start does not parse CSS. Style sheets which cannot be written in that form
+ * are only cached in memory.
+ * </p>
+ * <p>
+ * The style sheets are parsed with the CSS engine which requests them, so its
+ * parser settings apply, and they can be parsed in a background job (see
+ * {@link #preload(List, AbstractCSSEngine, List)}) while the workbench
+ * starts. Parsed style sheets are not modified by the CSS engine. Each entry
+ * has its own lock, so a request only waits for a style sheet being parsed or
+ * read by the background job if it is the one requested.
+ * </p>
+ */
+class StyleSheetCache {
+
+	/**
+	 * The version of the format of the cache files.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	private static final String CACHE_DIRECTORY = "styleSheets"; //$NON-NLS-1$
+
+	private static class Entry {
+		List<URL> sources;
+		String stamp;
+		CSSStyleSheet styleSheet;
+		/**
+		 * Whether the cache file has been read or written in this session.
+		 */
+		boolean fileChecked;
+	}
+
+	private final Map<AbstractCSSEngine, Map<String, Entry>> entries = new WeakHashMap<>();
+
+	/**
+	 * The directory of the cache files in the state location of this bundle,
+	 * or <code>null</code> as long as the workspace is not known.
+	 */
+	private File directory;
+
+	/**
+	 * Returns the style sheet of the URI parsed by the given engine, parsing
+	 * it if it is not cached or if it or one of its imports changed since it
+	 * was parsed.
+	 *
+	 * @param uri
+	 *            the URI of the style sheet
+	 * @param engine
+	 *            the engine parsing the style sheet
+	 * @param locators
+	 *            the resource locators used to resolve the imports which are
+	 *            not found relative to the style sheet
+	 * @return the parsed style sheet
+	 * @throws IOException
+	 *             if the style sheet cannot be read
+	 */
+	CSSStyleSheet getStyleSheet(String uri, AbstractCSSEngine engine, List<IResourceLocator> locators)
+			throws IOException {
+		Entry entry = getEntry(engine, uri);
+		synchronized (entry) {
+			if (entry.styleSheet != null && entry.stamp.equals(getStamp(entry.sources))) {
+				return entry.styleSheet;
+			}
+			File file = getCacheFile(engine, uri);
+			if (!entry.fileChecked && file != null && read(entry, file, engine, uri)) {
+				entry.fileChecked = true;
+				return entry.styleSheet;
+			}
+			entry.fileChecked = true;
+
+			URL url = FileLocator.resolve(new URL(uri));
+			List<URL> sources = new ArrayList<>();
+			sources.add(url);
+			// stamp the sources before they are read, so that a change while
+			// they are parsed is seen the next time
+			String stamp = getStamp(sources);
+			CSSStyleSheet styleSheet = parse(url, engine, locators, sources);
+			String importsStamp = getStamp(sources.subList(1, sources.size()));
+			if (stamp != null && importsStamp != null) {
+				entry.sources = sources;
+				entry.stamp = importsStamp.isEmpty() ? stamp : stamp + '|' + importsStamp;
+				entry.styleSheet = styleSheet;
+				if (file != null) {
+					write(entry, file, engine, uri);
+				}
+			} else {
+				entry.sources = null;
+				entry.stamp = null;
+				entry.styleSheet = null;
+				if (file != null) {
+					file.delete();
+				}
+			}
+			return styleSheet;
+		}
+	}
+
+	private synchronized Entry getEntry(AbstractCSSEngine engine, String uri) {
+		return entries.computeIfAbsent(engine, e -> new HashMap<>()).computeIfAbsent(uri, u -> new Entry());
+	}
+
+	/**
+	 * Returns the cache file of the style sheet parsed by the engine, or
+	 * <code>null</code> if the style sheets are not written to disk.
+	 */
+	private File getCacheFile(AbstractCSSEngine engine, String uri) {
+		File cacheDirectory = getDirectory();
+		if (cacheDirectory == null) {
+			return null;
+		}
+		String key = engine.getClass().getName() + '|' + uri;
+		return new File(cacheDirectory, Integer.toHexString(key.hashCode()) + ".bin"); //$NON-NLS-1$
+	}
+
+	private synchronized File getDirectory() {
+		if (directory == null) {
+			// the workspace may not be known yet when the cache is created
+			Location instanceLocation = Platform.getInstanceLocation();
+			Bundle bundle = FrameworkUtil.getBundle(StyleSheetCache.class);
+			if (instanceLocation != null && instanceLocation.isSet() && bundle != null) {
+				try {
+					directory = Platform.getStateLocation(bundle).append(CACHE_DIRECTORY).toFile();
+				} catch (IllegalStateException e) {
+					// no workspace metadata
+				}
+			}
+		}
+		return directory;
+	}
+
+	/**
+	 * Reads the cached style sheet of the entry from the file, if it was
+	 * written for the same engine and URI and its sources are unchanged.
+	 *
+	 * @return <code>true</code> if the style sheet has been read
+	 */
+	private static boolean read(Entry entry, File file, AbstractCSSEngine engine, String uri) {
+		if (!file.isFile()) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(engine.getClass().getName())
+					|| !in.readUTF().equals(uri)) {
+				return false;
+			}
+			int sourceCount = in.readInt();
+			List<URL> sources = new ArrayList<>(sourceCount);
+			for (int i = 0; i < sourceCount; i++) {
+				sources.add(new URL(in.readUTF()));
+			}
+			String stamp = in.readUTF();
+			if (!stamp.equals(getStamp(sources))) {
+				return false;
+			}
+			CSSStyleSheet styleSheet = engine.readStyleSheet(in);
+			entry.sources = sources;
+			entry.stamp = stamp;
+			entry.styleSheet = styleSheet;
+			return true;
+		} catch (IOException | RuntimeException e) {
+			// an outdated or damaged file, parse the style sheet again
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the style sheet of the entry to the file, or deletes the file if
+	 * the style sheet cannot be written.
+	 */
+	private static void write(Entry entry, File file, AbstractCSSEngine engine, String uri) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(engine.getClass().getName());
+			out.writeUTF(uri);
+			out.writeInt(entry.sources.size());
+			for (URL source : entry.sources) {
+				out.writeUTF(source.toString());
+			}
+			out.writeUTF(entry.stamp);
+			engine.writeStyleSheet(entry.styleSheet, out);
+		} catch (IOException | RuntimeException e) {
+			// the style sheet is only cached in memory
+			file.delete();
+			return;
+		}
+		try {
+			File directory = file.getParentFile();
+			directory.mkdirs();
+			// replace the file at once, so that a concurrent reader never
+			// sees a partially written file
+			File temp = File.createTempFile("styleSheet", ".tmp", directory); //$NON-NLS-1$ //$NON-NLS-2$
+			try {
+				Files.write(temp.toPath(), bytes.toByteArray());
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				temp.delete();
+			}
+		} catch (IOException e) {
+			// the style sheet is parsed again in the next session
+		}
+	}
+
+	/**
+	 * Parses the style sheets with the given engine, or reads them from the
+	 * cache files, in a background job, so that the theme engine finds them in
+	 * the cache when the theme is set.
+	 *
+	 * @param uris
+	 *            the URIs of the style sheets
+	 * @param engine
+	 *            the engine parsing the style sheets
+	 * @param locators
+	 *            the resource locators of the theme
+	 */
+	void preload(List<String> uris, AbstractCSSEngine engine, List<IResourceLocator> locators) {
+		final List<String> toParse = new ArrayList<>(uris);
+		final List<IResourceLocator> themeLocators = new ArrayList<>(locators);
+		Job job = new Job("Parsing theme style sheets") { //$NON-NLS-1$
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				for (String uri : toParse) {
+					if (monitor.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					try {
+						getStyleSheet(uri, engine, themeLocators);
+					} catch (IOException e) {
+						// reported when the theme is set
+					}
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.SHORT);
+		job.schedule();
+	}
+
+	private static CSSStyleSheet parse(URL url, AbstractCSSEngine engine, List<IResourceLocator> locators,
+			List<URL> imports) throws IOException {
+		ResourcesLocatorManager locatorManager = new ResourcesLocatorManager();
+		for (IResourceLocator locator : locators) {
+			locatorManager.registerResourceLocator(locator);
+		}
+		try (InputStream stream = url.openStream()) {
+			InputSource source = new InputSource();
+			source.setByteStream(stream);
+			source.setURI(url.toString());
+			return engine.createStyleSheet(source, locatorManager, imports);
+		}
+	}
+
+	/**
+	 * Returns a stamp which changes when one of the given style sheets may
+	 * have changed, or <code>null</code> if it is unknown.
+	 */
+	private static String getStamp(List<URL> urls) {
+		StringBuilder stamp = new StringBuilder();
+		for (URL url : urls) {
+			String urlStamp = getStamp(url);
+			if (urlStamp == null) {
+				return null;
+			}
+			if (stamp.length() > 0) {
+				stamp.append('|');
+			}
+			stamp.append(urlStamp);
+		}
+		return stamp.toString();
+	}
+
+	private static String getStamp(URL url) {
+		switch (url.getProtocol()) {
+		case "file": //$NON-NLS-1$
+			long lastModified = new File(url.getFile()).lastModified();
+			return lastModified == 0 ? null : Long.toString(lastModified);
+		case "jar": //$NON-NLS-1$
+			String path = url.getPath();
+			int separator = path.indexOf("!/"); //$NON-NLS-1$
+			if (separator == -1) {
+				return null;
+			}
+			try {
+				return getStamp(new URL(path.substring(0, separator)));
+			} catch (MalformedURLException e) {
+				return null;
+			}
+		case "bundleentry": //$NON-NLS-1$
+		case "bundleresource": //$NON-NLS-1$
+			Bundle bundle = getBundle(url.getHost());
+			return bundle == null ? null : bundle.getVersion() + "@" + bundle.getLastModified(); //$NON-NLS-1$
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the bundle of the host of a bundle entry URL, which starts with
+	 * the bundle id.
+	 */
+	private static Bundle getBundle(String host) {
+		int end = host.indexOf('.');
+		Bundle bundle = FrameworkUtil.getBundle(StyleSheetCache.class);
+		BundleContext context = bundle == null ? null : bundle.getBundleContext();
+		if (context == null) {
+			return null;
+		}
+		try {
+			return context.getBundle(Long.parseLong(end == -1 ? host : host.substring(0, end)));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -40,8 +40,10 @@ import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.RegistryFactory;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.e4.ui.css.core.dom.ExtendedDocumentCSS;
 import org.eclipse.e4.ui.css.core.engine.CSSElementContext;
 import org.eclipse.e4.ui.css.core.engine.CSSEngine;
+import org.eclipse.e4.ui.css.core.impl.engine.AbstractCSSEngine;
 import org.eclipse.e4.ui.css.core.util.impl.resources.FileResourcesLocatorImpl;
 import org.eclipse.e4.ui.css.core.util.impl.resources.OSGiResourceLocator;
 import org.eclipse.e4.ui.css.core.util.resources.IResourceLocator;
@@ -60,6 +62,8 @@ import org.osgi.service.prefs.BackingStoreException;
 import org.w3c.css.sac.InputSource;
 import org.w3c.dom.Element;
 import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSStyleSheet;
+import org.w3c.dom.css.DocumentCSS;
 
 public class ThemeEngine implements IThemeEngine {
 	private List<Theme> themes = new ArrayList<>();
@@ -78,6 +82,8 @@ public class ThemeEngine implements IThemeEngine {
 	private HashMap<String, List<String>> modifiedStylesheets = new HashMap<>();
 	private HashMap<String, List<IResourceLocator>> sourceLocators = new HashMap<>();
 
+	private StyleSheetCache styleSheetCache = new StyleSheetCache();
+
 	private static final String THEMEID_KEY = "themeid";
 
 	public static final String THEME_PLUGIN_ID = "org.eclipse.e4.ui.css.swt.theme";
@@ -239,6 +245,7 @@ public class ThemeEngine implements IThemeEngine {
 		registerResourceLocator(new FileResourcesLocatorImpl());
 		// FIXME: perhaps ResourcesLocatorManager shouldn't have a default?
 		// registerResourceLocator(new HttpResourcesLocatorImpl());
+
 	}
 
 	private String getVarientThemeId(String id, String os, String ws) {
@@ -441,32 +448,10 @@ public class ThemeEngine implements IThemeEngine {
 					.registerResourceLocator(l);
 				}
 			}
+			List<IResourceLocator> locators = getResourceLocators(theme.getId());
 			for (String stylesheet : getAllStyles(theme.getId())) {
-				URL url;
-				InputStream stream = null;
-				try {
-					url = FileLocator.resolve(new URL(stylesheet.toString()));
-					for (CSSEngine engine : cssEngines) {
-						try {
-							stream = url.openStream();
-							InputSource source = new InputSource();
-							source.setByteStream(stream);
-							source.setURI(url.toString());
-							engine.parseStyleSheet(source);
-						} catch (IOException e) {
-							ThemeEngineManager.logError(e.getMessage(), e);
-						} finally {
-							if (stream != null) {
-								try {
-									stream.close();
-								} catch (IOException e) {
-									ThemeEngineManager.logError(e.getMessage(), e);
-								}
-							}
-						}
-					}
-				} catch (IOException e) {
-					ThemeEngineManager.logError(e.getMessage(), e);
+				for (CSSEngine engine : cssEngines) {
+					addStyleSheet(engine, stylesheet, locators);
 				}
 			}
 		}
@@ -490,6 +475,40 @@ public class ThemeEngine implements IThemeEngine {
 		}
 	}
 
+	private void addStyleSheet(CSSEngine engine, String stylesheet, List<IResourceLocator> locators) {
+		DocumentCSS documentCSS = engine.getDocumentCSS();
+		if (engine instanceof AbstractCSSEngine && documentCSS instanceof ExtendedDocumentCSS) {
+			try {
+				CSSStyleSheet styleSheet = styleSheetCache.getStyleSheet(stylesheet, (AbstractCSSEngine) engine,
+						locators);
+				((ExtendedDocumentCSS) documentCSS).addStyleSheet(styleSheet);
+			} catch (IOException e) {
+				ThemeEngineManager.logError(e.getMessage(), e);
+			}
+			return;
+		}
+		// the engine cannot use the cache, let it parse the style sheet
+		InputStream stream = null;
+		try {
+			URL url = FileLocator.resolve(new URL(stylesheet));
+			stream = url.openStream();
+			InputSource source = new InputSource();
+			source.setByteStream(stream);
+			source.setURI(url.toString());
+			engine.parseStyleSheet(source);
+		} catch (IOException e) {
+			ThemeEngineManager.logError(e.getMessage(), e);
+		} finally {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException e) {
+					ThemeEngineManager.logError(e.getMessage(), e);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Broadcast theme-change event using OSGi Event Admin.
 	 */
@@ -537,6 +556,23 @@ public class ThemeEngine implements IThemeEngine {
 		}
 	}
 
+	@Override
+	public void applyStylesAfterAttributeChange(Object widget, String attributeName, String oldValue,
+			String newValue) {
+		for (CSSEngine engine : cssEngines) {
+			Object element = engine.getElement(widget);
+			if (element == null) {
+				continue;
+			}
+			if (engine instanceof AbstractCSSEngine) {
+				((AbstractCSSEngine) engine).applyStylesAfterAttributeChange(element, attributeName, oldValue,
+						newValue);
+			} else {
+				engine.applyStyles(element, true);
+			}
+		}
+	}
+
 	private String getPreferenceThemeId() {
 		return getPreferences().get(THEMEID_KEY, null);
 	}
@@ -632,6 +668,16 @@ public class ThemeEngine implements IThemeEngine {
 
 	@Override
 	public void addCSSEngine(CSSEngine cssEngine) {
+		if (cssEngines.isEmpty() && currentTheme == null && cssEngine instanceof AbstractCSSEngine) {
+			// parse the style sheets of the last used theme while the
+			// workbench starts, so that restoring the theme finds them in the
+			// cache
+			String preferenceThemeId = getPreferenceThemeId();
+			if (preferenceThemeId != null && stylesheets.containsKey(preferenceThemeId)) {
+				styleSheetCache.preload(getAllStyles(preferenceThemeId), (AbstractCSSEngine) cssEngine,
+						getResourceLocators(preferenceThemeId));
+			}
+		}
 		cssEngines.add(cssEngine);
 		resetCurrentTheme();
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2015 Tom Schindl and others.
+ * Copyright (c) 2010, 2018 Tom Schindl and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -152,6 +152,27 @@ public interface IThemeEngine {
 	 */
 	void applyStyles(Object widget, boolean applyStylesToChildNodes);
 
+	/**
+	 * Reapply the style to the widget after one of its CSS attributes, e.g.
+	 * its CSS class or id, changed. The widget, its children and its following
+	 * siblings are only updated if their style can change.
+	 *
+	 * @param widget
+	 *            the widget
+	 * @param attributeName
+	 *            the name of the attribute, <code>class</code> or
+	 *            <code>id</code> for the CSS class and id, or
+	 *            <code>null</code> if any attribute may have changed
+	 * @param oldValue
+	 *            the previous value, may be <code>null</code>
+	 * @param newValue
+	 *            the new value, may be <code>null</code>
+	 */
+	default void applyStylesAfterAttributeChange(Object widget, String attributeName, String oldValue,
+			String newValue) {
+		applyStyles(widget, true);
+	}
+
 	/**
 	 * Get the style currently active for a widget
 	 *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2016 IBM Corporation and others.
+ * Copyright (c) 2009, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,35 +12,178 @@
  *******************************************************************************/
 package org.eclipse.e4.ui.services.internal.events;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import org.eclipse.e4.core.di.annotations.Optional;
 import org.eclipse.e4.core.services.events.IEventBroker;
+import org.eclipse.e4.core.services.log.Logger;
 import org.eclipse.e4.ui.di.UISynchronize;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventAdmin;
 import org.osgi.service.event.EventConstants;
 import org.osgi.service.event.EventHandler;
+import org.osgi.service.log.LogService;
 
 public class EventBroker implements IEventBroker {
 
+	/**
+	 * The base of the topics of the UI model events. The subscriptions to these
+	 * topics are dispatched by the broker instead of being registered as event
+	 * handlers of the event admin.
+	 */
+	private static final String UI_MODEL_TOPIC_BASE = "org/eclipse/e4/ui/model/"; //$NON-NLS-1$
+
+	/**
+	 * The properties of an event carrying a data map: the entries of the map,
+	 * and the map itself as {@link IEventBroker#DATA}. The map is not copied.
+	 */
+	private static class EventData extends AbstractMap<String, Object> {
+		private final Map<String, Object> data;
+
+		EventData(Map<String, Object> data) {
+			this.data = data;
+		}
+
+		@Override
+		public Object get(Object key) {
+			return IEventBroker.DATA.equals(key) ? data : data.get(key);
+		}
+
+		@Override
+		public int size() {
+			return data.size() + 1;
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return new AbstractSet<Entry<String, Object>>() {
+				@Override
+				public int size() {
+					return EventData.this.size();
+				}
+
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					final Iterator<Entry<String, Object>> entries = data.entrySet().iterator();
+					return new Iterator<Entry<String, Object>>() {
+						private boolean dataReturned;
+
+						@Override
+						public boolean hasNext() {
+							return entries.hasNext() || !dataReturned;
+						}
+
+						@Override
+						public Entry<String, Object> next() {
+							if (entries.hasNext()) {
+								return entries.next();
+							}
+							if (dataReturned) {
+								throw new NoSuchElementException();
+							}
+							dataReturned = true;
+							return new SimpleImmutableEntry<String, Object>(IEventBroker.DATA, data);
+						}
+					};
+				}
+			};
+		}
+	}
+
+	/**
+	 * The single event admin handler of the UI model topics, which dispatches
+	 * the events to the subscribers of the broker. The exceptions of the
+	 * subscribers are logged, so that the event is still delivered to the
+	 * remaining subscribers. Without a logger, the first exception is rethrown
+	 * once the event is delivered, and the event admin reports it as for the
+	 * handlers it calls itself.
+	 */
+	private class ModelTopicsHandler implements EventHandler {
+		@Override
+		public void handleEvent(Event event) {
+			RuntimeException[] unlogged = new RuntimeException[1];
+			modelTopics.dispatch(event, (eventHandler, e, exception) -> {
+				if (!log(eventHandler, e, exception)) {
+					if (unlogged[0] == null) {
+						unlogged[0] = exception;
+					} else {
+						unlogged[0].addSuppressed(exception);
+					}
+				}
+			});
+			if (unlogged[0] != null) {
+				throw unlogged[0];
+			}
+		}
+
+		private boolean log(EventHandler eventHandler, Event event, RuntimeException exception) {
+			String message = "Exception while dispatching event " + event + " to handler " //$NON-NLS-1$ //$NON-NLS-2$
+					+ eventHandler;
+			if (logger != null) {
+				logger.error(exception, message);
+				return true;
+			}
+			ServiceReference<LogService> reference = bundleContext == null ? null
+					: bundleContext.getServiceReference(LogService.class);
+			LogService logService = reference == null ? null : bundleContext.getService(reference);
+			if (logService == null) {
+				return false;
+			}
+			try {
+				logService.log(LogService.LOG_ERROR, message, exception);
+			} finally {
+				bundleContext.ungetService(reference);
+			}
+			return true;
+		}
+	}
+
+	private static class ModelSubscription {
+		final String topic;
+		final EventHandler wrappedHandler;
+
+		ModelSubscription(String topic, EventHandler wrappedHandler) {
+			this.topic = topic;
+			this.wrappedHandler = wrappedHandler;
+		}
+	}
+
 	// TBD synchronization
 	private Map<EventHandler, Collection<ServiceRegistration<?>>> registrations = new HashMap<>();
 
+	private final TopicTrie modelTopics = new TopicTrie();
+	/**
+	 * The subscriptions to the UI model topics by handler. Subscribers may be
+	 * on any thread, so the map and the registration of the handler of the UI
+	 * model topics are guarded by the map.
+	 */
+	private final Map<EventHandler, Collection<ModelSubscription>> modelSubscriptions = new HashMap<>();
+	private ServiceRegistration<?> modelTopicsRegistration;
+
 	@Inject
 	@Optional
 	UISynchronize uiSync;
 
+	@Inject
+	@Optional
+	Logger logger;
+
 	@Inject
 	EventAdmin eventAdmin;
 
@@ -64,18 +207,14 @@ public class EventBroker implements IEventBroker {
 	private Event constructEvent(String topic, Object data) {
 		Event event;
 		if (data instanceof Map<?, ?>) {
+			// the event copies the properties once, except if they are already
+			// immutable EventProperties, and always reports its topic as
+			// EventConstants.EVENT_TOPIC
 			Map<String, Object> map = (Map<String, Object>)data;
-			if(map.containsKey(EventConstants.EVENT_TOPIC) && map.containsKey(IEventBroker.DATA)) {
+			if (map.containsKey(IEventBroker.DATA)) {
 				return new Event(topic, map);
 			}
-			Map<String, Object> eventMap = new HashMap<>(map);
-			if (!eventMap.containsKey(EventConstants.EVENT_TOPIC)) {
-				eventMap.put(EventConstants.EVENT_TOPIC, topic);
-			}
-			if (!eventMap.containsKey(IEventBroker.DATA)) {
-				eventMap.put(IEventBroker.DATA, data);
-			}
-			event = new Event(topic, eventMap);
+			event = new Event(topic, new EventData(map));
 		} else if (data instanceof Dictionary<?, ?>) {
 			Dictionary<String, Object> d = (Dictionary<String, Object>) data;
 			if (d.get(EventConstants.EVENT_TOPIC) != null && d.get(IEventBroker.DATA) != null) {
@@ -116,13 +255,17 @@ public class EventBroker implements IEventBroker {
 
 	@Override
 	public boolean subscribe(String topic, String filter, EventHandler eventHandler, boolean headless) {
+		EventHandler wrappedHandler = new UIEventHandler(eventHandler, headless ? null : uiSync);
+		if (filter == null && topic.startsWith(UI_MODEL_TOPIC_BASE)) {
+			subscribeModelTopic(topic, eventHandler, wrappedHandler);
+			return true;
+		}
 		String[] topics = new String[] {topic};
 		Dictionary<String, Object> d = new Hashtable<>();
 		d.put(EventConstants.EVENT_TOPIC, topics);
 		if (filter != null) {
 			d.put(EventConstants.EVENT_FILTER, filter);
 		}
-		EventHandler wrappedHandler = new UIEventHandler(eventHandler, headless ? null : uiSync);
 		ServiceRegistration<?> registration = bundleContext.registerService(EventHandler.class.getName(),
 				wrappedHandler, d);
 		Collection<ServiceRegistration<?>> handled = registrations.get(eventHandler);
@@ -133,11 +276,45 @@ public class EventBroker implements IEventBroker {
 		return true;
 	}
 
+	/**
+	 * Subscribes the handler to a UI model topic. A single event admin handler
+	 * receives the events of all the UI model topics and looks up the
+	 * subscribers of the topic of each event, which avoids registering an
+	 * event handler service per subscription and matching the topic of each
+	 * event against all of them.
+	 */
+	private void subscribeModelTopic(String topic, EventHandler eventHandler, EventHandler wrappedHandler) {
+		synchronized (modelSubscriptions) {
+			if (modelTopicsRegistration == null) {
+				Dictionary<String, Object> d = new Hashtable<>();
+				d.put(EventConstants.EVENT_TOPIC, new String[] { UI_MODEL_TOPIC_BASE + '*' });
+				modelTopicsRegistration = bundleContext.registerService(EventHandler.class.getName(),
+						new ModelTopicsHandler(), d);
+			}
+			modelTopics.add(topic, wrappedHandler);
+			Collection<ModelSubscription> subscriptions = modelSubscriptions.get(eventHandler);
+			if (subscriptions == null) {
+				modelSubscriptions.put(eventHandler, subscriptions = new ArrayList<>());
+			}
+			subscriptions.add(new ModelSubscription(topic, wrappedHandler));
+		}
+	}
+
 	@Override
 	public boolean unsubscribe(EventHandler eventHandler) {
+		boolean unsubscribed = false;
+		synchronized (modelSubscriptions) {
+			Collection<ModelSubscription> subscriptions = modelSubscriptions.remove(eventHandler);
+			if (subscriptions != null) {
+				for (ModelSubscription subscription : subscriptions) {
+					modelTopics.remove(subscription.topic, subscription.wrappedHandler);
+				}
+				unsubscribed = !subscriptions.isEmpty();
+			}
+		}
 		Collection<ServiceRegistration<?>> handled = registrations.remove(eventHandler);
 		if (handled == null || handled.isEmpty())
-			return false;
+			return unsubscribed;
 		for (ServiceRegistration<?> r : handled) {
 			r.unregister();
 		}
@@ -153,5 +330,17 @@ public class EventBroker implements IEventBroker {
 				registration.unregister();
 			}
 		}
+		synchronized (modelSubscriptions) {
+			for (Collection<ModelSubscription> subscriptions : modelSubscriptions.values()) {
+				for (ModelSubscription subscription : subscriptions) {
+					modelTopics.remove(subscription.topic, subscription.wrappedHandler);
+				}
+			}
+			modelSubscriptions.clear();
+			if (modelTopicsRegistration != null) {
+				modelTopicsRegistration.unregister();
+				modelTopicsRegistration = null;
+			}
+		}
 	}
 }
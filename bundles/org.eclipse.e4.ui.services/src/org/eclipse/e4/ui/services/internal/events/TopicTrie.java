@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.services.internal.events;
+
+import java.util.Arrays;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventHandler;
+
+/**
+ * The event handlers subscribed to topics, stored in a tree of topic segments.
+ * <p>
+ * A subscription topic is either a topic, which matches only itself, or a
+ * topic prefix followed by <code>/*</code> (or <code>*</code> alone), which
+ * matches all the topics starting with the prefix and having more segments,
+ * as specified by the OSGi event admin.
+ * </p>
+ * <p>
+ * Looking up the handlers of a topic walks one node per segment of the topic
+ * and does not allocate. The nodes and handler arrays are copied on write, so
+ * events can be dispatched on any thread while the subscriptions change, and
+ * handlers may subscribe or unsubscribe while an event is dispatched.
+ * </p>
+ */
+class TopicTrie {
+
+	/**
+	 * Receives the exceptions thrown by the event handlers.
+	 */
+	interface ExceptionHandler {
+		void handleException(EventHandler eventHandler, Event event, RuntimeException exception);
+	}
+
+	private static final EventHandler[] NO_HANDLERS = new EventHandler[0];
+	private static final Node[] NO_NODES = new Node[0];
+
+	private static class Node {
+		final String segment;
+		volatile Node[] children = NO_NODES;
+		/** handlers of the topic ending at this node */
+		volatile EventHandler[] handlers = NO_HANDLERS;
+		/** handlers of the topics starting with the topic of this node */
+		volatile EventHandler[] wildcardHandlers = NO_HANDLERS;
+
+		Node(String segment) {
+			this.segment = segment;
+		}
+
+		Node getChild(String topic, int start, int end) {
+			int length = end - start;
+			for (Node child : children) {
+				if (child.segment.length() == length && topic.regionMatches(start, child.segment, 0, length)) {
+					return child;
+				}
+			}
+			return null;
+		}
+
+		boolean isEmpty() {
+			return children.length == 0 && handlers.length == 0 && wildcardHandlers.length == 0;
+		}
+	}
+
+	private final Node root = new Node(""); //$NON-NLS-1$
+
+	/**
+	 * Subscribes the handler to the topic.
+	 */
+	synchronized void add(String topic, EventHandler handler) {
+		boolean wildcard = isWildcard(topic);
+		Node node = root;
+		int length = wildcard ? topic.length() - 2 : topic.length();
+		int start = 0;
+		while (start <= length) {
+			int end = topic.indexOf('/', start);
+			if (end == -1 || end > length) {
+				end = length;
+			}
+			Node child = node.getChild(topic, start, end);
+			if (child == null) {
+				child = new Node(topic.substring(start, end));
+				Node[] children = Arrays.copyOf(node.children, node.children.length + 1);
+				children[children.length - 1] = child;
+				node.children = children;
+			}
+			node = child;
+			start = end + 1;
+		}
+		if (wildcard) {
+			node.wildcardHandlers = append(node.wildcardHandlers, handler);
+		} else {
+			node.handlers = append(node.handlers, handler);
+		}
+	}
+
+	/**
+	 * Unsubscribes the handler from the topic.
+	 */
+	synchronized void remove(String topic, EventHandler handler) {
+		boolean wildcard = isWildcard(topic);
+		int length = wildcard ? topic.length() - 2 : topic.length();
+		remove(root, topic, 0, length, wildcard, handler);
+	}
+
+	private static void remove(Node node, String topic, int start, int length, boolean wildcard,
+			EventHandler handler) {
+		if (start > length) {
+			if (wildcard) {
+				node.wildcardHandlers = removeHandler(node.wildcardHandlers, handler);
+			} else {
+				node.handlers = removeHandler(node.handlers, handler);
+			}
+			return;
+		}
+		int end = topic.indexOf('/', start);
+		if (end == -1 || end > length) {
+			end = length;
+		}
+		Node child = node.getChild(topic, start, end);
+		if (child == null) {
+			return;
+		}
+		remove(child, topic, end + 1, length, wildcard, handler);
+		if (child.isEmpty()) {
+			Node[] children = node.children;
+			Node[] newChildren = new Node[children.length - 1];
+			for (int i = 0, j = 0; i < children.length; i++) {
+				if (children[i] != child) {
+					newChildren[j++] = children[i];
+				}
+			}
+			node.children = newChildren;
+		}
+	}
+
+	/**
+	 * Returns whether no handler is subscribed.
+	 */
+	boolean isEmpty() {
+		return root.isEmpty();
+	}
+
+	/**
+	 * Calls the handlers subscribed to the topic of the event. An exception
+	 * thrown by a handler is passed to the exception handler and does not
+	 * prevent the other handlers from receiving the event.
+	 */
+	void dispatch(Event event, ExceptionHandler exceptionHandler) {
+		String topic = event.getTopic();
+		int length = topic.length();
+		Node node = root;
+		int start = 0;
+		while (true) {
+			// the topic has more segments than the topic of this node
+			deliver(node.wildcardHandlers, event, exceptionHandler);
+			int end = topic.indexOf('/', start);
+			if (end == -1) {
+				end = length;
+			}
+			node = node.getChild(topic, start, end);
+			if (node == null) {
+				return;
+			}
+			if (end == length) {
+				deliver(node.handlers, event, exceptionHandler);
+				return;
+			}
+			start = end + 1;
+		}
+	}
+
+	private static void deliver(EventHandler[] handlers, Event event, ExceptionHandler exceptionHandler) {
+		for (EventHandler handler : handlers) {
+			try {
+				handler.handleEvent(event);
+			} catch (RuntimeException e) {
+				exceptionHandler.handleException(handler, event, e);
+			}
+		}
+	}
+
+	private static boolean isWildcard(String topic) {
+		return topic.equals("*") || topic.endsWith("/*"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static EventHandler[] append(EventHandler[] handlers, EventHandler handler) {
+		EventHandler[] result = Arrays.copyOf(handlers, handlers.length + 1);
+		result[handlers.length] = handler;
+		return result;
+	}
+
+	private static EventHandler[] removeHandler(EventHandler[] handlers, EventHandler handler) {
+		for (int i = 0; i < handlers.length; i++) {
+			if (handlers[i] == handler) {
+				if (handlers.length == 1) {
+					return NO_HANDLERS;
+				}
+				EventHandler[] result = new EventHandler[handlers.length - 1];
+				System.arraycopy(handlers, 0, result, 0, i);
+				System.arraycopy(handlers, i + 1, result, i, result.length - i);
+				return result;
+			}
+		}
+		return handlers;
+	}
+}
@@ -249,6 +249,10 @@ public class E4Application implements IApplication {
 			appContext.set(E4Workbench.FORCED_SHOW_LOCATION, showLocation);
 		}
 
+		Boolean modelElementIndex = getArgValue(E4Workbench.MODEL_ELEMENT_INDEX, applicationContext, true)
+				.map(value -> Boolean.parseBoolean(value)).orElse(Boolean.FALSE);
+		appContext.set(E4Workbench.MODEL_ELEMENT_INDEX, modelElementIndex);
+
 		// Create the app model and its context
 		MApplication appModel = loadApplicationModel(applicationContext, appContext);
 		appModel.setContext(appContext);
@@ -367,6 +371,10 @@ public class E4Application implements IApplication {
 				.map(value -> Boolean.parseBoolean(value)).orElse(Boolean.FALSE);
 		eclipseContext.set(IWorkbench.CLEAR_PERSISTED_STATE, clearPersistedState);
 
+		Boolean binaryModelSnapshot = getArgValue(E4Workbench.BINARY_MODEL_SNAPSHOT, appContext, true)
+				.map(value -> Boolean.parseBoolean(value)).orElse(Boolean.FALSE);
+		eclipseContext.set(E4Workbench.BINARY_MODEL_SNAPSHOT, binaryModelSnapshot);
+
 		String resourceHandler = getArgValue(IWorkbench.MODEL_RESOURCE_HANDLER, appContext, false)
 				.orElse("bundleclass://org.eclipse.e4.ui.workbench/" + ResourceHandler.class.getName());
 
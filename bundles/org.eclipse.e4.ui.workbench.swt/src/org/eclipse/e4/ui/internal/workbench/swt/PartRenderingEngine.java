@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -1312,17 +1313,16 @@ public class PartRenderingEngine implements IPresentationEngine {
 				themeEngine.registerResourceLocator(new OSGiResourceLocator(cssResourcesURI));
 			}
 
+			final AttributeChangeStyler styler = themeEngine::applyStylesAfterAttributeChange;
 			appContext.set(IStylingEngine.class, new IStylingEngine() {
 				@Override
 				public void setClassname(Object widget, String classname) {
-					WidgetElement.setCSSClass((Widget) widget, classname);
-					themeEngine.applyStyles(widget, true);
+					setCSSClassAndApplyStyles((Widget) widget, classname, styler);
 				}
 
 				@Override
 				public void setId(Object widget, String id) {
-					WidgetElement.setID((Widget) widget, id);
-					themeEngine.applyStyles(widget, true);
+					setCSSIdAndApplyStyles((Widget) widget, id, styler);
 				}
 
 				@Override
@@ -1337,9 +1337,7 @@ public class PartRenderingEngine implements IPresentationEngine {
 
 				@Override
 				public void setClassnameAndId(Object widget, String classname, String id) {
-					WidgetElement.setCSSClass((Widget) widget, classname);
-					WidgetElement.setID((Widget) widget, id);
-					themeEngine.applyStyles(widget, true);
+					setCSSClassAndIdAndApplyStyles((Widget) widget, classname, id, styler);
 				}
 			});
 
@@ -1355,17 +1353,16 @@ public class PartRenderingEngine implements IPresentationEngine {
 			}
 			// FIXME: is this needed?
 			display.setData("org.eclipse.e4.ui.css.context", appContext); //$NON-NLS-1$
+			final AttributeChangeStyler styler = cssEngine::applyStylesAfterAttributeChange;
 			appContext.set(IStylingEngine.class, new IStylingEngine() {
 				@Override
 				public void setClassname(Object widget, String classname) {
-					WidgetElement.setCSSClass((Widget) widget, classname);
-					cssEngine.applyStyles(widget, true);
+					setCSSClassAndApplyStyles((Widget) widget, classname, styler);
 				}
 
 				@Override
 				public void setId(Object widget, String id) {
-					WidgetElement.setID((Widget) widget, id);
-					cssEngine.applyStyles(widget, true);
+					setCSSIdAndApplyStyles((Widget) widget, id, styler);
 				}
 
 				@Override
@@ -1384,9 +1381,7 @@ public class PartRenderingEngine implements IPresentationEngine {
 
 				@Override
 				public void setClassnameAndId(Object widget, String classname, String id) {
-					WidgetElement.setCSSClass((Widget) widget, classname);
-					WidgetElement.setID((Widget) widget, id);
-					cssEngine.applyStyles(widget, true);
+					setCSSClassAndIdAndApplyStyles((Widget) widget, classname, id, styler);
 				}
 			});
 
@@ -1418,6 +1413,40 @@ public class PartRenderingEngine implements IPresentationEngine {
 		appContext.set(CSSRenderingUtils.class, cssUtils);
 	}
 
+	/**
+	 * Re-applies the styles of a widget after its CSS class or id changed.
+	 */
+	@FunctionalInterface
+	private interface AttributeChangeStyler {
+		void applyStylesAfterAttributeChange(Widget widget, String attributeName, String oldValue,
+				String newValue);
+	}
+
+	private static void setCSSClassAndApplyStyles(Widget widget, String classname, AttributeChangeStyler styler) {
+		String oldClassname = WidgetElement.getCSSClass(widget);
+		WidgetElement.setCSSClass(widget, classname);
+		styler.applyStylesAfterAttributeChange(widget, "class", oldClassname, classname); //$NON-NLS-1$
+	}
+
+	private static void setCSSIdAndApplyStyles(Widget widget, String id, AttributeChangeStyler styler) {
+		String oldId = WidgetElement.getID(widget);
+		WidgetElement.setID(widget, id);
+		styler.applyStylesAfterAttributeChange(widget, "id", oldId, id); //$NON-NLS-1$
+	}
+
+	private static void setCSSClassAndIdAndApplyStyles(Widget widget, String classname, String id,
+			AttributeChangeStyler styler) {
+		if (Objects.equals(WidgetElement.getID(widget), id)) {
+			setCSSClassAndApplyStyles(widget, classname, styler);
+		} else if (Objects.equals(WidgetElement.getCSSClass(widget), classname)) {
+			setCSSIdAndApplyStyles(widget, id, styler);
+		} else {
+			WidgetElement.setCSSClass(widget, classname);
+			WidgetElement.setID(widget, id);
+			styler.applyStylesAfterAttributeChange(widget, null, null, null);
+		}
+	}
+
 	private static IThemeEngine createThemeEngine(Display display, IEclipseContext appContext) {
 		// Store the app context
 		IContributionFactory contribution = appContext.get(IContributionFactory.class);
@@ -84,6 +84,23 @@ public class E4Workbench implements IWorkbench {
 	 */
 	public static final String FORCED_SHOW_LOCATION = "forcedShowLocation"; //$NON-NLS-1$
 
+	/**
+	 * The argument for whether to index the model elements by element id and
+	 * tag to speed up the searches of the model service (set on the command
+	 * line)<br>
+	 * <br>
+	 * Value is: <code>modelElementIndex</code>
+	 */
+	public static final String MODEL_ELEMENT_INDEX = "modelElementIndex"; //$NON-NLS-1$
+
+	/**
+	 * The argument for whether to persist the workbench model as a binary
+	 * snapshot instead of XMI (set on the command line)<br>
+	 * <br>
+	 * Value is: <code>binaryModelSnapshot</code>
+	 */
+	public static final String BINARY_MODEL_SNAPSHOT = "binaryModelSnapshot"; //$NON-NLS-1$
+
 	private final String id;
 	private ServiceRegistration<?> osgiRegistration;
 
@@ -121,7 +138,8 @@ public class E4Workbench implements IWorkbench {
 			init((MApplication) uiRoot);
 		}
 
-		uiEventPublisher = new UIEventPublisher(appContext);
+		uiEventPublisher = new UIEventPublisher(appContext,
+				Boolean.TRUE.equals(appContext.get(MODEL_ELEMENT_INDEX)));
 		appContext.set(UIEventPublisher.class, uiEventPublisher);
 		((Notifier) uiRoot).eAdapters().add(uiEventPublisher);
 		Hashtable<String, Object> properties = new Hashtable<>();
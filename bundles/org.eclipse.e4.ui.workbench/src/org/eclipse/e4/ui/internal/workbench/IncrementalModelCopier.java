@@ -0,0 +1,319 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.util.ECollections;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil.Copier;
+
+/**
+ * Maintains a copy of a model which is updated incrementally: the copier
+ * records the elements changed since the previous update from their EMF
+ * notifications, and {@link #update()} only copies the features of these
+ * elements, and the elements added to the model. The copies of the elements
+ * which refer to the added elements, or to the removed elements, are updated
+ * too, from an index of the references between the elements.
+ * <p>
+ * The copy has the same content as a copy made with
+ * {@link org.eclipse.emf.ecore.util.EcoreUtil#copy(EObject)}: references to
+ * elements outside the model are not copied. The copy must only be read while
+ * {@link #update()} does not run, e.g. by a job scheduled after an update and
+ * which is done before the next one, and it must not be modified.
+ * </p>
+ */
+public class IncrementalModelCopier extends EContentAdapter {
+
+	private final EObject root;
+	private EObject copy;
+
+	/**
+	 * The copies of the elements of the model.
+	 */
+	private final Map<EObject, EObject> copies = new HashMap<>();
+
+	/**
+	 * The elements changed since the previous update.
+	 */
+	private final Set<EObject> changed = new LinkedHashSet<>();
+
+	/**
+	 * The elements removed from the model since the previous update. Their
+	 * copies are kept until the update in case they are added back, e.g. when
+	 * they are moved to another container.
+	 */
+	private final Set<EObject> removed = new HashSet<>();
+
+	/**
+	 * The targets of the non-containment references of the copied elements.
+	 */
+	private final Map<EObject, Set<EObject>> targets = new HashMap<>();
+
+	/**
+	 * The copied elements which refer to each target, the inverse of
+	 * {@link #targets}.
+	 */
+	private final Map<EObject, Set<EObject>> referrers = new HashMap<>();
+
+	/**
+	 * Creates a copier of the model and starts recording its changes.
+	 *
+	 * @param root
+	 *            the root of the model
+	 */
+	public IncrementalModelCopier(EObject root) {
+		this.root = root;
+		root.eAdapters().add(this);
+	}
+
+	/**
+	 * Stops recording the changes of the model and releases the copy.
+	 */
+	public void dispose() {
+		root.eAdapters().remove(this);
+		copies.clear();
+		changed.clear();
+		removed.clear();
+		targets.clear();
+		referrers.clear();
+		copy = null;
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (!notification.isTouch() && notification.getNotifier() instanceof EObject) {
+			changed.add((EObject) notification.getNotifier());
+		}
+	}
+
+	@Override
+	protected void setTarget(EObject target) {
+		super.setTarget(target);
+		if (removed.remove(target)) {
+			// the element may have changed while it was not in the model
+			changed.add(target);
+		}
+	}
+
+	@Override
+	protected void unsetTarget(EObject target) {
+		super.unsetTarget(target);
+		if (copies.containsKey(target)) {
+			removed.add(target);
+		}
+		changed.remove(target);
+	}
+
+	/**
+	 * Updates the copy of the model with the changes made since the previous
+	 * update, or copies the model on the first call. Must be called by the
+	 * thread which modifies the model.
+	 *
+	 * @return the copy of the root of the model
+	 */
+	public EObject update() {
+		if (copy == null) {
+			Copier copier = new Copier();
+			copy = copier.copy(root);
+			copier.copyReferences();
+			copies.putAll(copier);
+			for (EObject element : copies.keySet()) {
+				setTargets(element, getTargets(element));
+			}
+			changed.clear();
+			removed.clear();
+			return copy;
+		}
+
+		// the copies of the elements which refer to the removed or added
+		// elements must then refer to the elements or to their new copies
+		Set<EObject> retargeted = new HashSet<>(removed);
+		for (EObject element : removed) {
+			copies.remove(element);
+			setTargets(element, Collections.emptySet());
+		}
+		removed.clear();
+		List<EObject> toUpdate = new ArrayList<>(changed);
+		changed.clear();
+
+		// copy the attributes and the contents first, so that the references
+		// to the added elements can be mapped to their copies
+		Copier addedElements = new Copier();
+		for (EObject element : toUpdate) {
+			EObject elementCopy = copies.get(element);
+			if (elementCopy != null) {
+				updateContents(element, elementCopy, addedElements);
+			}
+		}
+		copies.putAll(addedElements);
+
+		for (EObject element : toUpdate) {
+			EObject elementCopy = copies.get(element);
+			if (elementCopy != null) {
+				updateReferences(element, elementCopy);
+			}
+		}
+		for (Map.Entry<EObject, EObject> entry : addedElements.entrySet()) {
+			updateReferences(entry.getKey(), entry.getValue());
+		}
+
+		retargeted.addAll(addedElements.keySet());
+		Set<EObject> referring = new LinkedHashSet<>();
+		for (EObject target : retargeted) {
+			Set<EObject> targetReferrers = referrers.get(target);
+			if (targetReferrers != null) {
+				referring.addAll(targetReferrers);
+			}
+		}
+		referring.removeAll(toUpdate);
+		referring.removeAll(addedElements.keySet());
+		for (EObject element : referring) {
+			EObject elementCopy = copies.get(element);
+			if (elementCopy != null) {
+				updateReferences(element, elementCopy);
+			}
+		}
+		return copy;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void updateContents(EObject element, EObject elementCopy, Copier addedElements) {
+		for (EStructuralFeature feature : element.eClass().getEAllStructuralFeatures()) {
+			if (!feature.isChangeable() || feature.isDerived()) {
+				continue;
+			}
+			if (feature instanceof EAttribute) {
+				if (!element.eIsSet(feature)) {
+					elementCopy.eUnset(feature);
+				} else if (feature.isMany()) {
+					ECollections.setEList((EList<Object>) elementCopy.eGet(feature),
+							new ArrayList<>((List<Object>) element.eGet(feature)));
+				} else {
+					elementCopy.eSet(feature, element.eGet(feature));
+				}
+			} else if (((EReference) feature).isContainment()) {
+				if (feature.isMany()) {
+					List<EObject> children = (List<EObject>) element.eGet(feature);
+					List<EObject> childCopies = new ArrayList<>(children.size());
+					for (EObject child : children) {
+						childCopies.add(getCopy(child, addedElements));
+					}
+					ECollections.setEList((EList<EObject>) elementCopy.eGet(feature), childCopies);
+				} else {
+					EObject child = (EObject) element.eGet(feature);
+					elementCopy.eSet(feature, child == null ? null : getCopy(child, addedElements));
+				}
+			}
+		}
+	}
+
+	private EObject getCopy(EObject element, Copier addedElements) {
+		EObject elementCopy = copies.get(element);
+		if (elementCopy == null) {
+			elementCopy = addedElements.get(element);
+			if (elementCopy == null) {
+				elementCopy = addedElements.copy(element);
+			}
+		}
+		return elementCopy;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void updateReferences(EObject element, EObject elementCopy) {
+		for (EReference reference : element.eClass().getEAllReferences()) {
+			if (!reference.isChangeable() || reference.isDerived() || reference.isContainment()
+					|| reference.isContainer()) {
+				continue;
+			}
+			if (!element.eIsSet(reference)) {
+				elementCopy.eUnset(reference);
+			} else if (reference.isMany()) {
+				List<EObject> targets = (List<EObject>) element.eGet(reference);
+				List<EObject> targetCopies = new ArrayList<>(targets.size());
+				for (EObject target : targets) {
+					targetCopies.add(getReferenceCopy(target));
+				}
+				ECollections.setEList((EList<EObject>) elementCopy.eGet(reference), targetCopies);
+			} else {
+				elementCopy.eSet(reference, getReferenceCopy((EObject) element.eGet(reference)));
+			}
+		}
+		setTargets(element, getTargets(element));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Set<EObject> getTargets(EObject element) {
+		Set<EObject> result = new HashSet<>();
+		for (EReference reference : element.eClass().getEAllReferences()) {
+			if (!reference.isChangeable() || reference.isDerived() || reference.isContainment()
+					|| reference.isContainer() || !element.eIsSet(reference)) {
+				continue;
+			}
+			if (reference.isMany()) {
+				result.addAll((List<EObject>) element.eGet(reference));
+			} else {
+				EObject target = (EObject) element.eGet(reference);
+				if (target != null) {
+					result.add(target);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Records the targets of the references of the element in the index of
+	 * the references.
+	 */
+	private void setTargets(EObject element, Set<EObject> elementTargets) {
+		Set<EObject> oldTargets = elementTargets.isEmpty() ? targets.remove(element)
+				: targets.put(element, elementTargets);
+		if (oldTargets != null) {
+			for (EObject target : oldTargets) {
+				if (!elementTargets.contains(target)) {
+					Set<EObject> targetReferrers = referrers.get(target);
+					targetReferrers.remove(element);
+					if (targetReferrers.isEmpty()) {
+						referrers.remove(target);
+					}
+				}
+			}
+		}
+		for (EObject target : elementTargets) {
+			if (oldTargets == null || !oldTargets.contains(target)) {
+				referrers.computeIfAbsent(target, t -> new HashSet<>()).add(element);
+			}
+		}
+	}
+
+	private EObject getReferenceCopy(EObject target) {
+		if (target == null) {
+			return null;
+		}
+		// like EcoreUtil.copy, refer to the elements outside the model
+		EObject targetCopy = copies.get(target);
+		return targetCopy == null ? target : targetCopy;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2016 BestSolution.at and others.
+ * Copyright (c) 2010, 2018 BestSolution.at and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,6 +26,10 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.inject.Inject;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IContributor;
@@ -53,6 +57,7 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.Diagnostician;
 import org.eclipse.emf.ecore.util.EContentsEList;
 import org.eclipse.emf.ecore.util.EcoreUtil;
@@ -119,25 +124,32 @@ public class ModelAssembler {
 	 *
 	 */
 	private void processFragments(IExtension[] extensions, boolean initial) {
-		List<ModelFragmentWrapper> wrappers = new ArrayList<>();
+		List<IConfigurationElement> fragmentElements = new ArrayList<>();
 		for (IExtension extension : extensions) {
 			IConfigurationElement[] ces = extension.getConfigurationElements();
 			for (IConfigurationElement ce : ces) {
 				if ("fragment".equals(ce.getName()) && (initial || !INITIAL.equals(ce.getAttribute("apply")))) { //$NON-NLS-1$ //$NON-NLS-2$
-					MModelFragments fragmentsContainer = getFragmentsContainer(ce);
-					if (fragmentsContainer == null) {
-						continue;
-					}
-					for (MModelFragment fragment : fragmentsContainer.getFragments()) {
-						boolean checkExist = !initial && NOTEXISTS.equals(ce.getAttribute("apply")); //$NON-NLS-1$
-						wrappers.add(new ModelFragmentWrapper(fragmentsContainer, fragment,
-								ce.getContributor().getName(), URIHelper.constructPlatformURI(ce.getContributor()),
-								checkExist)); // $NON-NLS-1$
-					}
+					fragmentElements.add(ce);
 				}
 			}
 		}
 
+		List<MModelFragments> fragmentsContainers = getFragmentsContainers(fragmentElements);
+		List<ModelFragmentWrapper> wrappers = new ArrayList<>();
+		for (int i = 0; i < fragmentElements.size(); i++) {
+			IConfigurationElement ce = fragmentElements.get(i);
+			MModelFragments fragmentsContainer = fragmentsContainers.get(i);
+			if (fragmentsContainer == null) {
+				continue;
+			}
+			for (MModelFragment fragment : fragmentsContainer.getFragments()) {
+				boolean checkExist = !initial && NOTEXISTS.equals(ce.getAttribute("apply")); //$NON-NLS-1$
+				wrappers.add(new ModelFragmentWrapper(fragmentsContainer, fragment,
+						ce.getContributor().getName(), URIHelper.constructPlatformURI(ce.getContributor()),
+						checkExist)); // $NON-NLS-1$
+			}
+		}
+
 		processFragmentWrappers(wrappers);
 	}
 
@@ -209,10 +221,22 @@ public class ModelAssembler {
 	}
 
 	public void processFragments(Collection<ModelFragmentWrapper> fragmentList) {
-		for (ModelFragmentWrapper fragmentWrapper : fragmentList) {
-			processFragment(fragmentWrapper.getFragmentContainer(), fragmentWrapper.getModelFragment(),
-					fragmentWrapper.getContributorName(), fragmentWrapper.getContributorURI(),
-					fragmentWrapper.isCheckExists());
+		// merging a fragment sets many features of the merged elements, only
+		// send the resulting events once all the fragments are merged
+		UIEventPublisher publisher = context.get(UIEventPublisher.class);
+		if (publisher != null) {
+			publisher.beginBatch();
+		}
+		try {
+			for (ModelFragmentWrapper fragmentWrapper : fragmentList) {
+				processFragment(fragmentWrapper.getFragmentContainer(), fragmentWrapper.getModelFragment(),
+						fragmentWrapper.getContributorName(), fragmentWrapper.getContributorURI(),
+						fragmentWrapper.isCheckExists());
+			}
+		} finally {
+			if (publisher != null) {
+				publisher.endBatch();
+			}
 		}
 	}
 
@@ -264,9 +288,60 @@ public class ModelAssembler {
 		}
 	}
 
-	private MModelFragments getFragmentsContainer(IConfigurationElement ce) {
+	/**
+	 * Returns the fragments containers of the configuration elements, in the
+	 * same order, or <code>null</code> for the elements whose fragments could
+	 * not be read. The fragment resources which are not loaded yet are loaded in
+	 * parallel, and then added to the resource set of the application in the
+	 * order of the configuration elements.
+	 */
+	private List<MModelFragments> getFragmentsContainers(List<IConfigurationElement> ces) {
 		E4XMIResource applicationResource = (E4XMIResource) ((EObject) application).eResource();
 		ResourceSet resourceSet = applicationResource.getResourceSet();
+
+		List<URI> uris = new ArrayList<>(ces.size());
+		Map<URI, Future<Resource>> loadedResources = new HashMap<>();
+		for (IConfigurationElement ce : ces) {
+			URI uri = getFragmentURI(ce);
+			uris.add(uri);
+			if (uri != null && resourceSet.getResource(uri, false) == null) {
+				loadedResources.put(uri, null);
+			}
+		}
+
+		ExecutorService executor = null;
+		if (!loadedResources.isEmpty()) {
+			int threads = Math.min(loadedResources.size(), Runtime.getRuntime().availableProcessors());
+			executor = Executors.newFixedThreadPool(threads, runnable -> {
+				Thread thread = new Thread(runnable, "Model fragment loader"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			});
+			for (URI uri : loadedResources.keySet()) {
+				loadedResources.put(uri, executor.submit(() -> loadResource(resourceSet, uri)));
+			}
+		}
+
+		List<MModelFragments> fragmentsContainers = new ArrayList<>(ces.size());
+		try {
+			for (int i = 0; i < ces.size(); i++) {
+				IConfigurationElement ce = ces.get(i);
+				URI uri = uris.get(i);
+				Resource resource = null;
+				if (uri != null) {
+					resource = getResource(resourceSet, uri, loadedResources.remove(uri), ce.getContributor());
+				}
+				fragmentsContainers.add(resource == null ? null : getFragmentsContainer(resource, ce));
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+		return fragmentsContainers;
+	}
+
+	private URI getFragmentURI(IConfigurationElement ce) {
 		IContributor contributor = ce.getContributor();
 		String attrURI = ce.getAttribute("uri"); //$NON-NLS-1$
 		String bundleName = contributor.getName();
@@ -275,28 +350,80 @@ public class ModelAssembler {
 			return null;
 		}
 
-		URI uri;
 		try {
 			// check if the attrURI is already a platform URI
 			if (URIHelper.isPlatformURI(attrURI)) {
-				uri = URI.createURI(attrURI);
-			} else {
-				String path = bundleName + '/' + attrURI;
-				uri = URI.createPlatformPluginURI(path, false);
+				return URI.createURI(attrURI);
 			}
+			String path = bundleName + '/' + attrURI;
+			return URI.createPlatformPluginURI(path, false);
 		} catch (RuntimeException e) {
 			logger.warn(e, "Invalid location \"" + attrURI + "\" of model extension \"" + bundleName + "\""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			return null;
 		}
+	}
 
-		Resource resource;
+	/**
+	 * Loads a resource in a resource set of its own, which shares the
+	 * registries and the URI converter of the given resource set, so that
+	 * resources can be loaded concurrently.
+	 */
+	private static Resource loadResource(ResourceSet resourceSet, URI uri) {
+		ResourceSet loadingResourceSet = new ResourceSetImpl();
+		loadingResourceSet.setResourceFactoryRegistry(resourceSet.getResourceFactoryRegistry());
+		loadingResourceSet.setPackageRegistry(resourceSet.getPackageRegistry());
+		loadingResourceSet.setURIConverter(resourceSet.getURIConverter());
+		loadingResourceSet.getLoadOptions().putAll(resourceSet.getLoadOptions());
+		Resource resource = loadingResourceSet.getResource(uri, true);
+		loadingResourceSet.getResources().remove(resource);
+		return resource;
+	}
+
+	/**
+	 * Returns the resource of the resource set with the given URI, or adds the
+	 * resource loaded by the given task to the resource set. The task is waited
+	 * for even if the thread is interrupted, so that no fragment is dropped
+	 * from the model.
+	 */
+	private Resource getResource(ResourceSet resourceSet, URI uri, Future<Resource> loadedResource,
+			IContributor contributor) {
 		try {
-			resource = resourceSet.getResource(uri, true);
-		} catch (RuntimeException e) {
-			logger.warn(e, "Unable to read model extension from \"" + uri.toString() + "\" of \"" + bundleName + "\""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			if (loadedResource != null) {
+				Resource resource = getUninterruptibly(loadedResource);
+				resourceSet.getResources().add(resource);
+				return resource;
+			}
+			return resourceSet.getResource(uri, true);
+		} catch (RuntimeException | ExecutionException e) {
+			Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+			logger.warn(cause, "Unable to read model extension from \"" + uri.toString() + "\" of \"" //$NON-NLS-1$ //$NON-NLS-2$
+					+ contributor.getName() + "\""); //$NON-NLS-1$
 			return null;
 		}
+	}
+
+	/**
+	 * Waits for the result of the given task, and then restores the interrupt
+	 * status of the thread if it was interrupted meanwhile.
+	 */
+	private static <T> T getUninterruptibly(Future<T> future) throws ExecutionException {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return future.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
 
+	private MModelFragments getFragmentsContainer(Resource resource, IConfigurationElement ce) {
 		EList<?> contents = resource.getContents();
 		if (contents.isEmpty()) {
 			return null;
@@ -305,7 +432,7 @@ public class ModelAssembler {
 		Object extensionRoot = contents.get(0);
 
 		if (!(extensionRoot instanceof MModelFragments)) {
-			logger.warn("Unable to create model extension \"{0}\"", bundleName); //$NON-NLS-1$
+			logger.warn("Unable to create model extension \"{0}\"", ce.getContributor().getName()); //$NON-NLS-1$
 			return null;
 		}
 		return (MModelFragments) extensionRoot;
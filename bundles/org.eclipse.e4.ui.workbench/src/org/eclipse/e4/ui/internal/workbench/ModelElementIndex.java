@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.e4.ui.model.application.MApplicationElement;
+import org.eclipse.e4.ui.model.application.impl.ApplicationPackageImpl;
+import org.eclipse.e4.ui.model.application.ui.MUIElement;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPlaceholder;
+import org.eclipse.e4.ui.model.application.ui.advanced.impl.AdvancedPackageImpl;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Index of the model elements by element id, by tag and by class, maintained
+ * by the {@link UIEventPublisher} from the EMF notifications of the elements it
+ * is attached to.
+ * <p>
+ * The index does not answer queries by itself: it computes the
+ * {@link SearchScope} of a query, the elements whose subtree may contain a
+ * match. {@link ModelServiceImpl} then walks the model as usual but skips the
+ * indexed elements which are not in the scope, so the search flags and the
+ * order of the results are unchanged.
+ * </p>
+ */
+class ModelElementIndex {
+
+	/**
+	 * The elements which can contain matches of a query.
+	 */
+	static class SearchScope {
+		private final ModelElementIndex index;
+		private final Set<Object> elements;
+
+		SearchScope(ModelElementIndex index, Set<Object> elements) {
+			this.index = index;
+			this.elements = elements;
+		}
+
+		/**
+		 * Returns whether the element or one of the elements reachable from it
+		 * may match the query. Elements which are not indexed are always
+		 * searched.
+		 */
+		boolean mayContainMatches(MApplicationElement element) {
+			return elements.contains(element) || !index.contains(element);
+		}
+	}
+
+	private final Set<MApplicationElement> elements = new HashSet<>();
+	private final Map<String, Set<MApplicationElement>> elementsById = new HashMap<>();
+	private final Map<String, Set<MApplicationElement>> elementsByTag = new HashMap<>();
+	private final Map<Class<?>, Set<MApplicationElement>> elementsByClass = new HashMap<>();
+	private final Map<MUIElement, Set<MPlaceholder>> placeholdersByRef = new HashMap<>();
+
+	boolean contains(MApplicationElement element) {
+		return elements.contains(element);
+	}
+
+	void add(MApplicationElement element) {
+		if (!elements.add(element)) {
+			return;
+		}
+		addToIndex(elementsById, element.getElementId(), element);
+		for (String tag : element.getTags()) {
+			addToIndex(elementsByTag, tag, element);
+		}
+		addToIndex(elementsByClass, element.getClass(), element);
+		if (element instanceof MPlaceholder) {
+			addToIndex(placeholdersByRef, ((MPlaceholder) element).getRef(), (MPlaceholder) element);
+		}
+	}
+
+	void remove(MApplicationElement element) {
+		if (!elements.remove(element)) {
+			return;
+		}
+		removeFromIndex(elementsById, element.getElementId(), element);
+		for (String tag : element.getTags()) {
+			removeFromIndex(elementsByTag, tag, element);
+		}
+		removeFromIndex(elementsByClass, element.getClass(), element);
+		if (element instanceof MPlaceholder) {
+			removeFromIndex(placeholdersByRef, ((MPlaceholder) element).getRef(), (MPlaceholder) element);
+		}
+	}
+
+	/**
+	 * Updates the index for a change of the element id, the tags or the
+	 * placeholder reference of an indexed element.
+	 */
+	void notifyChanged(Notification notification) {
+		Object notifier = notification.getNotifier();
+		if (!(notifier instanceof MApplicationElement) || !elements.contains(notifier)) {
+			return;
+		}
+		MApplicationElement element = (MApplicationElement) notifier;
+		Object feature = notification.getFeature();
+		if (feature == ApplicationPackageImpl.Literals.APPLICATION_ELEMENT__ELEMENT_ID) {
+			removeFromIndex(elementsById, (String) notification.getOldValue(), element);
+			addToIndex(elementsById, element.getElementId(), element);
+		} else if (feature == ApplicationPackageImpl.Literals.APPLICATION_ELEMENT__TAGS) {
+			updateTags(element, notification);
+		} else if (feature == AdvancedPackageImpl.Literals.PLACEHOLDER__REF) {
+			MPlaceholder placeholder = (MPlaceholder) element;
+			removeFromIndex(placeholdersByRef, (MUIElement) notification.getOldValue(), placeholder);
+			addToIndex(placeholdersByRef, placeholder.getRef(), placeholder);
+		}
+	}
+
+	private void updateTags(MApplicationElement element, Notification notification) {
+		if (notification.getEventType() == Notification.MOVE) {
+			return;
+		}
+		// a tag may be in the list more than once, so check the current tags
+		// before removing a tag from the index
+		for (Object tag : getValues(notification.getOldValue())) {
+			if (!element.getTags().contains(tag)) {
+				removeFromIndex(elementsByTag, (String) tag, element);
+			}
+		}
+		for (String tag : element.getTags()) {
+			addToIndex(elementsByTag, tag, element);
+		}
+	}
+
+	private static Collection<?> getValues(Object value) {
+		if (value instanceof Collection<?>) {
+			return (Collection<?>) value;
+		}
+		return value == null ? Collections.emptySet() : Collections.singleton(value);
+	}
+
+	/**
+	 * Returns the scope of a search for the elements with the given id, class
+	 * and tags, or <code>null</code> if the index cannot restrict the search.
+	 *
+	 * @param id
+	 *            the element id to match, may be <code>null</code>
+	 * @param clazz
+	 *            the class the elements must be instances of, may be
+	 *            <code>null</code>
+	 * @param tagsToMatch
+	 *            the tags which must all be present, may be <code>null</code>
+	 */
+	SearchScope getSearchScope(String id, Class<?> clazz, List<String> tagsToMatch) {
+		Collection<MApplicationElement> candidates = null;
+		if (id != null) {
+			candidates = getIndexed(elementsById, id);
+		}
+		if (tagsToMatch != null) {
+			for (String tag : tagsToMatch) {
+				Set<MApplicationElement> tagged = getIndexed(elementsByTag, tag);
+				if (candidates == null || tagged.size() < candidates.size()) {
+					candidates = tagged;
+				}
+			}
+		}
+		if (clazz != null) {
+			candidates = getInstances(clazz, candidates);
+		}
+		if (candidates == null) {
+			return null;
+		}
+
+		// the candidates and their containers, and the placeholders referring
+		// to any of them and their containers
+		Set<Object> scope = new HashSet<>();
+		Deque<EObject> pending = new ArrayDeque<>();
+		for (MApplicationElement candidate : candidates) {
+			if (matches(candidate, id, clazz, tagsToMatch)) {
+				pending.add((EObject) candidate);
+			}
+		}
+		while (!pending.isEmpty()) {
+			for (EObject element = pending.poll(); element != null && scope.add(element); element = element
+					.eContainer()) {
+				Set<MPlaceholder> placeholders = placeholdersByRef.get(element);
+				if (placeholders != null) {
+					for (MPlaceholder placeholder : placeholders) {
+						pending.add((EObject) placeholder);
+					}
+				}
+			}
+		}
+		return new SearchScope(this, scope);
+	}
+
+	/**
+	 * Returns the indexed instances of the class if there are fewer of them
+	 * than the given candidates, or the candidates otherwise.
+	 *
+	 * @param candidates
+	 *            the candidates found by id or tags, or <code>null</code> if
+	 *            there are none
+	 * @return the instances or the candidates, or <code>null</code> if the
+	 *         class does not restrict the search
+	 */
+	private Collection<MApplicationElement> getInstances(Class<?> clazz,
+			Collection<MApplicationElement> candidates) {
+		List<Set<MApplicationElement>> buckets = new ArrayList<>();
+		int size = 0;
+		for (Map.Entry<Class<?>, Set<MApplicationElement>> entry : elementsByClass.entrySet()) {
+			if (clazz.isAssignableFrom(entry.getKey())) {
+				buckets.add(entry.getValue());
+				size += entry.getValue().size();
+			}
+		}
+		if (candidates != null ? size >= candidates.size() : buckets.size() == elementsByClass.size()) {
+			return candidates;
+		}
+		if (buckets.size() == 1) {
+			return buckets.get(0);
+		}
+		List<MApplicationElement> instances = new ArrayList<>(size);
+		for (Set<MApplicationElement> bucket : buckets) {
+			instances.addAll(bucket);
+		}
+		return instances;
+	}
+
+	private static boolean matches(MApplicationElement element, String id, Class<?> clazz,
+			List<String> tagsToMatch) {
+		if (id != null && !id.equals(element.getElementId())) {
+			return false;
+		}
+		if (clazz != null && !clazz.isInstance(element)) {
+			return false;
+		}
+		return tagsToMatch == null || element.getTags().containsAll(tagsToMatch);
+	}
+
+	private static <K, V> Set<V> getIndexed(Map<K, Set<V>> index, K key) {
+		Set<V> values = index.get(key);
+		return values == null ? Collections.emptySet() : values;
+	}
+
+	private static <K, V> void addToIndex(Map<K, Set<V>> index, K key, V value) {
+		if (key != null) {
+			index.computeIfAbsent(key, k -> new HashSet<>(2)).add(value);
+		}
+	}
+
+	private static <K, V> void removeFromIndex(Map<K, Set<V>> index, K key, V value) {
+		if (key == null) {
+			return;
+		}
+		Set<V> values = index.get(key);
+		if (values != null && values.remove(value) && values.isEmpty()) {
+			index.remove(key);
+		}
+	}
+}
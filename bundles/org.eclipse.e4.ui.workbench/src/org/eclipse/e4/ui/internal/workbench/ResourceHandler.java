@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2016 IBM Corporation and others.
+ * Copyright (c) 2009, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,12 +16,20 @@
 
 package org.eclipse.e4.ui.internal.workbench;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -48,8 +56,10 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMLResource;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.osgi.framework.Bundle;
 
@@ -58,6 +68,24 @@ import org.osgi.framework.Bundle;
  */
 public class ResourceHandler implements IModelResourceHandler {
 
+	/**
+	 * The options to save and load the model as a binary snapshot: the EMF
+	 * binary encoding, which writes each class and feature once and the
+	 * references as indices, and keeps the XMI ids of the elements.
+	 */
+	private static final Map<String, Object> SNAPSHOT_SAVE_OPTIONS = Collections
+			.<String, Object> singletonMap(XMLResource.OPTION_BINARY, Boolean.TRUE);
+
+	/**
+	 * The options to load a snapshot read in memory, which does not need to
+	 * be buffered.
+	 */
+	private static final Map<String, Object> SNAPSHOT_LOAD_OPTIONS = new HashMap<>();
+	static {
+		SNAPSHOT_LOAD_OPTIONS.put(XMLResource.OPTION_BINARY, Boolean.TRUE);
+		SNAPSHOT_LOAD_OPTIONS.put(BinaryResourceImpl.OPTION_BUFFER_CAPACITY, Integer.valueOf(0));
+	}
+
 	private ResourceSet resourceSet;
 	private Resource resource;
 
@@ -86,6 +114,11 @@ public class ResourceHandler implements IModelResourceHandler {
 	@Named(IWorkbench.CLEAR_PERSISTED_STATE)
 	private boolean clearPersistedState;
 
+	@Inject
+	@Optional
+	@Named(E4Workbench.BINARY_MODEL_SNAPSHOT)
+	private boolean binarySnapshot;
+
 	/**
 	 * Constructor.
 	 *
@@ -139,30 +172,45 @@ public class ResourceHandler implements IModelResourceHandler {
 	@Override
 	public Resource loadMostRecentModel() {
 		File workbenchData = null;
+		File workbenchSnapshot = null;
 		URI restoreLocation = null;
 
 		if (saveAndRestore) {
 			workbenchData = getWorkbenchSaveLocation();
+			workbenchSnapshot = getWorkbenchSnapshotLocation();
 			restoreLocation = URI.createFileURI(workbenchData.getAbsolutePath());
 		}
 
-		if (clearPersistedState && workbenchData != null && workbenchData.exists()) {
-			workbenchData.delete();
+		if (clearPersistedState && workbenchData != null) {
+			if (workbenchData.exists()) {
+				workbenchData.delete();
+			}
+			if (workbenchSnapshot.exists()) {
+				workbenchSnapshot.delete();
+			}
 		}
 
 		// last stored time-stamp
 		long restoreLastModified = restoreLocation == null ? 0L : new File(
 				restoreLocation.toFileString()).lastModified();
+		long snapshotLastModified = workbenchSnapshot == null ? 0L : workbenchSnapshot.lastModified();
 
 		// See bug 380663, bug 381219
 		// long lastApplicationModification = getLastApplicationModification();
 		// boolean restore = restoreLastModified > lastApplicationModification;
-		boolean restore = restoreLastModified > 0;
+		boolean restore = restoreLastModified > 0 || snapshotLastModified > 0;
 		boolean initialModel;
 
 		resource = null;
 		if (restore && saveAndRestore) {
-			resource = loadResource(restoreLocation);
+			// restore the most recently saved model, whatever the current
+			// persistence format
+			if (snapshotLastModified > restoreLastModified) {
+				resource = loadSnapshot(workbenchSnapshot, restoreLocation);
+			}
+			if (resource == null && restoreLastModified > 0) {
+				resource = loadResource(restoreLocation);
+			}
 			// If the saved model does not have any top-level windows, Eclipse will exit
 			// immediately, so throw out the persisted state and reinitialize with the defaults.
 			if (!hasTopLevelWindows(resource)) {
@@ -207,8 +255,89 @@ public class ResourceHandler implements IModelResourceHandler {
 
 	@Override
 	public void save() throws IOException {
-		if (saveAndRestore)
+		if (!saveAndRestore) {
+			return;
+		}
+		if (binarySnapshot) {
+			saveSnapshot(resource, getWorkbenchSnapshotLocation());
+		} else {
 			resource.save(null);
+		}
+	}
+
+	/**
+	 * Saves the model of the resource as a binary snapshot. The XMI
+	 * serialization of the resource is not affected: saving the resource
+	 * without options still writes XMI, e.g. to export the model for tooling.
+	 * <p>
+	 * The snapshot is written to a temporary file which then replaces the
+	 * file, so that a failed save leaves the previous snapshot intact.
+	 * </p>
+	 *
+	 * @param resource
+	 *            the resource of the model
+	 * @param file
+	 *            the file to write
+	 * @throws IOException
+	 *             if the snapshot cannot be written
+	 */
+	static void saveSnapshot(Resource resource, File file) throws IOException {
+		File parent = file.getParentFile();
+		if (parent != null && !parent.exists()) {
+			parent.mkdirs();
+		}
+		if (resource instanceof XMLResource) {
+			// the binary encoding only saves the existing ids, assign the
+			// missing ones as the XMI serialization does
+			for (TreeIterator<EObject> it = resource.getAllContents(); it.hasNext();) {
+				((XMLResource) resource).getID(it.next());
+			}
+		}
+		Path target = file.toPath();
+		Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), file.getName(), ".tmp"); //$NON-NLS-1$
+		try {
+			try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(temp))) {
+				resource.save(stream, SNAPSHOT_SAVE_OPTIONS);
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Loads a model saved with {@link #saveSnapshot(Resource, File)} into a
+	 * resource with the given URI, reading the file at once. The file is not
+	 * mapped in memory, since a mapped file cannot be replaced on Windows.
+	 *
+	 * @param resource
+	 *            the resource to load, which must be empty
+	 * @param file
+	 *            the snapshot file
+	 * @throws IOException
+	 *             if the snapshot cannot be read
+	 */
+	static void loadSnapshot(Resource resource, File file) throws IOException {
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		resource.load(new ByteArrayInputStream(bytes), SNAPSHOT_LOAD_OPTIONS);
+	}
+
+	private Resource loadSnapshot(File file, URI uri) {
+		Resource snapshotResource = resourceSet.createResource(uri);
+		try {
+			loadSnapshot(snapshotResource, file);
+			return snapshotResource;
+		} catch (IOException | RuntimeException e) {
+			// e.g. the model changed in a way the binary encoding cannot map,
+			// fall back to the XMI model if there is one
+			logger.error(e, "Unable to load model snapshot " + file); //$NON-NLS-1$
+			resourceSet.getResources().remove(snapshotResource);
+			return null;
+		}
 	}
 
 	/**
@@ -238,6 +367,10 @@ public class ResourceHandler implements IModelResourceHandler {
 		return workbenchData;
 	}
 
+	private File getWorkbenchSnapshotLocation() {
+		return new File(getBaseLocation(), "workbench.bin"); //$NON-NLS-1$
+	}
+
 	private File getBaseLocation() {
 		File baseLocation;
 		try {
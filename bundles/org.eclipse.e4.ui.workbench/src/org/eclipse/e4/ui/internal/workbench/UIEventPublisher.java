@@ -11,7 +11,10 @@
  *******************************************************************************/
 package org.eclipse.e4.ui.internal.workbench;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.core.services.events.IEventBroker;
@@ -24,6 +27,7 @@ import org.eclipse.e4.ui.workbench.UIEvents.EventTags;
 import org.eclipse.e4.ui.workbench.UIEvents.EventTypes;
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.util.EContentAdapter;
 import org.osgi.service.log.LogService;
@@ -35,17 +39,87 @@ public class UIEventPublisher extends EContentAdapter {
 
 	private IEclipseContext context;
 
+	private ModelElementIndex elementIndex;
+
+	/**
+	 * The topics of the model features, indexed by the EMF notification type.
+	 */
+	private final Map<Object, String[]> topics = new HashMap<>();
+
+	/**
+	 * An event queued during a batch.
+	 */
+	private static class PendingEvent {
+		final String topic;
+		Map<String, Object> argMap;
+
+		PendingEvent(String topic, Map<String, Object> argMap) {
+			this.topic = topic;
+			this.argMap = argMap;
+		}
+	}
+
+	private int batchDepth;
+	private Thread batchThread;
+	private final List<PendingEvent> pendingEvents = new ArrayList<>();
+	private final Map<List<Object>, PendingEvent> pendingSetEvents = new HashMap<>();
+
+	private long publishedEventCount;
+	private long coalescedEventCount;
+
 	/**
 	 * @param e4Context
 	 */
 	public UIEventPublisher(IEclipseContext e4Context) {
+		this(e4Context, false);
+	}
+
+	/**
+	 * @param e4Context
+	 * @param indexElements
+	 *            <code>true</code> to maintain an index of the model elements
+	 *            this adapter is attached to, used by the model service to
+	 *            speed up searches by element id, class and tag
+	 */
+	public UIEventPublisher(IEclipseContext e4Context, boolean indexElements) {
 		this.context = e4Context;
+		if (indexElements) {
+			elementIndex = new ModelElementIndex();
+		}
+	}
+
+	/**
+	 * @return the index of the model elements, or <code>null</code> if the
+	 *         elements are not indexed
+	 */
+	ModelElementIndex getElementIndex() {
+		return elementIndex;
+	}
+
+	@Override
+	protected void setTarget(EObject target) {
+		super.setTarget(target);
+		if (elementIndex != null && target instanceof MApplicationElement) {
+			elementIndex.add((MApplicationElement) target);
+		}
+	}
+
+	@Override
+	protected void unsetTarget(EObject target) {
+		super.unsetTarget(target);
+		if (elementIndex != null && target instanceof MApplicationElement) {
+			elementIndex.remove((MApplicationElement) target);
+		}
 	}
 
 	@Override
 	public void notifyChanged(Notification notification) {
 		super.notifyChanged(notification);
 
+		if (elementIndex != null) {
+			elementIndex.notifyChanged(notification);
+		}
+
 		// Ignore events that did not change the model value
 		if (notification.isTouch())
 			return;
@@ -56,11 +130,109 @@ public class UIEventPublisher extends EContentAdapter {
 		String topic = formatData(notification, argMap);
 
 		if (topic != null) {
-			IEventBroker eventManager = context.get(IEventBroker.class);
-			eventManager.send(topic, argMap);
+			if (batchDepth > 0 && batchThread == Thread.currentThread()) {
+				queueEvent(notification, topic, argMap);
+			} else {
+				publish(topic, argMap);
+			}
+		}
+	}
+
+	/**
+	 * Starts a batch of model changes. Until the matching {@link #endBatch()},
+	 * the events of the changes made by the calling thread are queued instead
+	 * of being sent. The <code>SET</code> events of the same feature of an
+	 * element are coalesced into one event carrying the first old value and the
+	 * last new value, queued in place of the last of them, and dropped if both
+	 * values are the same. The queued events are sent in order by the outermost
+	 * {@link #endBatch()}.
+	 * <p>
+	 * Batches are meant for bulk model operations whose intermediate states do
+	 * not need to be observed, e.g. merging model fragments. Calls must be
+	 * paired, typically in a <code>try/finally</code> block.
+	 * </p>
+	 */
+	public void beginBatch() {
+		if (batchDepth++ == 0) {
+			batchThread = Thread.currentThread();
 		}
 	}
 
+	/**
+	 * Ends a batch started with {@link #beginBatch()}, sending the queued
+	 * events if it is the outermost batch.
+	 */
+	public void endBatch() {
+		if (batchDepth == 0 || --batchDepth > 0) {
+			return;
+		}
+		batchThread = null;
+		List<PendingEvent> events = new ArrayList<>(pendingEvents);
+		pendingEvents.clear();
+		pendingSetEvents.clear();
+		for (PendingEvent event : events) {
+			if (event.argMap != null) {
+				publish(event.topic, event.argMap);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of events sent to the event broker
+	 */
+	public long getPublishedEventCount() {
+		return publishedEventCount;
+	}
+
+	/**
+	 * @return the number of events which were not sent because they were
+	 *         coalesced with another event of the same batch
+	 */
+	public long getCoalescedEventCount() {
+		return coalescedEventCount;
+	}
+
+	private void publish(String topic, Map<String, Object> argMap) {
+		IEventBroker eventManager = context.get(IEventBroker.class);
+		publishedEventCount++;
+		eventManager.send(topic, argMap);
+	}
+
+	private void queueEvent(Notification notification, String topic, Map<String, Object> argMap) {
+		if (notification.getEventType() != Notification.SET
+				|| !(notification.getNotifier() instanceof MApplicationElement)) {
+			pendingEvents.add(new PendingEvent(topic, argMap));
+			return;
+		}
+		List<Object> key = Arrays.asList(notification.getNotifier(), notification.getFeature());
+		PendingEvent pending = pendingSetEvents.get(key);
+		if (pending == null || pending.argMap == null) {
+			pending = new PendingEvent(topic, argMap);
+			pendingSetEvents.put(key, pending);
+			pendingEvents.add(pending);
+			return;
+		}
+		coalescedEventCount++;
+		Object oldValue = pending.argMap.get(EventTags.OLD_VALUE);
+		Object newValue = argMap.get(EventTags.NEW_VALUE);
+		// drop the earlier event, the merged one is sent after the events
+		// queued in between, since its new value may refer to them
+		pending.argMap = null;
+		if (oldValue == null ? newValue == null : oldValue.equals(newValue)) {
+			// the batch restored the initial value
+			coalescedEventCount++;
+			return;
+		}
+		if (oldValue != null) {
+			argMap.put(EventTags.OLD_VALUE, oldValue);
+		} else {
+			argMap.remove(EventTags.OLD_VALUE);
+		}
+		pending = new PendingEvent(topic, argMap);
+		pendingSetEvents.put(key, pending);
+		pendingEvents.add(pending);
+	}
+
 	/**
 	 * Large hack here. Open to better suggestions
 	 *
@@ -115,7 +287,7 @@ public class UIEventPublisher extends EContentAdapter {
 			appElement = (MApplicationElement) notifier;
 			feature = (EStructuralFeature) notification.getFeature();
 			attributeName = feature.getName();
-			topic = getTopic(feature, getEventType(notification));
+			topic = getTopic(feature, notification.getEventType());
 			switch (notification.getEventType()) {
 			case Notification.MOVE:
 				// for MOVE, oldValue is actually the source position
@@ -165,7 +337,7 @@ public class UIEventPublisher extends EContentAdapter {
 			}
 
 			attributeName = UIEvents.ApplicationElement.TRANSIENTDATA;
-			topic = getTopic(attributeName, getEventType(notification));
+			topic = getTopic(attributeName, notification.getEventType());
 
 			// We need to send MapEntries for the old and new values.
 			oldValue = createMapEntry(key, notification.getOldValue());
@@ -188,7 +360,7 @@ public class UIEventPublisher extends EContentAdapter {
 			}
 
 			attributeName = UIEvents.ApplicationElement.PERSISTEDSTATE;
-			topic = getTopic(attributeName, getEventType(notification));
+			topic = getTopic(attributeName, notification.getEventType());
 			oldValue = createMapEntry(key, notification.getOldValue());
 			newValue = createMapEntry(key, notification.getNewValue());
 		} else {
@@ -226,7 +398,11 @@ public class UIEventPublisher extends EContentAdapter {
 	}
 
 	private String getEventType(Notification notification) {
-		switch (notification.getEventType()) {
+		return getEventType(notification.getEventType());
+	}
+
+	private String getEventType(int eventType) {
+		switch (eventType) {
 		case Notification.ADD:
 			return EventTypes.ADD;
 
@@ -269,6 +445,35 @@ public class UIEventPublisher extends EContentAdapter {
 		};
 	}
 
+	/**
+	 * Returns the topic for the feature (an {@link EStructuralFeature} or the
+	 * name of a map attribute) and the EMF notification type, computing it
+	 * only once.
+	 */
+	private String getTopic(Object feature, int eventType) {
+		if (eventType < 0 || eventType >= Notification.EVENT_TYPE_COUNT) {
+			return computeTopic(feature, getEventType(eventType));
+		}
+		String[] featureTopics = topics.get(feature);
+		if (featureTopics == null) {
+			featureTopics = new String[Notification.EVENT_TYPE_COUNT];
+			topics.put(feature, featureTopics);
+		}
+		String topic = featureTopics[eventType];
+		if (topic == null) {
+			topic = computeTopic(feature, getEventType(eventType));
+			featureTopics[eventType] = topic;
+		}
+		return topic;
+	}
+
+	private String computeTopic(Object feature, String type) {
+		if (feature instanceof EStructuralFeature) {
+			return getTopic((EStructuralFeature) feature, type);
+		}
+		return getTopic((String) feature, type);
+	}
+
 	private String getTopic(EStructuralFeature eFeature, String type) {
 		EClass eContainingClass = eFeature.getEContainingClass();
 		return UIEvents.UIModelTopicBase + UIEvents.TOPIC_SEP
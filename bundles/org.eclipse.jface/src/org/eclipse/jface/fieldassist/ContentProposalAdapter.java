@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,8 @@
 package org.eclipse.jface.fieldassist;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.ListenerList;
@@ -19,9 +21,11 @@ import org.eclipse.jface.bindings.keys.KeyStroke;
 import org.eclipse.jface.dialogs.PopupDialog;
 import org.eclipse.jface.preference.JFacePreferences;
 import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.jface.util.Policy;
 import org.eclipse.jface.util.Util;
 import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.SWTException;
 import org.eclipse.swt.events.FocusAdapter;
 import org.eclipse.swt.events.FocusEvent;
 import org.eclipse.swt.events.SelectionEvent;
@@ -34,6 +38,7 @@ import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.ScrollBar;
@@ -883,6 +888,7 @@ public class ContentProposalAdapter {
 		 */
 		@Override
 		public boolean close() {
+			cancelProposalRequest();
 			popupCloser.removeListeners();
 			if (infoPopup != null) {
 				infoPopup.close();
@@ -958,6 +964,22 @@ public class ContentProposalAdapter {
 		 * caches. Repopulate the popup if it is open.
 		 */
 		private void recomputeProposals(String filterText) {
+			if (proposalProvider instanceof IAsyncContentProposalProvider) {
+				// Filter the proposals already computed if the user typed
+				// more characters, otherwise compute them again. The
+				// current proposals are shown until new ones arrive.
+				ProposalRequest request = proposalRequest;
+				IContentProposal[] refined = null;
+				if (request != null && !request.incomplete) {
+					refined = refineProposals(request);
+				}
+				if (refined != null) {
+					showComputedProposals(refined, request.isDone(), filterText);
+				} else {
+					requestProposals(true);
+				}
+				return;
+			}
 			IContentProposal[] allProposals = getProposals();
 			if (allProposals == null)
 				 allProposals = getEmptyProposalArray();
@@ -973,6 +995,20 @@ public class ContentProposalAdapter {
 			}
 		}
 
+		/*
+		 * Show proposals computed by an asynchronous proposal provider,
+		 * filtered by any provided filter text. If the computation is done and
+		 * there are no proposals, the popup is closed.
+		 */
+		private void showComputedProposals(IContentProposal[] allProposals, boolean done, String filterText) {
+			if (allProposals.length == 0 && done) {
+				proposals = allProposals;
+				close();
+			} else {
+				setProposals(filterProposals(allProposals, filterText));
+			}
+		}
+
 		/*
 		 * In an async block, request the proposals. This is used when clients
 		 * are in the middle of processing an event that affects the widget
@@ -1221,6 +1257,121 @@ public class ContentProposalAdapter {
 	 */
 	private boolean watchModify = false;
 
+	/*
+	 * The pending computation of proposals by an asynchronous proposal
+	 * provider, or the last one if it has completed.
+	 */
+	private ProposalRequest proposalRequest;
+
+	/*
+	 * The runnable that opens the popup when the autoactivation delay has
+	 * elapsed, if it is scheduled.
+	 */
+	private Runnable pendingAutoActivation;
+
+	/*
+	 * A computation of proposals by an asynchronous proposal provider. The
+	 * proposals are collected in a background thread, and shown in the UI
+	 * thread as they arrive.
+	 */
+	private final class ProposalRequest implements IContentProposalCollector {
+		final String contents;
+		final int position;
+		final boolean autoActivated;
+		volatile boolean incomplete;
+		private volatile boolean cancelled;
+		private final Display display;
+		private final List<IContentProposal> collected = new ArrayList<>();
+		// guarded by collected
+		private boolean done;
+		// guarded by collected
+		private boolean updatePending;
+
+		ProposalRequest(String contents, int position, boolean autoActivated) {
+			this.contents = contents;
+			this.position = position;
+			this.autoActivated = autoActivated;
+			this.display = control.getDisplay();
+		}
+
+		void start(IAsyncContentProposalProvider provider) {
+			// We do not use Jobs since this code must be able to run
+			// independently of the Eclipse runtime.
+			Thread thread = new Thread(() -> {
+				try {
+					provider.computeProposals(contents, position, this);
+				} catch (RuntimeException e) {
+					Policy.logException(e);
+				} finally {
+					synchronized (collected) {
+						done = true;
+					}
+					scheduleUpdate();
+				}
+			}, "Content proposal computation"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		@Override
+		public void addProposals(IContentProposal... proposals) {
+			synchronized (collected) {
+				Collections.addAll(collected, proposals);
+			}
+			scheduleUpdate();
+		}
+
+		@Override
+		public void setIncomplete() {
+			incomplete = true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		void cancel() {
+			cancelled = true;
+		}
+
+		boolean isDone() {
+			synchronized (collected) {
+				return done;
+			}
+		}
+
+		/*
+		 * Returns the proposals collected so far.
+		 */
+		IContentProposal[] getProposals() {
+			synchronized (collected) {
+				updatePending = false;
+				return collected.toArray(new IContentProposal[collected.size()]);
+			}
+		}
+
+		/*
+		 * Show the collected proposals in the UI thread, coalescing the
+		 * updates requested until then.
+		 */
+		private void scheduleUpdate() {
+			synchronized (collected) {
+				if (updatePending || cancelled) {
+					return;
+				}
+				updatePending = true;
+			}
+			if (!display.isDisposed()) {
+				try {
+					display.asyncExec(() -> proposalsComputed(this));
+				} catch (SWTException e) {
+					// the display was disposed concurrently
+				}
+			}
+		}
+	}
+
 	/**
 	 * Construct a content proposal adapter that can assist the user with
 	 * choosing content for the field.
@@ -1811,6 +1962,14 @@ public class ContentProposalAdapter {
 							}
 						}
 						break;
+
+					case SWT.FocusOut:
+						// the popup cancels the computation if it closes
+						// because of the focus change
+						if (popup == null) {
+							cancelProposalRequest();
+						}
+						break;
 				default:
 					break;
 				}
@@ -1844,6 +2003,7 @@ public class ContentProposalAdapter {
 		control.addListener(SWT.KeyDown, controlListener);
 		control.addListener(SWT.Traverse, controlListener);
 		control.addListener(SWT.Modify, controlListener);
+		control.addListener(SWT.FocusOut, controlListener);
 
 		if (DEBUG) {
 			System.out
@@ -1866,6 +2026,11 @@ public class ContentProposalAdapter {
 			if (popup == null) {
 				// Check whether there are any proposals to be shown.
 				recordCursorPosition(); // must be done before getting proposals
+				if (proposalProvider instanceof IAsyncContentProposalProvider) {
+					// The popup is opened when the first proposals arrive.
+					requestProposals(autoActivated);
+					return;
+				}
 				IContentProposal[] proposals = getProposals();
 				if (proposals == null)
 					return;
@@ -1906,6 +2071,8 @@ public class ContentProposalAdapter {
 	 * @since 3.3
 	 */
 	protected void closeProposalPopup() {
+		// a computation may be pending without a popup, which it would open
+		cancelProposalRequest();
 		if (popup != null) {
 			popup.close();
 		}
@@ -2028,19 +2195,20 @@ public class ContentProposalAdapter {
 	 */
 	private void autoActivate() {
 		if (autoActivationDelay > 0) {
-			Runnable runnable = () -> {
-				receivedKeyDown = false;
-				try {
-					Thread.sleep(autoActivationDelay);
-				} catch (InterruptedException e) {
-				}
-				if (!isValid() || receivedKeyDown) {
-					return;
+			// Restart the delay if an autoactivation is already pending, so
+			// that the popup opens when the user pauses typing.
+			Display display = getControl().getDisplay();
+			if (pendingAutoActivation != null) {
+				display.timerExec(-1, pendingAutoActivation);
+			}
+			receivedKeyDown = false;
+			pendingAutoActivation = () -> {
+				pendingAutoActivation = null;
+				if (isValid() && !receivedKeyDown) {
+					openProposalPopup(true);
 				}
-				getControl().getDisplay().syncExec(() -> openProposalPopup(true));
 			};
-			Thread t = new Thread(runnable);
-			t.start();
+			display.timerExec(autoActivationDelay, pendingAutoActivation);
 		} else {
 			// Since we do not sleep, we must open the popup
 			// in an async exec. This is necessary because
@@ -2056,6 +2224,118 @@ public class ContentProposalAdapter {
 		}
 	}
 
+	/*
+	 * Start computing the proposals with the asynchronous proposal provider,
+	 * cancelling any pending computation.
+	 */
+	private void requestProposals(boolean autoActivated) {
+		cancelProposalRequest();
+		if (!isValid()) {
+			return;
+		}
+		if (DEBUG) {
+			System.out.println(">>> requesting proposals from provider"); //$NON-NLS-1$
+		}
+		int position = insertionPos;
+		if (position == -1) {
+			position = getControlContentAdapter().getCursorPosition(getControl());
+		}
+		String contents = getControlContentAdapter().getControlContents(getControl());
+		proposalRequest = new ProposalRequest(contents, position, autoActivated);
+		proposalRequest.start((IAsyncContentProposalProvider) proposalProvider);
+	}
+
+	/*
+	 * Cancel the pending computation of proposals, if any.
+	 */
+	private void cancelProposalRequest() {
+		if (proposalRequest != null) {
+			proposalRequest.cancel();
+			proposalRequest = null;
+		}
+	}
+
+	/*
+	 * Proposals have been added by the asynchronous proposal provider, or the
+	 * computation has completed. Open the popup or update its proposals.
+	 */
+	private void proposalsComputed(ProposalRequest request) {
+		if (request != proposalRequest || request.isCancelled() || !isValid()) {
+			return;
+		}
+		IContentProposal[] proposals = refineProposals(request);
+		if (proposals == null) {
+			// The contents changed in a way that the proposals do not apply
+			// to anymore. The popup requests them again if it is open.
+			if (popup == null) {
+				cancelProposalRequest();
+			}
+			return;
+		}
+		if (popup != null) {
+			popup.showComputedProposals(proposals, request.isDone(), popup.filterText);
+		} else if (!getControl().isFocusControl()) {
+			// the control lost focus while the proposals were computed
+			cancelProposalRequest();
+		} else if (proposals.length > 0) {
+			if (DEBUG) {
+				System.out.println("POPUP OPENED BY COMPUTED PROPOSALS"); //$NON-NLS-1$
+			}
+			popup = new ContentProposalPopup(null, proposals);
+			popup.open();
+			popup.getShell().addDisposeListener(event -> popup = null);
+			internalPopupOpened();
+			notifyPopupOpened();
+		} else if (request.isDone() && !request.autoActivated) {
+			getControl().getDisplay().beep();
+		}
+	}
+
+	/*
+	 * Return the proposals collected by the given request, adapted to the
+	 * current contents of the control by the provider if the user typed more
+	 * characters since they were requested. Return null if the contents
+	 * changed otherwise.
+	 */
+	private IContentProposal[] refineProposals(ProposalRequest request) {
+		String contents = getControlContentAdapter().getControlContents(getControl());
+		int position = getControlContentAdapter().getCursorPosition(getControl());
+		String typedText = getTypedText(request.contents, request.position, contents, position);
+		if (typedText == null) {
+			return null;
+		}
+		IContentProposal[] proposals = request.getProposals();
+		if (typedText.length() == 0) {
+			return proposals;
+		}
+		IAsyncContentProposalProvider provider = (IAsyncContentProposalProvider) proposalProvider;
+		ArrayList<IContentProposal> list = new ArrayList<>();
+		for (IContentProposal proposal : proposals) {
+			IContentProposal refined = provider.refineProposal(proposal, typedText,
+					getProposalAcceptanceStyle());
+			if (refined != null) {
+				list.add(refined);
+			}
+		}
+		return list.toArray(new IContentProposal[list.size()]);
+	}
+
+	/*
+	 * Return the text inserted at the old position to obtain the new contents,
+	 * with the cursor after it, or null if the new contents were not obtained
+	 * that way.
+	 */
+	private static String getTypedText(String oldContents, int oldPosition, String contents, int position) {
+		int length = position - oldPosition;
+		if (length < 0 || oldPosition > oldContents.length()
+				|| contents.length() - oldContents.length() != length
+				|| !contents.startsWith(oldContents.substring(0, oldPosition))
+				|| !contents.endsWith(oldContents.substring(oldPosition))) {
+			return null;
+		}
+		return contents.substring(oldPosition, position);
+	}
+
 	/*
 	 * A proposal has been accepted. Notify interested listeners.
 	 */
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.fieldassist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * IAsyncContentProposalProvider computes content proposals in a background
+ * thread, so that the user interface remains responsive when computing them
+ * takes time. A {@link ContentProposalAdapter} shows the proposals as they are
+ * added to the collector, cancels the computation when its result is no longer
+ * needed, and filters the proposals already computed as the user types more
+ * characters instead of computing them again.
+ *
+ * @since 3.15
+ */
+public interface IAsyncContentProposalProvider extends IContentProposalProvider {
+
+	/**
+	 * Computes the content proposals for a field, and adds them to the given
+	 * collector. This method is called in a background thread, and must not
+	 * access the control of the field.
+	 *
+	 * @param contents
+	 *            the contents of the text field when the proposals were
+	 *            requested
+	 * @param position
+	 *            the position of the cursor in the contents
+	 * @param collector
+	 *            the collector to add the proposals to, and to check for
+	 *            cancellation
+	 */
+	void computeProposals(String contents, int position, IContentProposalCollector collector);
+
+	/**
+	 * Adapts a proposal computed for earlier contents of the field to the
+	 * current contents, which were obtained by typing the given text at the
+	 * position of the earlier request.
+	 * <p>
+	 * When the content of the proposals is inserted at the cursor position,
+	 * the default implementation keeps the proposals whose content starts with
+	 * the typed text, ignoring case, and removes the typed text from their
+	 * content. Otherwise the content of the proposals does not depend on the
+	 * cursor position, and the default implementation keeps the proposals
+	 * unchanged. Providers which can tell whether such proposals still apply
+	 * should override this method.
+	 * </p>
+	 *
+	 * @param proposal
+	 *            a proposal computed for the earlier contents
+	 * @param typedText
+	 *            the text typed since the proposals were computed
+	 * @param acceptanceStyle
+	 *            the way the content of an accepted proposal is applied to the
+	 *            field, one of {@link ContentProposalAdapter#PROPOSAL_INSERT},
+	 *            {@link ContentProposalAdapter#PROPOSAL_REPLACE} or
+	 *            {@link ContentProposalAdapter#PROPOSAL_IGNORE}
+	 * @return the proposal for the current contents, or <code>null</code> if
+	 *         the proposal no longer applies
+	 */
+	default IContentProposal refineProposal(IContentProposal proposal, String typedText, int acceptanceStyle) {
+		if (acceptanceStyle != ContentProposalAdapter.PROPOSAL_INSERT) {
+			return proposal;
+		}
+		String content = proposal.getContent();
+		int length = typedText.length();
+		if (!content.regionMatches(true, 0, typedText, 0, length)) {
+			return null;
+		}
+		String label = proposal.getLabel() == null ? content : proposal.getLabel();
+		return new ContentProposal(content.substring(length), label, proposal.getDescription(),
+				Math.max(0, proposal.getCursorPosition() - length));
+	}
+
+	/**
+	 * Returns the proposals computed synchronously. This default implementation
+	 * calls {@link #computeProposals(String, int, IContentProposalCollector)}
+	 * in the calling thread.
+	 */
+	@Override
+	default IContentProposal[] getProposals(String contents, int position) {
+		List<IContentProposal> proposals = Collections.synchronizedList(new ArrayList<>());
+		computeProposals(contents, position, new IContentProposalCollector() {
+			@Override
+			public void addProposals(IContentProposal... newProposals) {
+				Collections.addAll(proposals, newProposals);
+			}
+
+			@Override
+			public void setIncomplete() {
+				// all the proposals are returned anyway
+			}
+
+			@Override
+			public boolean isCancelled() {
+				return false;
+			}
+		});
+		return proposals.toArray(new IContentProposal[proposals.size()]);
+	}
+}
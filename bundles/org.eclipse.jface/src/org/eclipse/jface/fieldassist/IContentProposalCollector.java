@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.fieldassist;
+
+/**
+ * IContentProposalCollector receives the content proposals computed by an
+ * {@link IAsyncContentProposalProvider}. Its methods may be called from any
+ * thread.
+ *
+ * @since 3.15
+ *
+ * @see IAsyncContentProposalProvider
+ */
+public interface IContentProposalCollector {
+
+	/**
+	 * Adds proposals to the proposals computed so far. The proposals are shown
+	 * in the proposal popup without waiting for the computation to complete.
+	 *
+	 * @param proposals
+	 *            the proposals to add
+	 */
+	void addProposals(IContentProposal... proposals);
+
+	/**
+	 * Indicates that the proposals added to this collector are only a part of
+	 * the valid proposals for the field, for example because their number was
+	 * limited. They are then computed again as the user types, instead of being
+	 * filtered.
+	 */
+	void setIncomplete();
+
+	/**
+	 * Returns whether the proposals are no longer needed, because the contents
+	 * of the field changed or the proposal popup was closed. The provider
+	 * should then stop computing proposals as soon as possible.
+	 *
+	 * @return <code>true</code> if the computation has been cancelled
+	 */
+	boolean isCancelled();
+}
@@ -0,0 +1,572 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.util.Policy;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * (NON-API) A cache of the image data of the images loaded from bundles,
+ * persisted between sessions in a file which is memory-mapped when it is
+ * opened. The image data are stored undecoded, so that reading them does not
+ * access the bundle nor decode the image files.
+ * <p>
+ * Entries are keyed by zoom and by the symbolic name of the bundle and the
+ * path of the entry for bundle URLs, whose host changes between sessions, or
+ * by URL for local files. They are only used if the bundle providing the URL
+ * has the same version and modification time as when they were stored. Images
+ * which do not exist at some zoom are also cached. URLs which are not provided
+ * by a bundle or a local file are not cached.
+ * </p>
+ * <p>
+ * The entries which are not used in a session are kept until they have not
+ * been used for a maximum age, 30 days by default, as long as the file does
+ * not exceed its maximum size. The entries used in the session are kept first,
+ * then the most recently used ones, so that the images which are no longer
+ * used do not fill the cache.
+ * </p>
+ * <p>
+ * The cache is disabled unless {@link #open(File)} is called. This class is
+ * thread-safe.
+ * </p>
+ */
+public final class PersistentImageCache {
+
+	private static final int MAGIC = 0x4A464943; // JFIC
+
+	private static final int FORMAT_VERSION = 3;
+
+	/**
+	 * The maximum size of the cache file, new entries are not added when it is
+	 * reached.
+	 */
+	private static final long MAXIMUM_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * The default time after which the entries which have not been used are
+	 * dropped, in milliseconds.
+	 */
+	private static final long DEFAULT_MAXIMUM_AGE = 30L * 24 * 60 * 60 * 1000;
+
+	/**
+	 * The age after which the last use time of the used entries is updated,
+	 * in milliseconds. The file is not rewritten for more recent entries, so
+	 * that it is not rewritten in each session.
+	 */
+	private static final long LAST_USE_RESOLUTION = 24 * 60 * 60 * 1000;
+
+	private static volatile PersistentImageCache instance;
+
+	private static final class Entry {
+		final String version;
+		/**
+		 * The time the entry was last used in a session, in milliseconds.
+		 */
+		final long lastUse;
+		/**
+		 * The position of the image data in the mapped file.
+		 */
+		final int offset;
+		final int length;
+		/**
+		 * The image data added in this session, or <code>null</code>.
+		 */
+		final byte[] bytes;
+		/**
+		 * Whether the entry has been read or added in this session.
+		 */
+		boolean used;
+
+		Entry(String version, long lastUse, int offset, int length, byte[] bytes) {
+			this.version = version;
+			this.lastUse = lastUse;
+			this.offset = offset;
+			this.length = length;
+			this.bytes = bytes;
+		}
+	}
+
+	private final File file;
+
+	private final long maximumAge;
+
+	private final MappedByteBuffer buffer;
+
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+	/**
+	 * The bundles by URL host or bundle name.
+	 */
+	private final Map<String, Bundle> bundles = new HashMap<>();
+
+	/**
+	 * The size of the entries used in this session.
+	 */
+	private long size;
+
+	private boolean dirty;
+
+	private PersistentImageCache(File file, long maximumAge) {
+		this.file = file;
+		this.maximumAge = maximumAge;
+		MappedByteBuffer mapped = null;
+		File newFile = getNewFile(file);
+		if (newFile.exists()) {
+			// the previous session could not replace the mapped file
+			try {
+				Files.move(newFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				newFile.delete();
+			}
+		}
+		if (file.isFile()) {
+			try (RandomAccessFile raf = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+					FileChannel channel = raf.getChannel()) {
+				mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				readIndex(mapped);
+			} catch (IOException | RuntimeException e) {
+				// the cache is corrupted, it is rewritten on save
+				mapped = null;
+				entries.clear();
+				size = 0;
+				dirty = true;
+			}
+		}
+		buffer = mapped;
+	}
+
+	private void readIndex(ByteBuffer in) {
+		if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+			throw new IllegalStateException();
+		}
+		int count = in.getInt();
+		for (int i = 0; i < count; i++) {
+			String key = readString(in);
+			String version = readString(in);
+			long lastUse = in.getLong();
+			int length = in.getInt();
+			int offset = in.position();
+			if (length < 0 || length > in.remaining()) {
+				throw new BufferUnderflowException();
+			}
+			in.position(offset + length);
+			entries.put(key, new Entry(version, lastUse, offset, length, null));
+		}
+	}
+
+	private static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0 || length > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static File getNewFile(File file) {
+		return new File(file.getPath() + ".new"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Opens the cache stored in the given file, and enables it. Does nothing if
+	 * a cache is already open.
+	 *
+	 * @param file
+	 *            the cache file, which is created when the cache is first
+	 *            saved
+	 */
+	public static void open(File file) {
+		open(file, DEFAULT_MAXIMUM_AGE);
+	}
+
+	/**
+	 * Opens the cache stored in the given file, and enables it. Does nothing if
+	 * a cache is already open.
+	 *
+	 * @param file
+	 *            the cache file, which is created when the cache is first
+	 *            saved
+	 * @param maximumAge
+	 *            the time after which the entries which have not been used
+	 *            are dropped when the cache is saved, in milliseconds
+	 */
+	public static synchronized void open(File file, long maximumAge) {
+		if (instance == null) {
+			instance = new PersistentImageCache(file, maximumAge);
+		}
+	}
+
+	/**
+	 * Saves the open cache, and disables it.
+	 */
+	public static synchronized void close() {
+		PersistentImageCache cache = instance;
+		if (cache != null) {
+			instance = null;
+			cache.save();
+		}
+	}
+
+	/**
+	 * Returns the open cache.
+	 *
+	 * @return the cache, or <code>null</code> if it is not enabled
+	 */
+	public static PersistentImageCache getDefault() {
+		return instance;
+	}
+
+	/**
+	 * Returns the image data of the given URL at the given zoom from the
+	 * cache, or loads them with the given function and adds them to the cache.
+	 * Each call returns new image data.
+	 *
+	 * @param url
+	 *            the URL of the image at 100% zoom
+	 * @param zoom
+	 *            the zoom level in %
+	 * @param loader
+	 *            the function loading the image data at a zoom, returning
+	 *            <code>null</code> if the image does not exist at that zoom
+	 * @return the image data, or <code>null</code> if the image does not exist
+	 *         at that zoom
+	 */
+	public ImageData getImageData(URL url, int zoom, IntFunction<ImageData> loader) {
+		String key;
+		String version;
+		if ("file".equals(url.getProtocol())) { //$NON-NLS-1$
+			File imageFile = new File(url.getPath());
+			long modified = imageFile.lastModified();
+			key = url.toExternalForm();
+			version = modified == 0 ? null : modified + ":" + imageFile.length(); //$NON-NLS-1$
+		} else {
+			Bundle bundle = getBundle(url);
+			if (bundle == null) {
+				return loader.apply(zoom);
+			}
+			// the host of bundle entry URLs identifies the framework instance,
+			// the key uses the bundle symbolic name instead
+			key = ("bundleresource".equals(url.getProtocol()) ? "bundleresource:" : "bundleentry:") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ bundle.getSymbolicName() + getEntryPath(url);
+			version = bundle.getVersion() + ":" + bundle.getLastModified(); //$NON-NLS-1$
+		}
+		if (version == null) {
+			return loader.apply(zoom);
+		}
+		key = key + '@' + zoom;
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null && entry.version.equals(version)) {
+				if (!entry.used) {
+					entry.used = true;
+					size += getSize(key, entry);
+				}
+				ByteBuffer in;
+				if (entry.bytes != null) {
+					in = ByteBuffer.wrap(entry.bytes);
+				} else {
+					in = buffer.duplicate();
+					in.position(entry.offset);
+					in.limit(entry.offset + entry.length);
+				}
+				try {
+					return readImageData(in);
+				} catch (RuntimeException e) {
+					// fall through and load the image again
+				}
+			}
+		}
+		ImageData data = loader.apply(zoom);
+		byte[] bytes;
+		try {
+			bytes = writeImageData(data);
+		} catch (IOException e) {
+			return data;
+		}
+		synchronized (this) {
+			Entry entry = new Entry(version, System.currentTimeMillis(), 0, bytes.length, bytes);
+			Entry previous = entries.remove(key);
+			if (previous != null && previous.used) {
+				size -= getSize(key, previous);
+			}
+			if (size + getSize(key, entry) <= MAXIMUM_SIZE) {
+				entry.used = true;
+				entries.put(key, entry);
+				size += getSize(key, entry);
+			}
+			dirty = true;
+		}
+		return data;
+	}
+
+	private static long getSize(String key, Entry entry) {
+		// the lengths of the key, version and image data are stored as ints,
+		// the last use time as a long
+		return 20 + key.length() + entry.version.length() + entry.length;
+	}
+
+	/**
+	 * Returns the path of the entry of the given bundle URL.
+	 */
+	private static String getEntryPath(URL url) {
+		String path = url.getPath();
+		if ("platform".equals(url.getProtocol())) { //$NON-NLS-1$
+			// platform:/plugin/<symbolic name>/<path>
+			int end = path.indexOf('/', 8);
+			return end == -1 ? "" : path.substring(end); //$NON-NLS-1$
+		}
+		return path;
+	}
+
+	/**
+	 * Returns the bundle providing the given URL, or <code>null</code> if it
+	 * is not a bundle URL or its bundle cannot be found.
+	 */
+	private Bundle getBundle(URL url) {
+		if (!InternalPolicy.OSGI_AVAILABLE) {
+			return null;
+		}
+		String protocol = url.getProtocol();
+		String bundleKey;
+		if ("bundleentry".equals(protocol) || "bundleresource".equals(protocol)) { //$NON-NLS-1$ //$NON-NLS-2$
+			bundleKey = url.getHost();
+		} else if ("platform".equals(protocol) && url.getPath().startsWith("/plugin/")) { //$NON-NLS-1$ //$NON-NLS-2$
+			String path = url.getPath();
+			int end = path.indexOf('/', 8);
+			bundleKey = end == -1 ? path.substring(8) : path.substring(8, end);
+		} else {
+			return null;
+		}
+		synchronized (bundles) {
+			Bundle bundle = bundles.get(bundleKey);
+			if (bundle == null) {
+				bundle = findBundle(protocol, bundleKey);
+				if (bundle == null || bundle.getSymbolicName() == null) {
+					return null;
+				}
+				bundles.put(bundleKey, bundle);
+			}
+			return bundle;
+		}
+	}
+
+	private static Bundle findBundle(String protocol, String bundleKey) {
+		Bundle jface = FrameworkUtil.getBundle(PersistentImageCache.class);
+		BundleContext context = jface == null ? null : jface.getBundleContext();
+		if (context == null) {
+			return null;
+		}
+		if ("platform".equals(protocol)) { //$NON-NLS-1$
+			for (Bundle bundle : context.getBundles()) {
+				if (bundleKey.equals(bundle.getSymbolicName())) {
+					return bundle;
+				}
+			}
+			return null;
+		}
+		// the host of bundle entry URLs is "<bundle id>.fwk<framework hash code>"
+		int dot = bundleKey.indexOf('.');
+		try {
+			return context.getBundle(Long.parseLong(dot == -1 ? bundleKey : bundleKey.substring(0, dot)));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static byte[] writeImageData(ImageData data) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeBoolean(data != null);
+			if (data == null) {
+				return bytes.toByteArray();
+			}
+			out.writeInt(data.width);
+			out.writeInt(data.height);
+			out.writeInt(data.depth);
+			out.writeInt(data.scanlinePad);
+			out.writeInt(data.transparentPixel);
+			out.writeInt(data.maskPad);
+			out.writeInt(data.alpha);
+			out.writeInt(data.type);
+			PaletteData palette = data.palette;
+			out.writeBoolean(palette.isDirect);
+			if (palette.isDirect) {
+				out.writeInt(palette.redMask);
+				out.writeInt(palette.greenMask);
+				out.writeInt(palette.blueMask);
+			} else {
+				out.writeInt(palette.colors.length);
+				for (RGB color : palette.colors) {
+					out.writeByte(color.red);
+					out.writeByte(color.green);
+					out.writeByte(color.blue);
+				}
+			}
+			writeBytes(out, data.data);
+			writeBytes(out, data.maskData);
+			writeBytes(out, data.alphaData);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		if (bytes == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static ImageData readImageData(ByteBuffer in) {
+		if (in.get() == 0) {
+			return null;
+		}
+		int width = in.getInt();
+		int height = in.getInt();
+		int depth = in.getInt();
+		int scanlinePad = in.getInt();
+		int transparentPixel = in.getInt();
+		int maskPad = in.getInt();
+		int alpha = in.getInt();
+		int type = in.getInt();
+		PaletteData palette;
+		if (in.get() != 0) {
+			palette = new PaletteData(in.getInt(), in.getInt(), in.getInt());
+		} else {
+			RGB[] colors = new RGB[in.getInt()];
+			for (int i = 0; i < colors.length; i++) {
+				colors[i] = new RGB(in.get() & 0xFF, in.get() & 0xFF, in.get() & 0xFF);
+			}
+			palette = new PaletteData(colors);
+		}
+		ImageData data = new ImageData(width, height, depth, palette, scanlinePad, readBytes(in));
+		data.transparentPixel = transparentPixel;
+		data.maskPad = maskPad;
+		data.maskData = readBytes(in);
+		data.alpha = alpha;
+		data.alphaData = readBytes(in);
+		data.type = type;
+		return data;
+	}
+
+	private static byte[] readBytes(ByteBuffer in) {
+		int length = in.getInt();
+		if (length == -1) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Writes the entries used in this session and the unused entries which
+	 * are not too old, within the maximum size, to a new file which replaces
+	 * the mapped one, or which replaces it when the cache is next opened if the
+	 * mapped file cannot be replaced now.
+	 */
+	private synchronized void save() {
+		long now = System.currentTimeMillis();
+		boolean changed = dirty;
+		long savedSize = 0;
+		List<Map.Entry<String, Entry>> saved = new ArrayList<>();
+		List<Map.Entry<String, Entry>> unused = new ArrayList<>();
+		for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+			Entry entry = mapEntry.getValue();
+			if (entry.used) {
+				saved.add(mapEntry);
+				savedSize += getSize(mapEntry.getKey(), entry);
+				changed |= now - entry.lastUse >= LAST_USE_RESOLUTION;
+			} else if (now - entry.lastUse < maximumAge) {
+				unused.add(mapEntry);
+			}
+		}
+		unused.sort((a, b) -> Long.compare(b.getValue().lastUse, a.getValue().lastUse));
+		for (Map.Entry<String, Entry> mapEntry : unused) {
+			long entrySize = getSize(mapEntry.getKey(), mapEntry.getValue());
+			if (savedSize + entrySize <= MAXIMUM_SIZE) {
+				saved.add(mapEntry);
+				savedSize += entrySize;
+			}
+		}
+		if (!changed && saved.size() == entries.size()) {
+			return;
+		}
+		File newFile = getNewFile(file);
+		try {
+			File parent = newFile.getParentFile();
+			if (parent != null) {
+				parent.mkdirs();
+			}
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(newFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(saved.size());
+				for (Map.Entry<String, Entry> mapEntry : saved) {
+					Entry entry = mapEntry.getValue();
+					writeBytes(out, mapEntry.getKey().getBytes(StandardCharsets.UTF_8));
+					writeBytes(out, entry.version.getBytes(StandardCharsets.UTF_8));
+					out.writeLong(entry.used ? now : entry.lastUse);
+					byte[] bytes = entry.bytes;
+					if (bytes == null) {
+						bytes = new byte[entry.length];
+						ByteBuffer in = buffer.duplicate();
+						in.position(entry.offset);
+						in.get(bytes);
+					}
+					writeBytes(out, bytes);
+				}
+			}
+		} catch (IOException e) {
+			newFile.delete();
+			Policy.getLog().log(new Status(IStatus.WARNING, Policy.JFACE, "Could not save the image cache", e)); //$NON-NLS-1$
+			return;
+		}
+		try {
+			Files.move(newFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			// the mapped file is locked, it is replaced on the next open
+		}
+		dirty = false;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,12 @@ import org.eclipse.swt.graphics.Image;
  */
 public final class DeviceResourceManager extends AbstractResourceManager {
 
+    /**
+     * The image data of URL and file image descriptors, shared by the managers
+     * of all devices.
+     */
+    static final ImageDataCache IMAGE_DATA_CACHE = new ImageDataCache(4 * 1024 * 1024);
+
     private Device device;
     private Image missingImage;
 
@@ -49,6 +55,12 @@ public final class DeviceResourceManager extends AbstractResourceManager {
 
     @Override
 	protected Object allocate(DeviceResourceDescriptor descriptor) throws DeviceResourceException {
+        if (ImageDataCache.isCacheable(descriptor)) {
+            Image image = IMAGE_DATA_CACHE.createImage(device, (ImageDescriptor) descriptor);
+            if (image != null) {
+                return image;
+            }
+        }
         return descriptor.createResource(device);
     }
 
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.resource;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.graphics.Device;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageDataProvider;
+
+/**
+ * A least recently used cache of the image data decoded from the images of
+ * URL and file image descriptors, bounded by the size of the data. It allows
+ * images to be recreated without reading and decoding their resources again,
+ * and their image data to be decoded in advance by worker threads.
+ * <p>
+ * The cached image data are shared and must not be modified; they are only
+ * given to SWT to create images. This class is thread-safe.
+ * </p>
+ */
+final class ImageDataCache {
+
+	/**
+	 * The size accounted for an image which does not exist at some zoom.
+	 */
+	private static final int MISSING_SIZE = 64;
+
+	private static final Object MISSING = new Object();
+
+	private static final class Key {
+		final ImageDescriptor descriptor;
+		final int zoom;
+
+		Key(ImageDescriptor descriptor, int zoom) {
+			this.descriptor = descriptor;
+			this.zoom = zoom;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return zoom == other.zoom && descriptor.equals(other.descriptor);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * descriptor.hashCode() + zoom;
+		}
+	}
+
+	private static Executor executor;
+
+	private final long maximumSize;
+
+	private long size;
+
+	/**
+	 * The image data by key, or <code>MISSING</code>, in access order.
+	 */
+	private final LinkedHashMap<Key, Object> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+	/**
+	 * The zooms at which images have been requested, so that the image data of
+	 * all of them are decoded in advance.
+	 */
+	private final Set<Integer> zooms = new CopyOnWriteArraySet<>();
+
+	/**
+	 * Creates a cache of the given size.
+	 *
+	 * @param maximumSize
+	 *            the maximum number of bytes of image data in the cache
+	 */
+	ImageDataCache(long maximumSize) {
+		this.maximumSize = maximumSize;
+		zooms.add(Integer.valueOf(100));
+	}
+
+	/**
+	 * Returns whether the image data of the given descriptor can be cached:
+	 * the descriptor loads them from an immutable resource.
+	 *
+	 * @param descriptor
+	 *            the image descriptor
+	 * @return <code>true</code> if the image data can be cached
+	 */
+	static boolean isCacheable(DeviceResourceDescriptor descriptor) {
+		return descriptor instanceof URLImageDescriptor || descriptor instanceof FileImageDescriptor;
+	}
+
+	/**
+	 * Returns the number of bytes used by the given image data.
+	 *
+	 * @param data
+	 *            the image data
+	 * @return the size of the image data
+	 */
+	static long sizeOf(ImageData data) {
+		long result = MISSING_SIZE + data.data.length;
+		if (data.alphaData != null) {
+			result += data.alphaData.length;
+		}
+		if (data.maskData != null) {
+			result += data.maskData.length;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the image data of the given descriptor at the given zoom,
+	 * loading them if they are not in the cache.
+	 *
+	 * @param descriptor
+	 *            a cacheable image descriptor
+	 * @param zoom
+	 *            the zoom level in %
+	 * @return the image data, or <code>null</code> if the image does not exist
+	 *         at that zoom
+	 */
+	ImageData getImageData(ImageDescriptor descriptor, int zoom) {
+		Key key = new Key(descriptor, zoom);
+		synchronized (this) {
+			Object value = entries.get(key);
+			if (value != null) {
+				return value == MISSING ? null : (ImageData) value;
+			}
+		}
+		// decode outside of the lock, other threads may decode other images
+		ImageData data;
+		try {
+			data = descriptor.getImageData(zoom);
+		} catch (SWTException e) {
+			data = null;
+		}
+		put(key, data);
+		return data;
+	}
+
+	private synchronized void put(Key key, ImageData data) {
+		Object previous = entries.put(key, data == null ? MISSING : data);
+		if (previous != null) {
+			size -= sizeOf(previous);
+		}
+		size += sizeOf(data == null ? MISSING : data);
+		// evict the least recently used image data, but keep the one just added
+		for (Iterator<Object> it = entries.values().iterator(); size > maximumSize && entries.size() > 1;) {
+			size -= sizeOf(it.next());
+			it.remove();
+		}
+	}
+
+	private static long sizeOf(Object value) {
+		return value == MISSING ? MISSING_SIZE : sizeOf((ImageData) value);
+	}
+
+	/**
+	 * Creates an image of the given descriptor from the cached image data.
+	 *
+	 * @param device
+	 *            the device on which to create the image
+	 * @param descriptor
+	 *            a cacheable image descriptor
+	 * @return the image, or <code>null</code> if it cannot be created from the
+	 *         image data, in which case the descriptor should create it
+	 */
+	Image createImage(Device device, ImageDescriptor descriptor) {
+		ImageData data = getImageData(descriptor, 100);
+		if (data == null) {
+			return null;
+		}
+		ImageDataProvider provider = zoom -> {
+			if (zoom == 100) {
+				return data;
+			}
+			zooms.add(Integer.valueOf(zoom));
+			return getImageData(descriptor, zoom);
+		};
+		try {
+			return new Image(device, provider);
+		} catch (IllegalArgumentException | SWTException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Decodes the image data of the given descriptor in a worker thread, at
+	 * all the zooms at which images have been requested so far.
+	 *
+	 * @param descriptor
+	 *            a cacheable image descriptor
+	 * @return a future completed when the image data are in the cache
+	 */
+	CompletableFuture<Void> loadAsync(ImageDescriptor descriptor) {
+		return CompletableFuture.runAsync(() -> {
+			for (Integer zoom : zooms) {
+				getImageData(descriptor, zoom.intValue());
+			}
+		}, getExecutor());
+	}
+
+	/**
+	 * Returns whether the image data of the given descriptor at all requested
+	 * zooms are in the cache.
+	 *
+	 * @param descriptor
+	 *            a cacheable image descriptor
+	 * @return <code>true</code> if creating the image will not decode image
+	 *         data
+	 */
+	synchronized boolean isLoaded(ImageDescriptor descriptor) {
+		for (Integer zoom : zooms) {
+			if (!entries.containsKey(new Key(descriptor, zoom.intValue()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static synchronized Executor getExecutor() {
+		if (executor == null) {
+			int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 5, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), runnable -> {
+						Thread thread = new Thread(runnable, "JFace image decoder"); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					});
+			pool.allowCoreThreadTimeOut(true);
+			executor = pool;
+		}
+		return executor;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ImageDataCache(" + entries.size() + " entries, " + size + " bytes)"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
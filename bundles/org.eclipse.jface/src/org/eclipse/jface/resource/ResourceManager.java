@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.jface.resource;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IStatus;
@@ -23,6 +24,7 @@ import org.eclipse.swt.graphics.Device;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.widgets.Display;
 
 /**
  * This class manages SWT resources. It manages reference-counted instances of resources
@@ -205,6 +207,74 @@ public abstract class ResourceManager {
 		}
     }
 
+    /**
+     * Creates an image, given an image descriptor, without blocking the caller
+     * while the image is read and decoded. If the image is already allocated or
+     * its data are already decoded, it is created and returned immediately like
+     * {@link #createImage(ImageDescriptor)} does. Otherwise the given
+     * placeholder is returned, the image data are decoded in a background
+     * thread, and the image is created and passed to the given consumer in the
+     * user interface thread once they are available.
+     * <p>
+     * The image passed to the consumer must be disposed by
+     * {@link #destroyImage(ImageDescriptor)}, as if it had been created by
+     * {@link #createImage(ImageDescriptor)}. The consumer is not called if this
+     * manager is disposed before the image is available, or if the image
+     * cannot be created. The placeholder is not managed by this manager.
+     * </p>
+     *
+     * @param descriptor
+     *            descriptor for the image to create
+     * @param placeholder
+     *            the image to return while the image is loaded, may be
+     *            <code>null</code>
+     * @param onLoaded
+     *            the consumer to call with the image once it is loaded
+     * @return the Image described by this descriptor if it could be created
+     *         immediately, or the placeholder
+     * @throws DeviceResourceException
+     *             if unable to allocate the Image immediately
+     * @since 3.15
+     */
+    public final Image createImageAsync(ImageDescriptor descriptor, Image placeholder, Consumer<Image> onLoaded) {
+        Assert.isNotNull(descriptor);
+        Assert.isNotNull(onLoaded);
+
+        ImageDataCache cache = DeviceResourceManager.IMAGE_DATA_CACHE;
+        if (!(getDevice() instanceof Display) || !ImageDataCache.isCacheable(descriptor)
+                || find(descriptor) != null || cache.isLoaded(descriptor)) {
+            return createImage(descriptor);
+        }
+
+        Display display = (Display) getDevice();
+        boolean[] disposed = new boolean[1];
+        Runnable disposeListener = () -> disposed[0] = true;
+        disposeExec(disposeListener);
+        cache.loadAsync(descriptor).whenComplete((result, exception) -> {
+            if (display.isDisposed()) {
+                return;
+            }
+            display.asyncExec(() -> {
+                if (disposed[0]) {
+                    return;
+                }
+                cancelDisposeExec(disposeListener);
+                Image image;
+                try {
+                    image = (Image) create(descriptor);
+                } catch (DeviceResourceException | SWTException e) {
+                    Policy.getLog().log(
+                            new Status(IStatus.WARNING, "org.eclipse.jface", 0, //$NON-NLS-1$
+                                    "The image could not be loaded: " + descriptor, //$NON-NLS-1$
+                                    e));
+                    return;
+                }
+                onLoaded.accept(image);
+            });
+        });
+        return placeholder;
+    }
+
     /**
      * Returns the default image that will be returned in the event that the intended
      * image is missing.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,6 +22,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.internal.InternalPolicy;
+import org.eclipse.jface.internal.PersistentImageCache;
 import org.eclipse.jface.util.Policy;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.SWTException;
@@ -68,11 +69,20 @@ class URLImageDescriptor extends ImageDescriptor {
 		@Override
 		public ImageData getImageData(int zoom) {
 			URL tempURL = getURL(url);
-			if (tempURL != null) {
-				URL xUrl = getxURL(tempURL, zoom);
-				if (xUrl != null) {
-					return URLImageDescriptor.getImageData(xUrl);
-				}
+			if (tempURL == null) {
+				return null;
+			}
+			PersistentImageCache cache = PersistentImageCache.getDefault();
+			if (cache != null) {
+				return cache.getImageData(tempURL, zoom, z -> loadImageData(tempURL, z));
+			}
+			return loadImageData(tempURL, zoom);
+		}
+
+		private static ImageData loadImageData(URL tempURL, int zoom) {
+			URL xUrl = getxURL(tempURL, zoom);
+			if (xUrl != null) {
+				return URLImageDescriptor.getImageData(xUrl);
 			}
 			return null;
 		}
@@ -256,7 +266,9 @@ class URLImageDescriptor extends ImageDescriptor {
 		try {
 
 			if (InternalPolicy.DEBUG_LOAD_URL_IMAGE_DESCRIPTOR_2x) {
-				if (!InternalPolicy.DEBUG_LOAD_URL_IMAGE_DESCRIPTOR_DIRECTLY) {
+				// the persistent cache provides image data, not file names
+				if (!InternalPolicy.DEBUG_LOAD_URL_IMAGE_DESCRIPTOR_DIRECTLY
+						&& PersistentImageCache.getDefault() == null) {
 					try {
 						return new Image(device, new URLImageFileNameProvider(url));
 					} catch (SWTException exception) {
@@ -286,7 +298,8 @@ class URLImageDescriptor extends ImageDescriptor {
 				return image;
 
 			}
-			if (InternalPolicy.DEBUG_LOAD_URL_IMAGE_DESCRIPTOR_DIRECTLY) {
+			if (InternalPolicy.DEBUG_LOAD_URL_IMAGE_DESCRIPTOR_DIRECTLY
+					|| PersistentImageCache.getDefault() != null) {
 				return super.createImage(returnMissingImageOnError, device);
 			}
 
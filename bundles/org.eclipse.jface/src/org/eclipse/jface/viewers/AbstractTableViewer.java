@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,8 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.IntStream;
+
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.DisposeEvent;
@@ -48,6 +50,15 @@ public abstract class AbstractTableViewer extends ColumnViewer {
 		 */
 		private Object[] cachedElements = new Object[0];
 
+		/**
+		 * The elements of the page being resolved through an
+		 * ILazyContentProvider, from the index <code>pageStart</code>, or
+		 * <code>null</code> if no page is being resolved.
+		 */
+		private Object[] pageElements;
+
+		private int pageStart;
+
 		/**
 		 * Create a new instance of the receiver.
 		 *
@@ -70,6 +81,10 @@ public abstract class AbstractTableViewer extends ColumnViewer {
 					return;
 				}
 
+				if (parallelLabels && !isBusy() && updatePage(index)) {
+					return;
+				}
+
 				Object element = resolveElement(index);
 				if (element == null) {
 					// Didn't find it so make a request
@@ -100,6 +115,99 @@ public abstract class AbstractTableViewer extends ColumnViewer {
 			});
 		}
 
+		/**
+		 * Updates the items of the page containing the given index which have
+		 * not been updated yet. The labels of their elements are computed in
+		 * parallel, and then applied to the items.
+		 *
+		 * @param index
+		 *            the index of the item to update
+		 * @return <code>false</code> if the labels cannot be computed in
+		 *         parallel, in which case nothing has been done
+		 */
+		private boolean updatePage(int index) {
+			ColumnLabelProvider[] labelProviders = getThreadSafeLabelProviders();
+			if (labelProviders == null) {
+				return false;
+			}
+			IContentProvider contentProvider = getContentProvider();
+			boolean lazy = contentProvider instanceof ILazyContentProvider;
+			if (!lazy && resolveElement(index) == null) {
+				return false;
+			}
+
+			int itemCount = doGetItemCount();
+			int pageSize = Math.min(Math.max(getPageSize(), 1), itemCount);
+			int start = Math.max(0, Math.min(getPageStart(index, pageSize), itemCount - pageSize));
+			// the page must contain the requested item
+			start = Math.min(Math.max(start, index - pageSize + 1), index);
+			int end = start + pageSize;
+			Object[] elements = new Object[end - start];
+			if (lazy) {
+				// the elements are collected by replace(Object, int)
+				pageElements = elements;
+				pageStart = start;
+				try {
+					for (int i = start; i < end; i++) {
+						if (i == index || doGetItem(i).getData() == null) {
+							((ILazyContentProvider) contentProvider).updateElement(i);
+						}
+					}
+				} finally {
+					pageElements = null;
+				}
+			} else {
+				for (int i = start; i < end; i++) {
+					if (i == index || doGetItem(i).getData() == null) {
+						elements[i - start] = resolveElement(i);
+					}
+				}
+			}
+
+			// only the items which have not been updated yet are computed
+			int[] indices = IntStream.range(0, elements.length).filter(i -> elements[i] != null).toArray();
+			ColumnLabelProvider.Values[][] values = new ColumnLabelProvider.Values[elements.length][];
+			IntStream.of(indices).parallel().forEach(i -> {
+				ColumnLabelProvider.Values[] row = new ColumnLabelProvider.Values[labelProviders.length];
+				for (int column = 0; column < labelProviders.length; column++) {
+					row[column] = labelProviders[column].computeValues(elements[i]);
+				}
+				values[i] = row;
+			});
+
+			for (int i = 0; i < elements.length; i++) {
+				if (values[i] != null) {
+					Item item = doGetItem(start + i);
+					precomputedElement = elements[i];
+					precomputedValues = values[i];
+					try {
+						associate(elements[i], item);
+						updateItem(item, elements[i]);
+					} finally {
+						precomputedElement = null;
+						precomputedValues = null;
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Collects the element replaced at the given index if a page is being
+		 * resolved.
+		 *
+		 * @param element
+		 * @param index
+		 * @return <code>true</code> if the element has been collected
+		 */
+		boolean collectPageElement(Object element, int index) {
+			if (pageElements == null || index < pageStart || index >= pageStart + pageElements.length) {
+				return false;
+			}
+			pageElements[index - pageStart] = element;
+			return true;
+		}
+
 		/**
 		 * Get the element at index.Resolve it lazily if this is available.
 		 *
@@ -212,6 +320,20 @@ public abstract class AbstractTableViewer extends ColumnViewer {
 
 	private VirtualManager virtualManager;
 
+	/**
+	 * Whether the labels of a virtual table are computed a page at a time in
+	 * parallel.
+	 */
+	private boolean parallelLabels;
+
+	/**
+	 * The values of the columns computed ahead for the element being updated,
+	 * or <code>null</code>.
+	 */
+	private ColumnLabelProvider.Values[] precomputedValues;
+
+	private Object precomputedElement;
+
 	/**
 	 * Create the new viewer for table like widgets
 	 */
@@ -388,7 +510,11 @@ public abstract class AbstractTableViewer extends ColumnViewer {
 						cellToUpdate = new ViewerCell(cellToUpdate.getViewerRow(), cellToUpdate.getColumnIndex(), element);
 					}
 
-					columnViewer.refresh(cellToUpdate);
+					if (precomputedValues != null && element == precomputedElement) {
+						precomputedValues[column].apply(cellToUpdate);
+					} else {
+						columnViewer.refresh(cellToUpdate);
+					}
 
 					// clear cell (see bug 201280)
 					updateCell(null, 0, null);
@@ -662,6 +788,9 @@ public abstract class AbstractTableViewer extends ColumnViewer {
 		// the associate of b to item 0.
 
 		Object[] children = getSortedChildren(getRoot());
+		if (usingIncrementalRefresh() && internalIncrementalRefreshAll(children, updateLabels)) {
+			return;
+		}
 		Item[] items = doGetItems();
 		int min = Math.min(children.length, items.length);
 		for (int i = 0; i < min; ++i) {
@@ -721,6 +850,117 @@ public abstract class AbstractTableViewer extends ColumnViewer {
 		}
 	}
 
+	/**
+	 * Reconciles the items of the table with the given elements. The items
+	 * whose elements are still present in the same relative order are kept,
+	 * the other items are removed, and items are created for the remaining
+	 * elements. The labels of kept items are only updated if their element is
+	 * not the same instance as before.
+	 *
+	 * @param children
+	 *            the sorted and filtered elements of the table
+	 * @param updateLabels
+	 *            <code>true</code> to update the labels of kept items whose
+	 *            element has been replaced by an equal one
+	 * @return <code>false</code> if the elements could not be reconciled
+	 *         because they contain duplicates, in which case the table is
+	 *         unchanged
+	 */
+	private boolean internalIncrementalRefreshAll(Object[] children, boolean updateLabels) {
+		CustomHashtable newIndices = newHashtable(children.length * 2 + 1);
+		for (int i = 0; i < children.length; i++) {
+			if (newIndices.put(children[i], Integer.valueOf(i)) != null) {
+				return false;
+			}
+		}
+
+		// the index of the element of each item in the new elements, or -1
+		Item[] items = doGetItems();
+		int[] indices = new int[items.length];
+		for (int i = 0; i < items.length; i++) {
+			Object data = items[i].getData();
+			Integer index = data == null ? null : (Integer) newIndices.get(data);
+			indices[i] = index == null ? -1 : index.intValue();
+		}
+
+		// keep the largest set of items which are already in order, and
+		// remove the others
+		boolean[] keep = longestIncreasingSubsequence(indices);
+		int[] removed = new int[items.length];
+		int removedCount = 0;
+		for (int i = 0; i < items.length; i++) {
+			if (!keep[i]) {
+				disassociate(items[i]);
+				removed[removedCount++] = i;
+			}
+		}
+		if (removedCount > 0) {
+			doRemove(Arrays.copyOf(removed, removedCount));
+		}
+
+		int kept = 0;
+		for (int i = 0; i < children.length; i++) {
+			while (kept < items.length && !keep[kept]) {
+				kept++;
+			}
+			if (kept < items.length && indices[kept] == i) {
+				Item item = items[kept++];
+				if (item.getData() != children[i]) {
+					if (updateLabels) {
+						updateItem(item, children[i]);
+					} else {
+						associate(children[i], item);
+					}
+				}
+			} else {
+				createItem(children[i], i);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns which of the given indices form a longest strictly increasing
+	 * subsequence, ignoring negative indices.
+	 *
+	 * @param indices
+	 *            the indices
+	 * @return for each index, whether it belongs to the subsequence
+	 */
+	private static boolean[] longestIncreasingSubsequence(int[] indices) {
+		// tails[k] is the position of the smallest last index of an
+		// increasing subsequence of length k + 1
+		int[] tails = new int[indices.length];
+		int[] previous = new int[indices.length];
+		int length = 0;
+		for (int i = 0; i < indices.length; i++) {
+			int index = indices[i];
+			if (index < 0) {
+				continue;
+			}
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (indices[tails[middle]] < index) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			previous[i] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = i;
+			if (low == length) {
+				length++;
+			}
+		}
+		boolean[] result = new boolean[indices.length];
+		for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+			result[i] = true;
+		}
+		return result;
+	}
+
 	/**
 	 * Removes the given elements from this table viewer.
 	 *
@@ -1005,12 +1245,87 @@ public abstract class AbstractTableViewer extends ColumnViewer {
 	 * @since 3.1
 	 */
 	public void replace(Object element, int index) {
+		if (virtualManager != null && virtualManager.collectPageElement(element, index)) {
+			return;
+		}
 		if (checkBusy())
 			return;
 		Item item = doGetItem(index);
 		refreshItem(item, element);
 	}
 
+	/**
+	 * Configures whether the labels of a virtual table are computed in
+	 * parallel. When enabled and the label providers of all columns are
+	 * {@link ColumnLabelProvider#isThreadSafe() thread-safe}, the first request
+	 * for an item of the table resolves the elements of the page of visible
+	 * items containing that item, computes the labels of all their columns in
+	 * parallel on the common fork-join pool, and then applies them to the
+	 * cells on the display thread. Otherwise the labels are computed one item
+	 * at a time on the display thread.
+	 * <p>
+	 * This has no effect on tables created without the
+	 * <code>SWT.VIRTUAL</code> style.
+	 * </p>
+	 *
+	 * @param enable
+	 *            <code>true</code> to compute labels in parallel, and
+	 *            <code>false</code> to compute them on the display thread
+	 * @since 3.15
+	 */
+	public void setUseParallelLabels(boolean enable) {
+		parallelLabels = enable;
+	}
+
+	/**
+	 * Returns the label providers of all columns if they are thread-safe.
+	 *
+	 * @return the label providers, or <code>null</code> if at least one of
+	 *         them is not a thread-safe <code>ColumnLabelProvider</code>
+	 */
+	private ColumnLabelProvider[] getThreadSafeLabelProviders() {
+		int columnCount = Math.max(doGetColumnCount(), 1);
+		ColumnLabelProvider[] labelProviders = new ColumnLabelProvider[columnCount];
+		for (int column = 0; column < columnCount; column++) {
+			ViewerColumn viewerColumn = getViewerColumn(column);
+			CellLabelProvider labelProvider = viewerColumn == null ? null : viewerColumn.getLabelProvider();
+			if (!(labelProvider instanceof ColumnLabelProvider)
+					|| !((ColumnLabelProvider) labelProvider).isThreadSafe()) {
+				return null;
+			}
+			labelProviders[column] = (ColumnLabelProvider) labelProvider;
+		}
+		return labelProviders;
+	}
+
+	/**
+	 * Returns the number of items whose labels are computed together when
+	 * labels are computed in parallel, which should be the number of visible
+	 * items.
+	 *
+	 * @return the number of items of a page
+	 */
+	/* package */int getPageSize() {
+		return 64;
+	}
+
+	/**
+	 * Returns the index of the first item of the page whose labels are
+	 * computed together with the label of the given item, which should be
+	 * the first visible item. The default implementation centers the page on
+	 * the given item, so that pages are filled whichever direction the items
+	 * are requested in.
+	 *
+	 * @param index
+	 *            the index of the requested item
+	 * @param pageSize
+	 *            the number of items of the page
+	 * @return the index of the first item of the page
+	 */
+	/* package */int getPageStart(int index, int pageSize) {
+		return index - pageSize / 2;
+	}
+
 	/**
 	 * Clear the table item at the specified index
 	 *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -326,6 +326,11 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	/**
 	 * Create the new elements in the parent widget. If the child already exists
 	 * do nothing.
+	 * <p>
+	 * As both the elements and the existing children are sorted, the elements
+	 * are merged into the children in one pass, and their items are created in
+	 * order.
+	 * </p>
 	 *
 	 * @param widget
 	 * @param elements
@@ -351,10 +356,23 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 			return;
 		}
 
+		// without the element map, look up the existing children in a
+		// temporary table rather than comparing each element with each item
+		CustomHashtable children = null;
+		if (!usingElementMap()) {
+			children = newHashtable(items.length * 2 + 1);
+			for (Item item : items) {
+				Object data = item.getData();
+				if (data != null) {
+					children.put(data, item);
+				}
+			}
+		}
+
 		// Optimize for no comparator
 		if (comparator == null) {
 			for (Object element : elements) {
-				if (itemExists(items, element)) {
+				if (itemExists(widget, children, element)) {
 					internalRefresh(element);
 				} else {
 					createTreeItem(widget, element, -1);
@@ -370,75 +388,55 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 		// Count of elements we have added. See bug 205700 for why this is needed.
 		int newItems = 0;
 
-		elementloop: for (int i = 0; i < elements.length; i++) {
-			Object element = elements[i];
+		for (Object element : elements) {
+			if (itemExists(widget, children, element)) {
+				// Refresh the element in case it has new children.
+				internalRefresh(element);
+				continue;
+			}
 			// update the index relative to the original item array
 			indexInItems = insertionPosition(items, comparator,
 					indexInItems, element, parentPath);
-			if (indexInItems == items.length) {
+
+			// Insert after the existing elements that compare equally, see
+			// TreeViewerTestBug205700.testAddEquallySortedElements. The
+			// comparator might regard elements as equal when they are not.
+			int insertionIndexInItems = indexInItems;
+			while (insertionIndexInItems < items.length
+					&& internalCompare(comparator, parentPath, element,
+							items[insertionIndexInItems].getData()) == 0) {
+				insertionIndexInItems++;
+			}
+			if (insertionIndexInItems == items.length) {
 				createTreeItem(widget, element, -1);
-				newItems++;
 			} else {
-				// Search for an item for the element. The comparator might
-				// regard elements as equal when they are not.
-
-				// Use a separate index variable to search within the existing
-				// elements that compare equally, see
-				// TreeViewerTestBug205700.testAddEquallySortedElements.
-				int insertionIndexInItems = indexInItems;
-				while( insertionIndexInItems < items.length
-						&& internalCompare(comparator, parentPath, element,
-								items[insertionIndexInItems].getData()) == 0) {
-					// As we cannot assume the sorter is consistent with
-					// equals() - therefore we can
-					// just check against the item prior to this index (if
-					// any)
-					if (items[insertionIndexInItems].getData().equals(element)) {
-						// Found the item for the element.
-						// Refresh the element in case it has new children.
-						internalRefresh(element);
-						// Do not create a new item - continue with the next element.
-						continue elementloop;
-					}
-					insertionIndexInItems++;
-				}
-				// Did we get to the end?
-				if (insertionIndexInItems == items.length) {
-					createTreeItem(widget, element, -1);
-					newItems++;
-				} else {
-					// InsertionIndexInItems is the index in the original array. We
-					// need to correct by the number of new items we have
-					// created. See bug 205700.
-					createTreeItem(widget, element, insertionIndexInItems + newItems);
-					newItems++;
-				}
+				// InsertionIndexInItems is the index in the original array. We
+				// need to correct by the number of new items we have
+				// created. See bug 205700.
+				createTreeItem(widget, element, insertionIndexInItems + newItems);
 			}
+			newItems++;
 		}
 	}
 
 	/**
-	 * See if element is the data of one of the elements in items.
+	 * See if element is the data of one of the child items of the widget.
 	 *
-	 * @param items
+	 * @param widget
+	 *            the parent widget
+	 * @param children
+	 *            the child items of the widget by element, or <code>null</code>
+	 *            to look them up in the element map
 	 * @param element
 	 * @return <code>true</code> if the element matches.
 	 */
-	private boolean itemExists(Item[] items, Object element) {
-		if (usingElementMap()) {
-			Widget[] existingItems = findItems(element);
-			// optimization for two common cases
-			if (existingItems.length == 0) {
-				return false;
-			} else if (existingItems.length == 1) {
-				if (items.length > 0 && existingItems[0] instanceof Item) {
-					Item existingItem = (Item) existingItems[0];
-					return getParentItem(existingItem) == getParentItem(items[0]);
-				}
-			}
+	private boolean itemExists(Widget widget, CustomHashtable children, Object element) {
+		if (children != null) {
+			return children.containsKey(element);
 		}
-		for (Item item : items) {
-			if (item.getData().equals(element)) {
+		Item parentItem = widget instanceof Item ? (Item) widget : null;
+		for (Widget existingItem : findItems(element)) {
+			if (existingItem instanceof Item && getParentItem((Item) existingItem) == parentItem) {
 				return true;
 			}
 		}
@@ -449,6 +447,10 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 * Returns the index where the item should be inserted. It uses sorter to
 	 * determine the correct position, if sorter is not assigned, returns the
 	 * index of the element after the last.
+	 * <p>
+	 * The position is searched with steps doubling from the last insertion, so
+	 * that inserting sorted elements costs a single pass over the items.
+	 * </p>
 	 *
 	 * @param items
 	 *            the items to search
@@ -464,10 +466,9 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 *            the tree path for the element's parent or <code>null</code>
 	 *            if the element is a root element or the sorter is not a
 	 *            {@link TreePathViewerSorter}
-	 * @return the index to use when inserting the element.
+	 * @return the index of the first item which is not less than the element.
 	 *
 	 */
-
 	private int insertionPosition(Item[] items, ViewerComparator comparator,
 			int lastInsertion, Object element, TreePath parentPath) {
 
@@ -475,16 +476,22 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 		if (comparator == null) {
 			return size;
 		}
-		int min = lastInsertion, max = size - 1;
+		// find a range ending with an item not less than the element
+		int min = lastInsertion;
+		int step = 1;
+		int max = min;
+		while (max < size
+				&& internalCompare(comparator, parentPath, items[max].getData(), element) < 0) {
+			min = max + 1;
+			max += step;
+			step <<= 1;
+		}
+		max = Math.min(max, size) - 1;
 
 		while (min <= max) {
-			int mid = (min + max) / 2;
+			int mid = (min + max) >>> 1;
 			Object data = items[mid].getData();
-			int compare = internalCompare(comparator, parentPath, data, element);
-			if (compare == 0) {
-				return mid;// Return if we already match
-			}
-			if (compare < 0) {
+			if (internalCompare(comparator, parentPath, data, element) < 0) {
 				min = mid + 1;
 			} else {
 				max = mid - 1;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2015 IBM Corporation and others.
+ * Copyright (c) 2006, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -40,6 +40,74 @@ public class ColumnLabelProvider extends CellLabelProvider implements
 
 	}
 
+	/**
+	 * Returns whether the methods computing the text, image, font and colors
+	 * of an element may be called concurrently from threads other than the
+	 * display thread. The default implementation returns <code>false</code>.
+	 * <p>
+	 * Table viewers with {@link AbstractTableViewer#setUseParallelLabels(boolean)
+	 * parallel labels} enabled compute the values of thread-safe label
+	 * providers for a page of rows in parallel, and apply them to the cells on
+	 * the display thread as {@link #update(ViewerCell)} does. Thread-safe label
+	 * providers must therefore not override <code>update(ViewerCell)</code>, nor
+	 * access widgets or other state confined to the display thread.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the label provider can be called from any
+	 *         thread
+	 * @since 3.15
+	 */
+	public boolean isThreadSafe() {
+		return false;
+	}
+
+	/**
+	 * Computes the values of this label provider for the given element, to be
+	 * applied later to a cell.
+	 *
+	 * @param element
+	 *            the element
+	 * @return the values
+	 */
+	/* package */Values computeValues(Object element) {
+		return new Values(getText(element), getImage(element), getBackground(element), getForeground(element),
+				getFont(element));
+	}
+
+	/**
+	 * The values of a label provider for an element.
+	 */
+	/* package */static final class Values {
+		private final String text;
+		private final Image image;
+		private final Color background;
+		private final Color foreground;
+		private final Font font;
+
+		Values(String text, Image image, Color background, Color foreground, Font font) {
+			this.text = text;
+			this.image = image;
+			this.background = background;
+			this.foreground = foreground;
+			this.font = font;
+		}
+
+		/**
+		 * Applies the values to the given cell, as
+		 * {@link ColumnLabelProvider#update(ViewerCell)} does.
+		 *
+		 * @param cell
+		 *            the cell to update
+		 */
+		void apply(ViewerCell cell) {
+			cell.setText(text);
+			cell.setImage(image);
+			cell.setBackground(background);
+			cell.setForeground(foreground);
+			cell.setFont(font);
+		}
+	}
+
 	@Override
 	public Font getFont(Object element) {
 		return null;
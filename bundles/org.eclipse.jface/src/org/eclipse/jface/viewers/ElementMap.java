@@ -0,0 +1,398 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jface.viewers;
+
+import java.util.Arrays;
+
+import org.eclipse.swt.widgets.Widget;
+
+/**
+ * ElementMap associates the elements of a structured viewer with the widgets
+ * representing them. Elements and widgets cannot be null.
+ * <p>
+ * The map uses open addressing with linear probing in parallel arrays of keys
+ * and values, so that it does not allocate an entry per element. The value of
+ * an element is either a <code>Widget</code>, or a <code>Widget[]</code> whose
+ * unused slots at the end are <code>null</code> when the element is
+ * represented by several widgets; that array grows by doubling and shrinks in
+ * place.
+ * </p>
+ * <p>
+ * Keys are compared with the element comparer, or with <code>equals</code>
+ * and <code>hashCode</code> if there is none, after checking for identity.
+ * </p>
+ */
+/* package */final class ElementMap {
+
+	private static final int MINIMUM_CAPACITY = 16;
+
+	private final IElementComparer comparer;
+
+	private Object[] keys;
+
+	private Object[] values;
+
+	private int size;
+
+	private int threshold;
+
+	/**
+	 * Constructs a new element map with the given capacity and element
+	 * comparer.
+	 *
+	 * @param capacity
+	 *            the number of elements that can be added without rehashing
+	 * @param comparer
+	 *            the element comparer to use to compare keys and obtain hash
+	 *            codes for keys, or <code>null</code> to use the normal
+	 *            <code>equals</code> and <code>hashCode</code> methods
+	 */
+	public ElementMap(int capacity, IElementComparer comparer) {
+		this.comparer = comparer;
+		allocate(tableSizeFor(capacity));
+	}
+
+	/**
+	 * Constructs a new element map containing the associations of the given
+	 * map, using the given element comparer.
+	 *
+	 * @param map
+	 *            the original map to copy from
+	 * @param comparer
+	 *            the element comparer to use to compare keys and obtain hash
+	 *            codes for keys, or <code>null</code> to use the normal
+	 *            <code>equals</code> and <code>hashCode</code> methods
+	 */
+	public ElementMap(ElementMap map, IElementComparer comparer) {
+		this(map.size, comparer);
+		for (int i = 0; i < map.keys.length; i++) {
+			Object key = map.keys[i];
+			if (key != null) {
+				Object value = map.values[i];
+				int index = indexOf(key);
+				if (index < 0) {
+					insert(~index, key, value instanceof Widget[] ? ((Widget[]) value).clone() : value);
+				} else {
+					// keys that were different may be equal for the new comparer
+					for (Widget widget : widgets(value)) {
+						if (widget != null) {
+							add(key, widget);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static int tableSizeFor(int capacity) {
+		int size = MINIMUM_CAPACITY;
+		// keep the load factor at most 0.5
+		while (size < capacity * 2 && size < (1 << 30)) {
+			size <<= 1;
+		}
+		return size;
+	}
+
+	private void allocate(int length) {
+		keys = new Object[length];
+		values = new Object[length];
+		threshold = length >> 1;
+	}
+
+	private static Widget[] widgets(Object value) {
+		return value instanceof Widget ? new Widget[] { (Widget) value } : (Widget[]) value;
+	}
+
+	private int hash(Object key) {
+		int hash = comparer == null ? key.hashCode() : comparer.hashCode(key);
+		// spread the bits, as the table size is a power of two
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	private boolean keyEquals(Object a, Object b) {
+		if (a == b) {
+			return true;
+		}
+		return comparer == null ? a.equals(b) : comparer.equals(a, b);
+	}
+
+	/**
+	 * Returns the slot of the given key, or the one's complement of the free
+	 * slot where it would be inserted.
+	 */
+	private int indexOf(Object key) {
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		Object current;
+		while ((current = keys[index]) != null) {
+			if (keyEquals(key, current)) {
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+		return ~index;
+	}
+
+	private void insert(int index, Object key, Object value) {
+		keys[index] = key;
+		values[index] = value;
+		if (++size > threshold) {
+			rehash();
+		}
+	}
+
+	private void rehash() {
+		Object[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(oldKeys.length << 1);
+		int mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			Object key = oldKeys[i];
+			if (key != null) {
+				int index = hash(key) & mask;
+				while (keys[index] != null) {
+					index = (index + 1) & mask;
+				}
+				keys[index] = key;
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Removes the key in the given slot, and moves back the following keys of
+	 * the same run whose probe sequence went through that slot.
+	 */
+	private void removeAt(int index) {
+		int mask = keys.length - 1;
+		int free = index;
+		int next = (free + 1) & mask;
+		Object key;
+		while ((key = keys[next]) != null) {
+			int home = hash(key) & mask;
+			// move the key if its home slot is not between the free slot
+			// (exclusive) and its current slot, taking wrapping into account
+			if (((next - home) & mask) >= ((next - free) & mask)) {
+				keys[free] = key;
+				values[free] = values[next];
+				free = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[free] = null;
+		values[free] = null;
+		size--;
+	}
+
+	/**
+	 * Returns the element comparer used to compare keys and to obtain hash
+	 * codes for keys, or <code>null</code> if no comparer has been provided.
+	 *
+	 * @return the element comparer or <code>null</code>
+	 */
+	public IElementComparer getComparer() {
+		return comparer;
+	}
+
+	/**
+	 * Associates the given widget with the given element, in addition to the
+	 * widgets already associated with it. The key of the element is replaced
+	 * by the given element, to avoid hanging onto keys that are equal but
+	 * "old" (see bug 30607).
+	 *
+	 * @param element
+	 *            the element
+	 * @param widget
+	 *            the widget
+	 */
+	public void add(Object element, Widget widget) {
+		if (element == null || widget == null) {
+			throw new NullPointerException();
+		}
+		int index = indexOf(element);
+		if (index < 0) {
+			insert(~index, element, widget);
+			return;
+		}
+		keys[index] = element;
+		Object value = values[index];
+		if (value instanceof Widget) {
+			if (value != widget) {
+				values[index] = new Widget[] { (Widget) value, widget };
+			}
+			return;
+		}
+		Widget[] widgets = (Widget[]) value;
+		int count = 0;
+		while (count < widgets.length && widgets[count] != null) {
+			if (widgets[count] == widget) {
+				return;
+			}
+			count++;
+		}
+		if (count == widgets.length) {
+			values[index] = widgets = Arrays.copyOf(widgets, count << 1);
+		}
+		widgets[count] = widget;
+	}
+
+	/**
+	 * Removes the given element and all of its widgets from this map.
+	 *
+	 * @param element
+	 *            the element to remove
+	 */
+	public void remove(Object element) {
+		int index = indexOf(element);
+		if (index >= 0) {
+			removeAt(index);
+		}
+	}
+
+	/**
+	 * Removes the association between the given element and widget. Does
+	 * nothing if the element is not associated with the widget.
+	 *
+	 * @param element
+	 *            the element
+	 * @param widget
+	 *            the widget to remove
+	 */
+	public void remove(Object element, Widget widget) {
+		int index = indexOf(element);
+		if (index < 0) {
+			return;
+		}
+		Object value = values[index];
+		if (value instanceof Widget) {
+			if (value == widget) {
+				removeAt(index);
+			}
+			return;
+		}
+		Widget[] widgets = (Widget[]) value;
+		int position = -1;
+		int count = 0;
+		while (count < widgets.length && widgets[count] != null) {
+			if (widgets[count] == widget) {
+				position = count;
+			}
+			count++;
+		}
+		if (position == -1) {
+			return;
+		}
+		if (count == 1) {
+			removeAt(index);
+		} else if (count == 2) {
+			values[index] = widgets[1 - position];
+		} else {
+			System.arraycopy(widgets, position + 1, widgets, position, count - position - 1);
+			widgets[count - 1] = null;
+		}
+	}
+
+	/**
+	 * Returns the first widget associated with the given element.
+	 *
+	 * @param element
+	 *            the element
+	 * @return the first widget, or <code>null</code> if the element is not in
+	 *         this map
+	 */
+	public Widget getItem(Object element) {
+		int index = indexOf(element);
+		if (index < 0) {
+			return null;
+		}
+		Object value = values[index];
+		return value instanceof Widget ? (Widget) value : ((Widget[]) value)[0];
+	}
+
+	/**
+	 * Returns the widgets associated with the given element. The returned
+	 * array is not changed by later modifications of this map.
+	 *
+	 * @param element
+	 *            the element
+	 * @return the widgets, or <code>null</code> if the element is not in this
+	 *         map
+	 */
+	public Widget[] getItems(Object element) {
+		int index = indexOf(element);
+		if (index < 0) {
+			return null;
+		}
+		Object value = values[index];
+		if (value instanceof Widget) {
+			return new Widget[] { (Widget) value };
+		}
+		Widget[] widgets = (Widget[]) value;
+		int count = 0;
+		while (count < widgets.length && widgets[count] != null) {
+			count++;
+		}
+		return Arrays.copyOf(widgets, count);
+	}
+
+	/**
+	 * Removes all elements from this map. The capacity of the map is kept, as
+	 * it is usually filled again with a similar number of elements.
+	 */
+	public void clear() {
+		if (size > 0) {
+			Arrays.fill(keys, null);
+			Arrays.fill(values, null);
+			size = 0;
+		}
+	}
+
+	/**
+	 * Answers if this map contains the given element.
+	 *
+	 * @param element
+	 *            the element to look for
+	 * @return <code>true</code> if the element is in this map
+	 */
+	public boolean containsKey(Object element) {
+		return indexOf(element) >= 0;
+	}
+
+	/**
+	 * Answers the number of elements in this map.
+	 *
+	 * @return the number of elements in this map
+	 */
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append('{');
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				if (buffer.length() > 1) {
+					buffer.append(", "); //$NON-NLS-1$
+				}
+				buffer.append(keys[i]);
+				buffer.append('=');
+				Object value = values[i];
+				buffer.append(value instanceof Widget ? value : Arrays.asList(getItems(keys[i])));
+			}
+		}
+		buffer.append('}');
+		return buffer.toString();
+	}
+}
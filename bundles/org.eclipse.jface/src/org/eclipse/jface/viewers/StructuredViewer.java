@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -66,7 +66,7 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 	 * <code>Object</code>, value type: <code>Widget</code>, or <code>Widget[]</code>).
 	 * <code>null</code> means that the element map is disabled.
 	 */
-	private CustomHashtable elementMap;
+	private ElementMap elementMap;
 
 	/**
 	 * The comparer to use for comparing elements, or <code>null</code> to use
@@ -109,6 +109,14 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 	 */
 	private boolean restoreSelection;
 
+	/**
+	 * Indicates whether a refresh of the whole viewer only updates the items
+	 * whose elements have changed.
+	 *
+	 * @see #setUseIncrementalRefresh(boolean)
+	 */
+	private boolean incrementalRefresh;
+
 	/**
 	 * List of double-click state listeners (element type:
 	 * <code>IDoubleClickListener</code>).
@@ -763,6 +771,10 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 	 * @return the corresponding widget, or <code>null</code> if none
 	 */
 	protected final Widget findItem(Object element) {
+		if (usingElementMap()) {
+			Widget result = doFindInputItem(element);
+			return result != null ? result : elementMap.getItem(element);
+		}
 		Widget[] result = findItems(element);
 		return result.length == 0 ? null : result[0];
 	}
@@ -799,14 +811,8 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 		}
 		// if we have an element map use it, otherwise search for the item.
 		if (usingElementMap()) {
-			Object widgetOrWidgets = elementMap.get(element);
-			if (widgetOrWidgets==null) {
-				return NO_WIDGETS;
-			} else if (widgetOrWidgets instanceof Widget) {
-				return new Widget[] {(Widget) widgetOrWidgets};
-			} else {
-				return (Widget[])widgetOrWidgets;
-			}
+			Widget[] widgets = elementMap.getItems(element);
+			return widgets == null ? NO_WIDGETS : widgets;
 		}
 		result = doFindItem(element);
 		return result == null ? NO_WIDGETS : new Widget[] { result };
@@ -1316,25 +1322,7 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 	 */
 	protected void mapElement(Object element, Widget item) {
 		if (elementMap != null) {
-			Object widgetOrWidgets = elementMap.get(element);
-			if (widgetOrWidgets == null) {
-				elementMap.put(element, item);
-			} else if (widgetOrWidgets instanceof Widget) {
-				if (widgetOrWidgets != item) {
-					elementMap.put(element, new Widget[] {
-							(Widget) widgetOrWidgets, item });
-				}
-			} else {
-				Widget[] widgets = (Widget[]) widgetOrWidgets;
-				int indexOfItem = Arrays.asList(widgets).indexOf(item);
-				if (indexOfItem == -1) {
-					int length = widgets.length;
-					System.arraycopy(widgets, 0,
-							widgets = new Widget[length + 1], 0, length);
-					widgets[length] = item;
-					elementMap.put(element, widgets);
-				}
-			}
+			elementMap.add(element, item);
 		}
 	}
 
@@ -1815,12 +1803,35 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 		Assert.isTrue(getInput() == null,
 				"Can only enable the hash look up before input has been set");//$NON-NLS-1$
 		if (enable) {
-			elementMap = newHashtable(CustomHashtable.DEFAULT_CAPACITY);
+			elementMap = new ElementMap(CustomHashtable.DEFAULT_CAPACITY, getComparer());
 		} else {
 			elementMap = null;
 		}
 	}
 
+	/**
+	 * Configures whether a refresh of the whole viewer reconciles its items
+	 * with the new elements instead of updating every item. When enabled, the
+	 * current and new elements are matched using the viewer's comparer: only
+	 * the items of removed or moved elements are removed, the items of new or
+	 * moved elements are created, and the labels are only updated for items
+	 * whose element is not the same instance as before. Elements which change
+	 * in place must be updated with {@link #update(Object, String[])}.
+	 * <p>
+	 * This is a hint which subclasses may ignore; it is currently supported by
+	 * non-virtual table viewers. It is intended for large viewers which are
+	 * refreshed frequently while only a few of their elements change.
+	 * </p>
+	 *
+	 * @param enable
+	 *            <code>true</code> to reconcile the items on refresh, and
+	 *            <code>false</code> to update every item
+	 * @since 3.15
+	 */
+	public void setUseIncrementalRefresh(boolean enable) {
+		incrementalRefresh = enable;
+	}
+
 	/**
 	 * Sets the comparer to use for comparing elements, or <code>null</code>
 	 * to use the default <code>equals</code> and <code>hashCode</code>
@@ -1833,7 +1844,7 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 	public void setComparer(IElementComparer comparer) {
 		this.comparer = comparer;
 		if (elementMap != null) {
-			elementMap = new CustomHashtable(elementMap, comparer);
+			elementMap = new ElementMap(elementMap, comparer);
 		}
 	}
 
@@ -1902,7 +1913,7 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 	 */
 	protected void unmapAllElements() {
 		if (elementMap != null) {
-			elementMap = newHashtable(CustomHashtable.DEFAULT_CAPACITY);
+			elementMap.clear();
 		}
 	}
 
@@ -1942,36 +1953,7 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 		// double-check that the element actually maps to the given item before
 		// unmapping it
 		if (elementMap != null) {
-			Object widgetOrWidgets = elementMap.get(element);
-			if (widgetOrWidgets == null) {
-				// item was not mapped, return
-				return;
-			} else if (widgetOrWidgets instanceof Widget) {
-				if (item == widgetOrWidgets) {
-					elementMap.remove(element);
-				}
-			} else {
-				Widget[] widgets = (Widget[]) widgetOrWidgets;
-				int indexOfItem = Arrays.asList(widgets).indexOf(item);
-				if (indexOfItem == -1) {
-					return;
-				}
-				int length = widgets.length;
-				if (indexOfItem == 0) {
-					if(length == 1) {
-						elementMap.remove(element);
-					} else {
-						Widget[] updatedWidgets = new Widget[length - 1];
-						System.arraycopy(widgets, 1, updatedWidgets, 0, length -1 );
-						elementMap.put(element, updatedWidgets);
-					}
-				} else {
-					Widget[] updatedWidgets = new Widget[length - 1];
-					System.arraycopy(widgets, 0, updatedWidgets, 0, indexOfItem);
-					System.arraycopy(widgets, indexOfItem + 1, updatedWidgets, indexOfItem, length - indexOfItem - 1);
-					elementMap.put(element, updatedWidgets);
-				}
-			}
+			elementMap.remove(element, item);
 		}
 	}
 
@@ -2194,6 +2176,19 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 		return elementMap != null;
 	}
 
+	/**
+	 * Returns whether this structured viewer is configured to reconcile its
+	 * items with the new elements on a refresh of the whole viewer.
+	 *
+	 * @return <code>true</code> if incremental refresh is enabled, and
+	 *         <code>false</code> if disabled
+	 * @see #setUseIncrementalRefresh(boolean)
+	 * @since 3.15
+	 */
+	protected boolean usingIncrementalRefresh() {
+		return incrementalRefresh;
+	}
+
 	@Override
 	public void setLabelProvider(IBaseLabelProvider labelProvider) {
 		if (labelProvider instanceof IColorProvider || labelProvider instanceof IFontProvider) {
@@ -2320,7 +2315,7 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 		comparer = null;
 		if (filters != null)
 			filters.clear();
-		elementMap = newHashtable(1);
+		elementMap = new ElementMap(1, null);
 		openListeners.clear();
 		doubleClickListeners.clear();
 		colorAndFontCollector.clear();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -243,6 +243,24 @@ public class TableViewer extends AbstractTableViewer {
 		return table.getColumn(index);
 	}
 
+	@Override
+	/* package */int getPageSize() {
+		// the rows of the client area, including a partially visible one
+		int itemHeight = table.getItemHeight();
+		int height = table.getClientArea().height - table.getHeaderHeight();
+		return height <= 0 || itemHeight <= 0 ? super.getPageSize() : height / itemHeight + 1;
+	}
+
+	@Override
+	/* package */int getPageStart(int index, int pageSize) {
+		// the visible rows, unless the item is requested outside of them
+		int topIndex = table.getTopIndex();
+		if (index >= topIndex && index < topIndex + pageSize) {
+			return topIndex;
+		}
+		return super.getPageStart(index, pageSize);
+	}
+
 	@Override
 	protected Item doGetItem(int index) {
 		return table.getItem(index);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2017 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -391,6 +391,49 @@ public class TreeViewer extends AbstractTreeViewer {
 		});
 	}
 
+	/**
+	 * For a TreeViewer with a tree with the VIRTUAL style bit set, clear the
+	 * given parent's child at index, so that the element at this index is
+	 * requested again from the content provider when it becomes visible. If
+	 * the given parent is this viewer's input or an empty tree path, this will
+	 * clear the root element at the given index.
+	 *
+	 * @param parentElementOrTreePath
+	 *            the parent of the element that should be cleared, or the tree
+	 *            path to that parent
+	 * @param index
+	 *            the index in the parent's children
+	 *
+	 * @see #replace(Object, int, Object)
+	 *
+	 * @since 3.15
+	 */
+	public void clear(final Object parentElementOrTreePath, final int index) {
+		if (checkBusy())
+			return;
+		if (internalIsInputOrEmptyPath(parentElementOrTreePath)) {
+			if (index < tree.getItemCount()) {
+				TreeItem item = tree.getItem(index);
+				if (item.getData() != null) {
+					disassociate(item);
+				}
+				tree.clear(index, true);
+			}
+			return;
+		}
+		Widget[] parentItems = internalFindItems(parentElementOrTreePath);
+		for (Widget widget : parentItems) {
+			TreeItem parentItem = (TreeItem) widget;
+			if (index < parentItem.getItemCount()) {
+				TreeItem item = parentItem.getItem(index);
+				if (item.getData() != null) {
+					disassociate(item);
+				}
+				parentItem.clear(index, true);
+			}
+		}
+	}
+
 	/**
 	 * For a TreeViewer with a tree with the VIRTUAL style bit set, replace the
 	 * given parent's child at index with the given element. If the given parent
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2016 IBM Corporation and others.
+ * Copyright (c) 2006, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,8 @@
 
 package org.eclipse.jface.viewers;
 
+import java.text.CollationKey;
+import java.text.Collator;
 import java.util.Arrays;
 import java.util.Comparator;
 
@@ -50,6 +52,22 @@ public class ViewerComparator {
 	 */
 	private Comparator<? super String> comparator;
 
+	/**
+	 * The category and the label, or its collation key, of an element, computed
+	 * once per sort.
+	 */
+	private static final class SortKey {
+		final Object element;
+		final int category;
+		final Object key;
+
+		SortKey(Object element, int category, Object key) {
+			this.element = element;
+			this.category = category;
+			this.key = key;
+		}
+	}
+
 	/**
      * Creates a new {@link ViewerComparator}, which uses the default comparator
      * to sort strings.
@@ -183,13 +201,36 @@ public class ViewerComparator {
         return false;
     }
 
+	/**
+	 * Returns whether {@link #sort(Viewer, Object[])} computes the category
+	 * and the label of each element once per sort, and sorts the elements on
+	 * these keys instead of calling {@link #compare(Viewer, Object, Object)}
+	 * for each comparison. If the comparator used to sort strings is a
+	 * {@link Collator}, the labels are compared by their {@link CollationKey}.
+	 * <p>
+	 * The default implementation of this method returns <code>false</code>.
+	 * Subclasses which do not override <code>compare</code>, and whose
+	 * categories and labels do not change while sorting, may return
+	 * <code>true</code> to sort large numbers of elements faster. The order of
+	 * the sorted elements is the same.
+	 * </p>
+	 *
+	 * @return <code>true</code> to sort the elements on keys computed once per
+	 *         element
+	 * @since 3.15
+	 */
+	protected boolean useSortKeys() {
+		return false;
+	}
+
     /**
      * Sorts the given elements in-place, modifying the given array.
      * <p>
 	 * The default implementation of this method uses the
 	 * {@link java.util.Arrays#sort(Object[], Comparator)} algorithm on the
 	 * given array, calling {@link #compare(Viewer, Object, Object)} to compare
-	 * elements.
+	 * elements, or comparing keys computed once per element if
+	 * {@link #useSortKeys()} returns <code>true</code>.
      * </p>
      * <p>
      * Subclasses may reimplement this method to provide a more optimized implementation.
@@ -199,6 +240,10 @@ public class ViewerComparator {
      * @param elements the elements to sort
      */
 	public void sort(final Viewer viewer, Object[] elements) {
+		if (useSortKeys() && elements.length > 1) {
+			sortOnKeys(viewer, elements);
+			return;
+		}
 		try {
 			Arrays.sort(elements, (a, b) -> ViewerComparator.this.compare(viewer, a, b));
 		} catch (IllegalArgumentException e) {
@@ -225,4 +270,29 @@ public class ViewerComparator {
 			throw e;
 		}
 	}
+
+	private void sortOnKeys(Viewer viewer, Object[] elements) {
+		Comparator<? super String> stringComparator = getComparator();
+		Collator collator = stringComparator instanceof Collator ? (Collator) stringComparator : null;
+		SortKey[] keys = new SortKey[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			Object element = elements[i];
+			String label = getLabel(viewer, element);
+			keys[i] = new SortKey(element, category(element),
+					collator != null ? collator.getCollationKey(label) : label);
+		}
+
+		Comparator<SortKey> keyComparator;
+		if (collator != null) {
+			keyComparator = (k1, k2) -> k1.category != k2.category ? k1.category - k2.category
+					: ((CollationKey) k1.key).compareTo((CollationKey) k2.key);
+		} else {
+			keyComparator = (k1, k2) -> k1.category != k2.category ? k1.category - k2.category
+					: stringComparator.compare((String) k1.key, (String) k2.key);
+		}
+		Arrays.sort(keys, keyComparator);
+		for (int i = 0; i < keys.length; i++) {
+			elements[i] = keys[i].element;
+		}
+	}
 }
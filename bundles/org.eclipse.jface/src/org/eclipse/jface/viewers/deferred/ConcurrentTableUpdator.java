@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -73,6 +73,13 @@ package org.eclipse.jface.viewers.deferred;
      */
     private volatile boolean updateScheduled;
 
+    /**
+     * True iff the item count has been sent to the table. The first count is
+     * always sent, since the table may initially have items (e.g. the dummy
+     * child of a tree item being expanded)
+     */
+    private boolean itemCountSent = false;
+
     /**
      * True iff this object has been disposed
      */
@@ -168,7 +175,7 @@ package org.eclipse.jface.viewers.deferred;
      */
     public void setTotalItems(int newTotal) {
         synchronized (this) {
-            if (newTotal != knownObjects.length) {
+            if (newTotal != knownObjects.length || !itemCountSent) {
                 if (newTotal < knownObjects.length) {
                     // Flush any objects that are being removed as a result of the resize
                     for (int i = newTotal; i < knownObjects.length; i++) {
@@ -299,12 +306,13 @@ package org.eclipse.jface.viewers.deferred;
         synchronized(this) {
 
         	// Resize the table if necessary
-	        if (sentObjects.length != knownObjects.length) {
+	        if (sentObjects.length != knownObjects.length || !itemCountSent) {
 	        	Object[] newSentObjects = new Object[knownObjects.length];
 	        	System.arraycopy(newSentObjects, 0, sentObjects, 0,
 	        			Math.min(newSentObjects.length, sentObjects.length));
 	        	sentObjects = newSentObjects;
 	            table.setItemCount(newSentObjects.length);
+	            itemCountSent = true;
 	        }
 
 	        // Compute the currently visible range
@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.viewers.deferred;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.jface.viewers.AcceptAllFilter;
+import org.eclipse.jface.viewers.IFilter;
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.ITreeViewerListener;
+import org.eclipse.jface.viewers.TreeExpansionEvent;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeItem;
+
+/**
+ * Content provider that performs sorting and filtering in a background thread,
+ * for each expanded level of a tree. Requires a <code>TreeViewer</code> created
+ * with the <code>SWT.VIRTUAL</code> flag and an
+ * <code>IConcurrentTreeModel</code> as input.
+ * <p>
+ * The children of the input and of each expanded element are sorted and
+ * filtered by their own <code>BackgroundContentProvider</code>, as the
+ * elements of a table are by <code>DeferredContentProvider</code>: only the
+ * visible children are fully sorted and sent to the tree. The children of an
+ * element are released when the element is collapsed.
+ * </p>
+ * <p>
+ * The sorter and filter must be set directly on the content provider. Any
+ * sorter or filter on the TreeViewer will be ignored.
+ * </p>
+ *
+ * @see DeferredContentProvider
+ * @since 3.15
+ */
+public class DeferredTreeContentProvider implements ILazyTreeContentProvider {
+
+	private int limit = -1;
+	private Comparator sortOrder;
+	private IFilter filter = AcceptAllFilter.getInstance();
+
+	private TreeViewer viewer;
+	private IConcurrentTreeModel model;
+
+	/**
+	 * The providers of the children of the expanded elements, and of the
+	 * top-level elements with the model as key.
+	 */
+	private Map<Object, BackgroundContentProvider> levels = new HashMap<>();
+
+	private ITreeViewerListener collapseListener = new ITreeViewerListener() {
+		@Override
+		public void treeCollapsed(TreeExpansionEvent event) {
+			Object element = event.getElement();
+			TreeViewer treeViewer = viewer;
+			// the item is collapsed after the event
+			treeViewer.getControl().getDisplay().asyncExec(() -> {
+				if (viewer == treeViewer && !treeViewer.getControl().isDisposed()
+						&& levels.containsKey(element) && !treeViewer.getExpandedState(element)) {
+					disposeLevels(element);
+					// the children are requested again when the element is
+					// expanded
+					treeViewer.setHasChildren(element, true);
+				}
+			});
+		}
+
+		@Override
+		public void treeExpanded(TreeExpansionEvent event) {
+			// the children are requested by updateChildCount
+		}
+	};
+
+	/**
+	 * The children of a parent element, presented to a
+	 * <code>BackgroundContentProvider</code> as a virtual table.
+	 */
+	private final class TreeLevelAdapter extends AbstractVirtualTable {
+
+		private final TreeViewer treeViewer;
+		private final Object parent;
+		private int itemCount;
+
+		TreeLevelAdapter(TreeViewer treeViewer, Object parent, int itemCount) {
+			this.treeViewer = treeViewer;
+			this.parent = parent;
+			this.itemCount = itemCount;
+		}
+
+		@Override
+		public void clear(int index) {
+			treeViewer.clear(parent, index);
+		}
+
+		@Override
+		public void replace(Object element, int itemIndex) {
+			treeViewer.replace(parent, itemIndex, element);
+			if (!levels.containsKey(element)) {
+				treeViewer.setHasChildren(element, model.hasChildren(element));
+			}
+		}
+
+		@Override
+		public void setItemCount(int total) {
+			itemCount = total;
+			treeViewer.setChildCount(parent, total);
+		}
+
+		@Override
+		public int getItemCount() {
+			return itemCount;
+		}
+
+		@Override
+		public int getTopIndex() {
+			// the index of the child of the parent which contains the top item
+			Tree tree = treeViewer.getTree();
+			for (TreeItem item = tree.getTopItem(); item != null; item = item.getParentItem()) {
+				TreeItem parentItem = item.getParentItem();
+				if (parentItem == null) {
+					return parent == model ? Math.max(tree.indexOf(item) - 1, 0) : 0;
+				}
+				if (parent.equals(parentItem.getData())) {
+					return Math.max(parentItem.indexOf(item) - 1, 0);
+				}
+			}
+			return 0;
+		}
+
+		@Override
+		public int getVisibleItemCount() {
+			Tree tree = treeViewer.getTree();
+			Rectangle rect = tree.getClientArea();
+			int itemHeight = tree.getItemHeight();
+			int headerHeight = tree.getHeaderHeight();
+			return (rect.height - headerHeight + itemHeight - 1) / (itemHeight + tree.getGridLineWidth());
+		}
+
+		@Override
+		public Control getControl() {
+			return treeViewer.getControl();
+		}
+	}
+
+	/**
+	 * Create a DeferredTreeContentProvider with the given sort order.
+	 *
+	 * @param sortOrder
+	 *            a comparator that sorts the children of each element. The
+	 *            comparator must be able to support being used in a background
+	 *            thread.
+	 */
+	public DeferredTreeContentProvider(Comparator sortOrder) {
+		Assert.isNotNull(sortOrder);
+		this.sortOrder = sortOrder;
+	}
+
+	@Override
+	public void dispose() {
+		setInput(null, null);
+	}
+
+	@Override
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		if (newInput == null) {
+			setInput(null, null);
+			return;
+		}
+
+		Assert.isTrue(newInput instanceof IConcurrentTreeModel);
+		Assert.isTrue(viewer instanceof TreeViewer);
+		setInput((TreeViewer) viewer, (IConcurrentTreeModel) newInput);
+	}
+
+	private void setInput(TreeViewer newViewer, IConcurrentTreeModel newModel) {
+		for (BackgroundContentProvider provider : levels.values()) {
+			provider.dispose();
+		}
+		levels.clear();
+		if (viewer != null) {
+			viewer.removeTreeListener(collapseListener);
+		}
+		viewer = newViewer;
+		model = newModel;
+		if (viewer != null) {
+			viewer.addTreeListener(collapseListener);
+		}
+	}
+
+	@Override
+	public void updateElement(Object parent, int index) {
+		BackgroundContentProvider provider = levels.get(parent);
+		if (provider != null) {
+			provider.checkVisibleRange(index);
+		}
+	}
+
+	@Override
+	public void updateChildCount(Object element, int currentChildCount) {
+		if (model == null || levels.containsKey(element)) {
+			return;
+		}
+		// the viewer asks for the children of the input, or of an element
+		// which only has a dummy child because it is about to be expanded
+		if (element == model || currentChildCount > 0) {
+			BackgroundContentProvider provider = new BackgroundContentProvider(
+					new TreeLevelAdapter(viewer, element, currentChildCount), model.getChildren(element),
+					sortOrder);
+			levels.put(element, provider);
+			provider.setLimit(limit);
+			provider.setFilter(filter);
+		} else {
+			viewer.setHasChildren(element, model.hasChildren(element));
+		}
+	}
+
+	@Override
+	public Object getParent(Object element) {
+		return model == null ? null : model.getParent(element);
+	}
+
+	/**
+	 * Disposes the providers of the children of the given element and of its
+	 * descendants.
+	 */
+	private void disposeLevels(Object element) {
+		List<BackgroundContentProvider> disposed = new ArrayList<>();
+		for (Iterator<Map.Entry<Object, BackgroundContentProvider>> it = levels.entrySet().iterator(); it
+				.hasNext();) {
+			Map.Entry<Object, BackgroundContentProvider> entry = it.next();
+			if (isDescendantOrSelf(entry.getKey(), element)) {
+				disposed.add(entry.getValue());
+				it.remove();
+			}
+		}
+		for (BackgroundContentProvider provider : disposed) {
+			provider.dispose();
+		}
+	}
+
+	private boolean isDescendantOrSelf(Object element, Object ancestor) {
+		for (Object current = element; current != null && current != model; current = model.getParent(current)) {
+			if (current.equals(ancestor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sets the sort order for this content provider. This sort order takes
+	 * priority over anything that was supplied to the <code>TreeViewer</code>.
+	 *
+	 * @param sortOrder
+	 *            new sort order. The comparator must be able to support being
+	 *            used in a background thread.
+	 */
+	public void setSortOrder(Comparator sortOrder) {
+		Assert.isNotNull(sortOrder);
+		this.sortOrder = sortOrder;
+		for (BackgroundContentProvider provider : levels.values()) {
+			provider.setSortOrder(sortOrder);
+		}
+	}
+
+	/**
+	 * Sets the filter for this content provider. This filter takes priority
+	 * over anything that was supplied to the <code>TreeViewer</code>. The
+	 * filter must be capable of being used in a background thread.
+	 *
+	 * @param toSet
+	 *            filter to set
+	 */
+	public void setFilter(IFilter toSet) {
+		this.filter = toSet;
+		for (BackgroundContentProvider provider : levels.values()) {
+			provider.setFilter(toSet);
+		}
+	}
+
+	/**
+	 * Sets the maximum number of children shown for each element. If an
+	 * element has more children than this number, only the top children will
+	 * be shown based on the current sort order.
+	 *
+	 * @param limit
+	 *            maximum number of children to show or -1 if unbounded
+	 */
+	public void setLimit(int limit) {
+		this.limit = limit;
+		for (BackgroundContentProvider provider : levels.values()) {
+			provider.setLimit(limit);
+		}
+	}
+
+	/**
+	 * Returns the current maximum number of children or -1 if unbounded
+	 *
+	 * @return the current maximum number of children or -1 if unbounded
+	 */
+	public int getLimit() {
+		return limit;
+	}
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.viewers.deferred;
+
+/**
+ * Interface for a tree of elements whose children are provided by
+ * <code>IConcurrentModel</code>s. This is the input of a
+ * <code>DeferredTreeContentProvider</code>.
+ * <p>
+ * The children of an element are only requested when the element is expanded,
+ * and their models are then free to compute the children asynchronously, as
+ * specified by <code>IConcurrentModel</code>.
+ * </p>
+ *
+ * @see DeferredTreeContentProvider
+ * @since 3.15
+ */
+public interface IConcurrentTreeModel {
+
+	/**
+	 * Returns the model of the children of the given element. Called in the UI
+	 * thread when the element is expanded, the returned model must not compute
+	 * the children in the UI thread.
+	 *
+	 * @param parent
+	 *            the parent element, or this tree model for the top-level
+	 *            elements
+	 * @return the model of the children of the parent, not <code>null</code>
+	 */
+	public IConcurrentModel getChildren(Object parent);
+
+	/**
+	 * Returns whether the given element has children, or may have children.
+	 * Called in the UI thread for the elements shown in the tree, so it must
+	 * be fast.
+	 *
+	 * @param element
+	 *            the element
+	 * @return <code>true</code> if the element may have children
+	 */
+	public boolean hasChildren(Object element);
+
+	/**
+	 * Returns the parent of the given element.
+	 *
+	 * @param element
+	 *            the element
+	 * @return the parent of the element, this tree model for the top-level
+	 *         elements, or <code>null</code> if the parent cannot be computed
+	 */
+	public Object getParent(Object element);
+}
@@ -284,4 +284,16 @@ public interface IPreferenceConstants {
 	 */
 	String SAVE_AUTOMATICALLY_INTERVAL = "SAVE_AUTOMATICALLY_INTERVAL"; //$NON-NLS-1$
 
+	/**
+	 * Preference id for whether the image data of the images of the bundles are
+	 * stored in the configuration area, so that they are not read and decoded
+	 * again on the next startup.
+	 * <p>
+	 * The boolean default value for this preference is: <code>false</code>.
+	 * </p>
+	 *
+	 * @since 3.112
+	 */
+	String PERSISTENT_IMAGE_CACHE = "PERSISTENT_IMAGE_CACHE"; //$NON-NLS-1$
+
 }
@@ -24,6 +24,7 @@ package org.eclipse.ui.internal;
 import com.ibm.icu.util.ULocale;
 import com.ibm.icu.util.ULocale.Category;
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -79,6 +80,7 @@ import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.core.di.InjectionException;
 import org.eclipse.e4.core.services.events.IEventBroker;
 import org.eclipse.e4.ui.internal.workbench.E4Workbench;
+import org.eclipse.e4.ui.internal.workbench.IncrementalModelCopier;
 import org.eclipse.e4.ui.internal.workbench.renderers.swt.IUpdateService;
 import org.eclipse.e4.ui.internal.workbench.swt.E4Application;
 import org.eclipse.e4.ui.internal.workbench.swt.IEventLoopAdvisor;
@@ -121,6 +123,7 @@ import org.eclipse.jface.bindings.IBindingManagerListener;
 import org.eclipse.jface.databinding.swt.DisplayRealm;
 import org.eclipse.jface.dialogs.ErrorDialog;
 import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.internal.PersistentImageCache;
 import org.eclipse.jface.operation.IRunnableContext;
 import org.eclipse.jface.operation.ModalContext;
 import org.eclipse.jface.preference.IPreferenceStore;
@@ -134,6 +137,7 @@ import org.eclipse.jface.util.SafeRunnable;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.window.IShellProvider;
 import org.eclipse.jface.window.Window;
+import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.osgi.service.runnable.StartupMonitor;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.SWT;
@@ -435,6 +439,12 @@ public final class Workbench extends EventManager implements IWorkbench,
 
 	private Job autoSaveJob;
 
+	/**
+	 * The copy of the application model which is saved by the auto-save, only
+	 * updated with the changes made since the previous auto-save.
+	 */
+	private IncrementalModelCopier modelCopier;
+
 	private String id;
 	private ServiceRegistration<?> e4WorkbenchService;
 
@@ -1082,6 +1092,10 @@ public final class Workbench extends EventManager implements IWorkbench,
 			autoSaveJob.cancel();
 			autoSaveJob = null;
 		}
+		if (modelCopier != null) {
+			modelCopier.dispose();
+			modelCopier = null;
+		}
 
 		boolean closeEditors = !force
 				&& PrefUtil.getAPIPreferenceStore().getBoolean(
@@ -1257,13 +1271,22 @@ public final class Workbench extends EventManager implements IWorkbench,
 	/**
 	 * Copy the model, clean it up and write it out to workbench.xmi. Called as
 	 * part of persist(false) during auto-save.
+	 * <p>
+	 * Only the changes made since the previous auto-save are copied in the UI
+	 * thread, to an incrementally updated copy of the model. This copy is
+	 * copied again and cleaned up by the save job, and it is not updated while
+	 * the job runs.
+	 * </p>
 	 */
 	private void persistWorkbenchModel() {
 		if (Job.getJobManager().find(WORKBENCH_AUTO_SAVE_JOB).length > 0) {
 			return;
 		}
-		final MApplication appCopy = (MApplication) EcoreUtil.copy((EObject) application);
-		if (detectWorkbenchCorruption(appCopy)) {
+		if (modelCopier == null) {
+			modelCopier = new IncrementalModelCopier((EObject) application);
+		}
+		final MApplication modelCopy = (MApplication) modelCopier.update();
+		if (detectWorkbenchCorruption(modelCopy)) {
 			return;
 		}
 		final IModelResourceHandler handler = e4Context.get(IModelResourceHandler.class);
@@ -1271,6 +1294,7 @@ public final class Workbench extends EventManager implements IWorkbench,
 		Job cleanAndSaveJob = new Job(WORKBENCH_AUTO_SAVE_BACKGROUND_JOB) {
 			@Override
 			protected IStatus run(IProgressMonitor monitor) {
+				final MApplication appCopy = (MApplication) EcoreUtil.copy((EObject) modelCopy);
 				final Resource res = handler.createResourceWithApp(appCopy);
 				cleanUpCopy(appCopy, e4Context);
 				try {
@@ -1576,6 +1600,9 @@ public final class Workbench extends EventManager implements IWorkbench,
 		// Set up the JFace preference store
 		JFaceUtil.initializeJFacePreferences();
 
+		// Serve the images of the bundles from the previous session if enabled
+		initializePersistentImageCache();
+
 		// create workbench window manager
 		// windowManager = new WindowManager();
 		// TODO compat: I've removed the window manager, now what
@@ -1683,6 +1710,26 @@ public final class Workbench extends EventManager implements IWorkbench,
 		return true;
 	}
 
+	/**
+	 * Opens the cache of the image data of the bundle images in the
+	 * configuration area, if it is enabled and writable.
+	 */
+	private void initializePersistentImageCache() {
+		if (!PrefUtil.getInternalPreferenceStore().getBoolean(IPreferenceConstants.PERSISTENT_IMAGE_CACHE)) {
+			return;
+		}
+		Location location = Platform.getConfigurationLocation();
+		if (location == null || location.isReadOnly()) {
+			return;
+		}
+		URL url = location.getURL();
+		if (url == null || !"file".equals(url.getProtocol())) { //$NON-NLS-1$
+			return;
+		}
+		File directory = new File(url.getPath(), WorkbenchPlugin.PI_WORKBENCH);
+		PersistentImageCache.open(new File(directory, "images.cache")); //$NON-NLS-1$
+	}
+
 	/**
 	 *
 	 */
@@ -3012,6 +3059,7 @@ public final class Workbench extends EventManager implements IWorkbench,
 		WorkbenchColors.shutdown();
 		activityHelper.shutdown();
 		uninitializeImages();
+		PersistentImageCache.close();
 		if (WorkbenchPlugin.getDefault() != null) {
 			WorkbenchPlugin.getDefault().reset();
 		}
@@ -13,17 +13,36 @@
  *******************************************************************************/
 package org.eclipse.e4.ui.tests.css.core;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
+import org.eclipse.e4.ui.css.core.dom.ExtendedDocumentCSS;
 import org.eclipse.e4.ui.css.core.impl.engine.CSSEngineImpl;
 import org.eclipse.e4.ui.tests.css.core.util.TestElement;
 import org.junit.Test;
+import org.w3c.css.sac.InputSource;
 import org.w3c.css.sac.Selector;
 import org.w3c.css.sac.SelectorList;
 import org.w3c.dom.Element;
+import org.w3c.dom.css.CSSStyleRule;
+import org.w3c.dom.css.CSSStyleSheet;
 
 public class CSSEngineTest {
 
@@ -78,6 +97,190 @@ public class CSSEngineTest {
 	}
 
 
+	@Test
+	public void testApplyStylesAfterAttributeChange() throws Exception {
+		List<String> appliedStyles = new ArrayList<>();
+		TestCSSEngine engine = new TestCSSEngine() {
+			@Override
+			public void applyStyles(Object element, boolean applyStylesToChildNodes) {
+				appliedStyles.add(element + (applyStylesToChildNodes ? " with children" : ""));
+			}
+		};
+		engine.parseStyleSheet(new StringReader(
+				"Button.primary { color: red; }\n" + ".dark Button { color: white; }\n" + "#main > * { color: blue; }\n"));
+
+		// class only used by the rightmost selector => element only
+		engine.applyStylesAfterAttributeChange("button", "class", null, "primary");
+		assertEquals(Arrays.asList("button"), appliedStyles);
+
+		// class used by an ancestor selector => element and children
+		appliedStyles.clear();
+		engine.applyStylesAfterAttributeChange("composite", "class", "primary", "primary dark");
+		assertEquals(Arrays.asList("composite with children"), appliedStyles);
+
+		// class not used by any selector => nothing
+		appliedStyles.clear();
+		engine.applyStylesAfterAttributeChange("composite", "class", "primary dark", "dark primary unused");
+		assertEquals(Arrays.asList(), appliedStyles);
+
+		// id used by an ancestor selector
+		appliedStyles.clear();
+		engine.applyStylesAfterAttributeChange("composite", "id", "main", null);
+		assertEquals(Arrays.asList("composite with children"), appliedStyles);
+
+		// unknown change => element and children
+		appliedStyles.clear();
+		engine.applyStylesAfterAttributeChange("composite", null, null, null);
+		assertEquals(Arrays.asList("composite with children"), appliedStyles);
+	}
+
+	@Test
+	public void testApplyStylesAfterAttributeChangeWithInherit() throws Exception {
+		List<String> appliedStyles = new ArrayList<>();
+		TestCSSEngine engine = new TestCSSEngine() {
+			@Override
+			public void applyStyles(Object element, boolean applyStylesToChildNodes) {
+				appliedStyles.add(element + (applyStylesToChildNodes ? " with children" : ""));
+			}
+		};
+		engine.parseStyleSheet(new StringReader("Composite.dark { color: white; }\n" + "Label { color: inherit; }\n"));
+
+		// the children may inherit the changed values of the element
+		engine.applyStylesAfterAttributeChange("composite", "class", null, "dark");
+		assertEquals(Arrays.asList("composite with children"), appliedStyles);
+
+		// but not if its rules do not change
+		appliedStyles.clear();
+		engine.applyStylesAfterAttributeChange("composite", "class", "dark", "dark unused");
+		assertEquals(Arrays.asList(), appliedStyles);
+	}
+
+	@Test
+	public void testApplyStylesAfterAttributeChangeOfSibling() throws Exception {
+		List<String> appliedStyles = new ArrayList<>();
+		TestCSSEngine engine = new TestCSSEngine() {
+			@Override
+			public void applyStyles(Object element, boolean applyStylesToChildNodes) {
+				appliedStyles.add(((Element) element).getLocalName() + (applyStylesToChildNodes ? " with children" : ""));
+			}
+		};
+		engine.parseStyleSheet(
+				new StringReader("Label.error + Text { color: red; }\n" + ".dark + Composite Text { color: white; }\n"));
+		TestElement parent = new TestElement("Composite", engine);
+		TestElement label = new TestElement("Label", parent, engine);
+		new TestElement("Text", parent, engine);
+		new TestElement("Composite", parent, engine);
+
+		// class used by a preceding sibling selector => following siblings
+		engine.applyStylesAfterAttributeChange(label, "class", null, "error");
+		assertEquals(Arrays.asList("Text", "Composite"), appliedStyles);
+
+		// class used by the preceding sibling of an ancestor => following
+		// siblings and their children
+		appliedStyles.clear();
+		engine.applyStylesAfterAttributeChange(label, "class", "error", "dark");
+		assertEquals(Arrays.asList("Text with children", "Composite with children"), appliedStyles);
+
+		// class not used by any selector => nothing
+		appliedStyles.clear();
+		engine.applyStylesAfterAttributeChange(label, "class", "dark", "dark unused");
+		assertEquals(Arrays.asList(), appliedStyles);
+	}
+
+	@Test
+	public void testCreateStyleSheetDoesNotAddStyleSheet() throws Exception {
+		TestCSSEngine engine = new TestCSSEngine();
+		InputSource source = new InputSource();
+		source.setCharacterStream(new StringReader("Button { color: red; }\nLabel { color: blue; }"));
+		CSSStyleSheet styleSheet = engine.createStyleSheet(source);
+		assertEquals(2, styleSheet.getCssRules().getLength());
+		assertEquals(0, engine.getDocumentCSS().getStyleSheets().getLength());
+
+		((ExtendedDocumentCSS) engine.getDocumentCSS()).addStyleSheet(styleSheet);
+		Element button = new TestElement("Button", engine);
+		assertEquals("red", engine.getViewCSS().getComputedStyle(button, null).getPropertyCSSValue("color").getCssText());
+	}
+
+	@Test
+	public void testCreateStyleSheetCollectsImports() throws Exception {
+		File directory = Files.createTempDirectory("e4.ui.tests-").toFile();
+		File main = new File(directory, "main.css");
+		File imported = new File(directory, "imported.css");
+		File nested = new File(directory, "nested.css");
+		try {
+			Files.write(main.toPath(), "@import url(\"imported.css\");\nButton { color: red; }".getBytes("UTF-8"));
+			Files.write(imported.toPath(), "@import url(\"nested.css\");\nLabel { color: blue; }".getBytes("UTF-8"));
+			Files.write(nested.toPath(), "Text { color: green; }".getBytes("UTF-8"));
+
+			TestCSSEngine engine = new TestCSSEngine();
+			List<URL> imports = new ArrayList<>();
+			CSSStyleSheet styleSheet;
+			try (InputStream stream = new FileInputStream(main)) {
+				InputSource source = new InputSource();
+				source.setByteStream(stream);
+				source.setURI(main.toURI().toURL().toString());
+				styleSheet = engine.createStyleSheet(source, engine.getResourcesLocatorManager(), imports);
+			}
+			assertEquals(3, styleSheet.getCssRules().getLength());
+			assertEquals(2, imports.size());
+			assertEquals(imported.getCanonicalFile(), new File(imports.get(0).getFile()).getCanonicalFile());
+			assertEquals(nested.getCanonicalFile(), new File(imports.get(1).getFile()).getCanonicalFile());
+		} finally {
+			main.delete();
+			imported.delete();
+			nested.delete();
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void testWriteAndReadStyleSheet() throws Exception {
+		TestCSSEngine engine = new TestCSSEngine();
+		InputSource source = new InputSource();
+		source.setCharacterStream(new StringReader("Button.primary, #main > Label { color: red; font: Arial 12px; }\n"
+				+ "Composite.dark Text[a~='B'] { background-color: rgb(1, 2, 3) !important; }\n"
+				+ "Label:selected { swt-corner-radius: 8; swt-margins: 1 2 3 4; }\n"
+				+ "* { font-family: 'Helvetica', Arial; color: inherit; }"));
+		CSSStyleSheet parsed = engine.createStyleSheet(source);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			engine.writeStyleSheet(parsed, out);
+		}
+		CSSStyleSheet read;
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			read = engine.readStyleSheet(in);
+		}
+
+		assertEquals(parsed.getCssRules().getLength(), read.getCssRules().getLength());
+		for (int i = 0; i < parsed.getCssRules().getLength(); i++) {
+			assertEquals(parsed.getCssRules().item(i).getCssText(), read.getCssRules().item(i).getCssText());
+		}
+		CSSStyleRule rule = (CSSStyleRule) read.getCssRules().item(1);
+		assertEquals("important", rule.getStyle().getPropertyPriority("background-color"));
+
+		((ExtendedDocumentCSS) engine.getDocumentCSS()).addStyleSheet(read);
+		TestElement composite = new TestElement("Composite", engine);
+		composite.setClass("dark");
+		TestElement text = new TestElement("Text", composite, engine);
+		text.setAttribute("a", "A B");
+		TestElement button = new TestElement("Button", engine);
+		button.setClass("primary");
+		assertEquals("rgb(1, 2, 3)", engine.getViewCSS().getComputedStyle(text, null)
+				.getPropertyCSSValue("background-color").getCssText());
+		assertEquals("red",
+				engine.getViewCSS().getComputedStyle(button, null).getPropertyCSSValue("color").getCssText());
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteStyleSheetWithUnsupportedRule() throws Exception {
+		TestCSSEngine engine = new TestCSSEngine();
+		InputSource source = new InputSource();
+		source.setCharacterStream(new StringReader("@page { margin: 1in; }\nButton { color: red; }"));
+		CSSStyleSheet parsed = engine.createStyleSheet(source);
+		engine.writeStyleSheet(parsed, new DataOutputStream(new ByteArrayOutputStream()));
+	}
+
 	private TestCSSEngine engineWhichProducesElementsWithAttributeA() {
 		TestCSSEngine engine = new TestCSSEngine();
 		engine.setElementProvider((element, aEngine) -> {
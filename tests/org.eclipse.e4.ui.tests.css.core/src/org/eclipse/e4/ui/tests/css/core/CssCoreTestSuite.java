@@ -19,6 +19,7 @@ import org.eclipse.e4.ui.tests.css.core.parser.ImportTest;
 import org.eclipse.e4.ui.tests.css.core.parser.InheritTest;
 import org.eclipse.e4.ui.tests.css.core.parser.MediaRulesTest;
 import org.eclipse.e4.ui.tests.css.core.parser.RGBColorImplTest;
+import org.eclipse.e4.ui.tests.css.core.parser.SelectorIndexTest;
 import org.eclipse.e4.ui.tests.css.core.parser.SelectorTest;
 import org.eclipse.e4.ui.tests.css.core.parser.StyleRuleTest;
 import org.eclipse.e4.ui.tests.css.core.parser.ValueTest;
@@ -37,6 +38,7 @@ import org.junit.runners.Suite.SuiteClasses;
 	ViewCSSTest.class,
 	ValueTest.class,
 	SelectorTest.class,
+	SelectorIndexTest.class,
 	CSSEngineTest.class,
 	ImportTest.class,
 	InheritTest.class,
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.tests.css.core.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.e4.ui.css.core.impl.dom.DocumentCSSImpl;
+import org.eclipse.e4.ui.css.core.impl.dom.ViewCSSImpl;
+import org.eclipse.e4.ui.css.swt.engine.CSSSWTEngineImpl;
+import org.eclipse.e4.ui.tests.css.core.util.ParserTestUtil;
+import org.eclipse.e4.ui.tests.css.core.util.TestElement;
+import org.eclipse.swt.widgets.Display;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSStyleSheet;
+
+/**
+ * Compares the selector index used by
+ * {@link ViewCSSImpl#getComputedStyle(org.w3c.dom.Element, String)} with the
+ * full scan of
+ * {@link ViewCSSImpl#getComputedStyle(List, org.w3c.dom.Element, String)} on a
+ * synthetic DOM. Both must compute the same styles.
+ */
+public class SelectorIndexTest {
+
+	private static final String[] TYPES = { "Shell", "Composite", "Label", "Button", "Text", "CTabFolder",
+			"ToolBar", "Tree", "Table", "Combo" };
+
+	private static final int RULE_GROUPS = 200;
+
+	private static final int ELEMENTS = 2000;
+
+	private CSSSWTEngineImpl engine;
+
+	@Before
+	public void setUp() {
+		engine = new CSSSWTEngineImpl(Display.getDefault());
+	}
+
+	@Test
+	public void testIndexedMatchingEqualsFullScan() throws Exception {
+		CSSStyleSheet styleSheet = ParserTestUtil.parseCss(createCss());
+		DocumentCSSImpl docCss = new DocumentCSSImpl();
+		docCss.addStyleSheet(styleSheet);
+		ViewCSSImpl viewCSS = new ViewCSSImpl(docCss);
+
+		List<CSSRule> rules = new ArrayList<>();
+		CSSRuleList ruleList = styleSheet.getCssRules();
+		for (int i = 0; i < ruleList.getLength(); i++) {
+			rules.add(ruleList.item(i));
+		}
+
+		List<TestElement> elements = createElements();
+
+		List<CSSStyleDeclaration> scanned = new ArrayList<>(elements.size());
+		List<CSSStyleDeclaration> indexed = new ArrayList<>(elements.size());
+		for (TestElement element : elements) {
+			scanned.add(viewCSS.getComputedStyle(rules, element, null));
+			indexed.add(viewCSS.getComputedStyle(element, null));
+		}
+
+		for (int i = 0; i < elements.size(); i++) {
+			CSSStyleDeclaration expected = scanned.get(i);
+			CSSStyleDeclaration actual = indexed.get(i);
+			if (expected == null) {
+				assertNull(actual);
+			} else {
+				assertEquals(expected.getCssText(), actual.getCssText());
+			}
+		}
+	}
+
+	@Test
+	public void testClassSelector() throws Exception {
+		CSSStyleSheet styleSheet = ParserTestUtil
+				.parseCss("Label { color: red; }\n.warning { color: yellow; }\nLabel.error { color: blue; }");
+		DocumentCSSImpl docCss = new DocumentCSSImpl();
+		docCss.addStyleSheet(styleSheet);
+		ViewCSSImpl viewCSS = new ViewCSSImpl(docCss);
+
+		TestElement label = new TestElement("Label", engine);
+		TestElement warning = new TestElement("Label", engine);
+		warning.setClass("warning");
+		TestElement error = new TestElement("Label", engine);
+		error.setClass("other error");
+		TestElement button = new TestElement("Button", engine);
+		button.setClass("error");
+
+		assertEquals("red", viewCSS.getComputedStyle(label, null).getPropertyCSSValue("color").getCssText());
+		assertEquals("yellow", viewCSS.getComputedStyle(warning, null).getPropertyCSSValue("color").getCssText());
+		assertEquals("blue", viewCSS.getComputedStyle(error, null).getPropertyCSSValue("color").getCssText());
+		assertNull(viewCSS.getComputedStyle(button, null));
+	}
+
+	private static String createCss() {
+		StringBuilder css = new StringBuilder();
+		css.append("* { font-size: 9; }\n");
+		for (int i = 0; i < RULE_GROUPS; i++) {
+			String type = TYPES[i % TYPES.length];
+			css.append(type).append(" { color: #0000").append(hex(i)).append("; }\n");
+			css.append('.').append("class").append(i).append(" { background-color: #00").append(hex(i))
+					.append("00; }\n");
+			css.append(type).append(".class").append(i).append(":selected { color: #").append(hex(i))
+					.append("0000; }\n");
+			css.append("Shell > Composite .class").append(i).append(" { font-weight: bold; }\n");
+			css.append('#').append("id").append(i).append(" { font-style: italic; }\n");
+		}
+		return css.toString();
+	}
+
+	private List<TestElement> createElements() {
+		List<TestElement> elements = new ArrayList<>(ELEMENTS);
+		TestElement shell = new TestElement("Shell", engine);
+		elements.add(shell);
+		TestElement composite = null;
+		for (int i = 1; i < ELEMENTS; i++) {
+			if (i % 50 == 1) {
+				composite = new TestElement("Composite", shell, engine);
+				elements.add(composite);
+				continue;
+			}
+			TestElement element = new TestElement(TYPES[i % TYPES.length], composite, engine);
+			if (i % 3 == 0) {
+				element.setClass("class" + (i % RULE_GROUPS) + " class" + ((i + 7) % RULE_GROUPS));
+			}
+			if (i % 97 == 0) {
+				element.setId("id" + (i % RULE_GROUPS));
+			}
+			elements.add(element);
+		}
+		return elements;
+	}
+
+	private static String hex(int i) {
+		String hex = Integer.toHexString(i % 256);
+		return hex.length() == 1 ? "0" + hex : hex;
+	}
+}
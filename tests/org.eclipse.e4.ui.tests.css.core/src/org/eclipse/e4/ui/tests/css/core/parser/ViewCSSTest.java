@@ -165,6 +165,55 @@ public class ViewCSSTest {
 		assertTrue(cssRules2.size() > cssRules.size());
 	}
 
+	@Test
+	public void testComputedStyleCache() throws Exception {
+		String css = "Button { color: blue; }\n" + "Composite > Button.primary { color: red; }\n";
+		ViewCSSImpl viewCSS = (ViewCSSImpl) createViewCss(css);
+
+		final TestElement shell = new TestElement("Shell", engine);
+		final TestElement composite = new TestElement("Composite", shell, engine);
+		final TestElement button1 = new TestElement("Button", composite, engine);
+		final TestElement button2 = new TestElement("Button", composite, engine);
+		final TestElement button3 = new TestElement("Button", composite, engine);
+		button3.setClass("primary");
+
+		CSSStyleDeclaration style1 = viewCSS.getComputedStyle(button1, null);
+		assertEquals(0, viewCSS.getStyleCacheHits());
+		assertEquals(1, viewCSS.getStyleCacheMisses());
+
+		// same structural signature => same style
+		CSSStyleDeclaration style2 = viewCSS.getComputedStyle(button2, null);
+		assertSame(style1, style2);
+		assertEquals(1, viewCSS.getStyleCacheHits());
+
+		// different CSS class => computed separately
+		CSSStyleDeclaration style3 = viewCSS.getComputedStyle(button3, null);
+		assertEquals("color: red;", style3.getCssText());
+		assertEquals(2, viewCSS.getStyleCacheMisses());
+
+		// elements without matching rules are cached as well
+		assertNull(viewCSS.getComputedStyle(composite, null));
+		assertNull(viewCSS.getComputedStyle(composite, null));
+		assertEquals(2, viewCSS.getStyleCacheHits());
+	}
+
+	@Test
+	public void testComputedStyleCacheFlushedOnStyleSheetChange() throws Exception {
+		DocumentCSSImpl docCss = new DocumentCSSImpl();
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Button { color: blue; }\n"));
+		ViewCSSImpl viewCSS = new ViewCSSImpl(docCss);
+
+		final TestElement button = new TestElement("Button", engine);
+		assertEquals("color: blue;", viewCSS.getComputedStyle(button, null).getCssText());
+
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Button { color: green; }\n"));
+		CSSStyleDeclaration buttonStyle = viewCSS.getComputedStyle(button, null);
+		assertEquals(1, buttonStyle.getLength());
+		assertEquals("color: green;", buttonStyle.getCssText());
+		assertEquals(0, viewCSS.getStyleCacheHits());
+		assertEquals(2, viewCSS.getStyleCacheMisses());
+	}
+
 	private static ViewCSS createViewCss(String css) throws IOException {
 		CSSStyleSheet styleSheet = ParserTestUtil.parseCss(css);
 		DocumentCSSImpl docCss = new DocumentCSSImpl();
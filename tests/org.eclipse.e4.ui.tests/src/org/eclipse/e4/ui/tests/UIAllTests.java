@@ -16,6 +16,7 @@ import org.eclipse.e4.ui.tests.application.Bug299755Test;
 import org.eclipse.e4.ui.tests.application.Bug308220Test;
 import org.eclipse.e4.ui.tests.application.Bug320857Test;
 import org.eclipse.e4.ui.tests.application.E4ResourceTest;
+import org.eclipse.e4.ui.tests.application.IncrementalModelCopierTest;
 import org.eclipse.e4.ui.tests.application.ModelElementTest;
 import org.eclipse.e4.ui.tests.application.ModelRobustnessTest;
 import org.eclipse.e4.ui.tests.application.ResourceHandlerTest;
@@ -76,6 +77,7 @@ import org.junit.runners.Suite;
 		Bug308317Test.class,
 		ModelRobustnessTest.class,
 		ResourceHandlerTest.class,
+		IncrementalModelCopierTest.class,
 		// Commented out due the bug 505678
 		// PartFocusTest.class,
 		ModelElementTest.class,
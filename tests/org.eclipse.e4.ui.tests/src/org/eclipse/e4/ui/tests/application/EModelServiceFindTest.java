@@ -15,11 +15,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.List;
 import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.ui.internal.workbench.UIEventPublisher;
 import org.eclipse.e4.ui.internal.workbench.swt.E4Application;
 import org.eclipse.e4.ui.model.application.MAddon;
 import org.eclipse.e4.ui.model.application.MApplication;
@@ -44,6 +46,7 @@ import org.eclipse.e4.ui.model.application.ui.menu.MToolBarElement;
 import org.eclipse.e4.ui.model.application.ui.menu.MToolControl;
 import org.eclipse.e4.ui.workbench.Selector;
 import org.eclipse.e4.ui.workbench.modeling.EModelService;
+import org.eclipse.emf.common.notify.Notifier;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -441,4 +444,72 @@ public class EModelServiceFindTest {
 		assertEquals(1, elements.size());
 		assertEquals(part, elements.get(0));
 	}
+
+	@Test
+	public void testFindElementsWithElementIndex() {
+		MApplication application = createApplication();
+		EModelService modelService = application.getContext().get(EModelService.class);
+
+		MWindow window = modelService.createModelElement(MWindow.class);
+		application.getChildren().add(window);
+		MPerspectiveStack perspectiveStack = modelService.createModelElement(MPerspectiveStack.class);
+		window.getChildren().add(perspectiveStack);
+		MPerspective perspective = modelService.createModelElement(MPerspective.class);
+		perspectiveStack.getChildren().add(perspective);
+		MPart sharedPart = modelService.createModelElement(MPart.class);
+		sharedPart.setElementId("sharedPartId");
+		window.getSharedElements().add(sharedPart);
+		MPlaceholder placeholder = modelService.createModelElement(MPlaceholder.class);
+		placeholder.setRef(sharedPart);
+		perspective.getChildren().add(placeholder);
+
+		List<String> tags = new ArrayList<>();
+		tags.add("twoValidTags");
+		int flags = EModelService.ANYWHERE | EModelService.IN_MAIN_MENU | EModelService.IN_PART;
+		List<MUIElement> twoValidIds = modelService.findElements(application, "twoValidIds", null, null);
+		List<MUIElement> twoValidTags = modelService.findElements(application, null, null, tags);
+		List<MUIElement> toolControl = modelService.findElements(application, "toolControl1Id", null, null, flags);
+		List<MPart> sharedParts = modelService.findElements(window, "sharedPartId", MPart.class, null);
+		List<MPart> parts = modelService.findElements(application, null, MPart.class, null);
+		List<MPerspective> perspectives = modelService.findElements(application, null, MPerspective.class, null);
+		List<MUIElement> elements = modelService.findElements(application, null, MUIElement.class, null);
+
+		UIEventPublisher publisher = new UIEventPublisher(applicationContext, true);
+		applicationContext.set(UIEventPublisher.class, publisher);
+		((Notifier) application).eAdapters().add(publisher);
+
+		// same elements in the same order as without the index
+		assertEquals(twoValidIds, modelService.findElements(application, "twoValidIds", null, null));
+		assertEquals(twoValidTags, modelService.findElements(application, null, null, tags));
+		assertEquals(toolControl, modelService.findElements(application, "toolControl1Id", null, null, flags));
+		assertEquals(sharedParts, modelService.findElements(window, "sharedPartId", MPart.class, null));
+		assertEquals(parts, modelService.findElements(application, null, MPart.class, null));
+		assertEquals(perspectives, modelService.findElements(application, null, MPerspective.class, null));
+		assertEquals(elements, modelService.findElements(application, null, MUIElement.class, null));
+		assertEquals(0, modelService.findElements(application, "toolControl1Id", null, null).size());
+		assertEquals(0, modelService.findElements(application, "invalidId", null, null).size());
+
+		// the index follows the changes of the model
+		sharedPart.setElementId("renamedPartId");
+		assertEquals(0, modelService.findElements(window, "sharedPartId", MPart.class, null).size());
+		assertEquals(sharedParts, modelService.findElements(window, "renamedPartId", MPart.class, null));
+
+		sharedPart.getTags().add("twoValidTags");
+		assertEquals(3, modelService.findElements(application, null, null, tags).size());
+
+		placeholder.setRef(null);
+		assertEquals(0, modelService.findElements(window, "renamedPartId", MPart.class, null).size());
+
+		MUIElement psc = twoValidIds.get(0);
+		psc.getParent().getChildren().remove(psc);
+		assertEquals(0, modelService.findElements(application, null, null, tags).size());
+		assertNull(modelService.find("twoValidIds", application));
+
+		MPart addedPart = modelService.createModelElement(MPart.class);
+		addedPart.setElementId("addedPartId");
+		perspective.getChildren().add(addedPart);
+		assertSame(addedPart, modelService.find("addedPartId", application));
+		assertTrue(modelService.findElements(application, null, MPart.class, null).contains(addedPart));
+		assertEquals(perspectives, modelService.findElements(application, null, MPerspective.class, null));
+	}
 }
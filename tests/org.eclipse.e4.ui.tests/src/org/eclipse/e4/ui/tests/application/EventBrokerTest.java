@@ -13,7 +13,11 @@ package org.eclipse.e4.ui.tests.application;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.core.services.events.IEventBroker;
@@ -28,6 +32,7 @@ import org.osgi.service.event.EventHandler;
  */
 public class EventBrokerTest extends UITest {
 	private static final String TEST_TOPIC = "test/EventBrokerTest";
+	private static final String TEST_MODEL_TOPIC = "org/eclipse/e4/ui/model/test/EventBrokerTest/SET";
 
 	private AtomicInteger seen;
 	private IEclipseContext context;
@@ -118,4 +123,84 @@ public class EventBrokerTest extends UITest {
 		assertEquals("subscription was not removed", 2, seen.get());
 	}
 
+	@Test
+	public void testModelTopicSubscriptions() {
+		IEventBroker publisher = context.get(IEventBroker.class);
+		IEclipseContext child = context.createChild();
+		IEventBroker subscriber = child.get(IEventBroker.class);
+		final AtomicInteger seenAll = new AtomicInteger(0);
+		EventHandler handler = new EventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				seen.incrementAndGet();
+			}
+		};
+		subscriber.subscribe(TEST_MODEL_TOPIC, handler);
+		subscriber.subscribe("org/eclipse/e4/ui/model/test/*", new EventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				seenAll.incrementAndGet();
+			}
+		});
+
+		publisher.send(TEST_MODEL_TOPIC, new Object());
+		publisher.send("org/eclipse/e4/ui/model/test/EventBrokerTest/ADD", new Object());
+		publisher.send("org/eclipse/e4/ui/model/other/EventBrokerTest/SET", new Object());
+		assertEquals(1, seen.get());
+		assertEquals(2, seenAll.get());
+
+		subscriber.unsubscribe(handler);
+		publisher.send(TEST_MODEL_TOPIC, new Object());
+		assertEquals("subscription was not removed", 1, seen.get());
+		assertEquals(3, seenAll.get());
+
+		child.dispose();
+		publisher.send(TEST_MODEL_TOPIC, new Object());
+		assertEquals("event broker did not properly unsubscribe on dispose", 3, seenAll.get());
+	}
+
+	@Test
+	public void testModelTopicHandlerException() {
+		IEventBroker eb = context.get(IEventBroker.class);
+		eb.subscribe(TEST_MODEL_TOPIC, new EventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				throw new IllegalStateException("expected by the test");
+			}
+		});
+		eb.subscribe(TEST_MODEL_TOPIC, new EventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				seen.incrementAndGet();
+			}
+		});
+
+		eb.send(TEST_MODEL_TOPIC, new Object());
+		assertEquals("exception stopped the delivery to the other handlers", 1, seen.get());
+	}
+
+	@Test
+	public void testMapData() {
+		IEventBroker eb = context.get(IEventBroker.class);
+		final Event[] received = new Event[1];
+		eb.subscribe(TEST_MODEL_TOPIC, new EventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				received[0] = event;
+			}
+		});
+
+		Map<String, Object> data = new HashMap<>();
+		data.put("key", "value");
+		eb.send(TEST_MODEL_TOPIC, data);
+		assertEquals(TEST_MODEL_TOPIC, received[0].getTopic());
+		assertEquals("value", received[0].getProperty("key"));
+		assertSame(data, received[0].getProperty(IEventBroker.DATA));
+
+		Map<String, Object> immutableData = Collections.<String, Object> singletonMap("key", "other value");
+		eb.send(TEST_MODEL_TOPIC, immutableData);
+		assertEquals("other value", received[0].getProperty("key"));
+		assertSame(immutableData, received[0].getProperty(IEventBroker.DATA));
+	}
+
 }
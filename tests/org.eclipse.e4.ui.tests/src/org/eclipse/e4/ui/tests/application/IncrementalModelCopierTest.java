@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.e4.ui.tests.application;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.ui.internal.workbench.IncrementalModelCopier;
+import org.eclipse.e4.ui.internal.workbench.swt.E4Application;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPlaceholder;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartSashContainer;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartStack;
+import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
+import org.eclipse.e4.ui.model.application.ui.menu.MToolBar;
+import org.eclipse.e4.ui.workbench.modeling.EModelService;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IncrementalModelCopierTest {
+
+	private IEclipseContext applicationContext;
+	private EModelService modelService;
+
+	private MApplication application;
+	private MPartStack stack1;
+	private MPartStack stack2;
+	private MPart part;
+
+	private IncrementalModelCopier copier;
+
+	@Before
+	public void setUp() throws Exception {
+		applicationContext = E4Application.createDefaultContext();
+		modelService = applicationContext.get(EModelService.class);
+
+		application = modelService.createModelElement(MApplication.class);
+		MWindow window = modelService.createModelElement(MWindow.class);
+		application.getChildren().add(window);
+		MPartSashContainer sash = modelService.createModelElement(MPartSashContainer.class);
+		window.getChildren().add(sash);
+		stack1 = modelService.createModelElement(MPartStack.class);
+		sash.getChildren().add(stack1);
+		stack2 = modelService.createModelElement(MPartStack.class);
+		sash.getChildren().add(stack2);
+		part = modelService.createModelElement(MPart.class);
+		part.setElementId("part");
+		stack1.getChildren().add(part);
+		stack1.setSelectedElement(part);
+
+		copier = new IncrementalModelCopier((EObject) application);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		copier.dispose();
+		applicationContext.dispose();
+	}
+
+	private void assertCopy(EObject copy) {
+		assertNotSame(application, copy);
+		assertTrue(EcoreUtil.equals(EcoreUtil.copy((EObject) application), copy));
+	}
+
+	private EObject getCopy(EObject copy, Object element) {
+		String path = EcoreUtil.getRelativeURIFragmentPath((EObject) application, (EObject) element);
+		return EcoreUtil.getEObject(copy, path);
+	}
+
+	@Test
+	public void testInitialCopy() {
+		EObject copy = copier.update();
+		assertCopy(copy);
+		MPartStack stackCopy = (MPartStack) getCopy(copy, stack1);
+		assertSame(getCopy(copy, part), stackCopy.getSelectedElement());
+	}
+
+	@Test
+	public void testUpdateAttributes() {
+		EObject copy = copier.update();
+		part.setLabel("label");
+		part.getTags().add("tag");
+		part.getPersistedState().put("key", "value");
+		assertSame(copy, copier.update());
+		assertCopy(copy);
+
+		part.setLabel(null);
+		part.getTags().clear();
+		part.getPersistedState().clear();
+		copier.update();
+		assertCopy(copy);
+	}
+
+	@Test
+	public void testAddAndRemoveElements() {
+		EObject copy = copier.update();
+		MPart part2 = modelService.createModelElement(MPart.class);
+		part2.setElementId("part2");
+		part2.setToolbar(modelService.createModelElement(MToolBar.class));
+		stack2.getChildren().add(part2);
+		stack2.setSelectedElement(part2);
+		copier.update();
+		assertCopy(copy);
+
+		stack2.setSelectedElement(null);
+		stack2.getChildren().remove(part2);
+		copier.update();
+		assertCopy(copy);
+	}
+
+	@Test
+	public void testMoveElement() {
+		MPlaceholder placeholder = modelService.createModelElement(MPlaceholder.class);
+		placeholder.setRef(part);
+		stack2.getChildren().add(placeholder);
+		EObject copy = copier.update();
+
+		// the placeholder is not changed, so its copy must still refer to the
+		// copy of the moved part
+		stack1.setSelectedElement(null);
+		stack2.getChildren().add(part);
+		copier.update();
+		assertCopy(copy);
+
+		MPlaceholder placeholderCopy = (MPlaceholder) getCopy(copy, placeholder);
+		assertSame(getCopy(copy, part), placeholderCopy.getRef());
+	}
+
+	@Test
+	public void testRemoveAndAddBackElement() {
+		MPlaceholder placeholder = modelService.createModelElement(MPlaceholder.class);
+		placeholder.setRef(part);
+		stack2.getChildren().add(placeholder);
+		EObject copy = copier.update();
+		MPlaceholder placeholderCopy = (MPlaceholder) getCopy(copy, placeholder);
+
+		// the placeholder is not changed, so its copy must refer to the part
+		// outside the model, and then to the new copy of the part
+		stack1.setSelectedElement(null);
+		stack1.getChildren().remove(part);
+		copier.update();
+		assertCopy(copy);
+		assertSame(part, placeholderCopy.getRef());
+
+		stack1.getChildren().add(part);
+		copier.update();
+		assertCopy(copy);
+		assertSame(getCopy(copy, part), placeholderCopy.getRef());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2017 IBM Corporation and others.
+ * Copyright (c) 2010, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,16 +13,22 @@
 package org.eclipse.e4.ui.tests.application;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.util.List;
+import org.eclipse.core.runtime.URIUtil;
 import org.eclipse.e4.core.contexts.ContextInjectionFactory;
 import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.ui.internal.workbench.E4Workbench;
 import org.eclipse.e4.ui.internal.workbench.E4XMIResource;
 import org.eclipse.e4.ui.internal.workbench.ResourceHandler;
 import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.MApplicationElement;
 import org.eclipse.e4.ui.model.application.commands.MCommand;
 import org.eclipse.e4.ui.model.application.commands.MHandler;
 import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
@@ -30,9 +36,12 @@ import org.eclipse.e4.ui.model.application.ui.basic.MWindowElement;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenu;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenuElement;
 import org.eclipse.e4.ui.workbench.IWorkbench;
+import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.junit.Test;
 import org.osgi.framework.BundleContext;
@@ -62,10 +71,15 @@ public class ResourceHandlerTest extends HeadlessStartupTest {
 	}
 
 	private ResourceHandler createHandler(URI uri) {
+		return createHandler(uri, true, false);
+	}
+
+	private ResourceHandler createHandler(URI uri, boolean clearPersistedState, boolean binarySnapshot) {
 		IEclipseContext localContext = applicationContext.createChild();
 		localContext.set(E4Workbench.INSTANCE_LOCATION, getInstanceLocation());
 		localContext.set(IWorkbench.PERSIST_STATE, Boolean.TRUE);
-		localContext.set(IWorkbench.CLEAR_PERSISTED_STATE, Boolean.TRUE);
+		localContext.set(IWorkbench.CLEAR_PERSISTED_STATE, Boolean.valueOf(clearPersistedState));
+		localContext.set(E4Workbench.BINARY_MODEL_SNAPSHOT, Boolean.valueOf(binarySnapshot));
 
 		localContext.set(E4Workbench.INITIAL_WORKBENCH_MODEL_URI, uri);
 
@@ -163,6 +177,75 @@ public class ResourceHandlerTest extends HeadlessStartupTest {
 		assertNotNull(findByElementId(menu2.getChildren(), "fragment.contributedMenuItem.xpath"));
 	}
 
+	@Test
+	public void testBinarySnapshotRoundTrip() throws Exception {
+		URI uri = URI.createPlatformPluginURI("org.eclipse.e4.ui.tests/xmi/modelprocessor/base.e4xmi", true);
+		ResourceHandler handler = createHandler(uri, true, true);
+		E4XMIResource resource = (E4XMIResource) handler.loadMostRecentModel();
+		handler.save();
+
+		ResourceHandler restoreHandler = createHandler(uri, false, true);
+		E4XMIResource restored = (E4XMIResource) restoreHandler.loadMostRecentModel();
+		MApplication application = (MApplication) restored.getContents().get(0);
+		assertEquals(2, application.getChildren().size());
+
+		// the model processors may contribute again to the restored model, so
+		// only check that the saved elements were restored with their ids
+		TreeIterator<EObject> it = resource.getAllContents();
+		while (it.hasNext()) {
+			EObject element = it.next();
+			if (element instanceof MApplicationElement) {
+				EObject restoredElement = restored.getEObject(resource.getID(element));
+				assertNotNull(restoredElement);
+				assertEquals(element.eClass(), restoredElement.eClass());
+				assertEquals(((MApplicationElement) element).getElementId(),
+						((MApplicationElement) restoredElement).getElementId());
+			}
+		}
+	}
+
+	@Test
+	public void testBinarySnapshotSavedOverLoadedSnapshot() throws Exception {
+		URI uri = URI.createPlatformPluginURI("org.eclipse.e4.ui.tests/xmi/modelprocessor/base.e4xmi", true);
+		ResourceHandler handler = createHandler(uri, true, true);
+		handler.loadMostRecentModel();
+		handler.save();
+
+		// the loaded snapshot must not keep the file open, so that it can be
+		// replaced by the next save
+		ResourceHandler restoreHandler = createHandler(uri, false, true);
+		MApplication application = (MApplication) restoreHandler.loadMostRecentModel().getContents().get(0);
+		application.getPersistedState().put("snapshotTest", "saved");
+		restoreHandler.save();
+
+		Resource restored = createHandler(uri, false, true).loadMostRecentModel();
+		application = (MApplication) restored.getContents().get(0);
+		assertEquals("saved", application.getPersistedState().get("snapshotTest"));
+
+		File directory = new File(URIUtil.toURI(getInstanceLocation().getURL()));
+		directory = new File(directory, ".metadata/.plugins/org.eclipse.e4.workbench");
+		for (String name : directory.list()) {
+			assertFalse("temporary file left: " + name, name.endsWith(".tmp"));
+		}
+	}
+
+	@Test
+	public void testXMIExportOfBinarySnapshot() throws Exception {
+		URI uri = URI.createPlatformPluginURI("org.eclipse.e4.ui.tests/xmi/modelprocessor/base.e4xmi", true);
+		ResourceHandler handler = createHandler(uri, true, true);
+		handler.loadMostRecentModel();
+		handler.save();
+
+		Resource restored = createHandler(uri, false, true).loadMostRecentModel();
+		ByteArrayOutputStream xmi = new ByteArrayOutputStream();
+		restored.save(xmi, null);
+
+		E4XMIResource exported = new E4XMIResource();
+		new ResourceSetImpl().getResources().add(exported);
+		exported.load(new ByteArrayInputStream(xmi.toByteArray()), null);
+		assertTrue(EcoreUtil.equals(restored.getContents(), exported.getContents()));
+	}
+
 	/**
 	 * @param children
 	 * @param id
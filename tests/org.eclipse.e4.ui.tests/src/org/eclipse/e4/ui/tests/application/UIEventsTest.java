@@ -11,6 +11,7 @@
 
 package org.eclipse.e4.ui.tests.application;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -25,6 +26,8 @@ import org.eclipse.e4.ui.model.application.MApplication;
 import org.eclipse.e4.ui.model.application.MApplicationElement;
 import org.eclipse.e4.ui.model.application.MApplicationFactory;
 import org.eclipse.e4.ui.model.application.ui.basic.MBasicFactory;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartStack;
 import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenu;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenuFactory;
@@ -37,6 +40,7 @@ import org.eclipse.e4.ui.workbench.UIEvents.Contribution;
 import org.eclipse.e4.ui.workbench.UIEvents.Dirtyable;
 import org.eclipse.e4.ui.workbench.UIEvents.ElementContainer;
 import org.eclipse.e4.ui.workbench.UIEvents.EventTags;
+import org.eclipse.e4.ui.workbench.UIEvents.EventTypes;
 import org.eclipse.e4.ui.workbench.UIEvents.Input;
 import org.eclipse.e4.ui.workbench.UIEvents.Parameter;
 import org.eclipse.e4.ui.workbench.UIEvents.UIElement;
@@ -363,6 +367,90 @@ public class UIEventsTest extends HeadlessApplicationElementTest {
 		assertFalse(seen[0]);
 	}
 
+	@Test
+	public void testBatchedEvents() {
+		IEventBroker appEB = applicationContext.get(IEventBroker.class);
+		final List<Event> events = new ArrayList<Event>();
+		EventHandler handler = new EventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				events.add(event);
+			}
+		};
+		appEB.subscribe(UIElement.TOPIC_ALL, handler);
+		appEB.subscribe(UILabel.TOPIC_ALL, handler);
+
+		MWindow window = MBasicFactory.INSTANCE.createWindow();
+		final UIEventPublisher ep = new UIEventPublisher(applicationContext);
+		((Notifier) window).eAdapters().add(ep);
+		try {
+			ep.beginBatch();
+			window.setLabel("first");
+			window.setLabel("second");
+			window.setToBeRendered(false);
+			window.setToBeRendered(true);
+			assertTrue("events were sent during the batch", events.isEmpty());
+			ep.endBatch();
+
+			assertEquals(1, events.size());
+			Event event = events.get(0);
+			assertEquals(UILabel.LABEL, event.getProperty(EventTags.ATTNAME));
+			assertEquals(null, event.getProperty(EventTags.OLD_VALUE));
+			assertEquals("second", event.getProperty(EventTags.NEW_VALUE));
+			assertEquals(3, ep.getCoalescedEventCount());
+			assertEquals(1, ep.getPublishedEventCount());
+
+			// outside a batch the events are sent immediately
+			events.clear();
+			window.setLabel("third");
+			assertEquals(1, events.size());
+			assertEquals("second", events.get(0).getProperty(EventTags.OLD_VALUE));
+		} finally {
+			appEB.unsubscribe(handler);
+			((Notifier) window).eAdapters().remove(ep);
+		}
+	}
+
+	@Test
+	public void testBatchedEventsOrder() {
+		IEventBroker appEB = applicationContext.get(IEventBroker.class);
+		final List<Event> events = new ArrayList<Event>();
+		EventHandler handler = new EventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				events.add(event);
+			}
+		};
+		appEB.subscribe(ElementContainer.TOPIC_ALL, handler);
+
+		MPartStack stack = MBasicFactory.INSTANCE.createPartStack();
+		MPart part1 = MBasicFactory.INSTANCE.createPart();
+		MPart part2 = MBasicFactory.INSTANCE.createPart();
+		stack.getChildren().add(part1);
+		final UIEventPublisher ep = new UIEventPublisher(applicationContext);
+		((Notifier) stack).eAdapters().add(ep);
+		try {
+			ep.beginBatch();
+			stack.setSelectedElement(part1);
+			stack.getChildren().add(part2);
+			stack.setSelectedElement(part2);
+			ep.endBatch();
+
+			// the selection is sent after the addition of the selected part
+			assertEquals(2, events.size());
+			assertEquals(ElementContainer.CHILDREN, events.get(0).getProperty(EventTags.ATTNAME));
+			assertEquals(EventTypes.ADD, events.get(0).getProperty(EventTags.TYPE));
+			assertEquals(part2, events.get(0).getProperty(EventTags.NEW_VALUE));
+			assertEquals(ElementContainer.SELECTEDELEMENT, events.get(1).getProperty(EventTags.ATTNAME));
+			assertEquals(null, events.get(1).getProperty(EventTags.OLD_VALUE));
+			assertEquals(part2, events.get(1).getProperty(EventTags.NEW_VALUE));
+			assertEquals(1, ep.getCoalescedEventCount());
+		} finally {
+			appEB.unsubscribe(handler);
+			((Notifier) stack).eAdapters().remove(ep);
+		}
+	}
+
 	/**
 	 * @param allTesters
 	 * @param tester
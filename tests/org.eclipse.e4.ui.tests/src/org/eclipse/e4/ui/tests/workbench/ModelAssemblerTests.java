@@ -350,6 +350,36 @@ public class ModelAssemblerTests {
 		verifyZeroInteractions(logger);
 	}
 
+	/**
+	 * Tests that the fragments, whose resources are loaded in parallel, are
+	 * merged in the order of their contributions and that their resources are
+	 * added to the resource set of the application in the same order.
+	 *
+	 * @throws Exception
+	 *             if anything went wrong during the test
+	 */
+	@Test
+	public void testFragmentsOrder() throws Exception {
+		MTrimmedWindow trimmedWindow = MBasicFactory.INSTANCE.createTrimmedWindow();
+		trimmedWindow.setElementId("testFragmentsOrder-window");
+		application.getChildren().add(trimmedWindow);
+
+		IContributor contributor = ContributorFactorySimple.createContributor(BUNDLE_SYMBOLIC_NAME);
+		IExtensionRegistry registry = createTestExtensionRegistry();
+		String dataFilePath = "org.eclipse.e4.ui.tests/data/ModelAssembler/fragmentsOrder.xml";
+		registry.addContribution(getContentsAsInputStream(dataFilePath), contributor, false, null, null, null);
+
+		assembler.processModel(true);
+
+		assertEquals(3, trimmedWindow.getChildren().size());
+		for (int i = 0; i < 3; i++) {
+			assertEquals("testFragmentsOrder-part" + (i + 1), trimmedWindow.getChildren().get(i).getElementId());
+			assertEquals("fragmentsOrder-fragment" + (i + 1) + ".e4xmi",
+					resourceSet.getResources().get(i + 1).getURI().lastSegment());
+		}
+		verifyZeroInteractions(logger);
+	}
+
 	/**
 	 * Tests that pre-processors running from a non-persisted state that are
 	 * marked as "always" are executed.
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.benchmarks;
+
+import java.beans.PropertyDescriptor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.databinding.beans.BeanProperties;
+import org.eclipse.core.databinding.beans.PojoProperties;
+import org.eclipse.core.databinding.property.value.IValueProperty;
+import org.eclipse.core.internal.databinding.beans.BeanPropertyHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the reading and writing of a property through
+ * {@link BeanProperties} and {@link PojoProperties}, compared with calls of
+ * the accessor methods through {@link BeanPropertyHelper}, which uses
+ * reflection, and with direct calls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanPropertyBenchmark {
+
+	/**
+	 * A bean with a string and a primitive property.
+	 */
+	public static class Person {
+		private String name;
+
+		private int age;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+	}
+
+	private Person person;
+
+	private IValueProperty<Person, String> beanName;
+
+	private IValueProperty<Person, Integer> beanAge;
+
+	private IValueProperty<Person, String> pojoName;
+
+	private PropertyDescriptor nameDescriptor;
+
+	private String value;
+
+	/**
+	 * Creates the bean and the properties.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		person = new Person();
+		person.setName("name");
+		person.setAge(42);
+		beanName = BeanProperties.value(Person.class, "name", String.class);
+		beanAge = BeanProperties.value(Person.class, "age", Integer.class);
+		pojoName = PojoProperties.value(Person.class, "name", String.class);
+		nameDescriptor = BeanPropertyHelper.getPropertyDescriptor(Person.class, "name");
+		value = "other name";
+	}
+
+	/**
+	 * @return the name
+	 */
+	@Benchmark
+	public String readDirect() {
+		return person.getName();
+	}
+
+	/**
+	 * @return the name
+	 */
+	@Benchmark
+	public Object readReflective() {
+		return BeanPropertyHelper.readProperty(person, nameDescriptor);
+	}
+
+	/**
+	 * @return the name
+	 */
+	@Benchmark
+	public String readBeanProperty() {
+		return beanName.getValue(person);
+	}
+
+	/**
+	 * @return the age
+	 */
+	@Benchmark
+	public Integer readBeanPrimitiveProperty() {
+		return beanAge.getValue(person);
+	}
+
+	/**
+	 * @return the name
+	 */
+	@Benchmark
+	public String readPojoProperty() {
+		return pojoName.getValue(person);
+	}
+
+	/**
+	 * Sets the name directly.
+	 */
+	@Benchmark
+	public void writeDirect() {
+		person.setName(value);
+	}
+
+	/**
+	 * Sets the name through reflection.
+	 */
+	@Benchmark
+	public void writeReflective() {
+		BeanPropertyHelper.writeProperty(person, nameDescriptor, value);
+	}
+
+	/**
+	 * Sets the name through the POJO property, which does not fire events.
+	 */
+	@Benchmark
+	public void writePojoProperty() {
+		pojoName.setValue(person, value);
+	}
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options, writes the results
+ * as JSON to <code>jmh-result.json</code> unless another result file or
+ * format is given, and optionally compares them with the results of a
+ * previous run.
+ * <p>
+ * The comparison is enabled by the system property
+ * <code>jface.benchmarks.baseline</code>, the path of the JSON results of the
+ * previous run. The process exits with status 1 if the score of a benchmark
+ * is worse than the one of the baseline by more than
+ * <code>jface.benchmarks.threshold</code> percent, 10 by default.
+ * </p>
+ */
+public class BenchmarkMain {
+
+	private static final String BASELINE = "jface.benchmarks.baseline";
+
+	private static final String THRESHOLD = "jface.benchmarks.threshold";
+
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args
+	 *            the JMH command line options
+	 * @throws Exception
+	 *             if the options are invalid or the benchmarks fail
+	 */
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions options;
+		try {
+			options = new CommandLineOptions(args);
+		} catch (CommandLineOptionException e) {
+			System.err.println("Error parsing command line: " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+		if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams()
+				|| options.shouldListProfilers() || options.shouldListResultFormats()) {
+			Main.main(args);
+			return;
+		}
+		ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+		if (!options.getResultFormat().hasValue() && !options.getResult().hasValue()) {
+			builder.resultFormat(ResultFormatType.JSON).result("jmh-result.json");
+		}
+		Collection<RunResult> results;
+		try {
+			results = new Runner(builder.build()).run();
+		} catch (RunnerException e) {
+			System.err.println("Error running the benchmarks: " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+		String baseline = System.getProperty(BASELINE);
+		if (baseline != null) {
+			double threshold = Double.parseDouble(System.getProperty(THRESHOLD, "10"));
+			if (compare(results, readScores(baseline), threshold) > 0) {
+				System.exit(1);
+			}
+		}
+	}
+
+	/**
+	 * Returns the key identifying the results of a benchmark with some
+	 * parameters in a mode.
+	 */
+	private static String getKey(String benchmark, String mode, Map<String, String> params) {
+		return benchmark + ' ' + mode + ' ' + new TreeMap<>(params);
+	}
+
+	/**
+	 * Reads the primary scores of the JSON results of JMH.
+	 *
+	 * @param path
+	 *            the path of the results
+	 * @return the scores by key
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	static Map<String, Double> readScores(String path) throws IOException {
+		String json = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+		Map<String, Double> scores = new HashMap<>();
+		for (Object element : (List<?>) JsonParser.parse(json)) {
+			Map<?, ?> result = (Map<?, ?>) element;
+			Map<String, String> params = new HashMap<>();
+			Map<?, ?> resultParams = (Map<?, ?>) result.get("params");
+			if (resultParams != null) {
+				resultParams.forEach((key, value) -> params.put((String) key, (String) value));
+			}
+			Map<?, ?> metric = (Map<?, ?>) result.get("primaryMetric");
+			scores.put(getKey((String) result.get("benchmark"), (String) result.get("mode"), params),
+					(Double) metric.get("score"));
+		}
+		return scores;
+	}
+
+	/**
+	 * Prints the results which are worse than the ones of the baseline.
+	 *
+	 * @return the number of regressions
+	 */
+	private static int compare(Collection<RunResult> results, Map<String, Double> baseline, double threshold) {
+		int regressions = 0;
+		for (RunResult result : results) {
+			BenchmarkParams benchmarkParams = result.getParams();
+			Map<String, String> params = new HashMap<>();
+			for (String key : benchmarkParams.getParamsKeys()) {
+				params.put(key, benchmarkParams.getParam(key));
+			}
+			String key = getKey(benchmarkParams.getBenchmark(), benchmarkParams.getMode().shortLabel(), params);
+			Double previous = baseline.get(key);
+			if (previous == null || previous.doubleValue() == 0) {
+				continue;
+			}
+			double score = result.getPrimaryResult().getScore();
+			// the time modes measure a duration, the throughput mode a rate
+			double change = (score - previous.doubleValue()) / previous.doubleValue() * 100;
+			if (benchmarkParams.getMode() == Mode.Throughput) {
+				change = -change;
+			}
+			if (change > threshold) {
+				regressions++;
+				System.err.println(String.format("Regression: %s is %.1f%% worse (%.3f, baseline %.3f %s)", key,
+						change, score, previous, result.getPrimaryResult().getScoreUnit()));
+			}
+		}
+		System.out.println(regressions + " regression(s) over " + threshold + "%");
+		return regressions;
+	}
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.benchmarks;
+
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The display and an open shell of the benchmark thread. SWT must be
+ * accessed from the thread that created the display, so the benchmarks using
+ * it run in a single thread, which runs the setup and tear down methods as
+ * well.
+ */
+@State(Scope.Thread)
+public class DisplayState {
+
+	/**
+	 * The display of the benchmark thread.
+	 */
+	public Display display;
+
+	/**
+	 * An open shell with a fill layout.
+	 */
+	public Shell shell;
+
+	/**
+	 * Creates the display and the shell.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		display = Display.getCurrent();
+		if (display == null) {
+			display = new Display();
+		}
+		shell = new Shell(display);
+		shell.setLayout(new FillLayout());
+		shell.setSize(400, 600);
+		shell.open();
+		runEventLoop();
+	}
+
+	/**
+	 * Dispatches the pending events, so that they do not pile up from one
+	 * iteration to the next.
+	 */
+	@TearDown(Level.Iteration)
+	public void runEventLoop() {
+		while (display.readAndDispatch()) {
+			// keep dispatching
+		}
+	}
+
+	/**
+	 * Disposes the shell and the display.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		shell.dispose();
+		display.dispose();
+	}
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Creates the elements given to the viewers in the benchmarks.
+ */
+final class Elements {
+
+	/**
+	 * The number of elements added and removed at once.
+	 */
+	static final int BATCH_SIZE = 100;
+
+	private Elements() {
+	}
+
+	/**
+	 * Returns distinct strings in a random but reproducible order.
+	 *
+	 * @param prefix
+	 *            the prefix of the strings
+	 * @param count
+	 *            the number of strings
+	 * @return a new list of strings
+	 */
+	static List<String> createList(String prefix, int count) {
+		Random random = new Random(count);
+		List<String> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(prefix + ' ' + Integer.toString(random.nextInt(Integer.MAX_VALUE), 36) + ' ' + i);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal parser of the JSON results of JMH. Objects are parsed to maps,
+ * arrays to lists, numbers to doubles, and the literals to booleans or
+ * <code>null</code>.
+ */
+final class JsonParser {
+
+	private final String text;
+
+	private int position;
+
+	private JsonParser(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * Parses a JSON value.
+	 *
+	 * @param text
+	 *            the JSON text
+	 * @return the value
+	 * @throws IllegalArgumentException
+	 *             if the text is not valid JSON
+	 */
+	static Object parse(String text) {
+		JsonParser parser = new JsonParser(text);
+		Object value = parser.parseValue();
+		parser.skipWhitespace();
+		if (parser.position != text.length()) {
+			throw parser.error("end of text");
+		}
+		return value;
+	}
+
+	private Object parseValue() {
+		skipWhitespace();
+		if (position >= text.length()) {
+			throw error("value");
+		}
+		char c = text.charAt(position);
+		switch (c) {
+		case '{':
+			return parseObject();
+		case '[':
+			return parseArray();
+		case '"':
+			return parseString();
+		default:
+			if (text.startsWith("true", position)) {
+				position += 4;
+				return Boolean.TRUE;
+			} else if (text.startsWith("false", position)) {
+				position += 5;
+				return Boolean.FALSE;
+			} else if (text.startsWith("null", position)) {
+				position += 4;
+				return null;
+			} else if (text.startsWith("\"NaN\"", position)) {
+				position += 5;
+				return Double.valueOf(Double.NaN);
+			}
+			return parseNumber();
+		}
+	}
+
+	private Map<String, Object> parseObject() {
+		Map<String, Object> result = new LinkedHashMap<>();
+		position++;
+		skipWhitespace();
+		if (consume('}')) {
+			return result;
+		}
+		do {
+			skipWhitespace();
+			String key = parseString();
+			skipWhitespace();
+			expect(':');
+			result.put(key, parseValue());
+			skipWhitespace();
+		} while (consume(','));
+		expect('}');
+		return result;
+	}
+
+	private List<Object> parseArray() {
+		List<Object> result = new ArrayList<>();
+		position++;
+		skipWhitespace();
+		if (consume(']')) {
+			return result;
+		}
+		do {
+			result.add(parseValue());
+			skipWhitespace();
+		} while (consume(','));
+		expect(']');
+		return result;
+	}
+
+	private String parseString() {
+		expect('"');
+		StringBuilder result = new StringBuilder();
+		while (position < text.length()) {
+			char c = text.charAt(position++);
+			if (c == '"') {
+				return result.toString();
+			} else if (c != '\\') {
+				result.append(c);
+			} else if (position < text.length()) {
+				char escaped = text.charAt(position++);
+				switch (escaped) {
+				case 'n':
+					result.append('\n');
+					break;
+				case 't':
+					result.append('\t');
+					break;
+				case 'r':
+					result.append('\r');
+					break;
+				case 'b':
+					result.append('\b');
+					break;
+				case 'f':
+					result.append('\f');
+					break;
+				case 'u':
+					if (position + 4 > text.length()) {
+						throw error("unicode escape");
+					}
+					result.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+					position += 4;
+					break;
+				default:
+					result.append(escaped);
+				}
+			}
+		}
+		throw error("end of string");
+	}
+
+	private Double parseNumber() {
+		int start = position;
+		while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+			position++;
+		}
+		try {
+			return Double.valueOf(text.substring(start, position));
+		} catch (NumberFormatException e) {
+			position = start;
+			throw error("number");
+		}
+	}
+
+	private void skipWhitespace() {
+		while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+			position++;
+		}
+	}
+
+	private boolean consume(char c) {
+		if (position < text.length() && text.charAt(position) == c) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	private void expect(char c) {
+		if (!consume(c)) {
+			throw error("'" + c + "'");
+		}
+	}
+
+	private IllegalArgumentException error(String expected) {
+		return new IllegalArgumentException("Expected " + expected + " at offset " + position);
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.list.ListDiff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Diffs#computeListDiff(List, List)} with the kinds of changes
+ * of the lists of the observables, such as the ones set by
+ * <code>WritableList.setAll</code> or computed by <code>ComputedList</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListDiffBenchmark {
+
+	/**
+	 * The number of elements of the lists.
+	 */
+	@Param({ "1000", "10000", "50000" })
+	public int count;
+
+	/**
+	 * The change from the old list to the new one: a few insertions and
+	 * removals, a few moved elements, the reversed list, or the shuffled list.
+	 */
+	@Param({ "edits", "moves", "reverse", "shuffle" })
+	public String change;
+
+	private List<String> oldList;
+
+	private List<String> newList;
+
+	/**
+	 * Creates the lists.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		oldList = Elements.createList("element", count);
+		newList = new ArrayList<>(oldList);
+		Random random = new Random(count);
+		switch (change) {
+		case "edits":
+			for (int i = 0; i < Elements.BATCH_SIZE; i++) {
+				newList.remove(random.nextInt(newList.size()));
+				newList.add(random.nextInt(newList.size()), "added " + i);
+			}
+			break;
+		case "moves":
+			for (int i = 0; i < Elements.BATCH_SIZE; i++) {
+				newList.add(random.nextInt(newList.size()), newList.remove(random.nextInt(newList.size())));
+			}
+			break;
+		case "reverse":
+			Collections.reverse(newList);
+			break;
+		case "shuffle":
+			Collections.shuffle(newList, random);
+			break;
+		default:
+			throw new IllegalArgumentException(change);
+		}
+	}
+
+	/**
+	 * Computes the differences between the lists.
+	 *
+	 * @return the differences
+	 */
+	@Benchmark
+	public ListDiff<String> computeListDiff() {
+		return Diffs.computeListDiff(oldList, newList);
+	}
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.jface.resource.LocalResourceManager;
+import org.eclipse.jface.resource.ResourceManager;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the allocation and disposal of images and colors by
+ * {@link LocalResourceManager}s, as done by the parts and dialogs which are
+ * opened and closed. The results are per resource.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class ResourceManagerBenchmark {
+
+	private static final int RESOURCE_COUNT = 100;
+
+	private ResourceManager parent;
+
+	private ImageDescriptor[] images;
+
+	private RGB[] colors;
+
+	private LocalResourceManager owner;
+
+	/**
+	 * Whether half of the resources are already allocated by another manager,
+	 * so that only their reference counts change.
+	 */
+	@Param({ "false", "true" })
+	public boolean shared;
+
+	/**
+	 * Creates the descriptors of the resources.
+	 *
+	 * @param state
+	 *            the display of the benchmark thread
+	 */
+	@Setup(Level.Trial)
+	public void setUp(DisplayState state) {
+		parent = JFaceResources.getResources(state.display);
+		images = new ImageDescriptor[RESOURCE_COUNT];
+		colors = new RGB[RESOURCE_COUNT];
+		PaletteData palette = new PaletteData(0xFF0000, 0xFF00, 0xFF);
+		for (int i = 0; i < RESOURCE_COUNT; i++) {
+			ImageData data = new ImageData(16, 16, 24, palette);
+			for (int x = 0; x < 16; x++) {
+				data.setPixel(x, x, i * 0x10101);
+			}
+			images[i] = ImageDescriptor.createFromImageDataProvider(zoom -> zoom == 100 ? data : null);
+			colors[i] = new RGB(i, 255 - i, i * 2);
+		}
+		owner = new LocalResourceManager(parent);
+		for (int i = 0; shared && i < RESOURCE_COUNT; i += 2) {
+			owner.createImage(images[i]);
+			owner.createColor(colors[i]);
+		}
+	}
+
+	/**
+	 * Creates images in a new local resource manager, then disposes it.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(RESOURCE_COUNT)
+	public void imageChurn() {
+		LocalResourceManager manager = new LocalResourceManager(parent);
+		for (ImageDescriptor image : images) {
+			manager.createImage(image);
+		}
+		manager.dispose();
+	}
+
+	/**
+	 * Creates colors in a new local resource manager, then disposes it.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(RESOURCE_COUNT)
+	public void colorChurn() {
+		LocalResourceManager manager = new LocalResourceManager(parent);
+		for (RGB color : colors) {
+			manager.createColor(color);
+		}
+		manager.dispose();
+	}
+
+	/**
+	 * Disposes the resources allocated for the whole trial.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		owner.dispose();
+	}
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.viewers.IElementComparer;
+import org.eclipse.jface.viewers.StructuredSelection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the creation and comparison of {@link StructuredSelection}s, as
+ * done by the viewers on each selection change.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructuredSelectionBenchmark {
+
+	private static final IElementComparer COMPARER = new IElementComparer() {
+		@Override
+		public boolean equals(Object a, Object b) {
+			return a.equals(b);
+		}
+
+		@Override
+		public int hashCode(Object element) {
+			return element.hashCode();
+		}
+	};
+
+	/**
+	 * The number of selected elements.
+	 */
+	@Param({ "10", "1000", "100000" })
+	public int count;
+
+	private List<String> list;
+
+	private Object[] array;
+
+	private StructuredSelection selection;
+
+	/**
+	 * Creates the selected elements.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		list = Elements.createList("element", count);
+		array = list.toArray();
+		selection = new StructuredSelection(list, COMPARER);
+	}
+
+	/**
+	 * Creates a selection from an array, as from
+	 * {@link StructuredSelection#StructuredSelection(Object[])}.
+	 *
+	 * @return the selection
+	 */
+	@Benchmark
+	public StructuredSelection fromArray() {
+		return new StructuredSelection(array);
+	}
+
+	/**
+	 * Creates a selection from a list, as the structured viewers do.
+	 *
+	 * @return the selection
+	 */
+	@Benchmark
+	public StructuredSelection fromList() {
+		return new StructuredSelection(list, COMPARER);
+	}
+
+	/**
+	 * Creates a selection and returns its elements as a list.
+	 *
+	 * @return the elements of the selection
+	 */
+	@Benchmark
+	public List<?> toList() {
+		return new StructuredSelection(list).toList();
+	}
+
+	/**
+	 * Compares a new selection with the previous one, as done to decide
+	 * whether to notify the selection listeners.
+	 *
+	 * @return whether the selections are equal
+	 */
+	@Benchmark
+	public boolean equalsPrevious() {
+		return new StructuredSelection(list, COMPARER).equals(selection);
+	}
+}
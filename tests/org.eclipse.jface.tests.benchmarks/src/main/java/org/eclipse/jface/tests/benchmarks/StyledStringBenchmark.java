@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.viewers.StyledString;
+import org.eclipse.jface.viewers.StyledString.Styler;
+import org.eclipse.swt.custom.StyleRange;
+import org.eclipse.swt.graphics.TextStyle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the building of {@link StyledString}s, as done by styled label
+ * providers for each element of a viewer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StyledStringBenchmark {
+
+	/**
+	 * Stylers which do not need a display, unlike the color registry stylers
+	 * of <code>StyledString</code>.
+	 */
+	private static final Styler QUALIFIER = new Styler() {
+		@Override
+		public void applyStyles(TextStyle textStyle) {
+			textStyle.strikeout = true;
+		}
+	};
+
+	private static final Styler COUNTER = new Styler() {
+		@Override
+		public void applyStyles(TextStyle textStyle) {
+			textStyle.underline = true;
+		}
+	};
+
+	/**
+	 * The number of styled segments of the string.
+	 */
+	@Param({ "1", "10", "100" })
+	public int segments;
+
+	/**
+	 * Builds a label like the ones of the Java elements: a name, followed by
+	 * qualified and counted segments.
+	 *
+	 * @return the styled string
+	 */
+	@Benchmark
+	public StyledString append() {
+		StyledString string = new StyledString("name");
+		for (int i = 0; i < segments; i++) {
+			string.append(" - qualifier", QUALIFIER);
+			string.append(' ');
+			string.append("(42)", COUNTER);
+		}
+		return string;
+	}
+
+	/**
+	 * Builds a label and computes its style ranges, as needed to paint it.
+	 *
+	 * @return the style ranges
+	 */
+	@Benchmark
+	public StyleRange[] getStyleRanges() {
+		return append().getStyleRanges();
+	}
+
+	/**
+	 * Builds a plain label, then styles parts of it.
+	 *
+	 * @return the style ranges
+	 */
+	@Benchmark
+	public StyleRange[] setStyle() {
+		StyledString string = new StyledString();
+		for (int i = 0; i < segments; i++) {
+			string.append("segment ");
+		}
+		for (int i = 0; i < segments; i++) {
+			string.setStyle(i * 8, 7, (i & 1) == 0 ? QUALIFIER : COUNTER);
+		}
+		return string.getStyleRanges();
+	}
+}
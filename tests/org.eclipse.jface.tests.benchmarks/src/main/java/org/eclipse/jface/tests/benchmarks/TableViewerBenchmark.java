@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.SWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the main operations of a {@link TableViewer} on a flat list of
+ * elements.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(1)
+public class TableViewerBenchmark {
+
+	/**
+	 * The number of elements of the input.
+	 */
+	@Param({ "10000", "100000", "1000000" })
+	public int count;
+
+	/**
+	 * Whether the table is virtual.
+	 */
+	@Param({ "true", "false" })
+	public boolean virtual;
+
+	private TableViewer viewer;
+
+	private List<String> input;
+
+	private Object[] batch;
+
+	/**
+	 * Creates the viewer and sets its input.
+	 *
+	 * @param state
+	 *            the display of the benchmark thread
+	 */
+	@Setup(Level.Trial)
+	public void setUp(DisplayState state) {
+		viewer = new TableViewer(state.shell, virtual ? SWT.VIRTUAL : SWT.NONE);
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		viewer.setLabelProvider(new LabelProvider());
+		viewer.setUseHashlookup(true);
+		input = Elements.createList("element", count);
+		batch = Elements.createList("added", Elements.BATCH_SIZE).toArray();
+		viewer.setInput(input);
+		state.shell.layout();
+	}
+
+	/**
+	 * Disposes the viewer.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		viewer.getControl().dispose();
+	}
+
+	/**
+	 * Sets a new input of the same size.
+	 */
+	@Benchmark
+	public void setInput() {
+		viewer.setInput(new ArrayList<>(input));
+	}
+
+	/**
+	 * Refreshes the whole viewer without any change.
+	 */
+	@Benchmark
+	public void refresh() {
+		viewer.refresh();
+	}
+
+	/**
+	 * Adds a batch of elements, then removes them again so that the size of
+	 * the viewer does not grow from one invocation to the next.
+	 */
+	@Benchmark
+	public void addAndRemove() {
+		viewer.add(batch);
+		viewer.remove(batch);
+	}
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.benchmarks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.viewers.AbstractTreeViewer;
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the main operations of a fully expanded {@link TreeViewer} with
+ * two levels of elements.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(1)
+public class TreeViewerBenchmark {
+
+	private static final int CHILD_COUNT = 100;
+
+	/**
+	 * The total number of elements of the input.
+	 */
+	@Param({ "10000", "100000", "1000000" })
+	public int count;
+
+	private TreeViewer viewer;
+
+	private Tree input;
+
+	private String parent;
+
+	private Object[] batch;
+
+	/**
+	 * The input of the viewer: the parents are the elements of the input, and
+	 * each of them has {@value #CHILD_COUNT} children.
+	 */
+	private static final class Tree {
+		final Map<Object, List<String>> children = new HashMap<>();
+
+		Tree(int count) {
+			List<String> parents = Elements.createList("parent", Math.max(1, count / (CHILD_COUNT + 1)));
+			children.put(this, parents);
+			for (String parent : parents) {
+				children.put(parent, Elements.createList(parent, CHILD_COUNT));
+			}
+		}
+
+		Tree(Tree tree) {
+			children.putAll(tree.children);
+			children.put(this, children.remove(tree));
+		}
+	}
+
+	private static final class TreeContentProvider implements ITreeContentProvider {
+		private Tree tree;
+
+		@Override
+		public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+			tree = (Tree) newInput;
+		}
+
+		@Override
+		public Object[] getElements(Object inputElement) {
+			return getChildren(inputElement);
+		}
+
+		@Override
+		public Object[] getChildren(Object parentElement) {
+			List<String> result = tree.children.get(parentElement);
+			return result == null ? new Object[0] : result.toArray();
+		}
+
+		@Override
+		public Object getParent(Object element) {
+			return null;
+		}
+
+		@Override
+		public boolean hasChildren(Object element) {
+			return tree.children.containsKey(element);
+		}
+	}
+
+	/**
+	 * Creates the viewer and sets its input.
+	 *
+	 * @param state
+	 *            the display of the benchmark thread
+	 */
+	@Setup(Level.Trial)
+	public void setUp(DisplayState state) {
+		viewer = new TreeViewer(state.shell, SWT.NONE);
+		viewer.setContentProvider(new TreeContentProvider());
+		viewer.setLabelProvider(new LabelProvider());
+		viewer.setUseHashlookup(true);
+		viewer.setAutoExpandLevel(AbstractTreeViewer.ALL_LEVELS);
+		input = new Tree(count);
+		parent = input.children.get(input).get(0);
+		batch = Elements.createList("added", Elements.BATCH_SIZE).toArray();
+		viewer.setInput(input);
+		state.shell.layout();
+	}
+
+	/**
+	 * Disposes the viewer.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		viewer.getControl().dispose();
+	}
+
+	/**
+	 * Sets a new input with the same elements, and expands all of them.
+	 */
+	@Benchmark
+	public void setInput() {
+		viewer.setInput(new Tree(input));
+	}
+
+	/**
+	 * Refreshes the whole viewer without any change.
+	 */
+	@Benchmark
+	public void refresh() {
+		viewer.refresh();
+	}
+
+	/**
+	 * Adds a batch of children to an expanded parent, then removes them again
+	 * so that the size of the viewer does not grow from one invocation to the
+	 * next.
+	 */
+	@Benchmark
+	public void addAndRemove() {
+		viewer.add(parent, batch);
+		viewer.remove(parent, batch);
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.ViewerComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ViewerComparator#sort(org.eclipse.jface.viewers.Viewer, Object[])}
+ * on the labels of the elements, comparing each pair of elements or
+ * precomputed sort keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(1)
+public class ViewerComparatorBenchmark {
+
+	/**
+	 * The number of elements to sort.
+	 */
+	@Param({ "10000", "100000", "1000000" })
+	public int count;
+
+	/**
+	 * Whether the comparator sorts on precomputed keys.
+	 */
+	@Param({ "false", "true" })
+	public boolean sortKeys;
+
+	private TableViewer viewer;
+
+	private ViewerComparator comparator;
+
+	private Object[] elements;
+
+	/**
+	 * Creates the viewer which provides the labels, and the elements.
+	 *
+	 * @param state
+	 *            the display of the benchmark thread
+	 */
+	@Setup(Level.Trial)
+	public void setUp(DisplayState state) {
+		viewer = new TableViewer(state.shell);
+		viewer.setLabelProvider(new LabelProvider());
+		boolean useSortKeys = sortKeys;
+		comparator = new ViewerComparator() {
+			@Override
+			protected boolean useSortKeys() {
+				return useSortKeys;
+			}
+		};
+		elements = Elements.createList("element", count).toArray();
+	}
+
+	/**
+	 * Disposes the viewer.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		viewer.getControl().dispose();
+	}
+
+	/**
+	 * Sorts a copy of the unsorted elements.
+	 *
+	 * @return the sorted elements
+	 */
+	@Benchmark
+	public Object[] sort() {
+		Object[] copy = elements.clone();
+		comparator.sort(viewer, copy);
+		return copy;
+	}
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.viewers;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.tests.benchmarks.DisplayState;
+import org.eclipse.swt.widgets.Widget;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the element map of the viewers with hash lookup,
+ * {@link ElementMap}, with the {@link CustomHashtable} it replaced. The
+ * benchmark is in the package of the viewers, as both maps are package
+ * private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class ElementMapBenchmark {
+
+	/**
+	 * The number of elements of the map.
+	 */
+	@Param({ "10000", "100000", "1000000" })
+	public int count;
+
+	/**
+	 * The map: the current {@link ElementMap} or the former
+	 * {@link CustomHashtable}.
+	 */
+	@Param({ "ElementMap", "CustomHashtable" })
+	public String map;
+
+	private String[] elements;
+
+	private String[] copies;
+
+	private Widget widget;
+
+	private Map filled;
+
+	/**
+	 * The operations of the viewers on their element map, as they were
+	 * implemented on each map.
+	 */
+	private interface Map {
+		void add(Object element, Widget widget);
+
+		Widget getItem(Object element);
+
+		void remove(Object element);
+	}
+
+	private static final class NewMap implements Map {
+		private final ElementMap map;
+
+		NewMap(int capacity) {
+			map = new ElementMap(capacity, null);
+		}
+
+		@Override
+		public void add(Object element, Widget widget) {
+			map.add(element, widget);
+		}
+
+		@Override
+		public Widget getItem(Object element) {
+			return map.getItem(element);
+		}
+
+		@Override
+		public void remove(Object element) {
+			map.remove(element);
+		}
+	}
+
+	private static final class OldMap implements Map {
+		private final CustomHashtable map;
+
+		OldMap(int capacity) {
+			map = new CustomHashtable(capacity, null);
+		}
+
+		@Override
+		public void add(Object element, Widget widget) {
+			Object value = map.get(element);
+			if (value == null) {
+				map.put(element, widget);
+			} else if (value instanceof Widget) {
+				if (value != widget) {
+					map.put(element, new Widget[] { (Widget) value, widget });
+				}
+			} else {
+				Widget[] widgets = (Widget[]) value;
+				Widget[] newWidgets = new Widget[widgets.length + 1];
+				System.arraycopy(widgets, 0, newWidgets, 0, widgets.length);
+				newWidgets[widgets.length] = widget;
+				map.put(element, newWidgets);
+			}
+		}
+
+		@Override
+		public Widget getItem(Object element) {
+			Object value = map.get(element);
+			if (value instanceof Widget[]) {
+				return ((Widget[]) value)[0];
+			}
+			return (Widget) value;
+		}
+
+		@Override
+		public void remove(Object element) {
+			map.remove(element);
+		}
+	}
+
+	/**
+	 * Creates the elements, their equal copies and a filled map.
+	 *
+	 * @param state
+	 *            the display of the benchmark thread, for the widget mapped to
+	 *            the elements
+	 */
+	@Setup(Level.Trial)
+	public void setUp(DisplayState state) {
+		Random random = new Random(count);
+		elements = new String[count];
+		copies = new String[count];
+		for (int i = 0; i < count; i++) {
+			elements[i] = "element " + Integer.toString(random.nextInt(Integer.MAX_VALUE), 36) + ' ' + i;
+			// equal but not identical, so that the lookups go through equals()
+			copies[i] = new String(elements[i]);
+		}
+		widget = state.shell;
+		filled = fill();
+	}
+
+	private Map createMap() {
+		switch (map) {
+		case "ElementMap":
+			return new NewMap(CustomHashtable.DEFAULT_CAPACITY);
+		case "CustomHashtable":
+			return new OldMap(CustomHashtable.DEFAULT_CAPACITY);
+		default:
+			throw new IllegalArgumentException(map);
+		}
+	}
+
+	private Map fill() {
+		Map result = createMap();
+		for (String element : elements) {
+			result.add(element, widget);
+		}
+		return result;
+	}
+
+	/**
+	 * Maps all the elements to a widget in a new map, as when the input of a
+	 * viewer is set.
+	 *
+	 * @return the map
+	 */
+	@Benchmark
+	public Object add() {
+		return fill();
+	}
+
+	/**
+	 * Looks up all the elements by an equal copy.
+	 *
+	 * @param blackhole
+	 *            the sink of the widgets found
+	 */
+	@Benchmark
+	public void getItem(Blackhole blackhole) {
+		for (String copy : copies) {
+			blackhole.consume(filled.getItem(copy));
+		}
+	}
+
+	/**
+	 * Maps all the elements in a new map, then removes every other element,
+	 * as when half of the elements of a viewer are removed.
+	 *
+	 * @return the map
+	 */
+	@Benchmark
+	public Object addAndRemoveHalf() {
+		Map result = fill();
+		for (int i = 0; i < count; i += 2) {
+			result.remove(elements[i]);
+		}
+		return result;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 IBM Corporation and others.
+ * Copyright (c) 2007, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,12 +13,15 @@
 package org.eclipse.core.tests.databinding.observable;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.eclipse.core.databinding.observable.Diffs;
 import org.eclipse.core.databinding.observable.list.ListDiff;
@@ -283,9 +286,162 @@ public class Diffs_ListDiffTests {
 				Arrays.asList(new Object[] { "c", "a", "b" }));
 	}
 
+	@Test
+	public void testComputeListDiff_RandomEdits() {
+		Random random = new Random(42);
+		for (int run = 0; run < 500; run++) {
+			List<Object> oldList = randomList(random, random.nextInt(30));
+			List<Object> newList = new ArrayList<>(oldList);
+			for (int edits = random.nextInt(6); edits > 0; edits--) {
+				int index = newList.isEmpty() ? 0 : random.nextInt(newList.size());
+				switch (random.nextInt(3)) {
+				case 0:
+					newList.add(index, randomElement(random));
+					break;
+				case 1:
+					if (!newList.isEmpty()) {
+						newList.remove(index);
+					}
+					break;
+				default:
+					if (!newList.isEmpty()) {
+						newList.add(random.nextInt(newList.size()), newList.remove(index));
+					}
+				}
+			}
+			checkComputedListDiff(oldList, newList);
+		}
+	}
+
+	@Test
+	public void testComputeListDiff_RandomLists() {
+		Random random = new Random(7);
+		for (int run = 0; run < 500; run++) {
+			checkComputedListDiff(randomList(random, random.nextInt(20)), randomList(random, random.nextInt(20)));
+		}
+	}
+
+	@Test
+	public void testComputeListDiff_PermutationsAreMoves() {
+		Random random = new Random(3);
+		for (int run = 0; run < 200; run++) {
+			List<Object> oldList = new ArrayList<>();
+			for (int i = random.nextInt(30); i > 0; i--) {
+				oldList.add("element" + i);
+			}
+			List<Object> newList = new ArrayList<>(oldList);
+			Collections.shuffle(newList, random);
+
+			final int[] addsAndRemoves = new int[1];
+			ListDiff diff = Diffs.computeListDiff(oldList, newList);
+			diff.accept(new ListDiffVisitor() {
+				@Override
+				public void handleAdd(int index, Object element) {
+					addsAndRemoves[0]++;
+				}
+
+				@Override
+				public void handleRemove(int index, Object element) {
+					addsAndRemoves[0]++;
+				}
+
+				@Override
+				public void handleMove(int oldIndex, int newIndex, Object element) {
+				}
+			});
+			assertEquals("a permutation should only move elements", 0, addsAndRemoves[0]);
+			checkComputedListDiff(oldList, newList);
+		}
+	}
+
+	@Test
+	public void testComputeListDiff_LargeReversal() {
+		List<Object> oldList = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			oldList.add(Integer.valueOf(i));
+		}
+		List<Object> newList = new ArrayList<>(oldList);
+		Collections.reverse(newList);
+		checkComputedListDiff(oldList, newList);
+	}
+
+	@Test
+	public void testComputeIdentityListDiff() {
+		String a = "a";
+		String equalToA = new String(a);
+		List<Object> oldList = Arrays.asList(new Object[] { a, "b" });
+		List<Object> newList = Arrays.asList(new Object[] { equalToA, "b" });
+
+		assertEquals(0, Diffs.computeListDiff(oldList, newList).getDifferences().length);
+
+		ListDiff diff = Diffs.computeIdentityListDiff(oldList, newList);
+		assertEquals(2, diff.getDifferences().length);
+		assertEntry(diff.getDifferences()[0], true, 0, "a");
+		assertSame(equalToA, diff.getDifferences()[0].getElement());
+		assertEntry(diff.getDifferences()[1], false, 1, "a");
+		assertSame(a, diff.getDifferences()[1].getElement());
+	}
+
+	@Test
+	public void testComputeIdentityListDiff_RandomEdits() {
+		Random random = new Random(11);
+		for (int run = 0; run < 200; run++) {
+			List<Object> oldList = randomList(random, random.nextInt(20));
+			List<Object> newList = new ArrayList<>(oldList);
+			Collections.shuffle(newList, random);
+			// replace some elements by equal copies
+			for (int i = 0; i < newList.size(); i++) {
+				if (newList.get(i) != null && random.nextBoolean()) {
+					newList.set(i, new String((String) newList.get(i)));
+				}
+			}
+			ListDiff diff = Diffs.computeIdentityListDiff(oldList, newList);
+			List<Object> list = new ArrayList<>(oldList);
+			for (ListDiffEntry entry : diff.getDifferences()) {
+				if (entry.isAddition()) {
+					list.add(entry.getPosition(), entry.getElement());
+				} else {
+					assertSame(entry.getElement(), list.remove(entry.getPosition()));
+				}
+			}
+			assertEquals(newList.size(), list.size());
+			for (int i = 0; i < list.size(); i++) {
+				assertSame(newList.get(i), list.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Returns a list of elements taken from a small set, so that it contains
+	 * duplicates, including <code>null</code>.
+	 */
+	private static List<Object> randomList(Random random, int size) {
+		List<Object> list = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			list.add(randomElement(random));
+		}
+		return list;
+	}
+
+	private static Object randomElement(Random random) {
+		int value = random.nextInt(9);
+		return value == 0 ? null : String.valueOf((char) ('a' + value));
+	}
+
 	private static void checkComputedListDiff(List<Object> oldList, List<Object> newList) {
 		ListDiff diff = Diffs.computeListDiff(oldList, newList);
 
+		// the entries apply in order
+		List<Object> entries = new ArrayList<Object>(oldList);
+		for (ListDiffEntry entry : diff.getDifferences()) {
+			if (entry.isAddition()) {
+				entries.add(entry.getPosition(), entry.getElement());
+			} else {
+				assertEquals(entry.getElement(), entries.remove(entry.getPosition()));
+			}
+		}
+		assertEquals("Applying the entries to old list should make it equal to new list", newList, entries);
+
 		final List<Object> list = new ArrayList<Object>(oldList);
 		diff.accept(new ListDiffVisitor() {
 			@Override
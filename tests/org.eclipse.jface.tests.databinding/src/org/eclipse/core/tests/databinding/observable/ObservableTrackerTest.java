@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Matthew Hall and others.
+ * Copyright (c) 2007, 2018 Matthew Hall and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Set;
 
 import org.eclipse.core.databinding.observable.AbstractObservable;
+import org.eclipse.core.databinding.observable.IChangeListener;
 import org.eclipse.core.databinding.observable.IObservable;
 import org.eclipse.core.databinding.observable.ObservableTracker;
 import org.eclipse.core.databinding.observable.Realm;
@@ -259,6 +260,81 @@ public class ObservableTrackerTest extends AbstractDefaultRealmTestCase {
 		}
 	}
 
+	@Test
+	public void testRunAndMonitor_PreviousDependencies() {
+		final CountingObservableStub[] observables = { new CountingObservableStub(), new CountingObservableStub(),
+				new CountingObservableStub() };
+		IChangeListener listener = event -> {
+		};
+
+		IObservable[] previous = ObservableTracker.runAndMonitor(() -> {
+			ObservableTracker.getterCalled(observables[0]);
+			ObservableTracker.getterCalled(observables[1]);
+		}, listener, null, null);
+		IObservable[] result = ObservableTracker.runAndMonitor(() -> {
+			ObservableTracker.getterCalled(observables[1]);
+			ObservableTracker.getterCalled(observables[2]);
+			ObservableTracker.getterCalled(observables[1]);
+		}, listener, null, previous);
+
+		assertEquals(Arrays.asList(observables[1], observables[2]), Arrays.asList(result));
+		// the listener is only removed from the dependency which was not read
+		// again, and added to the new one
+		assertEquals(1, observables[0].added);
+		assertEquals(1, observables[0].removed);
+		assertEquals(1, observables[1].added);
+		assertEquals(0, observables[1].removed);
+		assertEquals(1, observables[2].added);
+		assertEquals(0, observables[2].removed);
+	}
+
+	@Test
+	public void testRunAndMonitor_SameDependencies() {
+		final IObservable[] observables = { new ObservableStub(), new ObservableStub() };
+		Runnable runnable = () -> {
+			ObservableTracker.getterCalled(observables[0]);
+			ObservableTracker.getterCalled(observables[1]);
+		};
+
+		IObservable[] previous = ObservableTracker.runAndMonitor(runnable, null, null, null);
+		assertSame(previous, ObservableTracker.runAndMonitor(runnable, null, null, previous));
+	}
+
+	@Test
+	public void testRunAndMonitor_ManyDependencies() {
+		final IObservable[] observables = new IObservable[100];
+		for (int i = 0; i < observables.length; i++) {
+			observables[i] = new ObservableStub();
+		}
+
+		IObservable[] result = ObservableTracker.runAndMonitor(() -> {
+			for (IObservable observable : observables) {
+				ObservableTracker.getterCalled(observable);
+				ObservableTracker.getterCalled(observable);
+			}
+		}, null, null);
+
+		assertEquals(Arrays.asList(observables), Arrays.asList(result));
+	}
+
+	public static class CountingObservableStub extends ObservableStub {
+		int added;
+
+		int removed;
+
+		@Override
+		public synchronized void addChangeListener(IChangeListener listener) {
+			added++;
+			super.addChangeListener(listener);
+		}
+
+		@Override
+		public synchronized void removeChangeListener(IChangeListener listener) {
+			removed++;
+			super.removeChangeListener(listener);
+		}
+	}
+
 	public static class ObservableStub extends AbstractObservable {
 		public ObservableStub() {
 			this(Realm.getDefault());
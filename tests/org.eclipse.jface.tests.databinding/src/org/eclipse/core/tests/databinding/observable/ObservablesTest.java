@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2007 Cerner Corporation and others.
+ * Copyright (c) 2006, 2018 Cerner Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,15 +11,32 @@
 
 package org.eclipse.core.tests.databinding.observable;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
+import org.eclipse.core.databinding.observable.Diffs;
 import org.eclipse.core.databinding.observable.Observables;
+import org.eclipse.core.databinding.observable.list.ComputedList;
 import org.eclipse.core.databinding.observable.list.IObservableList;
+import org.eclipse.core.databinding.observable.list.ListDiff;
 import org.eclipse.core.databinding.observable.list.ObservableList;
+import org.eclipse.core.databinding.observable.list.WritableList;
+import org.eclipse.core.databinding.observable.map.MapDiff;
+import org.eclipse.core.databinding.observable.map.WritableMap;
+import org.eclipse.core.databinding.observable.set.SetDiff;
+import org.eclipse.core.databinding.observable.set.WritableSet;
+import org.eclipse.core.databinding.observable.value.ComputedValue;
+import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.databinding.observable.value.IValueChangeListener;
+import org.eclipse.core.databinding.observable.value.ValueDiff;
+import org.eclipse.core.databinding.observable.value.WritableValue;
 import org.eclipse.core.internal.databinding.observable.UnmodifiableObservableList;
 import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
 import org.junit.Test;
@@ -41,6 +58,288 @@ public class ObservablesTest extends AbstractDefaultRealmTestCase {
 		assertTrue(unmodifiable instanceof UnmodifiableObservableList);
 	}
 
+	@Test
+	public void testBatch_ListChangesAreConcatenated() {
+		WritableList<String> list = new WritableList<>(new ArrayList<>(Arrays.asList("a", "b")), null);
+		List<ListDiff<? extends String>> diffs = new ArrayList<>();
+		int[] changes = new int[1];
+		list.addListChangeListener(event -> diffs.add(event.diff));
+		list.addChangeListener(event -> changes[0]++);
+
+		Observables.batch(() -> {
+			list.add("c");
+			list.remove("a");
+			list.add(0, "d");
+			assertEquals(Arrays.asList("d", "b", "c"), list);
+			assertEquals(0, diffs.size());
+			assertEquals(3, changes[0]);
+		});
+
+		assertEquals(1, diffs.size());
+		assertEquals(3, changes[0]);
+		List<String> copy = new ArrayList<>(Arrays.asList("a", "b"));
+		diffs.get(0).applyTo(copy);
+		assertEquals(list, copy);
+		assertEquals(3, diffs.get(0).getDifferences().length);
+	}
+
+	@Test
+	public void testBatch_ListChangesApplyToOldList() {
+		WritableList<String> list = new WritableList<>(new ArrayList<>(Arrays.asList("a", "b", "c")), null);
+		List<ListDiff<? extends String>> diffs = new ArrayList<>();
+		list.addListChangeListener(event -> diffs.add(event.diff));
+
+		Observables.batch(() -> {
+			list.add(1, "a");
+			list.remove(0);
+		});
+
+		assertEquals(1, diffs.size());
+		List<String> copy = new ArrayList<>(Arrays.asList("a", "b", "c"));
+		diffs.get(0).applyTo(copy);
+		assertEquals(list, copy);
+	}
+
+	@Test
+	public void testBatch_ListenerAddedInBatch() {
+		WritableList<String> list = new WritableList<>();
+		List<String> mirror = new ArrayList<>();
+		// a listener, so that the first change is held back by the batch
+		list.addListChangeListener(event -> {
+		});
+
+		Observables.batch(() -> {
+			list.add("x");
+			mirror.addAll(list);
+			list.addListChangeListener(event -> event.diff.applyTo(mirror));
+			list.add("y");
+		});
+
+		assertEquals(Arrays.asList("x", "y"), mirror);
+	}
+
+	@Test
+	public void testBatch_ListenerRemovedInBatch() {
+		WritableValue<String> value = new WritableValue<>("a", null);
+		int[] changes = new int[1];
+		IValueChangeListener<String> listener = event -> changes[0]++;
+		value.addValueChangeListener(listener);
+
+		Observables.batch(() -> {
+			value.setValue("b");
+			value.removeValueChangeListener(listener);
+		});
+
+		assertEquals(0, changes[0]);
+	}
+
+	@Test
+	public void testBatch_ChangesWithoutNetEffectAreDropped() {
+		WritableValue<String> value = new WritableValue<>("a", null);
+		WritableSet<String> set = new WritableSet<>(new HashSet<>(Arrays.asList("a")), null);
+		WritableMap<String, String> map = new WritableMap<>();
+		map.put("a", "1");
+		int[] events = new int[1];
+		int[] changes = new int[1];
+		value.addValueChangeListener(event -> events[0]++);
+		value.addChangeListener(event -> changes[0]++);
+		set.addSetChangeListener(event -> events[0]++);
+		set.addChangeListener(event -> changes[0]++);
+		map.addMapChangeListener(event -> events[0]++);
+		map.addChangeListener(event -> changes[0]++);
+
+		Observables.batch(() -> {
+			value.setValue("b");
+			value.setValue("a");
+			set.remove("a");
+			set.add("a");
+			map.put("a", "2");
+			map.put("a", "1");
+		});
+
+		assertEquals(0, events[0]);
+		// the generic change events are fired immediately
+		assertEquals(6, changes[0]);
+	}
+
+	@Test
+	public void testBatch_SetChangesAreMerged() {
+		WritableSet<String> set = new WritableSet<>(new HashSet<>(Arrays.asList("a", "b")), null);
+		List<SetDiff<? extends String>> diffs = new ArrayList<>();
+		set.addSetChangeListener(event -> diffs.add(event.diff));
+
+		Observables.batch(() -> {
+			set.add("c");
+			set.remove("c");
+			set.remove("a");
+			set.add("a");
+			set.remove("b");
+			set.add("d");
+		});
+
+		assertEquals(1, diffs.size());
+		assertEquals(Collections.singleton("d"), diffs.get(0).getAdditions());
+		assertEquals(Collections.singleton("b"), diffs.get(0).getRemovals());
+	}
+
+	@Test
+	public void testBatch_MapChangesAreMerged() {
+		WritableMap<String, String> map = new WritableMap<>();
+		map.put("a", "1");
+		map.put("b", "2");
+		List<MapDiff<? extends String, ? extends String>> diffs = new ArrayList<>();
+		map.addMapChangeListener(event -> diffs.add(event.diff));
+
+		Observables.batch(() -> {
+			map.put("a", "3");
+			map.put("a", "4");
+			map.remove("b");
+			map.put("c", "5");
+			map.put("d", "6");
+			map.remove("d");
+		});
+
+		assertEquals(1, diffs.size());
+		MapDiff<? extends String, ? extends String> diff = diffs.get(0);
+		assertEquals(Collections.singleton("c"), diff.getAddedKeys());
+		assertEquals(Collections.singleton("b"), diff.getRemovedKeys());
+		assertEquals(Collections.singleton("a"), diff.getChangedKeys());
+		assertEquals("1", diff.getOldValue("a"));
+		assertEquals("4", diff.getNewValue("a"));
+		assertEquals("2", diff.getOldValue("b"));
+		assertEquals("5", diff.getNewValue("c"));
+	}
+
+	@Test
+	public void testBatch_ValueChangesAreMerged() {
+		WritableValue<String> value = new WritableValue<>("a", null);
+		List<ValueDiff<? extends String>> diffs = new ArrayList<>();
+		value.addValueChangeListener(event -> diffs.add(event.diff));
+
+		Observables.batch(() -> {
+			value.setValue("b");
+			value.setValue("c");
+		});
+
+		assertEquals(1, diffs.size());
+		assertEquals(Diffs.createValueDiff("a", "c"), diffs.get(0));
+	}
+
+	@Test
+	public void testBatch_DependentsAreNotifiedOnce() {
+		WritableList<Integer> list = new WritableList<>();
+		WritableValue<Integer> factor = new WritableValue<>(1, null);
+		int[] computations = new int[1];
+		IObservableValue<Integer> sum = ComputedValue.create(() -> {
+			computations[0]++;
+			int result = 0;
+			for (Integer element : list) {
+				result += element.intValue() * factor.getValue().intValue();
+			}
+			return result;
+		});
+		List<ValueDiff<? extends Integer>> diffs = new ArrayList<>();
+		sum.addValueChangeListener(event -> diffs.add(event.diff));
+		assertEquals(1, computations[0]);
+
+		Observables.batch(() -> {
+			for (int i = 1; i <= 100; i++) {
+				list.add(i);
+			}
+			factor.setValue(2);
+		});
+
+		assertEquals(1, diffs.size());
+		assertEquals(Integer.valueOf(10100), sum.getValue());
+		assertEquals(2, computations[0]);
+	}
+
+	@Test
+	public void testBatch_ComputedValueIsUpToDateInBatch() {
+		WritableValue<Integer> value = new WritableValue<>(1, null);
+		IObservableValue<Integer> doubled = ComputedValue.create(() -> value.getValue().intValue() * 2);
+		List<ValueDiff<? extends Integer>> diffs = new ArrayList<>();
+		doubled.addValueChangeListener(event -> diffs.add(event.diff));
+
+		Observables.batch(() -> {
+			value.setValue(2);
+			assertEquals(Integer.valueOf(4), doubled.getValue());
+			value.setValue(3);
+			assertEquals(Integer.valueOf(6), doubled.getValue());
+			assertEquals(0, diffs.size());
+		});
+
+		assertEquals(1, diffs.size());
+		assertEquals(Diffs.createValueDiff(2, 6), diffs.get(0));
+	}
+
+	@Test
+	public void testBatch_ComputedListIsUpToDateInBatch() {
+		WritableList<String> list = new WritableList<>(new ArrayList<>(Arrays.asList("a")), null);
+		IObservableList<String> upperCase = new ComputedList<String>() {
+			@Override
+			protected List<String> calculate() {
+				List<String> result = new ArrayList<>();
+				for (String element : list) {
+					result.add(element.toUpperCase());
+				}
+				return result;
+			}
+		};
+		List<ListDiff<? extends String>> diffs = new ArrayList<>();
+		upperCase.addListChangeListener(event -> diffs.add(event.diff));
+		assertEquals(Arrays.asList("A"), upperCase);
+
+		Observables.batch(() -> {
+			list.add("b");
+			assertEquals(Arrays.asList("A", "B"), upperCase);
+			list.remove("a");
+			assertEquals(Arrays.asList("B"), upperCase);
+			assertEquals(0, diffs.size());
+		});
+
+		assertEquals(1, diffs.size());
+		List<String> copy = new ArrayList<>(Arrays.asList("A"));
+		diffs.get(0).applyTo(copy);
+		assertEquals(upperCase, copy);
+	}
+
+	@Test
+	public void testBatch_Nested() {
+		WritableList<String> list = new WritableList<>();
+		List<ListDiff<? extends String>> diffs = new ArrayList<>();
+		list.addListChangeListener(event -> diffs.add(event.diff));
+
+		Observables.batch(() -> {
+			list.add("a");
+			Observables.batch(() -> list.add("b"));
+			assertEquals(0, diffs.size());
+		});
+
+		assertEquals(1, diffs.size());
+		assertEquals(2, diffs.get(0).getDifferences().length);
+	}
+
+	@Test
+	public void testBatch_EventsAreFiredOnException() {
+		WritableList<String> list = new WritableList<>();
+		List<ListDiff<? extends String>> diffs = new ArrayList<>();
+		list.addListChangeListener(event -> diffs.add(event.diff));
+
+		try {
+			Observables.batch(() -> {
+				list.add("a");
+				throw new IllegalStateException();
+			});
+			fail("IllegalStateException should have been thrown.");
+		} catch (IllegalStateException e) {
+		}
+
+		assertEquals(1, diffs.size());
+		list.add("b");
+		assertEquals(2, diffs.size());
+	}
+
 	private static class ObservableListStub extends ObservableList {
 		/**
 		 * @param wrappedList
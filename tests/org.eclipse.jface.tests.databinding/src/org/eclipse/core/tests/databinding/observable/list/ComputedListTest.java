@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 Matthew Hall and others.
+ * Copyright (c) 2007, 2018 Matthew Hall and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -102,6 +102,23 @@ public class ComputedListTest extends AbstractDefaultRealmTestCase {
 				2, tracker.count);
 	}
 
+	@Test
+	public void testDependency_UnhookedWhenDirtyWithoutListeners() {
+		assertTrue(list.dependency.hasListeners());
+		list.dependency.fireChange();
+		assertFalse(list.dependency.hasListeners());
+
+		list.size(); // Force list to recompute.
+		assertTrue(list.dependency.hasListeners());
+	}
+
+	@Test
+	public void testDependency_HookedWhenDirtyWithListeners() {
+		ListChangeEventTracker.observe(list);
+		list.dependency.fireChange();
+		assertTrue(list.dependency.hasListeners());
+	}
+
 	static class ComputedListStub extends ComputedList {
 		List nextComputation = new ArrayList();
 		ObservableStub dependency;
@@ -144,6 +161,11 @@ public class ComputedListTest extends AbstractDefaultRealmTestCase {
 		protected void fireChange() {
 			super.fireChange();
 		}
+
+		@Override
+		public boolean hasListeners() {
+			return super.hasListeners();
+		}
 	}
 
 	public static void addConformanceTest(TestSuite suite) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Matthew Hall and others.
+ * Copyright (c) 2007, 2018 Matthew Hall and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -88,6 +88,14 @@ public class ListDiffTest {
 		assertEquals("replace(0,element0,element1)", visitor.log);
 	}
 
+	@Test
+	public void testAccept_Replace_AddAfterRemovedElement() {
+		// Add at index 1 then remove at index 0 replaces the element at index 0
+		createListDiff(add(1, "element1"), remove(0, "element0")).accept(
+				visitor);
+		assertEquals("replace(0,element0,element1)", visitor.log);
+	}
+
 	@Test
 	public void testAccept_AllPatterns() {
 		createListDiff(new ListDiffEntry[] {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008 Matthew Hall and others.
+ * Copyright (c) 2008, 2018 Matthew Hall and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -100,6 +100,23 @@ public class ComputedSetTest extends AbstractDefaultRealmTestCase {
 				2, tracker.count);
 	}
 
+	@Test
+	public void testDependency_UnhookedWhenDirtyWithoutListeners() {
+		assertTrue(set.dependency.hasListeners());
+		set.dependency.fireChange();
+		assertFalse(set.dependency.hasListeners());
+
+		set.size(); // Force set to recompute.
+		assertTrue(set.dependency.hasListeners());
+	}
+
+	@Test
+	public void testDependency_HookedWhenDirtyWithListeners() {
+		SetChangeEventTracker.observe(set);
+		set.dependency.fireChange();
+		assertTrue(set.dependency.hasListeners());
+	}
+
 	static class ComputedSetStub extends ComputedSet {
 		Set nextComputation = new HashSet();
 		ObservableStub dependency;
@@ -142,6 +159,11 @@ public class ComputedSetTest extends AbstractDefaultRealmTestCase {
 		protected void fireChange() {
 			super.fireChange();
 		}
+
+		@Override
+		public boolean hasListeners() {
+			return super.hasListeners();
+		}
 	}
 
 	public static void addConformanceTest(TestSuite suite) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2007 IBM Corporation and others.
+ * Copyright (c) 2006, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -135,6 +135,34 @@ public class ComputedValueTest extends AbstractDefaultRealmTestCase {
         assertFalse("because value2 is not a part of the calculation the listeners should have been removed", value2.hasListeners());
     }
 
+    @Test
+	public void testUnhookDependantObservablesWhenDirtyWithoutListeners() throws Exception {
+        final WritableValueExt value = new WritableValueExt(Integer.TYPE, Integer.valueOf(1));
+
+        ComputedValue cv = new ComputedValue() {
+            @Override
+			protected Object calculate() {
+                return value.getValue();
+            }
+        };
+
+        cv.getValue();
+        assertTrue(value.hasListeners());
+
+        //nobody listens to the computed value, so it need not know about the next change
+        value.setValue(Integer.valueOf(2));
+        assertFalse(value.hasListeners());
+
+        assertEquals(Integer.valueOf(2), cv.getValue());
+        assertTrue(value.hasListeners());
+
+        //a listener of the computed value keeps the dependencies hooked
+        cv.addChangeListener(event -> {
+        });
+        value.setValue(Integer.valueOf(3));
+        assertTrue(value.hasListeners());
+    }
+
     @Test
 	public void testSetValueUnsupportedOperationException() throws Exception {
         ComputedValue cv = new ComputedValue() {
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.core.tests.internal.databinding.beans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.beans.PropertyDescriptor;
+
+import org.eclipse.core.databinding.util.ILogger;
+import org.eclipse.core.databinding.util.Policy;
+import org.eclipse.core.internal.databinding.beans.BeanPropertyHelper;
+import org.eclipse.core.internal.databinding.beans.PropertyAccessor;
+import org.eclipse.core.runtime.IStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link PropertyAccessor}.
+ */
+public class PropertyAccessorTest {
+	public static class PrimitiveBean {
+		private int count;
+
+		public int getCount() {
+			return count;
+		}
+
+		public void setCount(int count) {
+			this.count = count;
+		}
+	}
+
+	public static class ThrowingBean {
+		public String getValue() {
+			throw new IllegalStateException();
+		}
+
+		public void setValue(String value) {
+			throw new IllegalStateException();
+		}
+	}
+
+	private ILogger oldLog;
+
+	private IStatus loggedStatus;
+
+	@Before
+	public void setUp() {
+		oldLog = Policy.getLog();
+		Policy.setLog(status -> loggedStatus = status);
+	}
+
+	@After
+	public void tearDown() {
+		Policy.setLog(oldLog);
+	}
+
+	private static PropertyAccessor accessor(Class<?> beanClass, String propertyName) {
+		PropertyDescriptor pd = BeanPropertyHelper.getPropertyDescriptor(beanClass, propertyName);
+		return new PropertyAccessor(pd);
+	}
+
+	@Test
+	public void testReadWrite() {
+		PropertyAccessor accessor = accessor(Bean.class, "value");
+		Bean bean = new Bean("old");
+		assertEquals("old", accessor.read(bean));
+		accessor.write(bean, "new");
+		assertEquals("new", bean.getValue());
+		accessor.write(bean, null);
+		assertNull(accessor.read(bean));
+	}
+
+	@Test
+	public void testReadWrite_InterfaceProperty() {
+		PropertyAccessor accessor = accessor(IBean.class, "value");
+		Bean bean = new Bean("old");
+		assertEquals("old", accessor.read(bean));
+		accessor.write(bean, "new");
+		assertEquals("new", bean.getValue());
+	}
+
+	@Test
+	public void testReadWrite_PrimitiveProperty() {
+		PropertyAccessor accessor = accessor(PrimitiveBean.class, "count");
+		PrimitiveBean bean = new PrimitiveBean();
+		accessor.write(bean, Integer.valueOf(3));
+		assertEquals(Integer.valueOf(3), accessor.read(bean));
+		assertNull(loggedStatus);
+	}
+
+	@Test
+	public void testReadWrite_AccessorsOfSameMethods() {
+		// the second accessor uses the method handles cached for the first one
+		PropertyAccessor first = accessor(PrimitiveBean.class, "count");
+		PropertyAccessor second = accessor(PrimitiveBean.class, "count");
+		PrimitiveBean bean = new PrimitiveBean();
+		first.write(bean, Integer.valueOf(1));
+		assertEquals(Integer.valueOf(1), second.read(bean));
+		second.write(bean, Integer.valueOf(2));
+		assertEquals(Integer.valueOf(2), first.read(bean));
+		assertNull(loggedStatus);
+	}
+
+	@Test
+	public void testWrite_NullToPrimitiveProperty() {
+		PropertyAccessor accessor = accessor(PrimitiveBean.class, "count");
+		PrimitiveBean bean = new PrimitiveBean();
+		bean.setCount(3);
+		accessor.write(bean, null);
+		assertEquals(3, bean.getCount());
+		assertEquals(IStatus.WARNING, loggedStatus.getSeverity());
+	}
+
+	@Test
+	public void testWrite_IncompatibleValue() {
+		PropertyAccessor accessor = accessor(Bean.class, "value");
+		Bean bean = new Bean("old");
+		accessor.write(bean, Integer.valueOf(1));
+		assertEquals("old", bean.getValue());
+		assertEquals(IStatus.WARNING, loggedStatus.getSeverity());
+	}
+
+	@Test
+	public void testRead_IncompatibleSource() {
+		PropertyAccessor accessor = accessor(Bean.class, "value");
+		assertNull(accessor.read(new PrimitiveBean()));
+		assertEquals(IStatus.WARNING, loggedStatus.getSeverity());
+	}
+
+	@Test
+	public void testReadWrite_ExceptionIsWrapped() {
+		PropertyAccessor accessor = accessor(ThrowingBean.class, "value");
+		ThrowingBean bean = new ThrowingBean();
+		try {
+			accessor.read(bean);
+			fail("expected RuntimeException");
+		} catch (RuntimeException e) {
+			assertSame(IllegalStateException.class, e.getCause().getClass());
+		}
+		try {
+			accessor.write(bean, "new");
+			fail("expected RuntimeException");
+		} catch (RuntimeException e) {
+			assertSame(IllegalStateException.class, e.getCause().getClass());
+		}
+	}
+}
@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.core.tests.internal.databinding.observable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.eclipse.core.databinding.observable.Observables;
+import org.eclipse.core.databinding.observable.list.IListChangeListener;
+import org.eclipse.core.databinding.observable.list.IObservableList;
+import org.eclipse.core.databinding.observable.list.ListDiff;
+import org.eclipse.core.databinding.observable.list.WritableList;
+import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for FilteredObservableList
+ */
+public class FilteredObservableListTest extends AbstractDefaultRealmTestCase {
+
+	private static final Predicate<Integer> EVEN = value -> value % 2 == 0;
+
+	private WritableList<Integer> source;
+
+	private IObservableList<Integer> filtered;
+
+	private List<ListDiff<? extends Integer>> diffs;
+
+	private int tests;
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		source = new WritableList<>(new ArrayList<>(Arrays.asList(1, 2, 3, 4, 6, 7)), Integer.class);
+		filtered = Observables.filteredList(source, value -> {
+			tests++;
+			return EVEN.test(value);
+		});
+		diffs = new ArrayList<>();
+		filtered.addListChangeListener(event -> diffs.add(event.diff));
+		tests = 0;
+	}
+
+	private void assertFiltered() {
+		assertEquals(source.stream().filter(EVEN).collect(Collectors.toList()), filtered);
+	}
+
+	@Test
+	public void testInitialContents() {
+		assertEquals(Arrays.asList(2, 4, 6), filtered);
+		assertEquals(Integer.class, filtered.getElementType());
+	}
+
+	@Test
+	public void testAdd() {
+		source.add(3, 10);
+		assertEquals(Arrays.asList(2, 10, 4, 6), filtered);
+		assertEquals(1, tests);
+		assertEquals(1, diffs.size());
+		assertEquals(1, diffs.get(0).getDifferences()[0].getPosition());
+		assertTrue(diffs.get(0).getDifferences()[0].isAddition());
+	}
+
+	@Test
+	public void testAddExcluded() {
+		source.add(0, 9);
+		assertFiltered();
+		assertEquals(1, tests);
+		assertTrue(diffs.isEmpty());
+	}
+
+	@Test
+	public void testRemove() {
+		source.remove(3);
+		assertEquals(Arrays.asList(2, 6), filtered);
+		assertEquals("a removal should not test the element", 0, tests);
+		assertEquals(1, diffs.size());
+		assertEquals(1, diffs.get(0).getDifferences()[0].getPosition());
+		assertFalse(diffs.get(0).getDifferences()[0].isAddition());
+	}
+
+	@Test
+	public void testMoveInSource() {
+		source.move(0, 2);
+		assertFiltered();
+		assertTrue("a move of an excluded element should not change the filtered list", diffs.isEmpty());
+		source.move(0, 4);
+		assertEquals(Arrays.asList(4, 6, 2), filtered);
+		assertEquals(1, diffs.size());
+	}
+
+	@Test
+	public void testRandomChanges() {
+		Random random = new Random(42);
+		List<Integer> copy = new ArrayList<>(filtered);
+		for (int i = 0; i < 5000; i++) {
+			int operation = random.nextInt(10);
+			if (operation < 4 || source.isEmpty()) {
+				source.add(random.nextInt(source.size() + 1), random.nextInt(50));
+			} else if (operation < 7) {
+				source.remove(random.nextInt(source.size()));
+			} else if (operation < 9) {
+				source.set(random.nextInt(source.size()), random.nextInt(50));
+			} else {
+				List<Integer> values = new ArrayList<>();
+				for (int j = random.nextInt(40); j > 0; j--) {
+					values.add(random.nextInt(50));
+				}
+				source.addAll(random.nextInt(source.size() + 1), values);
+			}
+			assertFiltered();
+		}
+		for (ListDiff<? extends Integer> diff : diffs) {
+			diff.applyTo(copy);
+		}
+		assertEquals(filtered, copy);
+	}
+
+	@Test
+	public void testLargeList() {
+		// the blocks of the inclusions are split and merged, and built again
+		// as the list grows and shrinks
+		Random random = new Random(7);
+		List<Integer> copy = new ArrayList<>(filtered);
+		for (int i = 0; i < 20000; i++) {
+			source.add(random.nextInt(source.size() + 1), random.nextInt(50));
+		}
+		assertFiltered();
+		while (source.size() > 10) {
+			source.remove(random.nextInt(source.size()));
+		}
+		assertFiltered();
+		for (ListDiff<? extends Integer> diff : diffs) {
+			diff.applyTo(copy);
+		}
+		assertEquals(filtered, copy);
+	}
+
+	@Test
+	public void testLargeInitialList() {
+		Random random = new Random(11);
+		List<Integer> values = new ArrayList<>();
+		for (int i = 0; i < 10000; i++) {
+			values.add(random.nextInt(50));
+		}
+		source = new WritableList<>(values, Integer.class);
+		filtered = Observables.filteredList(source, EVEN);
+		List<Integer> copy = new ArrayList<>(filtered);
+		diffs.clear();
+		filtered.addListChangeListener(event -> diffs.add(event.diff));
+		for (int i = 0; i < 2000; i++) {
+			if (random.nextBoolean()) {
+				source.add(random.nextInt(source.size() + 1), random.nextInt(50));
+			} else {
+				source.remove(random.nextInt(source.size()));
+			}
+		}
+		assertFiltered();
+		for (ListDiff<? extends Integer> diff : diffs) {
+			diff.applyTo(copy);
+		}
+		assertEquals(filtered, copy);
+	}
+
+	@Test
+	public void testBulkChange() {
+		List<Integer> values = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			values.add(i);
+		}
+		List<Integer> copy = new ArrayList<>(filtered);
+		source.addAll(2, values);
+		assertFiltered();
+		assertEquals(1, diffs.size());
+		diffs.get(0).applyTo(copy);
+		assertEquals(filtered, copy);
+	}
+
+	@Test
+	public void testListensToSourceOnlyWhenUsed() {
+		WritableListStub list = new WritableListStub(Arrays.asList(1, 2));
+		IObservableList<Integer> view = Observables.filteredList(list, EVEN);
+		assertFalse(list.hasListeners());
+
+		assertEquals(Arrays.asList(2), view);
+		assertTrue(list.hasListeners());
+		// nobody listens to the view, which need not follow the change
+		list.add(4);
+		assertFalse(list.hasListeners());
+		assertEquals(Arrays.asList(2, 4), view);
+
+		IListChangeListener<Integer> listener = event -> {
+		};
+		view.addListChangeListener(listener);
+		assertTrue(list.hasListeners());
+		list.add(4);
+		assertTrue(list.hasListeners());
+		view.removeListChangeListener(listener);
+		assertFalse(list.hasListeners());
+	}
+
+	@Test
+	public void testDisposeWithSource() {
+		source.dispose();
+		assertTrue(filtered.isDisposed());
+	}
+
+	@Test
+	public void testDispose() {
+		filtered.dispose();
+		source.add(2);
+		assertTrue(diffs.isEmpty());
+		assertFalse(source.isDisposed());
+	}
+
+	private static class WritableListStub extends WritableList<Integer> {
+		WritableListStub(List<Integer> elements) {
+			super(new ArrayList<>(elements), Integer.class);
+		}
+
+		@Override
+		public boolean hasListeners() {
+			return super.hasListeners();
+		}
+	}
+}
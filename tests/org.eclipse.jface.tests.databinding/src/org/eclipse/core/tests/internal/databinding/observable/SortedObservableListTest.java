@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.core.tests.internal.databinding.observable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.core.databinding.observable.Observables;
+import org.eclipse.core.databinding.observable.list.IListChangeListener;
+import org.eclipse.core.databinding.observable.list.IObservableList;
+import org.eclipse.core.databinding.observable.list.ListDiff;
+import org.eclipse.core.databinding.observable.list.WritableList;
+import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for SortedObservableList
+ */
+public class SortedObservableListTest extends AbstractDefaultRealmTestCase {
+
+	private WritableList<Integer> source;
+
+	private IObservableList<Integer> sorted;
+
+	private List<ListDiff<? extends Integer>> diffs;
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		source = new WritableList<>(new ArrayList<>(Arrays.asList(5, 3, 8, 3, 1)), Integer.class);
+		sorted = Observables.sortedList(source, Comparator.naturalOrder());
+		diffs = new ArrayList<>();
+		sorted.addListChangeListener(event -> diffs.add(event.diff));
+	}
+
+	private void assertSorted() {
+		List<Integer> expected = new ArrayList<>(source);
+		expected.sort(Comparator.naturalOrder());
+		assertEquals(expected, sorted);
+	}
+
+	@Test
+	public void testInitialContents() {
+		assertEquals(Arrays.asList(1, 3, 3, 5, 8), sorted);
+		assertEquals(Integer.class, sorted.getElementType());
+	}
+
+	@Test
+	public void testAdd() {
+		source.add(4);
+		assertEquals(Arrays.asList(1, 3, 3, 4, 5, 8), sorted);
+		assertEquals(1, diffs.size());
+		assertEquals(1, diffs.get(0).getDifferences().length);
+		assertEquals(3, diffs.get(0).getDifferences()[0].getPosition());
+		assertTrue(diffs.get(0).getDifferences()[0].isAddition());
+	}
+
+	@Test
+	public void testRemoveDuplicate() {
+		source.remove(1);
+		assertEquals(Arrays.asList(1, 3, 5, 8), sorted);
+		assertEquals(1, diffs.size());
+		assertEquals(1, diffs.get(0).getDifferences().length);
+		assertEquals(1, diffs.get(0).getDifferences()[0].getPosition());
+		assertFalse(diffs.get(0).getDifferences()[0].isAddition());
+	}
+
+	@Test
+	public void testMoveInSource() {
+		source.move(0, 4);
+		assertSorted();
+		assertTrue("a move should not change the sorted list", diffs.isEmpty());
+	}
+
+	@Test
+	public void testRandomChanges() {
+		Random random = new Random(42);
+		List<Integer> copy = new ArrayList<>(sorted);
+		for (int i = 0; i < 2000; i++) {
+			int operation = random.nextInt(10);
+			if (operation < 4 || source.isEmpty()) {
+				source.add(random.nextInt(source.size() + 1), random.nextInt(50));
+			} else if (operation < 7) {
+				source.remove(random.nextInt(source.size()));
+			} else if (operation < 9) {
+				source.set(random.nextInt(source.size()), random.nextInt(50));
+			} else {
+				List<Integer> values = new ArrayList<>();
+				for (int j = random.nextInt(40); j > 0; j--) {
+					values.add(random.nextInt(50));
+				}
+				source.addAll(values);
+			}
+			assertSorted();
+		}
+		for (ListDiff<? extends Integer> diff : diffs) {
+			diff.applyTo(copy);
+		}
+		assertEquals(sorted, copy);
+	}
+
+	@Test
+	public void testBulkChange() {
+		List<Integer> values = new ArrayList<>();
+		for (int i = 100; i > 0; i--) {
+			values.add(i % 7);
+		}
+		List<Integer> copy = new ArrayList<>(sorted);
+		source.addAll(2, values);
+		assertSorted();
+		assertEquals(1, diffs.size());
+		diffs.get(0).applyTo(copy);
+		assertEquals(sorted, copy);
+	}
+
+	@Test
+	public void testListensToSourceOnlyWhenUsed() {
+		WritableListStub list = new WritableListStub(Arrays.asList(2, 1));
+		IObservableList<Integer> view = Observables.sortedList(list, Comparator.naturalOrder());
+		assertFalse(list.hasListeners());
+
+		assertEquals(Arrays.asList(1, 2), view);
+		assertTrue(list.hasListeners());
+		// nobody listens to the view, which need not follow the change
+		list.add(0);
+		assertFalse(list.hasListeners());
+		assertEquals(Arrays.asList(0, 1, 2), view);
+
+		IListChangeListener<Integer> listener = event -> {
+		};
+		view.addListChangeListener(listener);
+		assertTrue(list.hasListeners());
+		list.add(0);
+		assertTrue(list.hasListeners());
+		view.removeListChangeListener(listener);
+		assertFalse(list.hasListeners());
+	}
+
+	@Test
+	public void testDisposeWithSource() {
+		source.dispose();
+		assertTrue(sorted.isDisposed());
+	}
+
+	@Test
+	public void testDispose() {
+		sorted.dispose();
+		source.add(2);
+		assertTrue(diffs.isEmpty());
+		assertFalse(source.isDisposed());
+	}
+
+	private static class WritableListStub extends WritableList<Integer> {
+		WritableListStub(List<Integer> elements) {
+			super(new ArrayList<>(elements), Integer.class);
+		}
+
+		@Override
+		public boolean hasListeners() {
+			return super.hasListeners();
+		}
+	}
+}
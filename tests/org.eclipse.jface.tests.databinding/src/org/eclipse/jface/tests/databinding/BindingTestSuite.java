@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -96,6 +96,7 @@ import org.eclipse.core.tests.internal.databinding.beans.JavaBeanObservableMapTe
 import org.eclipse.core.tests.internal.databinding.beans.JavaBeanObservableSetTest;
 import org.eclipse.core.tests.internal.databinding.beans.JavaBeanObservableValueTest;
 import org.eclipse.core.tests.internal.databinding.beans.JavaBeanPropertyObservableMapTest;
+import org.eclipse.core.tests.internal.databinding.beans.PropertyAccessorTest;
 import org.eclipse.core.tests.internal.databinding.conversion.DateConversionSupportTest;
 import org.eclipse.core.tests.internal.databinding.conversion.IdentityConverterTest;
 import org.eclipse.core.tests.internal.databinding.conversion.IntegerToStringConverterTest;
@@ -122,7 +123,9 @@ import org.eclipse.core.tests.internal.databinding.conversion.StringToNumberPars
 import org.eclipse.core.tests.internal.databinding.conversion.StringToShortConverterTest;
 import org.eclipse.core.tests.internal.databinding.observable.ConstantObservableValueTest;
 import org.eclipse.core.tests.internal.databinding.observable.DelayedObservableValueTest;
+import org.eclipse.core.tests.internal.databinding.observable.FilteredObservableListTest;
 import org.eclipse.core.tests.internal.databinding.observable.MapEntryObservableValueTest;
+import org.eclipse.core.tests.internal.databinding.observable.SortedObservableListTest;
 import org.eclipse.core.tests.internal.databinding.observable.UnmodifiableObservableListTest;
 import org.eclipse.core.tests.internal.databinding.observable.UnmodifiableObservableSetTest;
 import org.eclipse.core.tests.internal.databinding.observable.UnmodifiableObservableValueTest;
@@ -238,8 +241,9 @@ import org.junit.runners.Suite.SuiteClasses;
 		DelayedObservableValueTest.class, DetailObservableListTest.class, DetailObservableMapTest.class,
 		DetailObservableSetTest.class, DetailObservableValueTest.class, DifferentRealmsBindingTest.class,
 		Diffs_ListDiffTests.class, DiffsTest.class, DuplexingObservableValueTest.class, EditMaskLexerAndTokenTest.class,
-		EditMaskParserTest.class, GroupObservableValueTest.class, IdentityConverterTest.class, IdentityMapTest.class,
-		IdentitySetTest.class, IntegerToStringConverterTest.class, JavaBeanObservableArrayBasedListTest.class,
+		EditMaskParserTest.class, FilteredObservableListTest.class, GroupObservableValueTest.class,
+		IdentityConverterTest.class, IdentityMapTest.class, IdentitySetTest.class, IntegerToStringConverterTest.class,
+		JavaBeanObservableArrayBasedListTest.class,
 		JavaBeanObservableArrayBasedSetTest.class, JavaBeanObservableListTest.class, JavaBeanObservableMapTest.class,
 		JavaBeanObservableSetTest.class, JavaBeanObservableValueTest.class, JavaBeanPropertyObservableMapTest.class,
 		LabelObservableValueTest.class, ListBindingTest.class, ListDetailValueObservableListTest.class,
@@ -258,13 +262,14 @@ import org.junit.runners.Suite.SuiteClasses;
 		ObservableMapTest.class, ObservableSetContentProviderTest.class, ObservableSetTreeContentProviderTest.class,
 		ObservablesManagerTest.class, ObservablesTest.class, ObservableTrackerTest.class,
 		ObservableValueEditingSupportTest.class, PojoObservablesTest.class, PojoPropertiesTest.class, PolicyTest.class,
-		PreferencePageSupportTest.class, QueueTest.class, RealmTest.class, ScaleObservableValueMaxTest.class,
-		ScaleObservableValueMinTest.class, ScaleObservableValueSelectionTest.class,
+		PreferencePageSupportTest.class, PropertyAccessorTest.class, QueueTest.class, RealmTest.class,
+		ScaleObservableValueMaxTest.class, ScaleObservableValueMinTest.class, ScaleObservableValueSelectionTest.class,
 		SelectionProviderMultiSelectionObservableListTest.class,
 		SelectionProviderSingleSelectionObservableValueTest.class, SetDetailValueObservableMapTest.class,
 		SetOnlyJavaBeanTest.class, SetSimpleValueObservableMapTest.class, ShellObservableValueTest.class,
-		SideEffectTest.class, SpinnerObservableValueMaxTest.class, SpinnerObservableValueMinTest.class,
-		SpinnerObservableValueSelectionTest.class, SpinnerObservableValueTest.class, StatusToStringConverterTest.class,
+		SideEffectTest.class, SortedObservableListTest.class, SpinnerObservableValueMaxTest.class,
+		SpinnerObservableValueMinTest.class, SpinnerObservableValueSelectionTest.class,
+		SpinnerObservableValueTest.class, StatusToStringConverterTest.class,
 		StringToBooleanConverterTest.class, StringToByteConverterTest.class, StringToByteValidatorTest.class,
 		StringToCharacterConverterTest.class, StringToCharacterValidatorTest.class, StringToDoubleValidatorTest.class,
 		StringToFloatValidatorTest.class, StringToIntegerValidatorTest.class, StringToLongValidatorTest.class,
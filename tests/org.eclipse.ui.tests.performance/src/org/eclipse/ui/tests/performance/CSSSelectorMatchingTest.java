@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.performance;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.e4.ui.css.core.impl.dom.ViewCSSImpl;
+import org.eclipse.e4.ui.css.swt.dom.WidgetElement;
+import org.eclipse.e4.ui.css.swt.engine.CSSSWTEngineImpl;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.swt.widgets.ToolBar;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.Widget;
+import org.w3c.dom.Element;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleSheet;
+
+/**
+ * Measures the matching of the CSS selectors of a large style sheet against a
+ * large widget tree, with the selector index of
+ * {@link ViewCSSImpl#getUncachedComputedStyle(Element, String)} and with the
+ * full scan of the rules of
+ * {@link ViewCSSImpl#getComputedStyle(List, Element, String)}. The computed
+ * style cache of {@link ViewCSSImpl#getComputedStyle(Element, String)} is
+ * bypassed, so that each iteration matches the selectors again.
+ */
+public class CSSSelectorMatchingTest extends BasicPerformanceTest {
+
+	private static final int RULE_GROUPS = 200;
+
+	private static final int COMPOSITES = 40;
+
+	private static final int CHILDREN = 50;
+
+	private static final int ITERATIONS = 20;
+
+	private final boolean indexed;
+
+	private Shell shell;
+
+	private ViewCSSImpl viewCSS;
+
+	private List<CSSRule> rules;
+
+	private List<Element> elements;
+
+	/**
+	 * @param testName
+	 *            the name of the test
+	 * @param indexed
+	 *            whether the selectors are matched with the index rather than
+	 *            with a full scan of the rules
+	 */
+	public CSSSelectorMatchingTest(String testName, boolean indexed) {
+		super(testName);
+		this.indexed = indexed;
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		Display display = Display.getCurrent();
+		if (display == null) {
+			display = new Display();
+		}
+		CSSSWTEngineImpl engine = new CSSSWTEngineImpl(display);
+		CSSStyleSheet styleSheet = (CSSStyleSheet) engine.parseStyleSheet(new StringReader(createCss()));
+		viewCSS = (ViewCSSImpl) engine.getViewCSS();
+		rules = new ArrayList<>();
+		CSSRuleList ruleList = styleSheet.getCssRules();
+		for (int i = 0; i < ruleList.getLength(); i++) {
+			rules.add(ruleList.item(i));
+		}
+
+		shell = new Shell(display);
+		elements = new ArrayList<>();
+		elements.add(engine.getElement(shell));
+		int count = 0;
+		for (int i = 0; i < COMPOSITES; i++) {
+			Composite composite = new Composite(shell, SWT.NONE);
+			elements.add(engine.getElement(composite));
+			for (int j = 0; j < CHILDREN; j++, count++) {
+				Widget child = createWidget(composite, count);
+				if (count % 3 == 0) {
+					WidgetElement.setCSSClass(child,
+							"class" + (count % RULE_GROUPS) + " class" + ((count + 7) % RULE_GROUPS));
+				}
+				if (count % 97 == 0) {
+					WidgetElement.setID(child, "id" + (count % RULE_GROUPS));
+				}
+				elements.add(engine.getElement(child));
+			}
+		}
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		super.doTearDown();
+		if (shell != null) {
+			shell.dispose();
+			shell = null;
+		}
+	}
+
+	private static Widget createWidget(Composite parent, int index) {
+		switch (index % 7) {
+		case 0:
+			return new Label(parent, SWT.NONE);
+		case 1:
+			return new Button(parent, SWT.PUSH);
+		case 2:
+			return new Text(parent, SWT.BORDER);
+		case 3:
+			return new Combo(parent, SWT.READ_ONLY);
+		case 4:
+			return new ToolBar(parent, SWT.FLAT);
+		case 5:
+			return new Tree(parent, SWT.NONE);
+		default:
+			return new Table(parent, SWT.NONE);
+		}
+	}
+
+	/**
+	 * Returns rules by type, class, id, pseudo class and descendant, as in the
+	 * themes.
+	 */
+	private static String createCss() {
+		String[] types = { "Label", "Button", "Text", "Combo", "ToolBar", "Tree", "Table" };
+		StringBuilder css = new StringBuilder();
+		css.append("* { font-size: 9; }\n");
+		for (int i = 0; i < RULE_GROUPS; i++) {
+			String type = types[i % types.length];
+			String hex = String.format("%02x", Integer.valueOf(i % 256));
+			css.append(type).append(" { color: #0000").append(hex).append("; }\n");
+			css.append(".class").append(i).append(" { background-color: #00").append(hex).append("00; }\n");
+			css.append(type).append(".class").append(i).append(":selected { color: #").append(hex)
+					.append("0000; }\n");
+			css.append("Shell > Composite .class").append(i).append(" { font-weight: bold; }\n");
+			css.append("#id").append(i).append(" { font-style: italic; }\n");
+		}
+		return css.toString();
+	}
+
+	@Override
+	protected void runTest() throws Throwable {
+		exercise(new TestRunnable() {
+			@Override
+			public void run() {
+				startMeasuring();
+				for (int i = 0; i < ITERATIONS; i++) {
+					for (Element element : elements) {
+						if (indexed) {
+							viewCSS.getUncachedComputedStyle(element, null);
+						} else {
+							viewCSS.getComputedStyle(rules, element, null);
+						}
+					}
+				}
+				stopMeasuring();
+			}
+		});
+
+		commitMeasurements();
+		assertPerformance();
+	}
+}
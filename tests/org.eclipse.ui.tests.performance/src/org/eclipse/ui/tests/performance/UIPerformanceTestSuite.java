@@ -37,5 +37,7 @@ public class UIPerformanceTestSuite extends FilteredTestSuite {
 		addTest(new TestSuite(CommandsPerformanceTest.class));
 		addTest(new LabelProviderTestSuite());
 		addTest(new TestSuite(ProgressReportingTest.class));
+		addTest(new CSSSelectorMatchingTest("CSS selector matching with the index", true));
+		addTest(new CSSSelectorMatchingTest("CSS selector matching with a full scan", false));
 	}
 }
@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.fieldassist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.jface.fieldassist.ContentProposal;
+import org.eclipse.jface.fieldassist.ContentProposalAdapter;
+import org.eclipse.jface.fieldassist.IAsyncContentProposalProvider;
+import org.eclipse.jface.fieldassist.IContentProposal;
+import org.eclipse.jface.fieldassist.IContentProposalCollector;
+import org.eclipse.jface.fieldassist.TextContentAdapter;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.Text;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests a {@link ContentProposalAdapter} with an
+ * {@link IAsyncContentProposalProvider}.
+ */
+public class AsyncContentProposalAdapterTest extends TestCase {
+
+	private static final String[] WORDS = { "one", "two", "three", "four", "five", "six", "seven", "eight",
+			"nine", "ten" };
+
+	/**
+	 * Opens the popup explicitly.
+	 */
+	private static class TestContentProposalAdapter extends ContentProposalAdapter {
+		TestContentProposalAdapter(Control control, IAsyncContentProposalProvider provider) {
+			super(control, new TextContentAdapter(), provider, null, new char[0]);
+		}
+
+		@Override
+		public void openProposalPopup() {
+			super.openProposalPopup();
+		}
+
+		@Override
+		public void closeProposalPopup() {
+			super.closeProposalPopup();
+		}
+	}
+
+	/**
+	 * Proposes the words starting with the contents before the cursor. The
+	 * content of a proposal is the rest of the word. The words are added in
+	 * two batches, and the second one waits for the <code>secondBatch</code>
+	 * latch.
+	 */
+	private class TestProvider implements IAsyncContentProposalProvider {
+		@Override
+		public void computeProposals(String contents, int position, IContentProposalCollector collector) {
+			synchronized (AsyncContentProposalAdapterTest.this) {
+				computations++;
+				collectors.add(collector);
+				computingThread = Thread.currentThread();
+			}
+			String prefix = contents.substring(0, position);
+			List<IContentProposal> proposals = new ArrayList<>();
+			for (String word : WORDS) {
+				if (word.startsWith(prefix)) {
+					proposals.add(new ContentProposal(word.substring(prefix.length()), word, null));
+				}
+			}
+			int half = proposals.size() / 2;
+			collector.addProposals(proposals.subList(0, half).toArray(new IContentProposal[half]));
+			try {
+				secondBatch.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (!collector.isCancelled()) {
+				collector.addProposals(
+						proposals.subList(half, proposals.size()).toArray(new IContentProposal[proposals.size() - half]));
+			}
+		}
+	}
+
+	private Display display;
+
+	private Shell controlShell;
+
+	private Text text;
+
+	private TestContentProposalAdapter adapter;
+
+	private CountDownLatch secondBatch;
+
+	private volatile int computations;
+
+	private List<IContentProposalCollector> collectors = Collections.synchronizedList(new ArrayList<>());
+
+	private volatile Thread computingThread;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		display = Display.getDefault();
+		controlShell = new Shell(display);
+		text = new Text(controlShell, SWT.SINGLE);
+		controlShell.open();
+		text.setFocus();
+		spinEventLoop();
+		secondBatch = new CountDownLatch(1);
+		adapter = new TestContentProposalAdapter(text, new TestProvider());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		secondBatch.countDown();
+		if (controlShell != null) {
+			spinEventLoop();
+			controlShell.close();
+		}
+		super.tearDown();
+	}
+
+	private void spinEventLoop() {
+		while (display.readAndDispatch()) {
+		}
+	}
+
+	private void waitFor(BooleanSupplier condition) {
+		long end = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < end) {
+			if (!display.readAndDispatch()) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					break;
+				}
+			}
+		}
+		spinEventLoop();
+	}
+
+	private Table getProposalTable() {
+		for (Shell shell : display.getShells()) {
+			if (shell != controlShell && !shell.isDisposed()) {
+				for (Control child : shell.getChildren()) {
+					if (child instanceof Table) {
+						return (Table) child;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private int getProposalCount() {
+		Table table = getProposalTable();
+		return table == null ? 0 : table.getItemCount();
+	}
+
+	private void setContents(String contents) {
+		text.setText(contents);
+		text.setSelection(contents.length());
+	}
+
+	private void typeCharacter(char character) {
+		text.insert(String.valueOf(character));
+		Event event = new Event();
+		event.character = character;
+		text.notifyListeners(SWT.KeyDown, event);
+		spinEventLoop();
+	}
+
+	public void testPartialResults() {
+		setContents("t");
+		adapter.openProposalPopup();
+		// the proposals are computed in the background
+		waitFor(() -> adapter.isProposalPopupOpen());
+		assertTrue(adapter.isProposalPopupOpen());
+		assertNotSame(display.getThread(), computingThread);
+		assertEquals("the first batch should be shown", 1, getProposalCount());
+
+		secondBatch.countDown();
+		waitFor(() -> getProposalCount() == 3);
+		assertEquals("the second batch should be added", 3, getProposalCount());
+		assertEquals(1, computations);
+	}
+
+	public void testFilterTypedCharacters() {
+		secondBatch.countDown();
+		setContents("t");
+		adapter.openProposalPopup();
+		waitFor(() -> getProposalCount() == 3);
+		assertEquals(3, getProposalCount());
+
+		// the proposals computed for "t" are filtered
+		typeCharacter('w');
+		waitFor(() -> getProposalCount() == 1);
+		assertEquals(1, getProposalCount());
+		assertEquals("two", getProposalTable().getItem(0).getText());
+		assertEquals(1, computations);
+	}
+
+	public void testRefineProposalByAcceptanceStyle() {
+		IAsyncContentProposalProvider provider = new TestProvider();
+		IContentProposal proposal = new ContentProposal("two", "two", null);
+		IContentProposal refined = provider.refineProposal(proposal, "tw", ContentProposalAdapter.PROPOSAL_INSERT);
+		assertEquals("o", refined.getContent());
+		assertEquals("two", refined.getLabel());
+		assertNull(provider.refineProposal(proposal, "x", ContentProposalAdapter.PROPOSAL_INSERT));
+
+		// a replacing proposal is the whole contents of the field
+		assertSame(proposal, provider.refineProposal(proposal, "tw", ContentProposalAdapter.PROPOSAL_REPLACE));
+	}
+
+	public void testCancelSupersededComputation() {
+		setContents("t");
+		adapter.openProposalPopup();
+		waitFor(() -> adapter.isProposalPopupOpen());
+
+		// moving the cursor back requires new proposals
+		text.setSelection(0);
+		Event event = new Event();
+		event.keyCode = SWT.ARROW_LEFT;
+		text.notifyListeners(SWT.KeyDown, event);
+		waitFor(() -> computations == 2);
+		assertEquals(2, computations);
+		assertTrue("the first computation should be cancelled", collectors.get(0).isCancelled());
+		assertFalse(collectors.get(1).isCancelled());
+
+		secondBatch.countDown();
+		waitFor(() -> getProposalCount() == WORDS.length);
+		assertEquals(WORDS.length, getProposalCount());
+	}
+
+	public void testCancelOnClose() {
+		setContents("t");
+		adapter.openProposalPopup();
+		waitFor(() -> adapter.isProposalPopupOpen());
+		Event event = new Event();
+		event.character = SWT.ESC;
+		text.notifyListeners(SWT.KeyDown, event);
+		spinEventLoop();
+		assertFalse(adapter.isProposalPopupOpen());
+		assertTrue(collectors.get(0).isCancelled());
+	}
+
+	public void testCancelOnCloseWithoutPopup() {
+		// the first batch of "on" is empty, so the popup is not open yet
+		setContents("on");
+		adapter.openProposalPopup();
+		waitFor(() -> computations == 1);
+		assertFalse(adapter.isProposalPopupOpen());
+		adapter.closeProposalPopup();
+		assertTrue(collectors.get(0).isCancelled());
+
+		secondBatch.countDown();
+		waitFor(() -> !computingThread.isAlive());
+		assertFalse(adapter.isProposalPopupOpen());
+	}
+
+	public void testCancelOnFocusOutWithoutPopup() {
+		setContents("on");
+		adapter.openProposalPopup();
+		waitFor(() -> computations == 1);
+		assertFalse(adapter.isProposalPopupOpen());
+		text.notifyListeners(SWT.FocusOut, new Event());
+		assertTrue(collectors.get(0).isCancelled());
+
+		secondBatch.countDown();
+		waitFor(() -> !computingThread.isAlive());
+		assertFalse(adapter.isProposalPopupOpen());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2017 IBM Corporation and others.
+ * Copyright (c) 2005, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,6 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ // disabled, see bug 275393...
 		// TextFieldAssistTests.class, ComboFieldAssistTests.class,
-		ControlDecorationTests.class, FieldAssistAPITests.class })
+		ControlDecorationTests.class, FieldAssistAPITests.class, AsyncContentProposalAdapterTest.class })
 public class FieldAssistTestSuite {
 }
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.jface.tests.images;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.eclipse.jface.internal.PersistentImageCache;
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.ui.tests.TestPlugin;
+import org.osgi.framework.Bundle;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the persistent cache of the image data of URL image descriptors.
+ */
+public class PersistentImageCacheTest extends TestCase {
+
+	private File directory;
+
+	private File cacheFile;
+
+	private int loads;
+
+	public PersistentImageCacheTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		directory = Files.createTempDirectory("imagecache").toFile();
+		cacheFile = new File(directory, "images.cache");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		PersistentImageCache.close();
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+		super.tearDown();
+	}
+
+	private List<URL> getBundleImages() {
+		Bundle bundle = TestPlugin.getDefault().getBundle();
+		Enumeration<URL> entries = bundle.findEntries(FileImageDescriptorTest.IMAGES_DIRECTORY, "*.*", false);
+		List<URL> urls = new ArrayList<>();
+		while (entries.hasMoreElements()) {
+			urls.add(entries.nextElement());
+		}
+		return urls;
+	}
+
+	private ImageData load(int zoom) {
+		loads++;
+		return null;
+	}
+
+	private static void assertImageDataEquals(ImageData expected, ImageData actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.width, actual.width);
+		assertEquals(expected.height, actual.height);
+		assertEquals(expected.depth, actual.depth);
+		assertEquals(expected.transparentPixel, actual.transparentPixel);
+		assertEquals(expected.alpha, actual.alpha);
+		assertEquals(expected.palette.isDirect, actual.palette.isDirect);
+		assertTrue(Arrays.equals(expected.data, actual.data));
+		assertTrue(Arrays.equals(expected.maskData, actual.maskData));
+		assertTrue(Arrays.equals(expected.alphaData, actual.alphaData));
+	}
+
+	public void testBundleImages() {
+		List<URL> urls = getBundleImages();
+		assertFalse(urls.isEmpty());
+		List<ImageData> expected = new ArrayList<>();
+		for (URL url : urls) {
+			expected.add(ImageDescriptor.createFromURL(url).getImageData(100));
+		}
+
+		PersistentImageCache.open(cacheFile);
+		for (URL url : urls) {
+			ImageDescriptor.createFromURL(url).getImageData(100);
+		}
+		PersistentImageCache.close();
+		assertTrue(cacheFile.isFile());
+
+		// the image data are now read from the file
+		PersistentImageCache.open(cacheFile);
+		PersistentImageCache cache = PersistentImageCache.getDefault();
+		for (int i = 0; i < urls.size(); i++) {
+			assertImageDataEquals(expected.get(i), cache.getImageData(urls.get(i), 100, this::load));
+			assertImageDataEquals(expected.get(i), ImageDescriptor.createFromURL(urls.get(i)).getImageData(100));
+		}
+		assertEquals(0, loads);
+
+		// each call returns new image data
+		URL url = urls.get(0);
+		assertNotSame(cache.getImageData(url, 100, this::load), cache.getImageData(url, 100, this::load));
+	}
+
+	public void testKeyIndependentOfFramework() throws IOException {
+		URL url = getBundleImages().get(0);
+		assertEquals("bundleentry", url.getProtocol());
+		PersistentImageCache.open(cacheFile);
+		ImageData data = ImageDescriptor.createFromURL(url).getImageData(100);
+		PersistentImageCache.close();
+
+		// the host of bundle entry URLs is "<bundle id>.fwk<framework hash
+		// code>", the hash code changes in the next session
+		String host = url.getHost();
+		String nextHost = host.substring(0, host.indexOf('.')) + ".fwk" + (host.hashCode() + 1);
+		URL nextUrl = new URL(url.getProtocol(), nextHost, url.getPort(), url.getFile());
+		assertFalse(url.toExternalForm().equals(nextUrl.toExternalForm()));
+
+		PersistentImageCache.open(cacheFile);
+		assertImageDataEquals(data, PersistentImageCache.getDefault().getImageData(nextUrl, 100, this::load));
+		assertEquals(0, loads);
+	}
+
+	public void testUnusedEntriesKept() {
+		List<URL> urls = getBundleImages();
+		assertTrue(urls.size() > 1);
+		PersistentImageCache.open(cacheFile);
+		for (URL url : urls) {
+			ImageDescriptor.createFromURL(url).getImageData(100);
+		}
+		PersistentImageCache.close();
+		long fullSize = cacheFile.length();
+
+		// only the first image is used in this session
+		PersistentImageCache.open(cacheFile);
+		PersistentImageCache.getDefault().getImageData(urls.get(0), 100, this::load);
+		assertEquals(0, loads);
+		PersistentImageCache.close();
+		assertEquals(fullSize, cacheFile.length());
+
+		PersistentImageCache.open(cacheFile);
+		PersistentImageCache cache = PersistentImageCache.getDefault();
+		for (URL url : urls) {
+			cache.getImageData(url, 100, this::load);
+		}
+		assertEquals(0, loads);
+	}
+
+	public void testOldUnusedEntriesDropped() {
+		List<URL> urls = getBundleImages();
+		assertTrue(urls.size() > 1);
+		PersistentImageCache.open(cacheFile);
+		for (URL url : urls) {
+			ImageDescriptor.createFromURL(url).getImageData(100);
+		}
+		PersistentImageCache.close();
+		long fullSize = cacheFile.length();
+
+		// only the first image is used in this session, and the entries which
+		// are not used are too old to be kept
+		PersistentImageCache.open(cacheFile, 0);
+		PersistentImageCache.getDefault().getImageData(urls.get(0), 100, this::load);
+		assertEquals(0, loads);
+		PersistentImageCache.close();
+		assertTrue(cacheFile.length() < fullSize);
+
+		PersistentImageCache.open(cacheFile);
+		PersistentImageCache cache = PersistentImageCache.getDefault();
+		cache.getImageData(urls.get(0), 100, this::load);
+		assertEquals(0, loads);
+		cache.getImageData(urls.get(1), 100, this::load);
+		assertEquals(1, loads);
+	}
+
+	public void testChangedFile() throws IOException {
+		URL source = getBundleImages().get(0);
+		File imageFile = new File(directory, "image.gif");
+		try (InputStream in = source.openStream()) {
+			Files.copy(in, imageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		URL url = imageFile.toURI().toURL();
+
+		PersistentImageCache.open(cacheFile);
+		ImageData data = ImageDescriptor.createFromURL(url).getImageData(100);
+		assertNotNull(data);
+		// the missing @2x image is cached as well
+		assertNull(ImageDescriptor.createFromURL(url).getImageData(200));
+		PersistentImageCache.close();
+
+		PersistentImageCache.open(cacheFile);
+		PersistentImageCache cache = PersistentImageCache.getDefault();
+		assertImageDataEquals(data, cache.getImageData(url, 100, this::load));
+		assertNull(cache.getImageData(url, 200, this::load));
+		assertEquals(0, loads);
+
+		assertTrue(imageFile.setLastModified(imageFile.lastModified() - 10000));
+		assertNull(cache.getImageData(url, 100, this::load));
+		assertEquals(1, loads);
+	}
+
+	public void testCorruptedFile() throws IOException {
+		Files.write(cacheFile.toPath(), new byte[] { 1, 2, 3 });
+		PersistentImageCache.open(cacheFile);
+		URL url = getBundleImages().get(0);
+		assertNotNull(ImageDescriptor.createFromURL(url).getImageData(100));
+		PersistentImageCache.close();
+
+		PersistentImageCache.open(cacheFile);
+		assertNotNull(PersistentImageCache.getDefault().getImageData(url, 100, this::load));
+		assertEquals(0, loads);
+	}
+}
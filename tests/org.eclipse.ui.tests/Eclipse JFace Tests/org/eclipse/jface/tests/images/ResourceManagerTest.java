@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2017 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,12 @@
  *******************************************************************************/
 package org.eclipse.jface.tests.images;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
 import org.eclipse.jface.resource.ColorDescriptor;
 import org.eclipse.jface.resource.DeviceResourceDescriptor;
 import org.eclipse.jface.resource.DeviceResourceException;
@@ -17,9 +23,13 @@ import org.eclipse.jface.resource.DeviceResourceManager;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.resource.LocalResourceManager;
 import org.eclipse.jface.resource.ResourceManager;
+import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Device;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.PaletteData;
 import org.eclipse.swt.graphics.RGB;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
@@ -41,6 +51,8 @@ public class ResourceManagerTest extends TestCase {
 
     private DeviceResourceManager globalResourceManager;
 
+    private File directory;
+
     private static ImageDescriptor getImage(String path) {
         return AbstractUIPlugin.imageDescriptorFromPlugin("org.eclipse.ui.tests", path);
     }
@@ -126,6 +138,8 @@ public class ResourceManagerTest extends TestCase {
 
         // Let the tests know how many duplicates are in the array
         numDupes = 11;
+
+        directory = Files.createTempDirectory("resourcemanager").toFile();
     }
 
     @Override
@@ -135,6 +149,10 @@ public class ResourceManagerTest extends TestCase {
         Assert.assertEquals("Detected leaks", 0, TestDescriptor.refCount);
         testImage.dispose();
         testImage2.dispose();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
     }
 
     protected void validateResource(Object resource) throws Exception {
@@ -286,4 +304,127 @@ public class ResourceManagerTest extends TestCase {
     	// Destroy the resource we created
     	globalResourceManager.destroy(descriptor);
     }
+
+    /**
+     * Writes a PNG image of the given size to the given file. The image data
+     * of a 1024x1024 image take 3 MB, so two of them do not fit in the image
+     * data cache of the device resource managers.
+     */
+    private static ImageDescriptor writeImage(File file, int width, int height) {
+        ImageLoader loader = new ImageLoader();
+        loader.data = new ImageData[] {
+                new ImageData(width, height, 24, new PaletteData(0xFF0000, 0xFF00, 0xFF)) };
+        loader.save(file.getPath(), SWT.IMAGE_PNG);
+        // the descriptor reads the file each time it decodes the image, so
+        // the size of the image created from it tells whether it was decoded
+        // again
+        return ImageDescriptor.createFromFile(null, file.getPath());
+    }
+
+    private int createWidth(ImageDescriptor descriptor) {
+        Image image = globalResourceManager.createImage(descriptor);
+        try {
+            return image.getBounds().width;
+        } finally {
+            globalResourceManager.destroyImage(descriptor);
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) {
+        Display display = Display.getCurrent();
+        long end = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out", System.currentTimeMillis() < end);
+            if (!display.readAndDispatch()) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    fail();
+                }
+            }
+        }
+    }
+
+    public void testImageDataNotDecodedTwice() throws Exception {
+        File file = new File(directory, "image.png");
+        ImageDescriptor descriptor = writeImage(file, 16, 16);
+        assertEquals(16, createWidth(descriptor));
+
+        writeImage(file, 24, 24);
+        assertEquals("The image data should not have been decoded again", 16, createWidth(descriptor));
+        // an equal descriptor finds the same image data
+        assertEquals(16, createWidth(ImageDescriptor.createFromFile(null, file.getPath())));
+    }
+
+    public void testImageDataCacheEvictsLeastRecentlyUsed() throws Exception {
+        File small = new File(directory, "small.png");
+        File large1 = new File(directory, "large1.png");
+        File large2 = new File(directory, "large2.png");
+        ImageDescriptor smallDescriptor = writeImage(small, 16, 16);
+        ImageDescriptor large1Descriptor = writeImage(large1, 1024, 1024);
+        ImageDescriptor large2Descriptor = writeImage(large2, 1024, 1024);
+
+        assertEquals(16, createWidth(smallDescriptor));
+        assertEquals(1024, createWidth(large1Descriptor));
+        // the small image becomes the most recently used one
+        assertEquals(16, createWidth(smallDescriptor));
+        // the cache overflows, the first large image is evicted
+        assertEquals(1024, createWidth(large2Descriptor));
+
+        writeImage(small, 24, 24);
+        writeImage(large1, 1000, 1000);
+        writeImage(large2, 1000, 1000);
+        assertEquals("The small image should still be cached", 16, createWidth(smallDescriptor));
+        assertEquals("The second large image should still be cached", 1024, createWidth(large2Descriptor));
+        assertEquals("The first large image should have been evicted", 1000, createWidth(large1Descriptor));
+    }
+
+    public void testCreateImageAsync() throws Exception {
+        ImageDescriptor descriptor = writeImage(new File(directory, "async.png"), 16, 16);
+        List<Image> loaded = new ArrayList<>();
+        // the image data were never decoded, they are decoded in the background
+        assertSame(testImage, globalResourceManager.createImageAsync(descriptor, testImage, loaded::add));
+        waitFor(() -> !loaded.isEmpty());
+        assertEquals(1, loaded.size());
+        Image image = loaded.get(0);
+        validateResource(image);
+        assertSame(image, globalResourceManager.find(descriptor));
+
+        // the image is allocated, so it is returned immediately
+        loaded.clear();
+        LocalResourceManager local = new LocalResourceManager(globalResourceManager);
+        assertSame(image, local.createImageAsync(descriptor, testImage, loaded::add));
+        local.dispose();
+        globalResourceManager.destroyImage(descriptor);
+
+        // the image data are cached, so the image is created immediately
+        Image created = globalResourceManager.createImageAsync(descriptor, testImage, loaded::add);
+        assertNotSame(testImage, created);
+        validateResource(created);
+        globalResourceManager.destroyImage(descriptor);
+        while (Display.getCurrent().readAndDispatch()) {
+            // run the pending callbacks, if any
+        }
+        assertTrue(loaded.isEmpty());
+    }
+
+    public void testCreateImageAsyncAfterDispose() throws Exception {
+        ImageDescriptor descriptor = writeImage(new File(directory, "disposed.png"), 16, 16);
+        List<Image> loaded = new ArrayList<>();
+        LocalResourceManager local = new LocalResourceManager(globalResourceManager);
+        assertSame(testImage, local.createImageAsync(descriptor, testImage, loaded::add));
+        local.dispose();
+
+        // wait until the image data are decoded and the callbacks have run
+        List<Image> other = new ArrayList<>();
+        Image image = globalResourceManager.createImageAsync(descriptor, testImage, other::add);
+        if (image == testImage) {
+            waitFor(() -> !other.isEmpty());
+        }
+        while (Display.getCurrent().readAndDispatch()) {
+            // run the pending callbacks
+        }
+        assertTrue("The image should not be created after the manager is disposed", loaded.isEmpty());
+        globalResourceManager.destroyImage(descriptor);
+    }
 }
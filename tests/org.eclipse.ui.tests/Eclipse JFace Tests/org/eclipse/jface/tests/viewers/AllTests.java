@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,12 +18,14 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({ TreeSelectionTest.class, MultipleEqualElementsTreeViewerTest.class,
 		LazySortedCollectionTest.class, TreeViewerTest.class, VirtualTreeViewerTest.class, SimpleTreeViewerTest.class,
 		SimpleTableViewerTest.class, SimpleVirtualLazyTreeViewerTest.class, VirtualLazyTreeViewerTest.class,
-		TableViewerTest.class, TreeViewerColumnTest.class, VirtualTableViewerTest.class,
-		VirtualLazyTableViewerTest.class, TableTreeViewerTest.class, TableColorProviderTest.class,
-		TableFontProviderTest.class, ListViewerTest.class, CheckboxTableViewerTest.class,
+		DeferredTreeContentProviderTest.class,
+		TableViewerTest.class, TableViewerIncrementalRefreshTest.class, TreeViewerColumnTest.class, VirtualTableViewerTest.class,
+		VirtualLazyTableViewerTest.class, ParallelLabelsTableViewerTest.class, TableTreeViewerTest.class,
+		TableColorProviderTest.class, TableFontProviderTest.class, ListViewerTest.class, CheckboxTableViewerTest.class,
 		CheckboxTableViewerTest.DeprecatedConstructor.class, CheckboxTableViewerTest.FactoryMethod.class,
 		CheckboxTreeViewerTest.class, ComboViewerTest.class, CComboViewerTest.class, TreeViewerComparatorTest.class,
-		ListViewerComparatorTest.class, TableViewerComparatorTest.class, Bug138608Test.class,
+		ListViewerComparatorTest.class, TableViewerComparatorTest.class, ViewerComparatorSortKeysTest.class,
+		ElementMapTest.class, Bug138608Test.class,
 		ComboViewerComparerTest.class, ListViewerRefreshTest.class, Bug200558Test.class, Bug201002TableViewerTest.class,
 		Bug201002TreeViewerTest.class, Bug200337TableViewerTest.class, Bug203657TreeViewerTest.class,
 		Bug203657TableViewerTest.class, Bug205700TreeViewerTest.class, Bug180504TableViewerTest.class,
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2017 Lasse Knudsen and others.
+ * Copyright (c) 2007, 2018 Lasse Knudsen and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -125,6 +125,41 @@ public class Bug205700TreeViewerTest extends TestCase {
 				"Child5" });
 	}
 
+	public void testAddManySortedElements() throws Exception {
+		viewer.setSorter(new ViewerSorter());
+		List<String> expected = new ArrayList<>();
+		for (TreeNode child : rootNode.getChildren()) {
+			expected.add(child.getName());
+		}
+		for (int i = 999; i >= 0; i--) {
+			TreeNode node = new TreeNode(String.format("Child%04d", Integer.valueOf(i)));
+			rootNode.add(node);
+			expected.add(node.getName());
+		}
+		expected.sort(null);
+
+		viewer.add(rootNode, rootNode.getChildren().toArray());
+		assertEquals(expected.size(), viewer.getTree().getItemCount());
+		assertItemNames(expected.toArray(new String[expected.size()]));
+
+		// adding the same elements again does not create items
+		viewer.add(rootNode, rootNode.getChildren().toArray());
+		assertEquals(expected.size(), viewer.getTree().getItemCount());
+	}
+
+	public void testAddExistingElementsWithHashLookup() throws Exception {
+		viewer.setInput(null);
+		viewer.setUseHashlookup(true);
+		viewer.setInput(rootNode);
+		viewer.setSorter(new ViewerSorter());
+
+		rootNode.add(new TreeNode("Child2"));
+		viewer.add(rootNode, rootNode.getChildren().toArray());
+
+		assertEquals(4, viewer.getTree().getItemCount());
+		assertItemNames(new String[] { "Child1", "Child10", "Child2", "Child5" });
+	}
+
 	private Object createInput() {
 		rootNode = new TreeNode("Root");
 
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.viewers;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.deferred.DeferredTreeContentProvider;
+import org.eclipse.jface.viewers.deferred.IConcurrentModel;
+import org.eclipse.jface.viewers.deferred.IConcurrentTreeModel;
+import org.eclipse.jface.viewers.deferred.SetModel;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeItem;
+import org.eclipse.ui.tests.harness.util.DisplayHelper;
+
+/**
+ * Tests the background sorting and filtering of DeferredTreeContentProvider.
+ */
+public class DeferredTreeContentProviderTest extends ViewerTestCase {
+
+	private static final int NUM_ROOTS = 20;
+	private static final int NUM_CHILDREN = 1000;
+
+	private DeferredTreeContentProvider contentProvider;
+
+	/**
+	 * Elements are strings: the roots "R-i" and their children "R-i-j", which
+	 * have no children.
+	 */
+	private final class TreeModel implements IConcurrentTreeModel {
+		private final Map<Object, SetModel> models = new HashMap<>();
+
+		@Override
+		public IConcurrentModel getChildren(Object parent) {
+			return models.computeIfAbsent(parent, p -> {
+				SetModel model = new SetModel();
+				if (p == this) {
+					model.addAll(createElements("R", NUM_ROOTS));
+				} else {
+					model.addAll(createElements((String) p, NUM_CHILDREN));
+				}
+				return model;
+			});
+		}
+
+		@Override
+		public boolean hasChildren(Object element) {
+			return getParent(element) == this;
+		}
+
+		@Override
+		public Object getParent(Object element) {
+			String string = (String) element;
+			int index = string.lastIndexOf('-');
+			return index == 1 ? this : string.substring(0, index);
+		}
+	}
+
+	private static Object[] createElements(String prefix, int count) {
+		Object[] elements = new Object[count];
+		for (int i = 0; i < count; i++) {
+			elements[i] = prefix + "-" + i;
+		}
+		return elements;
+	}
+
+	/**
+	 * Sorts by the number after the last dash, descending.
+	 */
+	private static final Comparator<Object> DESCENDING = (a, b) -> Integer.compare(getNumber(b), getNumber(a));
+
+	private static int getNumber(Object element) {
+		String string = (String) element;
+		return Integer.parseInt(string.substring(string.lastIndexOf('-') + 1));
+	}
+
+	public DeferredTreeContentProviderTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected StructuredViewer createViewer(Composite parent) {
+		Tree tree = new Tree(fShell, SWT.VIRTUAL | SWT.MULTI);
+		TreeViewer treeViewer = new TreeViewer(tree);
+		contentProvider = new DeferredTreeContentProvider(DESCENDING);
+		treeViewer.setContentProvider(contentProvider);
+		return treeViewer;
+	}
+
+	@Override
+	protected void setInput() {
+		fViewer.setInput(new TreeModel());
+	}
+
+	private Tree getTree() {
+		return ((TreeViewer) fViewer).getTree();
+	}
+
+	private void waitForText(TreeItem parentItem, int index, String expected) {
+		new DisplayHelper() {
+			@Override
+			protected boolean condition() {
+				int count = parentItem == null ? getTree().getItemCount() : parentItem.getItemCount();
+				if (count <= index) {
+					return false;
+				}
+				TreeItem item = parentItem == null ? getTree().getItem(index) : parentItem.getItem(index);
+				return expected.equals(item.getText());
+			}
+		}.waitForCondition(fViewer.getControl().getDisplay(), 5000);
+	}
+
+	public void testSortedRoots() {
+		if (disableTestsBug347491) {
+			System.out.println(getName() + " disabled due to Bug 347491");
+			return;
+		}
+		waitForText(null, 0, "R-" + (NUM_ROOTS - 1));
+		assertEquals(NUM_ROOTS, getTree().getItemCount());
+		assertEquals("R-" + (NUM_ROOTS - 1), getTree().getItem(0).getText());
+		assertEquals("R-" + (NUM_ROOTS - 2), getTree().getItem(1).getText());
+	}
+
+	public void testSortedChildren() {
+		if (disableTestsBug347491) {
+			System.out.println(getName() + " disabled due to Bug 347491");
+			return;
+		}
+		waitForText(null, 0, "R-" + (NUM_ROOTS - 1));
+		String root = "R-" + (NUM_ROOTS - 1);
+		((TreeViewer) fViewer).setExpandedState(root, true);
+		TreeItem rootItem = getTree().getItem(0);
+		waitForText(rootItem, 0, root + "-" + (NUM_CHILDREN - 1));
+		assertEquals(NUM_CHILDREN, rootItem.getItemCount());
+		assertEquals(root + "-" + (NUM_CHILDREN - 1), rootItem.getItem(0).getText());
+	}
+
+	public void testFilterAndLimit() {
+		if (disableTestsBug347491) {
+			System.out.println(getName() + " disabled due to Bug 347491");
+			return;
+		}
+		waitForText(null, 0, "R-" + (NUM_ROOTS - 1));
+		contentProvider.setFilter(element -> getNumber(element) % 2 == 0);
+		waitForText(null, 0, "R-" + (NUM_ROOTS - 2));
+		assertEquals(NUM_ROOTS / 2, getTree().getItemCount());
+
+		contentProvider.setLimit(3);
+		new DisplayHelper() {
+			@Override
+			protected boolean condition() {
+				return getTree().getItemCount() == 3;
+			}
+		}.waitForCondition(fViewer.getControl().getDisplay(), 5000);
+		assertEquals(3, getTree().getItemCount());
+	}
+}
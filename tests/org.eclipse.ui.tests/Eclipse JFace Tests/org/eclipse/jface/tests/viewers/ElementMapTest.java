@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.viewers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.viewers.IElementComparer;
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Item;
+import org.eclipse.swt.widgets.Widget;
+
+/**
+ * Tests the element map of a viewer with hash lookup enabled, with an element
+ * comparer whose hash codes collide so that the elements share probe
+ * sequences.
+ */
+public class ElementMapTest extends ViewerTestCase {
+
+	private static final String ROOT = "root";
+
+	private static final int ELEMENTS = 40;
+
+	private static final int HASH_CODES = 3;
+
+	private final Map<Object, List<String>> children = new HashMap<>();
+
+	/**
+	 * Compares the elements with equals, and gives them one of a few hash
+	 * codes.
+	 */
+	private static class CollidingComparer implements IElementComparer {
+		@Override
+		public boolean equals(Object a, Object b) {
+			return a.equals(b);
+		}
+
+		@Override
+		public int hashCode(Object element) {
+			return element.toString().length() % HASH_CODES;
+		}
+	}
+
+	private class ContentProvider implements ITreeContentProvider {
+		@Override
+		public Object[] getElements(Object inputElement) {
+			return getChildren(inputElement);
+		}
+
+		@Override
+		public Object[] getChildren(Object parentElement) {
+			List<String> list = children.get(parentElement);
+			return list == null ? new Object[0] : list.toArray();
+		}
+
+		@Override
+		public Object getParent(Object element) {
+			return null;
+		}
+
+		@Override
+		public boolean hasChildren(Object element) {
+			return children.containsKey(element);
+		}
+	}
+
+	public ElementMapTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected StructuredViewer createViewer(Composite parent) {
+		TreeViewer viewer = new TreeViewer(parent);
+		viewer.setContentProvider(new ContentProvider());
+		viewer.setLabelProvider(new LabelProvider());
+		viewer.setComparer(new CollidingComparer());
+		return viewer;
+	}
+
+	@Override
+	protected void setUpModel() {
+		List<String> elements = new ArrayList<>();
+		StringBuilder name = new StringBuilder();
+		for (int i = 0; i < ELEMENTS; i++) {
+			// names of different lengths, so that the hash codes differ
+			name.append(i % 10);
+			elements.add(name.toString());
+		}
+		children.put(ROOT, elements);
+	}
+
+	@Override
+	protected void setInput() {
+		fViewer.setInput(ROOT);
+	}
+
+	private TreeViewer getTreeViewer() {
+		return (TreeViewer) fViewer;
+	}
+
+	private void assertMapped(Object element) {
+		Widget item = fViewer.testFindItem(element);
+		assertNotNull("not mapped: " + element, item);
+		assertEquals(element, item.getData());
+	}
+
+	public void testCollidingElements() {
+		for (String element : children.get(ROOT)) {
+			assertMapped(element);
+			// an equal element which is not identical is found by the comparer
+			assertMapped(new String(element));
+		}
+		assertNull(fViewer.testFindItem("missing"));
+	}
+
+	public void testRemoveFromProbeSequence() {
+		List<String> elements = children.get(ROOT);
+		List<String> removed = new ArrayList<>();
+		// remove every third element, so that the removed slots are in the
+		// middle of the probe sequences of the remaining elements
+		for (int i = 0; i < elements.size(); i += 3) {
+			removed.add(elements.get(i));
+		}
+		elements.removeAll(removed);
+		getTreeViewer().remove(ROOT, removed.toArray());
+
+		for (String element : removed) {
+			assertNull("still mapped: " + element, fViewer.testFindItem(element));
+		}
+		for (String element : elements) {
+			assertMapped(element);
+		}
+
+		// the freed slots are reused
+		elements.addAll(removed);
+		getTreeViewer().add(ROOT, removed.toArray());
+		for (String element : elements) {
+			assertMapped(element);
+		}
+	}
+
+	public void testElementWithSeveralItems() {
+		List<String> parents = new ArrayList<>();
+		for (String parent : new String[] { "parent1", "parent2", "parent3" }) {
+			List<String> list = new ArrayList<>();
+			list.add("shared");
+			list.add(parent + ".child");
+			children.put(parent, list);
+			parents.add(parent);
+		}
+		children.put(ROOT, parents);
+		fViewer.refresh();
+		getTreeViewer().expandAll();
+
+		Widget[] items = fViewer.testFindItems("shared");
+		assertEquals(3, items.length);
+		for (Widget item : items) {
+			assertEquals("shared", item.getData());
+		}
+
+		getTreeViewer().remove("parent2", new Object[] { "shared" });
+		items = fViewer.testFindItems("shared");
+		assertEquals(2, items.length);
+		for (Widget item : items) {
+			assertTrue(((Item) item).getText().equals("shared"));
+			assertFalse(item.isDisposed());
+		}
+		assertMapped("parent2.child");
+
+		getTreeViewer().remove("parent1", new Object[] { "shared" });
+		getTreeViewer().remove("parent3", new Object[] { "shared" });
+		assertNull(fViewer.testFindItem("shared"));
+		assertEquals(0, fViewer.testFindItems("shared").length);
+		for (String parent : parents) {
+			assertMapped(parent);
+		}
+	}
+}
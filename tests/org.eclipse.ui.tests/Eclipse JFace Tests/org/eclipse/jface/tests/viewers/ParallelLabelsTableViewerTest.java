@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.viewers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.TableViewerColumn;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Tests the parallel computation of the labels of a virtual table viewer.
+ */
+public class ParallelLabelsTableViewerTest extends ViewerTestCase {
+
+	private static final int NUM_ROWS = 1000;
+
+	private String[] elements;
+
+	private final Set<Thread> labelThreads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+	/**
+	 * Counted down when a label is computed off the display thread. Until
+	 * then, the labels computed on the display thread wait for it, so that a
+	 * page is always split between several threads.
+	 */
+	private volatile CountDownLatch offDisplayThread = new CountDownLatch(1);
+
+	private boolean threadSafe = true;
+
+	private class TestColumnLabelProvider extends ColumnLabelProvider {
+		private final String prefix;
+
+		TestColumnLabelProvider(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public String getText(Object element) {
+			labelThreads.add(Thread.currentThread());
+			if (threadSafe) {
+				if (Thread.currentThread() == fDisplay.getThread()) {
+					try {
+						offDisplayThread.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				} else {
+					offDisplayThread.countDown();
+				}
+			}
+			return prefix + element;
+		}
+
+		@Override
+		public boolean isThreadSafe() {
+			return threadSafe;
+		}
+	}
+
+	public ParallelLabelsTableViewerTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected StructuredViewer createViewer(Composite parent) {
+		TableViewer viewer = new TableViewer(parent, SWT.VIRTUAL);
+		TableViewerColumn column = new TableViewerColumn(viewer, SWT.NONE);
+		column.getColumn().setWidth(100);
+		column.setLabelProvider(new TestColumnLabelProvider("a-"));
+		column = new TableViewerColumn(viewer, SWT.NONE);
+		column.getColumn().setWidth(100);
+		column.setLabelProvider(new TestColumnLabelProvider("b-"));
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		viewer.setUseParallelLabels(true);
+		return viewer;
+	}
+
+	@Override
+	protected void setInput() {
+		elements = new String[NUM_ROWS];
+		for (int i = 0; i < NUM_ROWS; i++) {
+			elements[i] = "element " + i;
+		}
+		fViewer.setInput(elements);
+	}
+
+	private Table getTable() {
+		return ((TableViewer) fViewer).getTable();
+	}
+
+	private void assertItem(int index) {
+		TableItem item = getTable().getItem(index);
+		// getting the text of a virtual item materializes it
+		assertEquals("a-" + elements[index], item.getText(0));
+		assertEquals("b-" + elements[index], item.getText(1));
+		assertSame(elements[index], item.getData());
+		assertSame(item, fViewer.testFindItem(elements[index]));
+	}
+
+	/**
+	 * Asserts that the labels of the materialized items have been computed at
+	 * least partly off the display thread.
+	 */
+	private void assertComputedInParallel() {
+		Set<Thread> threads = new HashSet<>(labelThreads);
+		threads.remove(fDisplay.getThread());
+		assertFalse("labels computed only on the display thread", threads.isEmpty());
+	}
+
+	/**
+	 * Returns the number of fully visible rows of the table.
+	 */
+	private int getVisibleRowCount() {
+		Table table = getTable();
+		return (table.getClientArea().height - table.getHeaderHeight()) / table.getItemHeight();
+	}
+
+	public void testLabels() {
+		processEvents();
+		assertComputedInParallel();
+		assertItem(0);
+		assertItem(1);
+		assertItem(NUM_ROWS / 2);
+		assertItem(NUM_ROWS - 1);
+	}
+
+	public void testRefresh() {
+		processEvents();
+		elements[0] = "changed";
+		fViewer.refresh();
+		processEvents();
+		assertItem(0);
+		assertItem(1);
+	}
+
+	public void testLazyContentProvider() {
+		fViewer.setInput(null);
+		fViewer.setContentProvider(new ILazyContentProvider() {
+			@Override
+			public void updateElement(int index) {
+				((TableViewer) fViewer).replace(elements[index], index);
+			}
+
+			@Override
+			public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+				// nothing
+			}
+		});
+		fViewer.setInput(elements);
+		((TableViewer) fViewer).setItemCount(NUM_ROWS);
+		processEvents();
+		assertItem(0);
+		assertItem(1);
+		assertItem(NUM_ROWS / 2);
+	}
+
+	public void testScrollBackwards() {
+		Table table = getTable();
+		int middle = NUM_ROWS / 2;
+		table.setTopIndex(middle);
+		processEvents();
+		int visibleRows = getVisibleRowCount();
+		assertTrue("table too small", visibleRows >= 4);
+		for (int i = middle; i < middle + visibleRows; i++) {
+			assertNotNull("item not materialized: " + i, table.getItem(i).getData());
+		}
+		labelThreads.clear();
+		offDisplayThread = new CountDownLatch(1);
+
+		// the items above the previous page are requested from the bottom up,
+		// and the first request must materialize all of them at once
+		int topIndex = middle - visibleRows / 2;
+		List<Integer> requests = new ArrayList<>();
+		List<Integer> missing = new ArrayList<>();
+		Listener listener = event -> {
+			requests.add(Integer.valueOf(table.indexOf((TableItem) event.item)));
+			for (int i = topIndex; i < middle; i++) {
+				if (table.getItem(i).getData() == null) {
+					missing.add(Integer.valueOf(i));
+				}
+			}
+		};
+		table.addListener(SWT.SetData, listener);
+		try {
+			table.setTopIndex(topIndex);
+			processEvents();
+		} finally {
+			table.removeListener(SWT.SetData, listener);
+		}
+		assertFalse("no item requested", requests.isEmpty());
+		assertEquals("items not materialized by the first request " + requests, Collections.emptyList(), missing);
+		assertComputedInParallel();
+		for (int i = topIndex; i <= middle; i++) {
+			assertItem(i);
+		}
+	}
+
+	public void testNotThreadSafe() {
+		threadSafe = false;
+		fViewer.refresh();
+		labelThreads.clear();
+		processEvents();
+		assertItem(0);
+		assertItem(NUM_ROWS / 2);
+		assertEquals(Collections.singleton(fDisplay.getThread()), labelThreads);
+	}
+}
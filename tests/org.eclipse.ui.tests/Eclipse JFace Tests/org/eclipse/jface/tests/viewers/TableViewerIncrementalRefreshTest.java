@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.viewers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.IElementComparer;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Tests the incremental refresh of a table viewer, which only updates the
+ * items of the changed elements.
+ */
+public class TableViewerIncrementalRefreshTest extends ViewerTestCase {
+
+	private static final int NUM_ROWS = 100;
+
+	/**
+	 * Rows are identified by their id; a row with a new name is a new instance
+	 * with the same id.
+	 */
+	private static class Row {
+		final int id;
+		final String name;
+
+		Row(int id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+	}
+
+	private List<Row> rows;
+
+	private int labelCount;
+
+	public TableViewerIncrementalRefreshTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected StructuredViewer createViewer(Composite parent) {
+		TableViewer viewer = new TableViewer(parent);
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		viewer.setLabelProvider(new LabelProvider() {
+			@Override
+			public String getText(Object element) {
+				labelCount++;
+				return ((Row) element).name;
+			}
+		});
+		viewer.setComparer(new IElementComparer() {
+			@Override
+			public boolean equals(Object a, Object b) {
+				return ((Row) a).id == ((Row) b).id;
+			}
+
+			@Override
+			public int hashCode(Object element) {
+				return ((Row) element).id;
+			}
+		});
+		viewer.setUseIncrementalRefresh(true);
+		return viewer;
+	}
+
+	@Override
+	protected void setInput() {
+		rows = new ArrayList<>();
+		for (int i = 0; i < NUM_ROWS; i++) {
+			rows.add(new Row(i, "row " + i));
+		}
+		fViewer.setInput(rows);
+	}
+
+	private Table getTable() {
+		return ((TableViewer) fViewer).getTable();
+	}
+
+	private void assertItems() {
+		Table table = getTable();
+		assertEquals(rows.size(), table.getItemCount());
+		for (int i = 0; i < rows.size(); i++) {
+			TableItem item = table.getItem(i);
+			assertSame(rows.get(i), item.getData());
+			assertEquals(rows.get(i).name, item.getText());
+			assertSame(item, fViewer.testFindItem(rows.get(i)));
+		}
+	}
+
+	public void testRefreshUnchanged() {
+		labelCount = 0;
+		fViewer.refresh();
+		assertEquals(0, labelCount);
+		assertItems();
+	}
+
+	public void testRefreshReplacedElement() {
+		rows.set(10, new Row(10, "changed"));
+		labelCount = 0;
+		fViewer.refresh();
+		assertEquals(1, labelCount);
+		assertItems();
+	}
+
+	public void testRefreshAddedAndRemovedElements() {
+		TableItem first = getTable().getItem(0);
+		rows.remove(50);
+		rows.remove(20);
+		rows.add(30, new Row(NUM_ROWS, "added"));
+		rows.add(new Row(NUM_ROWS + 1, "appended"));
+		labelCount = 0;
+		fViewer.refresh();
+		assertEquals(2, labelCount);
+		assertItems();
+		assertSame(first, getTable().getItem(0));
+	}
+
+	public void testRefreshMovedElement() {
+		TableItem first = getTable().getItem(0);
+		rows.add(rows.remove(5));
+		labelCount = 0;
+		fViewer.refresh();
+		assertEquals(1, labelCount);
+		assertItems();
+		assertSame(first, getTable().getItem(0));
+	}
+
+	public void testRefreshSwappedElements() {
+		Row row = rows.get(0);
+		rows.set(0, rows.get(NUM_ROWS - 1));
+		rows.set(NUM_ROWS - 1, row);
+		fViewer.refresh();
+		assertItems();
+	}
+
+	public void testRefreshDuplicateElements() {
+		rows.add(new Row(0, "row 0"));
+		fViewer.refresh();
+		assertEquals(rows.size(), getTable().getItemCount());
+		assertEquals("row 0", getTable().getItem(NUM_ROWS).getText());
+	}
+
+	public void testRefreshWithoutLabels() {
+		rows.set(10, new Row(10, "changed"));
+		labelCount = 0;
+		fViewer.refresh(false);
+		assertEquals(0, labelCount);
+		assertSame(rows.get(10), getTable().getItem(10).getData());
+	}
+}
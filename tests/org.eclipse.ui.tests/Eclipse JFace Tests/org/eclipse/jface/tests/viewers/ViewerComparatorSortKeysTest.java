@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.viewers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.eclipse.jface.viewers.ContentViewer;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.ViewerComparator;
+import org.eclipse.swt.widgets.Control;
+import org.junit.Test;
+
+/**
+ * Tests the sorting of {@link ViewerComparator} on precomputed sort keys: the
+ * elements must be sorted by category and label in the same order as the
+ * default sorting, which computes the labels of the elements for each
+ * comparison, and the keys must be computed once per element.
+ */
+public class ViewerComparatorSortKeysTest {
+
+	private static final int ELEMENTS = 1000;
+
+	private static final int CATEGORIES = 4;
+
+	/**
+	 * A viewer without a control, which only provides its label provider.
+	 */
+	private static class LabelViewer extends ContentViewer {
+		@Override
+		public Control getControl() {
+			return null;
+		}
+
+		@Override
+		public ISelection getSelection() {
+			return null;
+		}
+
+		@Override
+		public void refresh() {
+		}
+
+		@Override
+		public void setSelection(ISelection selection, boolean reveal) {
+		}
+	}
+
+	private static class CategoryComparator extends ViewerComparator {
+		private final boolean useSortKeys;
+
+		int categories;
+
+		CategoryComparator(Comparator<? super String> comparator, boolean useSortKeys) {
+			super(comparator);
+			this.useSortKeys = useSortKeys;
+		}
+
+		@Override
+		public int category(Object element) {
+			categories++;
+			return ((Integer) element).intValue() % CATEGORIES;
+		}
+
+		@Override
+		protected boolean useSortKeys() {
+			return useSortKeys;
+		}
+
+		Comparator<? super String> getStringComparator() {
+			return getComparator();
+		}
+	}
+
+	private final LabelViewer viewer = new LabelViewer();
+
+	private int labels;
+
+	private static Object[] createElements() {
+		Random random = new Random(42);
+		Object[] elements = new Object[ELEMENTS];
+		for (int i = 0; i < ELEMENTS; i++) {
+			elements[i] = Integer.valueOf(random.nextInt(ELEMENTS));
+		}
+		return elements;
+	}
+
+	private static String getLabel(Object element) {
+		int value = ((Integer) element).intValue();
+		// mixed case labels with accents, so that a collator and a plain
+		// string comparison sort them differently
+		return (value % 3 == 0 ? "\u00C9l\u00E9ment " : value % 3 == 1 ? "element " : "Element ") + value;
+	}
+
+	private void assertSortedOnKeys(Comparator<? super String> comparator) {
+		viewer.setLabelProvider(new LabelProvider() {
+			@Override
+			public String getText(Object element) {
+				labels++;
+				return getLabel(element);
+			}
+		});
+		Object[] elements = createElements();
+		Object[] expected = elements.clone();
+		Object[] actual = elements.clone();
+
+		CategoryComparator compareSorter = new CategoryComparator(comparator, false);
+		compareSorter.sort(viewer, expected);
+		assertTrue(labels > ELEMENTS);
+
+		labels = 0;
+		CategoryComparator keysSorter = new CategoryComparator(comparator, true);
+		keysSorter.sort(viewer, actual);
+		assertEquals("labels computed", ELEMENTS, labels);
+		assertEquals("categories computed", ELEMENTS, keysSorter.categories);
+
+		assertArrayEquals(expected, actual);
+		Comparator<? super String> stringComparator = keysSorter.getStringComparator();
+		for (int i = 1; i < actual.length; i++) {
+			int category = keysSorter.category(actual[i - 1]);
+			int nextCategory = keysSorter.category(actual[i]);
+			assertTrue(category <= nextCategory);
+			if (category == nextCategory) {
+				assertTrue(stringComparator.compare(getLabel(actual[i - 1]), getLabel(actual[i])) <= 0);
+			}
+		}
+	}
+
+	@Test
+	public void testCollator() {
+		assertSortedOnKeys(Collator.getInstance());
+	}
+
+	@Test
+	public void testStringComparator() {
+		assertSortedOnKeys(String.CASE_INSENSITIVE_ORDER);
+	}
+
+	@Test
+	public void testDefaultComparator() {
+		assertSortedOnKeys(null);
+	}
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.tests.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jface.internal.PersistentImageCache;
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.internal.WorkbenchImages;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that the image data of the images declared by
+ * <code>WorkbenchImages</code> and <code>SharedImages</code> at startup are
+ * read from the persistent image cache once it is warm.
+ */
+public class PersistentImageCacheStartupTest extends TestCase {
+
+	private File directory;
+
+	public PersistentImageCacheStartupTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		directory = Files.createTempDirectory("imagecache").toFile();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+		super.tearDown();
+	}
+
+	private static List<ImageDescriptor> getSharedImages() throws IllegalAccessException {
+		ISharedImages sharedImages = PlatformUI.getWorkbench().getSharedImages();
+		List<ImageDescriptor> descriptors = new ArrayList<>();
+		for (Field field : ISharedImages.class.getFields()) {
+			if (Modifier.isStatic(field.getModifiers()) && field.getName().startsWith("IMG_")
+					&& field.getAnnotation(Deprecated.class) == null) {
+				ImageDescriptor descriptor = sharedImages.getImageDescriptor((String) field.get(null));
+				if (descriptor != null) {
+					descriptors.add(descriptor);
+				}
+			}
+		}
+		return descriptors;
+	}
+
+	/**
+	 * Loads the image data of the given descriptors, at 100% and 200% zoom as
+	 * the workbench does on a high DPI monitor.
+	 */
+	private static List<ImageData> load(List<ImageDescriptor> descriptors) {
+		List<ImageData> result = new ArrayList<>();
+		for (ImageDescriptor descriptor : descriptors) {
+			result.add(descriptor.getImageData(100));
+			result.add(descriptor.getImageData(200));
+		}
+		return result;
+	}
+
+	private static void assertImageDataEquals(ImageData expected, ImageData actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.width, actual.width);
+		assertEquals(expected.height, actual.height);
+		assertEquals(expected.depth, actual.depth);
+		assertTrue(Arrays.equals(expected.data, actual.data));
+		assertTrue(Arrays.equals(expected.maskData, actual.maskData));
+		assertTrue(Arrays.equals(expected.alphaData, actual.alphaData));
+	}
+
+	private void assertCached(String name, List<ImageDescriptor> descriptors) throws IOException {
+		assertFalse(descriptors.isEmpty());
+		File cacheFile = new File(directory, name + ".cache");
+		List<ImageData> expected = load(descriptors);
+
+		PersistentImageCache.open(cacheFile);
+		try {
+			load(descriptors);
+		} finally {
+			PersistentImageCache.close();
+		}
+		assertTrue(cacheFile.isFile());
+		byte[] saved = Files.readAllBytes(cacheFile.toPath());
+
+		List<ImageData> actual;
+		PersistentImageCache.open(cacheFile);
+		try {
+			actual = load(descriptors);
+		} finally {
+			PersistentImageCache.close();
+		}
+		for (int i = 0; i < expected.size(); i++) {
+			assertImageDataEquals(expected.get(i), actual.get(i));
+		}
+		// an image missing from the cache would have been added to it, and
+		// the file rewritten
+		assertTrue(Arrays.equals(saved, Files.readAllBytes(cacheFile.toPath())));
+	}
+
+	public void testStartup() throws IllegalAccessException, IOException {
+		if (PersistentImageCache.getDefault() != null) {
+			// the cache is enabled for the workbench, it cannot be tested
+			return;
+		}
+		assertCached("WorkbenchImages", new ArrayList<>(WorkbenchImages.getDescriptors().values()));
+		assertCached("SharedImages", getSharedImages());
+	}
+}